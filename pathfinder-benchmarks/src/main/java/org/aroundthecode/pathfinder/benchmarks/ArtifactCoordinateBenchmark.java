@@ -0,0 +1,76 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare {@link ArtifactUtils#splitUniqueId} with {@link ArtifactCoordinate} parsing,
+ * and uniqueId concatenation with the cached coordinate identifier.
+ * Run with -prof gc to see allocation rate.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArtifactCoordinateBenchmark {
+
+	private static final int IDS = 1024;
+
+	private String[] ids;
+	private ArtifactCoordinate[] coordinates;
+	private int i = 0;
+
+	@Setup
+	public void setup() {
+		ids = new String[IDS];
+		coordinates = new ArtifactCoordinate[IDS];
+		for (int n = 0; n < IDS; n++) {
+			ids[n] = "org.aroundthecode.group" + (n % 16) + ":artifact-" + n + ":jar::1." + (n % 8) + ".0";
+			coordinates[n] = ArtifactCoordinate.parse(ids[n]);
+		}
+	}
+
+	private int next() {
+		i = (i + 1) & (IDS - 1);
+		return i;
+	}
+
+	@Benchmark
+	public ArtifactCoordinate coordinateParse() {
+		return ArtifactCoordinate.parse(ids[next()]);
+	}
+
+	@Benchmark
+	public Map<String, String> splitUniqueId() {
+		return ArtifactUtils.splitUniqueId(ids[next()]);
+	}
+
+	@Benchmark
+	public String legacyUniqueId() {
+		ArtifactCoordinate c = coordinates[next()];
+		return ArtifactUtils.getUniqueId(c.getGroupId(), c.getArtifactId(), c.getPackaging(), c.getClassifier(), c.getVersion());
+	}
+
+	@Benchmark
+	public String cachedUniqueId() {
+		return coordinates[next()].getUniqueId();
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.entity.exception.ArtifactMergeException;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse and merge artifacts whose dependency lists contain the same dependencies many times,
+ * as it happens when the same tree is uploaded by several builds.
+ * Cost must follow the amount of distinct dependencies, not the amount of repetitions.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArtifactMergeBenchmark {
+
+	private static final String ID = "org.aroundthecode:bench:jar::1.0.0";
+
+	@Param({"50"})
+	public int distinct;
+
+	@Param({"1", "10"})
+	public int repetitions;
+
+	private JSONObject json;
+	private Artifact master;
+	private Artifact merge;
+
+	@Setup
+	public void setup() {
+		json = artifactJSON(distinct, repetitions);
+		master = Artifact.parse(json);
+		merge = Artifact.parse(json);
+	}
+
+	@Benchmark
+	public Artifact parse() {
+		return Artifact.parse(json);
+	}
+
+	@Benchmark
+	public Artifact merge() throws ArtifactMergeException {
+		return Artifact.merge(master, merge);
+	}
+
+	@Benchmark
+	public JSONObject parseMergeToJSON() throws ArtifactMergeException {
+		Artifact a = Artifact.merge(Artifact.parse(json), Artifact.parse(json));
+		return a.toJSON();
+	}
+
+	/**
+	 * Build artifact JSON where every scope lists <b>distinct</b> dependencies, each repeated <b>repetitions</b> times
+	 */
+	@SuppressWarnings("unchecked")
+	static JSONObject artifactJSON(int distinct, int repetitions) {
+		JSONArray[] deps = new JSONArray[Dependency.values().length];
+		for (Dependency d : Dependency.values()) {
+			JSONArray a = new JSONArray();
+			for (int r = 0; r < repetitions; r++) {
+				for (int i = 0; i < distinct; i++) {
+					a.add("org.aroundthecode:" + d.name().toLowerCase() + "-" + i + ":jar::1." + (i % 4) + ".0");
+				}
+			}
+			deps[d.ordinal()] = a;
+		}
+		return ArtifactUtils.artifactJSON(ID, 1000L, "org.aroundthecode:parent:pom::1.0.0",
+				deps[Dependency.COMPILE.ordinal()],
+				deps[Dependency.IMPORT.ordinal()],
+				deps[Dependency.PROVIDED.ordinal()],
+				deps[Dependency.RUNTIME.ordinal()],
+				deps[Dependency.SYSTEM.ordinal()],
+				deps[Dependency.TEST.ordinal()]);
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks entry point, accepts all JMH command line options.
+ * Unless a different result format is given, results are written as JSON to <b>jmh-result.json</b>
+ * so they can be archived and compared among builds.
+ * @author msacchetti
+ *
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Default result file
+	 */
+	public static final String RESULT_FILE = "jmh-result.json";
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		if(cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers() || cmd.shouldListResultFormats() || cmd.shouldListWithParams()){
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if(!cmd.getResultFormat().hasValue()){
+			options.resultFormat(ResultFormatType.JSON);
+			if(!cmd.getResult().hasValue()){
+				options.result(RESULT_FILE);
+			}
+		}
+		new Runner(options.build()).run();
+	}
+
+}
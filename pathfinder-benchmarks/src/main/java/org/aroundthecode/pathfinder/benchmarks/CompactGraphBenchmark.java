@@ -0,0 +1,186 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.entity.exception.ArtifactMergeException;
+import org.aroundthecode.pathfinder.server.graph.CompactGraph;
+import org.aroundthecode.pathfinder.server.graph.CompactQueryEngine;
+import org.aroundthecode.pathfinder.server.repository.ArtifactGraphWriter;
+import org.aroundthecode.pathfinder.server.utils.QueryUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * filterall and impact queries answered by Cypher on embedded Neo4j and by {@link CompactGraph},
+ * both producing the JSON rows returned by the server, and startup time of the compact graph: load from the database
+ * vs map of a saved snapshot. Compact graph memory footprint and snapshot size are printed at setup.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompactGraphBenchmark {
+
+	private static final int BATCH = 500;
+	private static final int DEPTH = 3;
+
+	@Param({"2000", "20000"})
+	public int size;
+
+	@Param({"5"})
+	public int fanOut;
+
+	private File dir;
+	private GraphDatabaseService db;
+	private SyntheticGraph graph;
+	private CompactGraph compact;
+	private Path snapshot;
+	private final FilterItem all = new FilterItem();
+	private final FilterItem filter = new FilterItem();
+	private int next = 0;
+
+	@Setup
+	public void setup() throws IOException, ArtifactMergeException {
+		dir = Files.createTempDirectory("pathfinder-bench").toFile();
+		db = new GraphDatabaseFactory().newEmbeddedDatabase(dir.getAbsolutePath());
+		ArtifactGraphWriter writer = new ArtifactGraphWriter(db);
+		writer.ensureIndex();
+		graph = new SyntheticGraph(size, fanOut);
+		List<JSONObject> artifacts = graph.getArtifacts();
+		for (int i = 0; i < artifacts.size(); i += BATCH) {
+			try(Transaction tx = db.beginTx()){
+				for (JSONObject o : artifacts.subList(i, Math.min(i + BATCH, artifacts.size()))) {
+					writer.merge(Artifact.parse(o));
+				}
+				tx.success();
+			}
+		}
+		compact = CompactGraph.load(db);
+		System.out.println("Compact graph memory: " + compact.memory());
+		snapshot = dir.toPath().resolve("compactgraph.snapshot");
+		compact.save(snapshot);
+		System.out.println("Compact graph snapshot: " + Files.size(snapshot) + " bytes");
+
+		filter.setFilterAN1("artifact-1.*");
+		filter.setFilterVN2("1.0.0");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		db.shutdown();
+		FileUtils.deleteRecursively(dir);
+	}
+
+	@Benchmark
+	public int filterAllNeo4j() {
+		return rows(QueryUtils.getFilterAllQuery(filter)).size();
+	}
+
+	@Benchmark
+	public int filterAllCompact() {
+		return CompactQueryEngine.filterAll(compact, filter).size();
+	}
+
+	/**
+	 * Impact query with depth 3 on one of the most depended upon artifacts
+	 */
+	@Benchmark
+	public int impactNeo4j() {
+		ArtifactCoordinate c = root();
+		return rows(QueryUtils.getImpactQuery(DEPTH, c.getGroupId(), c.getArtifactId(), c.getPackaging(), c.getClassifier(), c.getVersion(), all)).size();
+	}
+
+	@Benchmark
+	public int impactCompact() {
+		ArtifactCoordinate c = root();
+		return CompactQueryEngine.impact(compact, DEPTH, c.getGroupId(), c.getArtifactId(), c.getPackaging(), c.getClassifier(), c.getVersion(), all).size();
+	}
+
+	/**
+	 * Full copy of the database into a new compact graph
+	 */
+	@Benchmark
+	public int load() {
+		return CompactGraph.load(db).edges();
+	}
+
+	/**
+	 * Warm start: map the snapshot saved by a previous run, to be compared with {@link #load()}
+	 */
+	@Benchmark
+	public int mapSnapshot() throws IOException {
+		return CompactGraph.map(snapshot).edges();
+	}
+
+	/**
+	 * Warm start followed by the first query, to be compared with {@link #impactNeo4j()} on a cold server
+	 */
+	@Benchmark
+	public int mapSnapshotAndImpact() throws IOException {
+		CompactGraph g = CompactGraph.map(snapshot);
+		ArtifactCoordinate c = root();
+		return CompactQueryEngine.impact(g, DEPTH, c.getGroupId(), c.getArtifactId(), c.getPackaging(), c.getClassifier(), c.getVersion(), all).size();
+	}
+
+	@Benchmark
+	public Path saveSnapshot() throws IOException {
+		compact.save(snapshot);
+		return snapshot;
+	}
+
+	private ArtifactCoordinate root() {
+		return ArtifactCoordinate.parse(graph.getUniqueIds().get(next++ % 10));
+	}
+
+	/**
+	 * Same mapping of the server Cypher path
+	 */
+	@SuppressWarnings("unchecked")
+	private JSONArray rows(String query) {
+		JSONArray out = new JSONArray();
+		try(Transaction tx = db.beginTx(); Result r = db.execute(query)){
+			while(r.hasNext()){
+				Map<String, Object> row = r.next();
+				JSONObject o = new JSONObject();
+				o.put("r", row.get("rel"));
+				o.put("n1", new Artifact((Node) row.get("node1")).toJSON());
+				o.put("n2", new Artifact((Node) row.get("node2")).toJSON());
+				out.add(o);
+			}
+			tx.success();
+		}
+		return out;
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.aroundthecode.pathfinder.client.rest.PathfinderClient;
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * filterall download and project upload of a {@link SyntheticGraph} through {@link PathfinderClient} against a local stub server,
+ * with and without gzip in both directions. Loopback has no bandwidth limit, so latency shows the cost of compressing
+ * while the bytes exchanged per operation, printed at tear down, show the bandwidth saved.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+	@Param({"2000"})
+	public int size;
+
+	@Param({"false", "true"})
+	public boolean compress;
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private PathfinderClient client;
+	private JSONArray upload;
+	private byte[] filterAll;
+	private byte[] filterAllGzip;
+	private final FilterItem filter = new FilterItem();
+
+	private final AtomicLong operations = new AtomicLong();
+	private final AtomicLong bytesIn = new AtomicLong();
+	private final AtomicLong bytesOut = new AtomicLong();
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		upload = new JSONArray();
+		upload.addAll(new SyntheticGraph(size, 5).getArtifacts());
+		filterAll = upload.toJSONString().getBytes(StandardCharsets.UTF_8);
+		filterAllGzip = gzip(filterAll);
+		System.out.println("Payload: " + filterAll.length + " bytes, gzip: " + filterAllGzip.length + " bytes ("
+				+ (100 * filterAllGzip.length / filterAll.length) + "%)");
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] request = read(exchange.getRequestBody());
+				bytesIn.addAndGet(request.length);
+				if("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))){
+					request = read(new GZIPInputStream(new ByteArrayInputStream(request)));
+				}
+				byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+				if(exchange.getRequestURI().getPath().contains("/query/filterall")){
+					String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+					if(compress && accept!=null && accept.contains("gzip")){
+						exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+						body = filterAllGzip;
+					}
+					else{
+						body = filterAll;
+					}
+				}
+				bytesOut.addAndGet(body.length);
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try(OutputStream out = exchange.getResponseBody()){
+					out.write(body);
+				}
+			}
+		});
+		executor = Executors.newFixedThreadPool(4);
+		server.setExecutor(executor);
+		server.start();
+
+		client = new PathfinderClient("http", "127.0.0.1", server.getAddress().getPort(), "/");
+		client.setCompressionThreshold(compress ? 1024 : -1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+		executor.shutdownNow();
+		long ops = Math.max(1, operations.get());
+		System.out.println("Bytes per operation, compress=" + compress + ": request " + bytesIn.get() / ops + ", response " + bytesOut.get() / ops);
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while((n = in.read(buffer)) != -1){
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(GZIPOutputStream gz = new GZIPOutputStream(out)){
+			gz.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public JSONArray filterAll() throws IOException {
+		operations.incrementAndGet();
+		return client.filterAll(filter);
+	}
+
+	@Benchmark
+	public JSONObject uploadProject() {
+		operations.incrementAndGet();
+		return client.uploadProject(upload);
+	}
+
+}
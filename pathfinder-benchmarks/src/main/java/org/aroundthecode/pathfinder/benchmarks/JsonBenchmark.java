@@ -0,0 +1,69 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aroundthecode.pathfinder.client.rest.utils.RestUtils;
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON conversion of Artifact entities: string to JSON, JSON to Artifact and back.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+	@Param({"5", "50"})
+	public int fanOut;
+
+	private JSONObject json;
+	private String jsonString;
+	private Artifact artifact;
+
+	@Setup
+	public void setup() {
+		SyntheticGraph g = new SyntheticGraph(1000, fanOut);
+		json = g.getArtifacts().get(g.jars() - 1);
+		jsonString = json.toJSONString();
+		artifact = Artifact.parse(json);
+	}
+
+	@Benchmark
+	public JSONObject string2Json() throws ParseException {
+		return RestUtils.string2Json(jsonString);
+	}
+
+	@Benchmark
+	public Artifact parse() {
+		return Artifact.parse(json);
+	}
+
+	@Benchmark
+	public JSONObject toJSON() {
+		return artifact.toJSON();
+	}
+
+	@Benchmark
+	public String toJSONString() {
+		return artifact.toJSON().toJSONString();
+	}
+
+}
@@ -0,0 +1,161 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.util.EncodingUtil;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.aroundthecode.pathfinder.client.rest.PathfinderClient;
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.manager.configuration.PathfinderConnectionConfiguration;
+import org.aroundthecode.tools.remote.api.AbstractUrlManager;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Client request throughput against a local stub server with logging written to file.
+ * INFO is the production level: hot path logs are DEBUG/TRACE so nothing is written per request,
+ * DEBUG and TRACE show the cost of per request logging as it was at INFO before.
+ * BEFORE is the baseline: INFO with the client per request lines of that time replayed, built by concatenation
+ * through the client logger: query string, POST parameters, headers and url.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+public class LoggingBenchmark {
+
+	@Param({"BEFORE", "INFO", "DEBUG", "TRACE"})
+	public String level;
+
+	private static final String BEFORE = "BEFORE";
+	private static final Logger clientLog = LogManager.getLogger(AbstractUrlManager.class.getName());
+	private static final NameValuePair[] HEADERS = {
+		new NameValuePair("Content-Type", "application/json"), new NameValuePair("Accept", "application/json")
+	};
+	private static final NameValuePair[] FILTER_PARAMS = {
+		new NameValuePair("gn1", ".*"), new NameValuePair("an1", ".*"), new NameValuePair("pn1", ".*"), new NameValuePair("cn1", ".*"), new NameValuePair("vn1", ".*"),
+		new NameValuePair("gn2", ".*"), new NameValuePair("an2", ".*"), new NameValuePair("pn2", ".*"), new NameValuePair("cn2", ".*"), new NameValuePair("vn2", ".*")
+	};
+
+	private boolean before;
+	private String baseUrl;
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private PathfinderClient client;
+	private JSONArray upload;
+	private final FilterItem filter = new FilterItem();
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		before = BEFORE.equals(level);
+		Configurator.setLevel("org.aroundthecode", before ? Level.INFO : Level.valueOf(level));
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] body = (exchange.getRequestURI().getPath().contains("/query/") ? "[]" : "{}").getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try(OutputStream out = exchange.getResponseBody()){
+					out.write(body);
+				}
+			}
+		});
+		executor = Executors.newFixedThreadPool(4);
+		server.setExecutor(executor);
+		server.start();
+
+		client = new PathfinderClient("http", "127.0.0.1", server.getAddress().getPort(), "/");
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		upload = new JSONArray();
+		for (JSONObject o : new SyntheticGraph(100, 5).getArtifacts().subList(0, 10)) {
+			upload.add(o);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public JSONObject getArtifact() throws IOException {
+		String uniqueId = SyntheticGraph.uniqueId(1);
+		if(before){
+			logBefore(PathfinderConnectionConfiguration.URL_NODE_GET, new NameValuePair[]{new NameValuePair("id", uniqueId)}, false);
+		}
+		return client.getArtifact(uniqueId);
+	}
+
+	@Benchmark
+	public JSONArray filterAll() throws IOException {
+		if(before){
+			logBefore(PathfinderConnectionConfiguration.URL_QUERY_FILTERALL, FILTER_PARAMS, false);
+		}
+		return client.filterAll(filter);
+	}
+
+	@Benchmark
+	public JSONObject uploadProject() {
+		if(before){
+			logBefore(PathfinderConnectionConfiguration.URL_NODE_UPLOAD, new NameValuePair[0], true);
+		}
+		return client.uploadProject(upload);
+	}
+
+	/**
+	 * Per request logging of the client before it was moved to DEBUG/TRACE
+	 */
+	private void logBefore(String path, NameValuePair[] params, boolean post) {
+		String url = baseUrl + path + PathfinderConnectionConfiguration.BASE_URL;
+		if(post){
+			for (NameValuePair nvp : params) {
+				clientLog.info("POST params:["+nvp.getName()+"="+nvp.getValue()+"]");
+			}
+		}
+		else{
+			String query = EncodingUtil.formUrlEncode(params, "UTF-8");
+			clientLog.info("QueryString:["+query+"]");
+			url += "?" + query;
+		}
+		for (NameValuePair nvp : HEADERS) {
+			clientLog.info("Header data:["+nvp.getName()+"="+nvp.getValue()+"]");
+		}
+		clientLog.info("url:["+url+"]");
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aroundthecode.tools.remote.api.AbstractUrlManager;
+import org.aroundthecode.tools.remote.api.auth.LoginHttpAuth;
+import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfiguration.AllowedProtocol;
+import org.aroundthecode.tools.remote.api.configuration.BasicConnectionConfiguration;
+import org.aroundthecode.tools.remote.api.response.StringResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Authenticated request throughput with {@link LoginHttpAuth} against a local stub login server.
+ * A session ttl of 0 logs in before every request as it was before session reuse, the default ttl logs in once.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LoginSessionBenchmark {
+
+	@Param({"0", "1800000"})
+	public long sessionTtl;
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private AbstractUrlManager urlManager;
+
+	@Setup
+	public void setup() throws IOException {
+		final AtomicInteger session = new AtomicInteger();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/login", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().add("Set-Cookie", "SID=" + session.incrementAndGet() + "; Path=/");
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			}
+		});
+		server.createContext("/api", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+				byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(cookie!=null && cookie.contains("SID=") ? 200 : 401, body.length);
+				try(OutputStream out = exchange.getResponseBody()){
+					out.write(body);
+				}
+			}
+		});
+		executor = Executors.newFixedThreadPool(4);
+		server.setExecutor(executor);
+		server.start();
+
+		LoginHttpAuth auth = new LoginHttpAuth("user", "pass", "/login");
+		auth.setSessionTtl(sessionTtl);
+		urlManager = new AbstractUrlManager(new BasicConnectionConfiguration(AllowedProtocol.HTTP, "127.0.0.1:" + server.getAddress().getPort())) {
+			@Override
+			public String getUrlPath() {
+				return "/api";
+			}
+		};
+		urlManager.setAuth(auth);
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public String authenticatedGet() throws IOException {
+		StringResponseParser parser = new StringResponseParser();
+		urlManager.doGet(parser);
+		return parser.getResponse();
+	}
+
+}
@@ -0,0 +1,163 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.entity.exception.ArtifactMergeException;
+import org.aroundthecode.pathfinder.server.repository.ArtifactGraphWriter;
+import org.aroundthecode.pathfinder.server.utils.QueryUtils;
+import org.json.simple.JSONObject;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end save and query against an embedded Neo4j database loaded with a {@link SyntheticGraph}.
+ * Database lives in a temporary folder and is dropped at the end of each trial.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Neo4jBenchmark {
+
+	private static final int BATCH = 500;
+
+	@Param({"2000", "20000"})
+	public int size;
+
+	@Param({"5"})
+	public int fanOut;
+
+	private File dir;
+	private GraphDatabaseService db;
+	private ArtifactGraphWriter writer;
+	private SyntheticGraph graph;
+	private final FilterItem filter = new FilterItem();
+	private int next = 0;
+	private int saved = 0;
+
+	@Setup
+	public void setup() throws IOException, ArtifactMergeException {
+		dir = Files.createTempDirectory("pathfinder-bench").toFile();
+		db = new GraphDatabaseFactory().newEmbeddedDatabase(dir.getAbsolutePath());
+		writer = new ArtifactGraphWriter(db);
+		writer.ensureIndex();
+		graph = new SyntheticGraph(size, fanOut);
+		List<JSONObject> artifacts = graph.getArtifacts();
+		for (int i = 0; i < artifacts.size(); i += BATCH) {
+			try(Transaction tx = db.beginTx()){
+				for (JSONObject o : artifacts.subList(i, Math.min(i + BATCH, artifacts.size()))) {
+					writer.merge(Artifact.parse(o));
+				}
+				tx.success();
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		db.shutdown();
+		FileUtils.deleteRecursively(dir);
+	}
+
+	/**
+	 * Re-save an already stored artifact, most common case when the same build runs again
+	 */
+	@Benchmark
+	public int saveExisting() throws ArtifactMergeException {
+		return save(graph.getArtifacts().get(nextIndex()));
+	}
+
+	/**
+	 * Save a new artifact depending on the same artifacts of an existing one
+	 */
+	@Benchmark
+	public int saveNew() throws ArtifactMergeException {
+		JSONObject o = graph.getArtifacts().get(nextIndex());
+		Artifact a = Artifact.parse(o);
+		a.setVersion("new-" + (saved++));
+		try(Transaction tx = db.beginTx()){
+			int created = writer.merge(a);
+			tx.success();
+			return created;
+		}
+	}
+
+	@Benchmark
+	public int findByUniqueId() {
+		Map<String, Object> params = new HashMap<>();
+		params.put("uniqueId", graph.getUniqueIds().get(nextIndex()));
+		return consume("MATCH (n:Artifact { uniqueId: {uniqueId} }) RETURN n", params);
+	}
+
+	/**
+	 * Impact query with depth 3 on one of the most depended upon artifacts
+	 */
+	@Benchmark
+	public int impactQuery() {
+		ArtifactCoordinate c = ArtifactCoordinate.parse(graph.getUniqueIds().get(next++ % 10));
+		String q = QueryUtils.getImpactQuery(3, c.getGroupId(), c.getArtifactId(), c.getPackaging(), c.getClassifier(), c.getVersion(), filter);
+		return consume(q, new HashMap<String, Object>());
+	}
+
+	@Benchmark
+	public int filterAllQuery() {
+		FilterItem f = new FilterItem();
+		f.setFilterAN1("artifact-1.*");
+		f.setFilterVN2("1.0.0");
+		return consume(QueryUtils.getFilterAllQuery(f), new HashMap<String, Object>());
+	}
+
+	private int save(JSONObject o) throws ArtifactMergeException {
+		try(Transaction tx = db.beginTx()){
+			int created = writer.merge(Artifact.parse(o));
+			tx.success();
+			return created;
+		}
+	}
+
+	private int consume(String query, Map<String, Object> params) {
+		int rows = 0;
+		try(Transaction tx = db.beginTx(); Result r = db.execute(query, params)){
+			while(r.hasNext()){
+				r.next();
+				rows++;
+			}
+			tx.success();
+		}
+		return rows;
+	}
+
+	private int nextIndex() {
+		next = (next + 1) % graph.jars();
+		return next;
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.server.utils.QueryUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cypher query building, executed on every query request.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildBenchmark {
+
+	@Param({"1", "3", "6"})
+	public int depth;
+
+	private final FilterItem filter = new FilterItem();
+
+	@Benchmark
+	public String impactQuery() {
+		return QueryUtils.getImpactQuery(depth, "org.synthetic.group26", "artifact-123", "jar", "", "1.4.0", filter);
+	}
+
+	@Benchmark
+	public String filterAllQuery() {
+		return QueryUtils.getFilterAllQuery(filter);
+	}
+
+}
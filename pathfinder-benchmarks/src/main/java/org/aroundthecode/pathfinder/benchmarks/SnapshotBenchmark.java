@@ -0,0 +1,86 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.aroundthecode.pathfinder.client.rest.utils.BinarySnapshot;
+import org.aroundthecode.pathfinder.client.rest.utils.RestUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Export and import of a {@link SyntheticGraph} as JSON, the <b>/node/download</b> format, and as {@link BinarySnapshot}.
+ * Sizes of both encodings are printed at setup.
+ * @author msacchetti
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+
+	@Param({"5000"})
+	public int size;
+
+	private List<JSONObject> artifacts;
+	private byte[] json;
+	private byte[] binary;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		artifacts = new SyntheticGraph(size, 5).getArtifacts();
+		JSONArray a = new JSONArray();
+		a.addAll(artifacts);
+		json = a.toJSONString().getBytes(StandardCharsets.UTF_8);
+		binary = writeBinary();
+		System.out.println("Artifacts: " + artifacts.size() + ", json: " + json.length + " bytes, binary: " + binary.length
+				+ " bytes (" + (100 * binary.length / json.length) + "%)");
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public byte[] writeJson() {
+		JSONArray a = new JSONArray();
+		a.addAll(artifacts);
+		return a.toJSONString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public byte[] writeBinary() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinarySnapshot.write(artifacts, out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public JSONArray readJson() throws IOException, ParseException {
+		return RestUtils.string2JSONArray(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+	}
+
+	@Benchmark
+	public JSONArray readBinary() throws IOException {
+		return BinarySnapshot.read(new ByteArrayInputStream(binary));
+	}
+
+}
@@ -0,0 +1,174 @@
+package org.aroundthecode.pathfinder.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Deterministic Maven-like dependency graph generator.
+ * <ul>
+ * <li><b>version families</b>: each groupId:artifactId is released in {@link #VERSIONS} versions, index i is family i/VERSIONS version i%VERSIONS</li>
+ * <li><b>power-law fan-in</b>: dependencies only point to older families, picked as f*u^{@link #SKEW} with u uniform in [0,1),
+ * so a few "core" families collect most of the incoming edges as it happens with commons libraries</li>
+ * <li><b>version drift</b>: most dependencies use the latest version of a family, the others an older one</li>
+ * <li><b>parent chains</b>: every artifact has its group parent pom, every group parent has the corporate parent pom</li>
+ * </ul>
+ * Jar artifacts come first in creation order, dependencies always precede dependents, parent poms are appended at the end.
+ * @author msacchetti
+ *
+ */
+public class SyntheticGraph {
+
+	/**
+	 * Versions per artifact family
+	 */
+	public static final int VERSIONS = 3;
+
+	/**
+	 * Amount of distinct groupIds
+	 */
+	public static final int GROUPS = 97;
+
+	/**
+	 * Exponent of the fan-in skew, higher values concentrate more edges on first families
+	 */
+	public static final double SKEW = 3d;
+
+	/**
+	 * Corporate parent pom, root of every parent chain
+	 */
+	public static final String CORPORATE_PARENT = ArtifactUtils.getUniqueId("org.synthetic", "corporate-parent", "pom", "", "1.0.0");
+
+	private static final long SEED = 42L;
+
+	private final List<String> ids;
+	private final List<JSONObject> artifacts;
+	private final int jars;
+
+	/**
+	 * Generate a graph
+	 * @param size amount of jar artifacts, parent poms are added on top
+	 * @param fanOut average amount of dependencies per artifact
+	 */
+	public SyntheticGraph(int size, int fanOut) {
+		Random rnd = new Random(SEED);
+		jars = size;
+		ids = new ArrayList<>(size + GROUPS + 1);
+		artifacts = new ArrayList<>(size + GROUPS + 1);
+		for (int i = 0; i < size; i++) {
+			ids.add(uniqueId(i));
+		}
+		for (int i = 0; i < size; i++) {
+			artifacts.add(artifact(i, fanOut, rnd));
+		}
+		int groups = Math.min(GROUPS, size / VERSIONS + 1);
+		for (int g = 0; g < groups; g++) {
+			String id = groupParent(g);
+			ids.add(id);
+			artifacts.add(ArtifactUtils.artifactJSON(id, 1000L, CORPORATE_PARENT));
+		}
+		ids.add(CORPORATE_PARENT);
+		artifacts.add(ArtifactUtils.artifactJSON(CORPORATE_PARENT, 1000L, null));
+	}
+
+	/**
+	 * @return artifacts JSON in creation order
+	 */
+	public List<JSONObject> getArtifacts() {
+		return artifacts;
+	}
+
+	/**
+	 * @return artifacts unique identifiers in creation order
+	 */
+	public List<String> getUniqueIds() {
+		return ids;
+	}
+
+	/**
+	 * @return amount of artifacts, parent poms included
+	 */
+	public int size() {
+		return ids.size();
+	}
+
+	/**
+	 * @return amount of jar artifacts, they are the first ones in creation order
+	 */
+	public int jars() {
+		return jars;
+	}
+
+	/**
+	 * Unique identifier of the i-th generated jar artifact
+	 * @param i artifact index
+	 * @return uniqueId
+	 */
+	public static String uniqueId(int i) {
+		int family = i / VERSIONS;
+		return ArtifactUtils.getUniqueId("org.synthetic.group" + (family % GROUPS), "artifact-" + family, "jar", "", "1." + (i % VERSIONS) + ".0");
+	}
+
+	/**
+	 * Unique identifier of the parent pom of given group
+	 * @param group group index
+	 * @return uniqueId
+	 */
+	public static String groupParent(int group) {
+		return ArtifactUtils.getUniqueId("org.synthetic.group" + group, "parent", "pom", "", "1.0.0");
+	}
+
+	@SuppressWarnings("unchecked")
+	private JSONObject artifact(int i, int fanOut, Random rnd) {
+		int family = i / VERSIONS;
+		Set<String> seen = new LinkedHashSet<>();
+		JSONArray[] scopes = new JSONArray[Dependency.values().length];
+		for (Dependency d : Dependency.values()) {
+			scopes[d.ordinal()] = new JSONArray();
+		}
+		if(family > 0){
+			int deps = rnd.nextInt(fanOut * 2 + 1);
+			for (int d = 0; d < deps; d++) {
+				int targetFamily = (int) (Math.pow(rnd.nextDouble(), SKEW) * family);
+				// 70% latest version, the others spread among older ones
+				int version = rnd.nextInt(10) < 7 ? VERSIONS - 1 : rnd.nextInt(VERSIONS);
+				String id = ids.get(targetFamily * VERSIONS + version);
+				if(seen.add(id)){
+					scopes[scope(rnd).ordinal()].add(id);
+				}
+			}
+		}
+		return ArtifactUtils.artifactJSON(ids.get(i), 1000L, groupParent(family % GROUPS),
+				scopes[Dependency.COMPILE.ordinal()],
+				scopes[Dependency.IMPORT.ordinal()],
+				scopes[Dependency.PROVIDED.ordinal()],
+				scopes[Dependency.RUNTIME.ordinal()],
+				scopes[Dependency.SYSTEM.ordinal()],
+				scopes[Dependency.TEST.ordinal()]);
+	}
+
+	/**
+	 * 70% compile, 15% test, 10% runtime, 5% provided
+	 */
+	private static Dependency scope(Random rnd) {
+		int r = rnd.nextInt(20);
+		if(r < 14){
+			return Dependency.COMPILE;
+		}
+		if(r < 17){
+			return Dependency.TEST;
+		}
+		if(r < 19){
+			return Dependency.RUNTIME;
+		}
+		return Dependency.PROVIDED;
+	}
+
+}
@@ -0,0 +1,101 @@
+package org.aroundthecode.pathfinder.benchmarks.load;
+
+import java.util.Arrays;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Latency samples and error count collected for a single endpoint during a load phase
+ * @author msacchetti
+ *
+ */
+public class EndpointStats {
+
+	private static final double NANOS_PER_MS = 1000000d;
+
+	private final String name;
+	private long[] samples = new long[1024];
+	private int count = 0;
+	private int errors = 0;
+	private long elapsed = 0;
+
+	/**
+	 * @param name endpoint name used in reports
+	 */
+	public EndpointStats(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Record a single request
+	 * @param nanos request latency in nanoseconds
+	 * @param ok false if the request failed
+	 */
+	public synchronized void record(long nanos, boolean ok) {
+		if(count == samples.length){
+			samples = Arrays.copyOf(samples, count * 2);
+		}
+		samples[count++] = nanos;
+		if(!ok){
+			errors++;
+		}
+	}
+
+	/**
+	 * @param nanos wall clock duration of the whole phase
+	 */
+	public synchronized void setElapsed(long nanos) {
+		this.elapsed = nanos;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return requests per second over the whole phase
+	 */
+	public synchronized double getThroughput() {
+		return elapsed == 0 ? 0 : count / (elapsed / 1000000000d);
+	}
+
+	/**
+	 * @param p percentile in range (0,100]
+	 * @return latency in milliseconds, nearest-rank method
+	 */
+	public synchronized double getPercentile(double p) {
+		if(count == 0){
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(p / 100d * count);
+		return sorted[Math.max(rank, 1) - 1] / NANOS_PER_MS;
+	}
+
+	/**
+	 * @return one line human readable summary
+	 */
+	public synchronized String summary() {
+		return String.format("%-10s requests=%-7d errors=%-5d throughput=%9.1f/s p50=%8.2fms p90=%8.2fms p99=%8.2fms max=%8.2fms",
+				name, count, errors, getThroughput(), getPercentile(50), getPercentile(90), getPercentile(99), getPercentile(100));
+	}
+
+	/**
+	 * @return JSON summary, latencies in milliseconds
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized JSONObject toJSON() {
+		JSONObject o = new JSONObject();
+		o.put("endpoint", name);
+		o.put("requests", count);
+		o.put("errors", errors);
+		o.put("throughput", getThroughput());
+		o.put("p50", getPercentile(50));
+		o.put("p90", getPercentile(90));
+		o.put("p99", getPercentile(99));
+		o.put("max", getPercentile(100));
+		return o;
+	}
+
+}
@@ -0,0 +1,257 @@
+package org.aroundthecode.pathfinder.benchmarks.load;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aroundthecode.pathfinder.benchmarks.SyntheticGraph;
+import org.aroundthecode.pathfinder.client.rest.PathfinderClient;
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.server.Application;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.neo4j.io.fs.FileUtils;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test for Pathfinder REST server.
+ * <p>Generates a {@link SyntheticGraph}, uploads it via <b>/node/upload</b> and then drives <b>/node/depends</b>,
+ * <b>/query/filterall</b> and <b>/query/impact</b> through {@link PathfinderClient} with a fixed amount of concurrent workers.
+ * Each endpoint is loaded in its own phase, throughput and latency percentiles are printed per endpoint.</p>
+ * <p>Options are given as key=value arguments, see {@link #DEFAULTS}. With embedded=true the server is started in the same JVM
+ * on a fresh database, no external service is needed.</p>
+ * <pre>java -cp benchmarks.jar org.aroundthecode.pathfinder.benchmarks.load.LoadTestHarness embedded=true threads=16 size=20000</pre>
+ * @author msacchetti
+ *
+ */
+public class LoadTestHarness {
+
+	/**
+	 * Default options
+	 */
+	public static final String[][] DEFAULTS = {
+		{"host", "localhost"},
+		{"port", "8081"},
+		{"embedded", "false"},
+		{"threads", "8"},
+		{"size", "5000"},
+		{"fanOut", "5"},
+		{"batch", "100"},
+		{"requests", "2000"},
+		{"depth", "3"},
+		{"report", ""},
+	};
+
+	private final Map<String, String> options;
+	private final SyntheticGraph graph;
+	private final FilterItem any = new FilterItem();
+	private PathfinderClient client;
+
+	/**
+	 * Task executed by workers, one call per request
+	 */
+	interface Request {
+		/**
+		 * @param i request index
+		 * @param rnd worker random generator
+		 * @return false if request failed
+		 * @throws IOException on connection errors, counted as failures
+		 */
+		boolean execute(int i, Random rnd) throws IOException;
+	}
+
+	/**
+	 * @param options harness options
+	 */
+	public LoadTestHarness(Map<String, String> options) {
+		this.options = options;
+		this.graph = new SyntheticGraph(intOption("size"), intOption("fanOut"));
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (String[] d : DEFAULTS) {
+			options.put(d[0], d[1]);
+		}
+		for (String a : args) {
+			int eq = a.indexOf('=');
+			if(eq < 0 || !options.containsKey(a.substring(0, eq))){
+				System.err.println("Unknown option [" + a + "], available options: " + options.keySet());
+				System.exit(1);
+			}
+			options.put(a.substring(0, eq), a.substring(eq + 1));
+		}
+
+		ConfigurableApplicationContext ctx = null;
+		if(Boolean.parseBoolean(options.get("embedded"))){
+			ctx = startEmbeddedServer(options.get("port"));
+			options.put("host", "localhost");
+		}
+		try {
+			new LoadTestHarness(options).run();
+		}
+		finally {
+			if(ctx!=null){
+				ctx.close();
+			}
+		}
+	}
+
+	/**
+	 * Run all phases and print report
+	 * @return stats for each endpoint
+	 * @throws IOException if server is not reachable or report cannot be written
+	 * @throws InterruptedException if interrupted while waiting for workers
+	 */
+	public List<EndpointStats> run() throws IOException, InterruptedException {
+		client = new PathfinderClient("http", options.get("host"), intOption("port"), "/");
+		System.out.println(String.format("Synthetic graph: %d artifacts, %d threads", graph.size(), intOption("threads")));
+
+		List<EndpointStats> stats = new ArrayList<>();
+		stats.add(upload());
+		stats.add(depends());
+		stats.add(filterAll());
+		stats.add(impact());
+
+		System.out.println("----");
+		for (EndpointStats s : stats) {
+			System.out.println(s.summary());
+		}
+		writeReport(stats);
+		return stats;
+	}
+
+	private EndpointStats upload() throws InterruptedException {
+		final int batch = intOption("batch");
+		final List<JSONObject> artifacts = graph.getArtifacts();
+		int batches = (artifacts.size() + batch - 1) / batch;
+		return phase("upload", batches, new Request() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean execute(int i, Random rnd) {
+				JSONArray a = new JSONArray();
+				a.addAll(artifacts.subList(i * batch, Math.min((i + 1) * batch, artifacts.size())));
+				return client.uploadProject(a) != null;
+			}
+		});
+	}
+
+	private EndpointStats depends() throws InterruptedException {
+		return phase("depends", intOption("requests"), new Request() {
+			@Override
+			public boolean execute(int i, Random rnd) throws IOException {
+				int from = 1 + rnd.nextInt(graph.jars() - 1);
+				int to = rnd.nextInt(from);
+				return client.createDependency(graph.getUniqueIds().get(from), graph.getUniqueIds().get(to), Dependency.RUNTIME.name()) != null;
+			}
+		});
+	}
+
+	private EndpointStats filterAll() throws InterruptedException {
+		return phase("filterall", intOption("requests"), new Request() {
+			@Override
+			public boolean execute(int i, Random rnd) throws IOException {
+				FilterItem f = new FilterItem();
+				f.setFilterAN1("artifact-" + rnd.nextInt(graph.jars() / SyntheticGraph.VERSIONS));
+				return client.filterAll(f) != null;
+			}
+		});
+	}
+
+	private EndpointStats impact() throws InterruptedException {
+		final int depth = intOption("depth");
+		// first 5% of artifacts are the most depended upon ones
+		final int popular = Math.max(1, graph.jars() / 20);
+		return phase("impact", intOption("requests"), new Request() {
+			@Override
+			public boolean execute(int i, Random rnd) throws IOException {
+				ArtifactCoordinate c = ArtifactCoordinate.parse(graph.getUniqueIds().get(rnd.nextInt(popular)));
+				return client.impact(depth, c.getGroupId(), c.getArtifactId(), c.getPackaging(), c.getClassifier(), c.getVersion(), any) != null;
+			}
+		});
+	}
+
+	/**
+	 * Execute <b>total</b> requests using <b>threads</b> workers, each worker pulls the next request index until all are done
+	 */
+	private EndpointStats phase(String name, final int total, final Request request) throws InterruptedException {
+		final EndpointStats stats = new EndpointStats(name);
+		final AtomicInteger next = new AtomicInteger();
+		int threads = intOption("threads");
+		List<Thread> workers = new ArrayList<>(threads);
+		for (int t = 0; t < threads; t++) {
+			final long seed = t;
+			workers.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Random rnd = new Random(seed);
+					int i;
+					while( (i = next.getAndIncrement()) < total ){
+						long start = System.nanoTime();
+						boolean ok;
+						try {
+							ok = request.execute(i, rnd);
+						} catch (IOException e) {
+							ok = false;
+						}
+						stats.record(System.nanoTime() - start, ok);
+					}
+				}
+			}, "load-" + name + "-" + t));
+		}
+		System.out.println(String.format("Running [%s], %d requests", name, total));
+		long start = System.nanoTime();
+		for (Thread w : workers) {
+			w.start();
+		}
+		for (Thread w : workers) {
+			w.join();
+		}
+		stats.setElapsed(System.nanoTime() - start);
+		System.out.println(stats.summary());
+		return stats;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeReport(List<EndpointStats> stats) throws IOException {
+		String report = options.get("report");
+		if(report.isEmpty()){
+			return;
+		}
+		JSONObject o = new JSONObject();
+		o.putAll(options);
+		JSONArray endpoints = new JSONArray();
+		for (EndpointStats s : stats) {
+			endpoints.add(s.toJSON());
+		}
+		o.put("endpoints", endpoints);
+		try(Writer w = new FileWriter(report)){
+			o.writeJSONString(w);
+		}
+		System.out.println("Report written to " + report);
+	}
+
+	/**
+	 * Start Pathfinder server in current JVM on a fresh database, as {@link Application#main(String[])} does
+	 */
+	private static ConfigurableApplicationContext startEmbeddedServer(String port) throws IOException {
+		FileUtils.deleteRecursively(new File(ConfigurationManager.getNeo4jDbPath()));
+		return SpringApplication.run(Application.class, "--server.port=" + port);
+	}
+
+	private int intOption(String key) {
+		return Integer.parseInt(options.get(key));
+	}
+
+}
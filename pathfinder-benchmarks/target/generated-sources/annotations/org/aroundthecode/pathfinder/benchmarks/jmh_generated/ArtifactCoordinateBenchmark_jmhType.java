@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class ArtifactCoordinateBenchmark_jmhType extends ArtifactCoordinateBenchmark_jmhType_B3 {
+}
+
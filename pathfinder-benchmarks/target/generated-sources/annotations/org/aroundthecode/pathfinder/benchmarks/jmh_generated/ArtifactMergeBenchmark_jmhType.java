@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class ArtifactMergeBenchmark_jmhType extends ArtifactMergeBenchmark_jmhType_B3 {
+}
+
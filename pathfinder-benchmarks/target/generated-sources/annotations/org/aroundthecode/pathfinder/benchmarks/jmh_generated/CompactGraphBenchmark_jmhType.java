@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class CompactGraphBenchmark_jmhType extends CompactGraphBenchmark_jmhType_B3 {
+}
+
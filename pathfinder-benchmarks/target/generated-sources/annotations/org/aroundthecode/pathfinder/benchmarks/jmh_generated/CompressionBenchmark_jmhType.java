@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class CompressionBenchmark_jmhType extends CompressionBenchmark_jmhType_B3 {
+}
+
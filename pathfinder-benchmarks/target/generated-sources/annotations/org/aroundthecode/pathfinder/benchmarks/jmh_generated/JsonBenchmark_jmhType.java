@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class JsonBenchmark_jmhType extends JsonBenchmark_jmhType_B3 {
+}
+
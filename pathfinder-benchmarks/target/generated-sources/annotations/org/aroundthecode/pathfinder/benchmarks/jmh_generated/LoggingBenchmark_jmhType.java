@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class LoggingBenchmark_jmhType extends LoggingBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class LoginSessionBenchmark_jmhType extends LoginSessionBenchmark_jmhType_B3 {
+}
+
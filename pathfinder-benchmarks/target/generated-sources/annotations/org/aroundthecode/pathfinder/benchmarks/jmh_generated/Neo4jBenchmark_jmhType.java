@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class Neo4jBenchmark_jmhType extends Neo4jBenchmark_jmhType_B3 {
+}
+
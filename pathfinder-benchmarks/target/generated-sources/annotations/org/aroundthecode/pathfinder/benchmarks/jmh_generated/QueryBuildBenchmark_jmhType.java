@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class QueryBuildBenchmark_jmhType extends QueryBuildBenchmark_jmhType_B3 {
+}
+
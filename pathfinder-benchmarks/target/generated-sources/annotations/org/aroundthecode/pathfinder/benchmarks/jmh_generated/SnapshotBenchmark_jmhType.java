@@ -0,0 +1,4 @@
+package org.aroundthecode.pathfinder.benchmarks.jmh_generated;
+public class SnapshotBenchmark_jmhType extends SnapshotBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,342 @@
+package org.aroundthecode.pathfinder.bulkloader;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.client.rest.utils.BinarySnapshot;
+import org.aroundthecode.tools.remote.api.response.JsonItemHandler;
+import org.aroundthecode.tools.remote.api.response.JsonStreamResponseParser;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+import org.neo4j.unsafe.batchinsert.BatchRelationship;
+
+/**
+ * Offline loader writing exports straight into a new embedded store, the same store pathfinder-server opens at
+ * <b>pathfinder.neo4j.db.path</b>, with the server stopped. The server keeps the store at startup unless
+ * <b>pathfinder.neo4j.db.reset</b> is set.
+ * <p>Exports are JSON arrays from <b>/node/download</b> or binary snapshots from <b>/node/snapshot</b>; JSON is streamed
+ * one artifact at a time and snapshots are decoded to compact tables, so memory does not grow with the export text.
+ * Artifacts go through the Neo4j batch inserter: no transactions, no Cypher and a single uniqueId to node id map,
+ * instead of one HTTP request and one transaction per artifact as in <b>/node/upload</b>.</p>
+ * <p>The graph is the one <b>/node/upload</b> would build: <code>:Artifact:_Artifact</code> nodes, one relation per scope
+ * from each dependency to the artifact and a PARENT relation to the parent. An artifact repeated across exports keeps its first
+ * parent, a different one is reported as failed as on the server. The <code>:Artifact(uniqueId)</code> index is populated when
+ * the server next opens the store.</p>
+ * <p>Artifacts can also be read from the POMs of a Maven repository on disk, see {@link RepositoryScanner}, in place of
+ * crawling them one Maven run at a time.</p>
+ * <p>Options are given as key=value arguments, see {@link #DEFAULTS}.</p>
+ * <pre>java -jar bulkloader.jar store=/data/pathfinder.db input=pathfinder.json,other.pfs
+ * java -jar bulkloader.jar store=/data/pathfinder.db repository=/home/me/.m2/repository</pre>
+ * @author msacchetti
+ *
+ */
+public class BulkLoader implements Closeable {
+
+	private static final Logger log = LogManager.getLogger(BulkLoader.class.getName());
+
+	/**
+	 * Default options
+	 */
+	public static final String[][] DEFAULTS = {
+		{"store", ""},
+		{"input", ""},
+		{"format", "auto"},
+		{"pagecache", "1g"},
+		{"repository", ""},
+		{"threads", String.valueOf(Runtime.getRuntime().availableProcessors())},
+	};
+
+	private static final Label ARTIFACT = DynamicLabel.label("Artifact");
+	private static final Label ARTIFACT_TYPE = DynamicLabel.label("_Artifact");
+	private static final RelationshipType PARENT = DynamicRelationshipType.withName("PARENT");
+	private static final String UNIQUE_ID = "uniqueId";
+	private static final int PROGRESS_STEP = 100000;
+
+	private final BatchInserter inserter;
+	private final Map<String, Long> nodes = new HashMap<>();
+	private final Set<Long> declared = new HashSet<>();
+	private final Map<String, Object> noProperties = new HashMap<>();
+	private final long now = System.currentTimeMillis();
+
+	private long artifacts = 0;
+	private long failed = 0;
+	private long relations = 0;
+
+	private final JsonItemHandler handler = new JsonItemHandler() {
+		@Override
+		public boolean item(Object item) {
+			add((JSONObject) item);
+			return true;
+		}
+	};
+
+	/**
+	 * Open a new store
+	 * @param store store directory, must not hold a store yet
+	 * @param pageCache page cache size, e.g. <code>1g</code>
+	 * @throws IOException if directory already holds a store
+	 */
+	public BulkLoader(File store, String pageCache) throws IOException {
+		if(new File(store, "neostore").exists()){
+			throw new IOException("[" + store + "] already holds a store, bulk load only creates new ones");
+		}
+		Map<String, String> config = new HashMap<>();
+		config.put("dbms.pagecache.memory", pageCache);
+		inserter = BatchInserters.inserter(store.getAbsolutePath(), config);
+		inserter.createDeferredSchemaIndex(ARTIFACT).on(UNIQUE_ID).create();
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new HashMap<>();
+		for (String[] d : DEFAULTS) {
+			options.put(d[0], d[1]);
+		}
+		for (String a : args) {
+			int eq = a.indexOf('=');
+			if(eq < 0 || !options.containsKey(a.substring(0, eq))){
+				System.err.println("Unknown option [" + a + "], available options: " + options.keySet());
+				System.exit(1);
+			}
+			options.put(a.substring(0, eq), a.substring(eq + 1));
+		}
+		if(options.get("store").isEmpty() || options.get("input").isEmpty() && options.get("repository").isEmpty()){
+			System.err.println("Usage: store=<store directory> [input=<export file>[,<export file>..]] [repository=<maven repository>] "
+					+ "[format=auto|json|binary] [pagecache=1g] [threads=n]");
+			System.exit(1);
+		}
+
+		long start = System.currentTimeMillis();
+		JSONObject summary;
+		try(BulkLoader loader = new BulkLoader(new File(options.get("store")), options.get("pagecache"))){
+			if(!options.get("repository").isEmpty()){
+				loader.scan(new File(options.get("repository")), Integer.parseInt(options.get("threads")));
+			}
+			for (String input : options.get("input").split(",")) {
+				if(!input.trim().isEmpty()){
+					loader.load(new File(input.trim()), options.get("format"));
+				}
+			}
+			summary = loader.summary();
+		}
+		log.info("Loaded {} in [{}]ms", summary, System.currentTimeMillis() - start);
+		if(((Number) summary.get("fail")).longValue() > 0){
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Load an export file
+	 * @param input export file
+	 * @param format <b>json</b>, <b>binary</b> or <b>auto</b> to detect binary snapshots by their header
+	 * @return amount of artifacts read from file
+	 * @throws IOException if file cannot be read or parsed; artifacts read so far stay in the store
+	 */
+	public long load(File input, String format) throws IOException {
+		long start = System.currentTimeMillis();
+		long before = artifacts;
+		try(InputStream in = new BufferedInputStream(new FileInputStream(input), 1 << 16)){
+			if(isBinary(in, format)){
+				BinarySnapshot.read(in, input.length(), handler);
+			}
+			else{
+				new JsonStreamResponseParser(handler).parse(in);
+			}
+		}
+		log.info("[{}] artifacts read from [{}] in [{}]ms", artifacts - before, input, System.currentTimeMillis() - start);
+		return artifacts - before;
+	}
+
+	/**
+	 * Scan a Maven repository on disk and load the artifacts of its POMs, see {@link RepositoryScanner}
+	 * @param repository repository root, e.g. <b>~/.m2/repository</b>
+	 * @param threads amount of threads parsing POMs
+	 * @return amount of artifacts found in repository
+	 * @throws IOException if repository cannot be walked
+	 */
+	public long scan(File repository, int threads) throws IOException {
+		long start = System.currentTimeMillis();
+		long before = artifacts;
+		RepositoryScanner scanner = new RepositoryScanner(repository.toPath().toAbsolutePath().normalize(), threads);
+		scanner.scan(handler);
+		log.info("[{}] artifacts scanned from [{}] in [{}]ms, {}", artifacts - before, repository, System.currentTimeMillis() - start, scanner.summary());
+		return artifacts - before;
+	}
+
+	private static boolean isBinary(InputStream in, String format) throws IOException {
+		if(!"auto".equals(format)){
+			return "binary".equals(format);
+		}
+		in.mark(4);
+		byte[] magic = new byte[4];
+		int n = in.read(magic);
+		in.reset();
+		return n==4 && magic[0]=='P' && magic[1]=='F' && magic[2]=='S' && magic[3]=='N';
+	}
+
+	/**
+	 * Add one artifact with its parent and dependency relations
+	 * @param o JSON representation of the artifact, see {@link ArtifactUtils#artifactJSON}
+	 * @return false if artifact was rejected
+	 */
+	public boolean add(JSONObject o) {
+		artifacts++;
+		if(artifacts % PROGRESS_STEP == 0){
+			log.info("Load progress [{}] artifacts, [{}] nodes, [{}] relations, [{}] failed", artifacts, nodes.size(), relations, failed);
+		}
+
+		ArtifactCoordinate c = ArtifactCoordinate.parse(String.valueOf(o.get(ArtifactUtils.U)));
+		if(c==null){
+			return fail(o, "invalid uniqueId");
+		}
+		Object ts = o.get(ArtifactUtils.T);
+		long n = node(c, ts!=null ? Long.parseLong(ts.toString()) : now, true);
+		boolean repeated = !declared.add(n);
+
+		Object pn = o.get(ArtifactUtils.PN);
+		if(pn!=null){
+			ArtifactCoordinate pc = ArtifactCoordinate.parse(pn.toString());
+			if(pc==null){
+				return fail(o, "invalid parent [" + pn + "]");
+			}
+			Long stored = repeated ? parent(n) : null;
+			if(stored==null){
+				inserter.createRelationship(n, node(pc, now, false), PARENT, noProperties);
+				relations++;
+			}
+			else if(!stored.equals(nodes.get(pc.getUniqueId()))){
+				return fail(o, "parent [" + pc.getUniqueId() + "] differs from stored one");
+			}
+		}
+
+		JSONObject deps = (JSONObject) o.get(ArtifactUtils.D);
+		if(deps==null){
+			return true;
+		}
+		for (Dependency scope : Dependency.values()) {
+			JSONArray d = (JSONArray) deps.get(scope.toString());
+			if(d==null || d.isEmpty()){
+				continue;
+			}
+			RelationshipType type = DynamicRelationshipType.withName(scope.name());
+			Set<Long> existing = repeated ? dependencies(n, type) : new HashSet<Long>();
+			for (Object uid : d) {
+				ArtifactCoordinate dc = ArtifactCoordinate.parse(String.valueOf(uid));
+				if(dc==null){
+					log.warn("Skipping invalid [{}] dependency [{}] of [{}]", scope, uid, c.getUniqueId());
+					continue;
+				}
+				long dn = node(dc, now, false);
+				if(existing.add(dn)){
+					inserter.createRelationship(dn, n, type, noProperties);
+					relations++;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean fail(JSONObject o, String reason) {
+		failed++;
+		log.error("Could not load [{}]: {}", o.get(ArtifactUtils.U), reason);
+		return false;
+	}
+
+	/**
+	 * Get or create the node of a coordinate
+	 * @param c coordinate
+	 * @param timestamp node timestamp
+	 * @param declare true for an artifact of the export, whose timestamp replaces the one of a node created as a reference
+	 * @return node id
+	 */
+	private long node(ArtifactCoordinate c, long timestamp, boolean declare) {
+		Long id = nodes.get(c.getUniqueId());
+		if(id==null){
+			id = inserter.createNode(properties(c, timestamp), ARTIFACT, ARTIFACT_TYPE);
+			nodes.put(c.getUniqueId(), id);
+		}
+		else if(declare && !declared.contains(id)){
+			inserter.setNodeProperty(id, "timestamp", timestamp);
+		}
+		return id;
+	}
+
+	private static Map<String, Object> properties(ArtifactCoordinate c, long timestamp) {
+		Map<String, Object> m = new HashMap<>();
+		m.put(UNIQUE_ID, c.getUniqueId());
+		m.put("groupId", c.getGroupId());
+		m.put("artifactId", c.getArtifactId());
+		m.put("packaging", c.getPackaging());
+		m.put("classifier", c.getClassifier());
+		m.put("version", c.getVersion());
+		m.put("timestamp", timestamp);
+		return m;
+	}
+
+	/**
+	 * @return parent node id of an already loaded artifact, null if none
+	 */
+	private Long parent(long n) {
+		for (BatchRelationship r : inserter.getRelationships(n)) {
+			if(r.getStartNode()==n && PARENT.name().equals(r.getType().name())){
+				return r.getEndNode();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return dependency node ids of an already loaded artifact in a scope
+	 */
+	private Set<Long> dependencies(long n, RelationshipType type) {
+		Set<Long> out = new HashSet<>();
+		for (BatchRelationship r : inserter.getRelationships(n)) {
+			if(r.getEndNode()==n && type.name().equals(r.getType().name())){
+				out.add(r.getStartNode());
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * @return a JSONObject with total artifacts read, amount of successful and failed ones, created nodes and relations
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject summary() {
+		JSONObject o = new JSONObject();
+		o.put("total", artifacts);
+		o.put("success", artifacts - failed);
+		o.put("fail", failed);
+		o.put("nodes", nodes.size());
+		o.put("relations", relations);
+		return o;
+	}
+
+	/**
+	 * Flush and close the store, required for it to be usable
+	 */
+	@Override
+	public void close() {
+		log.info("Flushing store");
+		inserter.shutdown();
+	}
+
+}
@@ -0,0 +1,679 @@
+package org.aroundthecode.pathfinder.bulkloader;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.tools.remote.api.response.JsonItemHandler;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Scanner of a Maven repository on disk, e.g. <b>~/.m2/repository</b> or a mirror, producing the artifacts the crawler
+ * would upload without forking Maven for each of them.
+ * <p>POMs are found walking the repository layout <code>groupId/artifactId/version/artifactId-version.pom</code> and are
+ * parsed and resolved on a pool of threads. Parents and imported BOMs are read from the same tree, so properties, inherited
+ * dependencies and managed versions and scopes are resolved offline. Only declared dependencies are reported, transitive
+ * ones are the graph's business.</p>
+ * <p>Dependencies whose version cannot be resolved from the tree (missing parent or BOM, unknown property, version range)
+ * are skipped and counted as unresolved. Parent coordinates are interpolated with the child properties, e.g.
+ * <code>${revision}</code>; a parent still not resolved is not reported and counted as unresolved too.</p>
+ * @author msacchetti
+ *
+ */
+public class RepositoryScanner {
+
+	private static final Logger log = LogManager.getLogger(RepositoryScanner.class.getName());
+
+	private static final String POM = "pom";
+	private static final String POM_EXT = ".pom";
+	private static final int MAX_DEPTH = 32;
+	private static final int MAX_INTERPOLATION = 16;
+	/**
+	 * Artifacts waiting to be handled for each thread, bounds memory when handler is slower than parsing
+	 */
+	private static final int PENDING_PER_THREAD = 64;
+	private static final Pom MISSING = new Pom();
+
+	private static final ThreadLocal<DocumentBuilder> BUILDER = new ThreadLocal<DocumentBuilder>() {
+		@Override
+		protected DocumentBuilder initialValue() {
+			DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+			f.setValidating(false);
+			f.setNamespaceAware(false);
+			try {
+				f.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+				return f.newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	};
+
+	private final Path root;
+	private final int threads;
+	/**
+	 * Parents and BOMs by groupId:artifactId:version, the only POMs referenced by others, cached when first referenced
+	 */
+	private final ConcurrentHashMap<String, Pom> poms = new ConcurrentHashMap<>();
+
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong unresolved = new AtomicLong();
+	private long found = 0;
+	private long artifacts = 0;
+
+	/**
+	 * @param root repository root directory
+	 * @param threads amount of parsing threads
+	 */
+	public RepositoryScanner(Path root, int threads) {
+		this.root = root;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Scan the repository
+	 * @param handler receives the JSON representation of each artifact, see {@link ArtifactUtils#artifactJSON}, always
+	 * from the calling thread
+	 * @return amount of artifacts handled
+	 * @throws IOException if repository cannot be walked or handler fails
+	 */
+	public long scan(JsonItemHandler handler) throws IOException {
+		long before = artifacts;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			Walker walker = new Walker(new ExecutorCompletionService<JSONObject>(pool), handler);
+			Files.walkFileTree(root, walker);
+			while(walker.pending > 0 && walker.next()){
+				// drain
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return artifacts - before;
+	}
+
+	/**
+	 * Submits each POM of the layout while walking, handling results as soon as too many are pending
+	 */
+	private class Walker extends SimpleFileVisitor<Path> {
+
+		private final CompletionService<JSONObject> done;
+		private final JsonItemHandler handler;
+		private int pending = 0;
+		private boolean stopped = false;
+
+		Walker(CompletionService<JSONObject> done, JsonItemHandler handler) {
+			this.done = done;
+			this.handler = handler;
+		}
+
+		@Override
+		public FileVisitResult visitFile(final Path file, BasicFileAttributes attrs) throws IOException {
+			if(stopped){
+				return FileVisitResult.TERMINATE;
+			}
+			if(!isLayoutPom(file)){
+				return FileVisitResult.CONTINUE;
+			}
+			found++;
+			final long timestamp = attrs.lastModifiedTime().toMillis();
+			done.submit(new Callable<JSONObject>() {
+				@Override
+				public JSONObject call() {
+					return artifact(file, timestamp);
+				}
+			});
+			pending++;
+			while(pending > threads * PENDING_PER_THREAD){
+				if(!next()){
+					return FileVisitResult.TERMINATE;
+				}
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFileFailed(Path file, IOException e) {
+			log.warn("Cannot read [{}]: {}", file, e.getMessage());
+			return FileVisitResult.CONTINUE;
+		}
+
+		/**
+		 * Wait for one result and handle it
+		 * @return false if handler asked to stop
+		 */
+		boolean next() throws IOException {
+			if(stopped){
+				return false;
+			}
+			Future<JSONObject> f;
+			try {
+				f = done.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Repository scan interrupted");
+			}
+			pending--;
+			JSONObject o;
+			try {
+				o = f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Repository scan interrupted");
+			} catch (ExecutionException e) {
+				failed.incrementAndGet();
+				log.error("Could not scan artifact", e.getCause());
+				return true;
+			}
+			if(o!=null){
+				artifacts++;
+				stopped = !handler.item(o);
+			}
+			return !stopped;
+		}
+	}
+
+	/**
+	 * @return true for <code>artifactId/version/artifactId-version.pom</code> files, skipping timestamped snapshots and other files
+	 */
+	private boolean isLayoutPom(Path file) {
+		String name = file.getFileName().toString();
+		if(!name.endsWith(POM_EXT)){
+			return false;
+		}
+		Path version = file.getParent();
+		Path artifact = version!=null ? version.getParent() : null;
+		// at least one groupId directory above artifactId
+		if(artifact==null || !artifact.startsWith(root) || root.relativize(artifact).getNameCount() < 2){
+			return false;
+		}
+		return name.equals(artifact.getFileName() + "-" + version.getFileName() + POM_EXT);
+	}
+
+	/**
+	 * Resolve one POM found by the walk
+	 * @return artifact JSON representation, null if POM cannot be parsed
+	 */
+	private JSONObject artifact(Path file, long timestamp) {
+		Path version = file.getParent();
+		Path artifact = version.getParent();
+		String g = root.relativize(artifact.getParent()).toString().replace(File.separatorChar, '.');
+		String key = gav(g, artifact.getFileName().toString(), version.getFileName().toString());
+		// reuse parents and BOMs already referenced, other POMs are not kept
+		Pom p = poms.get(key);
+		if(p==null || p==MISSING){
+			try {
+				p = parse(file);
+			} catch (IOException | SAXException | RuntimeException e) {
+				failed.incrementAndGet();
+				log.warn("Cannot parse [{}]: {}", file, e.getMessage());
+				return null;
+			}
+		}
+		return resolve(p, timestamp);
+	}
+
+	/**
+	 * Get a parent or BOM POM from the repository
+	 * @return POM, null if not in repository or not valid
+	 */
+	private Pom pom(String groupId, String artifactId, String version) {
+		String key = gav(groupId, artifactId, version);
+		Pom p = poms.get(key);
+		if(p==null){
+			p = MISSING;
+			Path file = root.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version).resolve(artifactId + "-" + version + POM_EXT);
+			if(Files.isRegularFile(file)){
+				try {
+					p = parse(file);
+				} catch (IOException | SAXException | RuntimeException e) {
+					log.warn("Cannot parse [{}]: {}", file, e.getMessage());
+				}
+			}
+			Pom previous = poms.putIfAbsent(key, p);
+			if(previous!=null){
+				p = previous;
+			}
+		}
+		return p==MISSING ? null : p;
+	}
+
+	private static String gav(String groupId, String artifactId, String version) {
+		return groupId + ":" + artifactId + ":" + version;
+	}
+
+	/**
+	 * Build the artifact JSON representation with parent and declared dependencies
+	 * @return artifact JSON representation, null if its own coordinates cannot be resolved
+	 */
+	private JSONObject resolve(Pom p, long timestamp) {
+		Model m = model(p, 0);
+		Map<String, String> context = context(p, m.properties);
+		String g = interpolate(p.groupId, context);
+		String a = interpolate(p.artifactId, context);
+		String v = interpolate(p.version, context);
+		String packaging = interpolate(p.packaging, context);
+		if(!valid(g) || !valid(a) || !valid(v) || !valid(packaging)){
+			failed.incrementAndGet();
+			log.warn("Cannot resolve coordinates of [{}:{}:{}]", p.groupId, p.artifactId, p.version);
+			return null;
+		}
+		String uniqueId = ArtifactUtils.getUniqueId(g, a, packaging, "", v);
+		String parent = null;
+		if(p.parent!=null){
+			String[] pg = parent(p, context);
+			if(pg!=null){
+				parent = ArtifactUtils.getUniqueId(pg[0], pg[1], POM, "", pg[2]);
+			}
+			else{
+				unresolved.incrementAndGet();
+				log.debug("Unresolved parent [{}] of [{}]", gav(p.parent[0], p.parent[1], p.parent[2]), uniqueId);
+			}
+		}
+
+		JSONArray[] scopes = new JSONArray[Dependency.values().length];
+		for (int i = 0; i < scopes.length; i++) {
+			scopes[i] = new JSONArray();
+		}
+		Map<String, Dep> managed = null;
+		Set<String> seen = new HashSet<>();
+		for (Dep raw : m.dependencies) {
+			Dep d = raw.interpolate(context);
+			if((d.version==null || d.scope==null) && managed==null){
+				managed = managed(m, context, 0);
+			}
+			Dep md = managed!=null ? managed.get(d.key()) : null;
+			String version = d.version!=null ? d.version : md!=null ? md.version : null;
+			String scope = d.scope!=null ? d.scope : md!=null && md.scope!=null ? md.scope : "compile";
+			if(!valid(d.groupId) || !valid(d.artifactId) || !valid(version) || version.startsWith("[") || version.startsWith("(")){
+				unresolved.incrementAndGet();
+				log.debug("Unresolved dependency [{}:{}:{}] of [{}]", d.groupId, d.artifactId, version, uniqueId);
+				continue;
+			}
+			Dependency type;
+			try {
+				type = Dependency.valueOf(scope.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				unresolved.incrementAndGet();
+				log.debug("Unknown scope [{}] of [{}:{}] in [{}]", scope, d.groupId, d.artifactId, uniqueId);
+				continue;
+			}
+			// child declarations come first and override inherited ones
+			if(type!=Dependency.IMPORT && seen.add(d.key())){
+				add(scopes[type.ordinal()], ArtifactUtils.getUniqueId(d.groupId, d.artifactId, d.type, d.classifier, version));
+			}
+		}
+		return ArtifactUtils.artifactJSON(uniqueId, timestamp, parent,
+				scopes[Dependency.COMPILE.ordinal()], scopes[Dependency.IMPORT.ordinal()], scopes[Dependency.PROVIDED.ordinal()],
+				scopes[Dependency.RUNTIME.ordinal()], scopes[Dependency.SYSTEM.ordinal()], scopes[Dependency.TEST.ordinal()]);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void add(JSONArray a, String uniqueId) {
+		a.add(uniqueId);
+	}
+
+	private static boolean valid(String s) {
+		return s!=null && !s.isEmpty() && s.indexOf("${")<0 && s.indexOf(':')<0;
+	}
+
+	/**
+	 * Interpolated parent coordinates
+	 * @return groupId, artifactId and version, null if not valid
+	 */
+	private static String[] parent(Pom p, Map<String, String> context) {
+		String[] out = new String[p.parent.length];
+		for (int i = 0; i < out.length; i++) {
+			out[i] = interpolate(p.parent[i], context);
+			if(!valid(out[i])){
+				return null;
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Inherited model of a POM, memoized on cached parents. The parent is looked up with coordinates interpolated
+	 * with the POM own properties, the only ones known before the parent is read
+	 */
+	private Model model(Pom p, int depth) {
+		Model m = p.model;
+		if(m==null){
+			Model parent = null;
+			if(p.parent!=null){
+				String[] pg = parent(p, context(p, p.properties));
+				Pom pp = pg!=null && depth < MAX_DEPTH ? pom(pg[0], pg[1], pg[2]) : null;
+				if(pp!=null){
+					parent = model(pp, depth + 1);
+				}
+				else{
+					log.debug("Parent [{}] of [{}:{}] not in repository", gav(p.parent[0], p.parent[1], p.parent[2]), p.groupId, p.artifactId);
+				}
+			}
+			m = new Model(p, parent);
+			p.model = m;
+		}
+		return m;
+	}
+
+	/**
+	 * Properties and project coordinates used to interpolate a POM
+	 */
+	private static Map<String, String> context(Pom p, Map<String, String> properties) {
+		Map<String, String> c = new HashMap<>(properties);
+		for (String prefix : new String[]{"project.", "pom.", ""}) {
+			putIfNotNull(c, prefix + "groupId", p.groupId);
+			putIfNotNull(c, prefix + "artifactId", p.artifactId);
+			putIfNotNull(c, prefix + "version", p.version);
+			putIfNotNull(c, prefix + "packaging", p.packaging);
+			if(p.parent!=null){
+				putIfNotNull(c, prefix + "parent.groupId", p.parent[0]);
+				putIfNotNull(c, prefix + "parent.artifactId", p.parent[1]);
+				putIfNotNull(c, prefix + "parent.version", p.parent[2]);
+			}
+		}
+		return c;
+	}
+
+	private static void putIfNotNull(Map<String, String> m, String key, String value) {
+		if(value!=null){
+			m.put(key, value);
+		}
+	}
+
+	/**
+	 * Replace <code>${property}</code> references, unknown ones are left in place
+	 */
+	static String interpolate(String s, Map<String, String> context) {
+		if(s==null || s.indexOf("${")<0){
+			return s;
+		}
+		String out = s;
+		for (int pass = 0; pass < MAX_INTERPOLATION && out.indexOf("${")>=0; pass++) {
+			StringBuilder sb = new StringBuilder(out.length());
+			int from = 0;
+			boolean changed = false;
+			int start;
+			while((start = out.indexOf("${", from))>=0){
+				int end = out.indexOf('}', start + 2);
+				if(end<0){
+					break;
+				}
+				String value = context.get(out.substring(start + 2, end));
+				sb.append(out, from, start);
+				if(value!=null){
+					sb.append(value);
+					changed = true;
+				}
+				else{
+					sb.append(out, start, end + 1);
+				}
+				from = end + 1;
+			}
+			sb.append(out, from, out.length());
+			out = sb.toString();
+			if(!changed){
+				break;
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Managed dependencies by groupId:artifactId:type:classifier, declared ones first and then the imported BOMs in order
+	 */
+	private Map<String, Dep> managed(Model m, Map<String, String> context, int depth) {
+		Map<String, Dep> out = new HashMap<>();
+		List<Dep> imports = new ArrayList<>();
+		for (Dep raw : m.managed) {
+			Dep d = raw.interpolate(context);
+			if("import".equals(d.scope) && POM.equals(d.type)){
+				imports.add(d);
+			}
+			else if(!out.containsKey(d.key())){
+				out.put(d.key(), d);
+			}
+		}
+		for (Dep d : imports) {
+			Map<String, Dep> bom = bom(d, depth);
+			if(bom==null){
+				continue;
+			}
+			for (Map.Entry<String, Dep> e : bom.entrySet()) {
+				if(!out.containsKey(e.getKey())){
+					out.put(e.getKey(), e.getValue());
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Managed dependencies of an imported BOM, memoized on the BOM
+	 * @return managed dependencies, null if BOM cannot be resolved
+	 */
+	private Map<String, Dep> bom(Dep d, int depth) {
+		if(!valid(d.groupId) || !valid(d.artifactId) || !valid(d.version) || depth >= MAX_DEPTH){
+			log.debug("Unresolved BOM [{}:{}:{}]", d.groupId, d.artifactId, d.version);
+			return null;
+		}
+		Pom bom = pom(d.groupId, d.artifactId, d.version);
+		if(bom==null){
+			log.debug("BOM [{}] not in repository", gav(d.groupId, d.artifactId, d.version));
+			return null;
+		}
+		Map<String, Dep> managed = bom.managedDependencies;
+		if(managed==null){
+			Model m = model(bom, 0);
+			managed = managed(m, context(bom, m.properties), depth + 1);
+			bom.managedDependencies = managed;
+		}
+		return managed;
+	}
+
+	/**
+	 * Parse the elements of a POM used by the scanner
+	 */
+	private static Pom parse(Path file) throws IOException, SAXException {
+		Document doc;
+		try(InputStream in = new BufferedInputStream(Files.newInputStream(file))){
+			doc = BUILDER.get().parse(in);
+		}
+		Pom p = new Pom();
+		for (Element e : children(doc.getDocumentElement())) {
+			switch (e.getNodeName()) {
+			case "groupId":
+				p.groupId = text(e);
+				break;
+			case "artifactId":
+				p.artifactId = text(e);
+				break;
+			case "version":
+				p.version = text(e);
+				break;
+			case "packaging":
+				p.packaging = text(e);
+				break;
+			case "parent":
+				p.parent = new String[]{child(e, "groupId"), child(e, "artifactId"), child(e, "version")};
+				break;
+			case "properties":
+				for (Element property : children(e)) {
+					p.properties.put(property.getNodeName(), text(property));
+				}
+				break;
+			case "dependencies":
+				dependencies(e, p.dependencies);
+				break;
+			case "dependencyManagement":
+				for (Element deps : children(e)) {
+					if("dependencies".equals(deps.getNodeName())){
+						dependencies(deps, p.managed);
+					}
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		if(p.parent!=null){
+			if(p.groupId==null){
+				p.groupId = p.parent[0];
+			}
+			if(p.version==null){
+				p.version = p.parent[2];
+			}
+		}
+		return p;
+	}
+
+	private static void dependencies(Element e, List<Dep> out) {
+		for (Element d : children(e)) {
+			if("dependency".equals(d.getNodeName())){
+				out.add(new Dep(child(d, "groupId"), child(d, "artifactId"), child(d, "version"),
+						child(d, "type"), child(d, "classifier"), child(d, "scope")));
+			}
+		}
+	}
+
+	private static List<Element> children(Element e) {
+		List<Element> out = new ArrayList<>();
+		for (Node n = e.getFirstChild(); n!=null; n = n.getNextSibling()) {
+			if(n.getNodeType()==Node.ELEMENT_NODE){
+				out.add((Element) n);
+			}
+		}
+		return out;
+	}
+
+	private static String child(Element e, String name) {
+		for (Node n = e.getFirstChild(); n!=null; n = n.getNextSibling()) {
+			if(n.getNodeType()==Node.ELEMENT_NODE && name.equals(n.getNodeName())){
+				return text((Element) n);
+			}
+		}
+		return null;
+	}
+
+	private static String text(Element e) {
+		String s = e.getTextContent().trim();
+		return s.isEmpty() ? null : s;
+	}
+
+	/**
+	 * @return a JSONObject with POMs found, artifacts handled, failed POMs and unresolved dependencies
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject summary() {
+		JSONObject o = new JSONObject();
+		o.put("poms", found);
+		o.put("artifacts", artifacts);
+		o.put("fail", failed.get());
+		o.put("unresolved", unresolved.get());
+		return o;
+	}
+
+	/**
+	 * Elements of a POM, as declared
+	 */
+	private static final class Pom {
+		String groupId;
+		String artifactId;
+		String version;
+		String packaging = "jar";
+		String[] parent;
+		final Map<String, String> properties = new HashMap<>();
+		final List<Dep> dependencies = new ArrayList<>();
+		final List<Dep> managed = new ArrayList<>();
+		volatile Model model;
+		volatile Map<String, Dep> managedDependencies;
+	}
+
+	/**
+	 * POM merged with its parents, not interpolated: child properties override parent ones, child declarations come first
+	 */
+	private static final class Model {
+		final Map<String, String> properties;
+		final List<Dep> dependencies;
+		final List<Dep> managed;
+
+		Model(Pom p, Model parent) {
+			properties = parent!=null ? new HashMap<>(parent.properties) : new HashMap<String, String>();
+			properties.putAll(p.properties);
+			dependencies = new ArrayList<>(p.dependencies);
+			managed = new ArrayList<>(p.managed);
+			if(parent!=null){
+				dependencies.addAll(parent.dependencies);
+				managed.addAll(parent.managed);
+			}
+		}
+	}
+
+	/**
+	 * Dependency or managed dependency declaration
+	 */
+	private static final class Dep {
+		final String groupId;
+		final String artifactId;
+		final String version;
+		final String type;
+		final String classifier;
+		final String scope;
+
+		Dep(String groupId, String artifactId, String version, String type, String classifier, String scope) {
+			this.groupId = groupId;
+			this.artifactId = artifactId;
+			this.version = version;
+			this.type = type!=null ? type : "jar";
+			this.classifier = classifier!=null ? classifier : "";
+			this.scope = scope;
+		}
+
+		Dep interpolate(Map<String, String> context) {
+			return new Dep(RepositoryScanner.interpolate(groupId, context), RepositoryScanner.interpolate(artifactId, context),
+					RepositoryScanner.interpolate(version, context), RepositoryScanner.interpolate(type, context),
+					RepositoryScanner.interpolate(classifier, context), RepositoryScanner.interpolate(scope, context));
+		}
+
+		String key() {
+			return groupId + ":" + artifactId + ":" + type + ":" + classifier;
+		}
+	}
+
+}
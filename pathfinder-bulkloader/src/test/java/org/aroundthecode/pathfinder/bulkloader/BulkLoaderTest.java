@@ -0,0 +1,130 @@
+package org.aroundthecode.pathfinder.bulkloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.BinarySnapshot;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+
+public class BulkLoaderTest {
+
+	private static final String APP = "my.group:app:jar::1.0.0";
+	private static final String LIB = "my.group:lib:jar::2.0.0";
+	private static final String POM = "my.group:parent:pom::1.0.0";
+	private static final String OTHER_POM = "my.group:other:pom::1.0.0";
+
+	private File dir;
+
+	@Before
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("pathfinder-bulkloader").toFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteRecursively(dir);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONArray uids(String... uids) {
+		JSONArray a = new JSONArray();
+		Collections.addAll(a, uids);
+		return a;
+	}
+
+	private static JSONObject app(String parent, String... compile) {
+		return ArtifactUtils.artifactJSON(APP, 1000L, parent, uids(compile), new JSONArray(), new JSONArray(),
+				new JSONArray(), new JSONArray(), uids("junit:junit:jar::4.12"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testLoad() throws IOException {
+		JSONArray json = new JSONArray();
+		json.add(app(POM, LIB));
+		json.add(ArtifactUtils.artifactJSON(LIB, 2000L, null));
+		File jsonFile = new File(dir, "export.json");
+		Files.write(jsonFile.toPath(), json.toJSONString().getBytes(StandardCharsets.UTF_8));
+
+		// repeated artifact with one more dependency, and one with a different parent
+		List<JSONObject> more = new ArrayList<>();
+		more.add(app(POM, LIB, "my.group:extra:jar::1.0.0"));
+		more.add(app(OTHER_POM));
+		File binaryFile = new File(dir, "export.pfs");
+		try(OutputStream out = new FileOutputStream(binaryFile)){
+			BinarySnapshot.write(more, out);
+		}
+
+		File store = new File(dir, "store");
+		JSONObject summary;
+		try(BulkLoader loader = new BulkLoader(store, "64m")){
+			assertEquals(2, loader.load(jsonFile, "auto"));
+			assertEquals(2, loader.load(binaryFile, "auto"));
+			summary = loader.summary();
+		}
+		assertEquals(4L, summary.get("total"));
+		assertEquals(1L, summary.get("fail"));
+		assertEquals(5, summary.get("nodes"));
+
+		GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabase(store.getAbsolutePath());
+		try(Transaction tx = db.beginTx()){
+			assertEquals(5L, count(db, "MATCH (n:Artifact:_Artifact) RETURN count(n) AS c"));
+			assertEquals(1L, count(db, "MATCH (:Artifact { uniqueId: '" + APP + "' })-[:PARENT]->(p { uniqueId: '" + POM + "' }) RETURN count(p) AS c"));
+			assertEquals(2L, count(db, "MATCH (d)-[:COMPILE]->(:Artifact { uniqueId: '" + APP + "' }) RETURN count(d) AS c"));
+			assertEquals(1L, count(db, "MATCH (d)-[:TEST]->(:Artifact { uniqueId: '" + APP + "' }) RETURN count(d) AS c"));
+
+			Node lib = db.findNode(DynamicLabel.label("Artifact"), "uniqueId", LIB);
+			assertEquals(2000L, lib.getProperty("timestamp"));
+			assertEquals("lib", lib.getProperty("artifactId"));
+			tx.success();
+		}
+		finally {
+			db.shutdown();
+		}
+	}
+
+	@Test
+	public void testExistingStore() throws IOException {
+		File store = new File(dir, "store");
+		new BulkLoader(store, "64m").close();
+		assertTrue(new File(store, "neostore").exists());
+		try {
+			new BulkLoader(store, "64m").close();
+			fail("Existing store accepted");
+		}
+		catch (IOException e) {
+			assertFalse(e.getMessage().isEmpty());
+		}
+	}
+
+	private static long count(GraphDatabaseService db, String query) {
+		try(Result r = db.execute(query)){
+			return ((Number) r.next().get("c")).longValue();
+		}
+	}
+
+}
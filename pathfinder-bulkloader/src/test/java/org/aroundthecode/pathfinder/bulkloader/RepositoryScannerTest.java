@@ -0,0 +1,169 @@
+package org.aroundthecode.pathfinder.bulkloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.tools.remote.api.response.JsonItemHandler;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.io.fs.FileUtils;
+
+public class RepositoryScannerTest {
+
+	private static final String BOM = "<project><groupId>org.acme</groupId><artifactId>bom</artifactId><version>1.0</version>"
+			+ "<packaging>pom</packaging><dependencyManagement><dependencies>"
+			+ "<dependency><groupId>org.lib</groupId><artifactId>lib-b</artifactId><version>3.0</version><scope>runtime</scope></dependency>"
+			+ "<dependency><groupId>org.lib</groupId><artifactId>lib-a</artifactId><version>9.9</version></dependency>"
+			+ "</dependencies></dependencyManagement></project>";
+
+	private static final String PARENT = "<project xmlns=\"http://maven.apache.org/POM/4.0.0\"><modelVersion>4.0.0</modelVersion>"
+			+ "<groupId>org.acme</groupId><artifactId>parent</artifactId><version>1.0</version><packaging>pom</packaging>"
+			+ "<properties><lib.version>2.0</lib.version><junit.version>4.12</junit.version></properties>"
+			+ "<dependencyManagement><dependencies>"
+			+ "<dependency><groupId>org.lib</groupId><artifactId>lib-a</artifactId><version>${lib.version}</version></dependency>"
+			+ "<dependency><groupId>org.acme</groupId><artifactId>bom</artifactId><version>${project.version}</version><type>pom</type><scope>import</scope></dependency>"
+			+ "</dependencies></dependencyManagement>"
+			+ "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>${junit.version}</version><scope>test</scope></dependency></dependencies>"
+			+ "</project>";
+
+	private static final String APP = "<?xml version=\"1.0\"?><project><modelVersion>4.0.0</modelVersion>"
+			+ "<parent><groupId>org.acme</groupId><artifactId>parent</artifactId><version>1.0</version></parent>"
+			+ "<artifactId>app</artifactId><properties><junit.version>4.13</junit.version></properties>"
+			+ "<dependencies>"
+			+ "<dependency><groupId>org.lib</groupId><artifactId>lib-a</artifactId></dependency>"
+			+ "<dependency><groupId>org.lib</groupId><artifactId>lib-b</artifactId></dependency>"
+			+ "<dependency><groupId>org.lib</groupId><artifactId>lib-c</artifactId><version>${missing.version}</version></dependency>"
+			+ "<dependency><groupId>${project.groupId}</groupId><artifactId>core</artifactId><version>${project.version}</version>"
+			+ "<type>test-jar</type><scope>test</scope></dependency>"
+			+ "</dependencies></project>";
+
+	private static final String REVISION_PARENT = "<project><groupId>org.acme</groupId><artifactId>revision-parent</artifactId>"
+			+ "<version>${revision}</version><packaging>pom</packaging><properties><revision>1.0</revision></properties>"
+			+ "<dependencyManagement><dependencies>"
+			+ "<dependency><groupId>org.lib</groupId><artifactId>lib-a</artifactId><version>5.0</version></dependency>"
+			+ "</dependencies></dependencyManagement></project>";
+
+	private static final String REVISION_CHILD = "<project><parent><groupId>org.acme</groupId><artifactId>revision-parent</artifactId>"
+			+ "<version>${revision}</version></parent><artifactId>child</artifactId><properties><revision>1.0</revision></properties>"
+			+ "<dependencies><dependency><groupId>org.lib</groupId><artifactId>lib-a</artifactId></dependency></dependencies></project>";
+
+	private static final String UNKNOWN_PARENT = "<project><parent><groupId>org.acme</groupId><artifactId>revision-parent</artifactId>"
+			+ "<version>${missing.version}</version></parent><artifactId>orphan</artifactId><version>1.0</version></project>";
+
+	private Path repository;
+
+	@Before
+	public void setup() throws IOException {
+		repository = Files.createTempDirectory("pathfinder-repository");
+		write("org/acme/bom/1.0/bom-1.0.pom", BOM);
+		write("org/acme/parent/1.0/parent-1.0.pom", PARENT);
+		write("org/acme/app/1.0/app-1.0.pom", APP);
+		// not in repository layout
+		write("org/acme/app/1.0/app-1.0-tests.pom", APP);
+		write("org/acme/app/1.0/broken-1.0.pom", "<project>");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteRecursively(repository.toFile());
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = repository.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testScan() throws IOException {
+		final Map<String, JSONObject> found = new HashMap<>();
+		RepositoryScanner scanner = new RepositoryScanner(repository, 2);
+		long n = scanner.scan(new JsonItemHandler() {
+			@Override
+			public boolean item(Object item) {
+				JSONObject o = (JSONObject) item;
+				found.put((String) o.get(ArtifactUtils.U), o);
+				return true;
+			}
+		});
+		assertEquals(3, n);
+		assertEquals(3, found.size());
+		JSONObject summary = scanner.summary();
+		assertEquals(0L, summary.get("fail"));
+		assertEquals(1L, summary.get("unresolved"));
+
+		JSONObject app = found.get("org.acme:app:jar::1.0");
+		assertEquals("org.acme:parent:pom::1.0", app.get(ArtifactUtils.PN));
+		// own version from properties, then parent management, then imported BOM
+		assertEquals(Arrays.asList("org.lib:lib-a:jar::2.0"), dependencies(app, Dependency.COMPILE));
+		assertEquals(Arrays.asList("org.lib:lib-b:jar::3.0"), dependencies(app, Dependency.RUNTIME));
+		assertEquals(Arrays.asList("org.acme:core:test-jar::1.0", "junit:junit:jar::4.13"), dependencies(app, Dependency.TEST));
+
+		JSONObject parent = found.get("org.acme:parent:pom::1.0");
+		assertNull(parent.get(ArtifactUtils.PN));
+		assertEquals(Arrays.asList("junit:junit:jar::4.12"), dependencies(parent, Dependency.TEST));
+		assertFalse(found.containsKey("org.acme:app:jar::1.0-tests"));
+	}
+
+	/**
+	 * Parent coordinates are interpolated with the child properties, unresolved ones are not reported
+	 */
+	@Test
+	public void testParentInterpolation() throws IOException {
+		FileUtils.deleteRecursively(repository.resolve("org/acme/app").toFile());
+		write("org/acme/revision-parent/1.0/revision-parent-1.0.pom", REVISION_PARENT);
+		write("org/acme/child/1.0/child-1.0.pom", REVISION_CHILD);
+		write("org/acme/orphan/1.0/orphan-1.0.pom", UNKNOWN_PARENT);
+		final Map<String, JSONObject> found = new HashMap<>();
+		RepositoryScanner scanner = new RepositoryScanner(repository, 2);
+		scanner.scan(new JsonItemHandler() {
+			@Override
+			public boolean item(Object item) {
+				JSONObject o = (JSONObject) item;
+				found.put((String) o.get(ArtifactUtils.U), o);
+				return true;
+			}
+		});
+		JSONObject child = found.get("org.acme:child:jar::1.0");
+		assertEquals("org.acme:revision-parent:pom::1.0", child.get(ArtifactUtils.PN));
+		assertEquals(Arrays.asList("org.lib:lib-a:jar::5.0"), dependencies(child, Dependency.COMPILE));
+		assertNull(found.get("org.acme:revision-parent:pom::1.0").get(ArtifactUtils.PN));
+		assertNull(found.get("org.acme:orphan:jar::1.0").get(ArtifactUtils.PN));
+		assertEquals(1L, scanner.summary().get("unresolved"));
+	}
+
+	@Test
+	public void testStop() throws IOException {
+		final List<Object> found = new ArrayList<>();
+		long n = new RepositoryScanner(repository, 1).scan(new JsonItemHandler() {
+			@Override
+			public boolean item(Object item) {
+				found.add(item);
+				return false;
+			}
+		});
+		assertEquals(1, n);
+		assertEquals(1, found.size());
+	}
+
+	private static JSONArray dependencies(JSONObject o, Dependency scope) {
+		return (JSONArray) ((JSONObject) o.get(ArtifactUtils.D)).get(scope.toString());
+	}
+
+}
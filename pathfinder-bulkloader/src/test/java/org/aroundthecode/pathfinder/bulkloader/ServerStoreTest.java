@@ -0,0 +1,76 @@
+package org.aroundthecode.pathfinder.bulkloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.aroundthecode.pathfinder.client.rest.PathfinderClient;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.server.Application;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.io.fs.FileUtils;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The server started on a bulk loaded store serves its artifacts
+ */
+public class ServerStoreTest {
+
+	private static final String APP = "my.group:app:jar::1.0.0";
+	private static final String LIB = "my.group:lib:jar::2.0.0";
+
+	private File store;
+	private File export;
+	private ConfigurableApplicationContext context;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		store = new File(ConfigurationManager.getNeo4jDbPath());
+		FileUtils.deleteRecursively(store);
+		JSONArray lib = new JSONArray();
+		Collections.addAll(lib, LIB);
+		JSONArray json = new JSONArray();
+		json.add(ArtifactUtils.artifactJSON(APP, 1000L, null, lib, new JSONArray(), new JSONArray(),
+				new JSONArray(), new JSONArray(), new JSONArray()));
+		export = Files.createTempFile("pathfinder-bulkloader", ".json").toFile();
+		Files.write(export.toPath(), json.toJSONString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if(context!=null){
+			context.close();
+		}
+		FileUtils.deleteRecursively(store);
+		Files.deleteIfExists(export.toPath());
+	}
+
+	@Test
+	public void testServe() throws IOException {
+		try(BulkLoader loader = new BulkLoader(store, "64m")){
+			assertEquals(1, loader.load(export, "json"));
+		}
+		context = SpringApplication.run(Application.class, "--server.port=0");
+		int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+		PathfinderClient client = new PathfinderClient("http", "localhost", port, "/");
+		for (String uniqueId : new String[]{APP, LIB}) {
+			JSONObject a = client.getArtifact(uniqueId);
+			assertNotNull(uniqueId, a);
+			assertEquals(uniqueId, a.get("uniqueId"));
+		}
+	}
+
+}
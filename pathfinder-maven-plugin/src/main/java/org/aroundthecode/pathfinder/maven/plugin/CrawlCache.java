@@ -0,0 +1,144 @@
+package org.aroundthecode.pathfinder.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Persistent cache of crawl results, the artifacts uploaded for a crawled coordinate, shared by the Maven runs of a mass crawl.
+ * <p>An entry is addressed by the SHA-256 of the crawled coordinate and records the SHA-256 of every POM its resolution read
+ * from the local repository: the artifact, its parents, the BOMs they import and all the nodes of its dependency graph. It is
+ * reused only while all of them keep the same content, so a parent, BOM or snapshot changed in the local repository invalidates
+ * the crawls depending on it; the dependency graph is not resolved again otherwise. The cache does not download anything:
+ * the crawler resolves the project and the SNAPSHOT POMs of an entry before checking it, see {@link PathFinderCrawlMojo}, while
+ * release dependencies are taken as immutable.</p>
+ * <p>Entries are not shared between coordinates: crawling another artifact with the same parents still builds them, the
+ * forked Maven run offers no hook to inject cached models and the graph below a shared node depends on the management and
+ * exclusions of the crawled project. The cache pays off when the same coordinates are crawled again, e.g. repeated mass crawls.</p>
+ * @author msacchetti
+ *
+ */
+public class CrawlCache {
+
+	private static final String KEY = "key";
+	private static final String INPUTS = "inputs";
+	private static final String DATA = "data";
+	private static final String ABSENT = "";
+
+	private final File dir;
+
+	/**
+	 * @param dir cache directory, created on first store
+	 */
+	public CrawlCache(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Get the crawl result of a coordinate
+	 * @param key crawled coordinate
+	 * @return artifacts of the previous crawl, null if not cached or any recorded POM changed since
+	 * @throws IOException if entry cannot be read
+	 */
+	public JSONArray get(String key) throws IOException {
+		File f = entry(key);
+		if(!f.isFile()){
+			return null;
+		}
+		JSONObject o;
+		try(Reader r = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)){
+			o = (JSONObject) new JSONParser().parse(r);
+		} catch (ParseException | ClassCastException e) {
+			throw new IOException("Corrupted crawl cache entry [" + f + "]", e);
+		}
+		if(!key.equals(o.get(KEY))){
+			return null;
+		}
+		JSONObject inputs = (JSONObject) o.get(INPUTS);
+		for (Object e : inputs.entrySet()) {
+			Map.Entry<?, ?> input = (Map.Entry<?, ?>) e;
+			if(!input.getValue().equals(digest(new File(input.getKey().toString())))){
+				return null;
+			}
+		}
+		return (JSONArray) o.get(DATA);
+	}
+
+	/**
+	 * Store the crawl result of a coordinate, replacing the previous one
+	 * @param key crawled coordinate
+	 * @param data artifacts of the crawl
+	 * @param inputs POM files read by the crawl, a missing file is recorded as such
+	 * @throws IOException if entry cannot be written
+	 */
+	@SuppressWarnings("unchecked")
+	public void put(String key, JSONArray data, Collection<File> inputs) throws IOException {
+		JSONObject in = new JSONObject();
+		for (File f : inputs) {
+			in.put(f.getAbsolutePath(), digest(f));
+		}
+		JSONObject o = new JSONObject();
+		o.put(KEY, key);
+		o.put(INPUTS, in);
+		o.put(DATA, data);
+
+		Path target = entry(key).toPath();
+		Files.createDirectories(target.getParent());
+		Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try(Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)){
+				o.writeJSONString(w);
+			}
+			try {
+				Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Entries are spread over 256 directories by the first byte of their address
+	 */
+	File entry(String key) {
+		String address = sha256(key.getBytes(StandardCharsets.UTF_8));
+		return new File(new File(dir, address.substring(0, 2)), address + ".json");
+	}
+
+	private static String digest(File f) throws IOException {
+		return f.isFile() ? sha256(Files.readAllBytes(f.toPath())) : ABSENT;
+	}
+
+	private static String sha256(byte[] b) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		StringBuilder sb = new StringBuilder(64);
+		for (byte x : md.digest(b)) {
+			sb.append(Character.forDigit((x >> 4) & 0xf, 16)).append(Character.forDigit(x & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+}
@@ -16,9 +16,21 @@ package org.aroundthecode.pathfinder.maven.plugin;
  * limitations under the License.
  */
 
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
@@ -26,6 +38,10 @@ import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.dependency.tree.TreeMojo;
@@ -36,15 +52,22 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
 import org.aroundthecode.pathfinder.client.rest.PathfinderClient;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
 import org.aroundthecode.pathfinder.maven.plugin.treeserializers.PathfinderNodeVisitor;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
 
 @Mojo( name = "crawler", defaultPhase = LifecyclePhase.NONE )
 public class PathFinderCrawlMojo extends TreeMojo
 {
 
+	private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)\\}");
+	private static final int MAX_DEPTH = 16;
+
 	@Component( role = MavenProjectBuilder.class )
 	protected MavenProjectBuilder m_projectBuilder;
 
@@ -98,6 +121,12 @@ public class PathFinderCrawlMojo extends TreeMojo
 	@Parameter( property = "neo4j.path", defaultValue = "/" )
 	private String neo4jPath;
 
+	/**
+	 * Upload format, <b>json</b> or <b>binary</b> for the compact snapshot format (requires a server providing /node/snapshot)
+	 */
+	@Parameter( property = "pathfinder.format", defaultValue = "json" )
+	private String uploadFormat;
+
 	/**
 	 * Artifact groupId to crawl.
 	 */
@@ -134,6 +163,21 @@ public class PathFinderCrawlMojo extends TreeMojo
 	@Parameter( property = "crawler.scope", defaultValue = "compile" )
 	private String crawlerScope;
 
+	/**
+	 * Reuse the dependency graph of a previous crawl of the same artifact while the POMs it read are unchanged, see {@link CrawlCache}.
+	 * The crawled project, its parents and imported BOMs are still resolved and built on every run, as well as the POMs of
+	 * SNAPSHOT artifacts in a cached result, so remote redeployments reach the local repository before the entry is checked.
+	 * Results are per crawled artifact, crawls of other artifacts sharing its parents or dependencies do not use them
+	 */
+	@Parameter( property = "crawler.cache", defaultValue = "true" )
+	private boolean crawlerCache;
+
+	/**
+	 * Crawl cache directory, tied to the local repository whose POMs it records.
+	 */
+	@Parameter( property = "crawler.cache.dir", defaultValue = "${user.home}/.m2/pathfinder-crawl-cache" )
+	private File crawlerCacheDir;
+
 	private MavenProject project = null;
 	
 	private DependencyNodeVisitor visitor=null;
@@ -176,23 +220,240 @@ public class PathFinderCrawlMojo extends TreeMojo
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException
 	{
+		String key = ArtifactUtils.getUniqueId(crawlerGroupId, crawlerArtifactId, crawlerType, crawlerClassifier, crawlerVersion) + "@" + crawlerScope;
+		// resolving the project refreshes it, its parents and imported BOMs as the repositories update policy requires
 		project = getProject();
 		if(project == null){
 			throw new MojoExecutionException("Failed to retrieve project to crawl!");
 		}
+		getLog().info("Project under analysis:"+project.getName());
+		CrawlCache cache = crawlerCache ? new CrawlCache(crawlerCacheDir) : null;
+		JSONArray data = cache!=null ? cached(cache, key) : null;
+		if(data!=null && resolveSnapshots(data)){
+			// check again the POMs just resolved
+			data = cached(cache, key);
+		}
+		if(data!=null){
+			getLog().info("Reusing cached crawl of [" + key + "]");
+		}
 		else{
-			getLog().info("Project under analysis:"+project.getName());
 			super.execute();
-			JSONArray data = ((PathfinderNodeVisitor)visitor).getBulkArray();
-			
-			getLog().info("DATA:"+data);
-			PathfinderClient client = null;
-			try {
-				client = new PathfinderClient(neo4jProtocol, neo4jHost, neo4jPort, neo4jPath);
+			data = ((PathfinderNodeVisitor)visitor).getBulkArray();
+			// verbose trees do not expose the graph nodes whose POMs validate the entry
+			Set<File> poms = cache!=null && getDependencyGraph()!=null ? poms() : null;
+			if(poms!=null){
+				try {
+					cache.put(key, data, poms);
+				} catch (IOException e) {
+					getLog().warn("Cannot cache crawl of [" + key + "]: " + e.getMessage());
+				}
+			}
+		}
+
+		getLog().info("Uploading [" + data.size() + "] artifacts");
+		if(getLog().isDebugEnabled()){
+			getLog().debug("DATA:"+data);
+		}
+		PathfinderClient client = null;
+		try {
+			client = PathfinderClient.shared(neo4jProtocol, neo4jHost, neo4jPort, neo4jPath);
+			if("binary".equalsIgnoreCase(uploadFormat)){
+				client.uploadSnapshot(data);
+			}
+			else{
 				client.uploadProject(data);
-			} catch (IOException e) {
-				getLog().error(e);
 			}
+		} catch (IOException e) {
+			getLog().error(e);
+		}
+	}
+
+	/**
+	 * Get a previous crawl result, with the timestamp of this analysis
+	 * @return cached artifacts, null if not cached, stale or unreadable
+	 */
+	@SuppressWarnings("unchecked")
+	private JSONArray cached(CrawlCache cache, String key) {
+		JSONArray data;
+		try {
+			data = cache.get(key);
+		} catch (IOException e) {
+			getLog().warn(e.getMessage());
+			return null;
+		}
+		if(data!=null){
+			String now = String.valueOf(System.currentTimeMillis());
+			for (Object o : data) {
+				((JSONObject) o).put(ArtifactUtils.T, now);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Resolve the POMs of the SNAPSHOT artifacts of a cached crawl, downloading redeployed ones
+	 * @param data cached artifacts
+	 * @return true if any POM was resolved
+	 */
+	private boolean resolveSnapshots(JSONArray data) {
+		Set<String> snapshots = new LinkedHashSet<>();
+		for (Object o : data) {
+			JSONObject a = (JSONObject) o;
+			addSnapshot(snapshots, a.get(ArtifactUtils.U));
+			addSnapshot(snapshots, a.get(ArtifactUtils.PN));
+			JSONObject d = (JSONObject) a.get(ArtifactUtils.D);
+			if(d!=null){
+				for (Object scope : d.values()) {
+					for (Object uniqueId : (JSONArray) scope) {
+						addSnapshot(snapshots, uniqueId);
+					}
+				}
+			}
+		}
+		for (String uniqueId : snapshots) {
+			Map<String, String> c = ArtifactUtils.splitUniqueId(uniqueId);
+			if(c.isEmpty()){
+				continue;
+			}
+			Artifact pom = factory.createProjectArtifact(c.get(ArtifactUtils.G), c.get(ArtifactUtils.A), c.get(ArtifactUtils.V));
+			try {
+				artifactResolver.resolve(pom, this.remoteRepositories, this.localRepository);
+			} catch (ArtifactResolutionException | ArtifactNotFoundException e) {
+				getLog().debug("Cannot resolve [" + uniqueId + "]: " + e.getMessage());
+			}
+		}
+		return !snapshots.isEmpty();
+	}
+
+	private static void addSnapshot(Set<String> snapshots, Object uniqueId) {
+		if(uniqueId!=null && uniqueId.toString().endsWith(Artifact.SNAPSHOT_VERSION)){
+			snapshots.add(uniqueId.toString());
+		}
+	}
+
+	/**
+	 * @return local repository POMs read to build the project and its dependency graph: the project, its parents, the BOMs
+	 * they import and every graph node. Null if an imported BOM cannot be resolved, the crawl is not cached then
+	 */
+	private Set<File> poms() {
+		Set<File> out = new LinkedHashSet<>();
+		// imports inherited from parents are resolved in the context of the built project
+		Map<String, String> context = context(project.getModel());
+		for (MavenProject p = project; p!=null; p = p.getParent()) {
+			out.add(pom(p.getGroupId(), p.getArtifactId(), p.getVersion()));
+			if(!imports(p.getOriginalModel(), context, out, 0)){
+				return null;
+			}
+		}
+		Deque<DependencyNode> nodes = new ArrayDeque<>();
+		if(getDependencyGraph()!=null){
+			nodes.push(getDependencyGraph());
+		}
+		while(!nodes.isEmpty()){
+			DependencyNode n = nodes.pop();
+			Artifact a = n.getArtifact();
+			out.add(pom(a.getGroupId(), a.getArtifactId(), a.getBaseVersion()));
+			for (DependencyNode c : n.getChildren()) {
+				nodes.push(c);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Add the BOMs imported by a model, and the ones they import in turn. The effective model replaces imports with their
+	 * content, so they are read from the declared model
+	 * @return false if a BOM cannot be resolved
+	 */
+	private boolean imports(Model m, Map<String, String> context, Set<File> out, int depth) {
+		DependencyManagement dm = m!=null ? m.getDependencyManagement() : null;
+		if(dm==null){
+			return true;
+		}
+		for (Object o : dm.getDependencies()) {
+			Dependency d = (Dependency) o;
+			if(!"import".equals(d.getScope()) || !"pom".equals(d.getType())){
+				continue;
+			}
+			String g = interpolate(d.getGroupId(), context);
+			String a = interpolate(d.getArtifactId(), context);
+			String v = interpolate(d.getVersion(), context);
+			if(!resolved(g) || !resolved(a) || !resolved(v) || v.startsWith("[") || v.startsWith("(") || depth >= MAX_DEPTH){
+				getLog().debug("Unresolved BOM [" + g + ":" + a + ":" + v + "], crawl not cached");
+				return false;
+			}
+			File f = pom(g, a, v);
+			if(out.add(f) && f.isFile()){
+				Model bom;
+				try(Reader r = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)){
+					bom = new MavenXpp3Reader().read(r, false);
+				} catch (IOException | XmlPullParserException e) {
+					getLog().debug("Cannot read BOM [" + f + "]: " + e.getMessage());
+					return false;
+				}
+				if(!imports(bom, context(bom), out, depth + 1)){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Properties and coordinates of a model, the coordinates inherited from the parent element when not declared
+	 */
+	private static Map<String, String> context(Model m) {
+		Map<String, String> c = new HashMap<>();
+		for (String name : m.getProperties().stringPropertyNames()) {
+			c.put(name, m.getProperties().getProperty(name));
+		}
+		String groupId = m.getGroupId()!=null || m.getParent()==null ? m.getGroupId() : m.getParent().getGroupId();
+		String version = m.getVersion()!=null || m.getParent()==null ? m.getVersion() : m.getParent().getVersion();
+		for (String prefix : new String[]{"project.", "pom."}) {
+			putIfNotNull(c, prefix + "groupId", groupId);
+			putIfNotNull(c, prefix + "artifactId", m.getArtifactId());
+			putIfNotNull(c, prefix + "version", version);
+			if(m.getParent()!=null){
+				putIfNotNull(c, prefix + "parent.groupId", m.getParent().getGroupId());
+				putIfNotNull(c, prefix + "parent.version", m.getParent().getVersion());
+			}
+		}
+		return c;
+	}
+
+	private static void putIfNotNull(Map<String, String> m, String key, String value) {
+		if(value!=null){
+			m.put(key, value);
+		}
+	}
+
+	/**
+	 * Replace <code>${property}</code> references, unknown ones are left in place
+	 */
+	private static String interpolate(String s, Map<String, String> context) {
+		String out = s;
+		for (int pass = 0; pass < MAX_DEPTH && out!=null && out.contains("${"); pass++) {
+			Matcher matcher = PROPERTY.matcher(out);
+			StringBuffer sb = new StringBuffer();
+			while(matcher.find()){
+				String value = context.get(matcher.group(1));
+				matcher.appendReplacement(sb, Matcher.quoteReplacement(value!=null ? value : matcher.group()));
+			}
+			matcher.appendTail(sb);
+			if(sb.toString().equals(out)){
+				break;
+			}
+			out = sb.toString();
 		}
+		return out;
+	}
+
+	private static boolean resolved(String s) {
+		return s!=null && !s.isEmpty() && !s.contains("${");
+	}
+
+	private File pom(String groupId, String artifactId, String version) {
+		Artifact pom = factory.createProjectArtifact(groupId, artifactId, version);
+		return new File(localRepository.getBasedir(), localRepository.pathOf(pom));
 	}
 }
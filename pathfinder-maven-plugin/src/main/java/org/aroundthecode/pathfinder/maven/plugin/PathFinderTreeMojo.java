@@ -57,6 +57,12 @@ public class PathFinderTreeMojo extends TreeMojo
 	@Parameter( property = "neo4j.path", defaultValue = "/" )
 	private String neo4jPath;
 
+	/**
+	 * Upload format, <b>json</b> or <b>binary</b> for the compact snapshot format (requires a server providing /node/snapshot)
+	 */
+	@Parameter( property = "pathfinder.format", defaultValue = "json" )
+	private String uploadFormat;
+
 
 	private DependencyNodeVisitor visitor=null;
 
@@ -79,11 +85,19 @@ public class PathFinderTreeMojo extends TreeMojo
 	{
 		super.execute();
 		JSONArray data = ((PathfinderNodeVisitor)visitor).getBulkArray();
-		getLog().info("DATA:"+data);
+		getLog().info("Uploading [" + data.size() + "] artifacts");
+		if(getLog().isDebugEnabled()){
+			getLog().debug("DATA:"+data);
+		}
 		PathfinderClient client = null;
 		try {
-			client = new PathfinderClient(neo4jProtocol, neo4jHost, neo4jPort, neo4jPath);
-			client.uploadProject(data);
+			client = PathfinderClient.shared(neo4jProtocol, neo4jHost, neo4jPort, neo4jPath);
+			if("binary".equalsIgnoreCase(uploadFormat)){
+				client.uploadSnapshot(data);
+			}
+			else{
+				client.uploadProject(data);
+			}
 		} catch (IOException e) {
 			getLog().error(e);
 		}
@@ -21,8 +21,10 @@ package org.aroundthecode.pathfinder.maven.plugin.treeserializers;
  */
 
 import java.io.Writer;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.dependency.tree.AbstractSerializingVisitor;
@@ -31,6 +33,7 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
 import org.aroundthecode.pathfinder.client.rest.PathfinderClient;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
 import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
 import org.json.simple.JSONArray;
 
@@ -44,6 +47,7 @@ DependencyNodeVisitor {
 
 
 	private JSONArray bulkArray = new JSONArray();
+	private Map<Artifact, String> uniqueIds = new IdentityHashMap<>();
 	private Long analysisTimestamp = null;
 
 	public PathfinderNodeVisitor(Writer writer, Log log, MavenProject mavenProject) {
@@ -77,7 +81,9 @@ DependencyNodeVisitor {
 
 		boolean out = true;
 
-		log.debug("visiting "+node.toNodeString());
+		if(log.isDebugEnabled()){
+			log.debug("visiting "+node.toNodeString());
+		}
 
 		/*
 		 * Detect project node and eventually evaluate parent pom
@@ -149,8 +155,16 @@ DependencyNodeVisitor {
 		return out;
 	}
 
+	/**
+	 * Every node is visited once as parent and once as child, uniqueId is built only the first time
+	 */
 	private String getUniqueId(Artifact a){
-		return ArtifactUtils.getUniqueId(a.getGroupId(), a.getArtifactId(), a.getType(), a.getClassifier(), a.getBaseVersion());
+		String uid = uniqueIds.get(a);
+		if(uid==null){
+			uid = ArtifactCoordinate.of(a.getGroupId(), a.getArtifactId(), a.getType(), a.getClassifier(), a.getBaseVersion()).getUniqueId();
+			uniqueIds.put(a, uid);
+		}
+		return uid;
 	}
 
 	/**
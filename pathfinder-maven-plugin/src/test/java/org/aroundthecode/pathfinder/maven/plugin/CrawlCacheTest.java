@@ -0,0 +1,106 @@
+package org.aroundthecode.pathfinder.maven.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CrawlCacheTest {
+
+	private static final String KEY = "my.group:app:jar::1.0.0@compile";
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private CrawlCache cache;
+	private File parent;
+	private File app;
+	private JSONArray data;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setup() throws IOException {
+		cache = new CrawlCache(new File(tmp.getRoot(), "cache"));
+		parent = write("parent-1.0.0.pom", "<project><artifactId>parent</artifactId></project>");
+		app = write("app-1.0.0.pom", "<project><artifactId>app</artifactId></project>");
+		JSONObject o = new JSONObject();
+		o.put("u", "my.group:app:jar::1.0.0");
+		data = new JSONArray();
+		data.add(o);
+	}
+
+	private File write(String name, String content) throws IOException {
+		File f = new File(tmp.getRoot(), name);
+		Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return f;
+	}
+
+	@Test
+	public void testHit() throws IOException {
+		assertNull(cache.get(KEY));
+		cache.put(KEY, data, Arrays.asList(app, parent));
+		assertEquals(data, cache.get(KEY));
+	}
+
+	/**
+	 * A redeployed POM invalidates the entry
+	 */
+	@Test
+	public void testChangedDigest() throws IOException {
+		cache.put(KEY, data, Arrays.asList(app, parent));
+		write("parent-1.0.0.pom", "<project><artifactId>parent</artifactId><version>1.0.0</version></project>");
+		assertNull(cache.get(KEY));
+		// same content again, entry is valid
+		write("parent-1.0.0.pom", "<project><artifactId>parent</artifactId></project>");
+		assertEquals(data, cache.get(KEY));
+	}
+
+	/**
+	 * Missing POMs are recorded as such, a deleted or a new one invalidates the entry
+	 */
+	@Test
+	public void testMissingFile() throws IOException {
+		File bom = new File(tmp.getRoot(), "bom-1.0.0.pom");
+		cache.put(KEY, data, Arrays.asList(app, parent, bom));
+		assertEquals(data, cache.get(KEY));
+		write("bom-1.0.0.pom", "<project><artifactId>bom</artifactId></project>");
+		assertNull(cache.get(KEY));
+
+		cache.put(KEY, data, Arrays.asList(app, parent, bom));
+		Files.delete(parent.toPath());
+		assertNull(cache.get(KEY));
+	}
+
+	/**
+	 * An entry found at the address of another coordinate is not used
+	 */
+	@Test
+	public void testKeyMismatch() throws IOException {
+		String other = "my.group:other:jar::1.0.0@compile";
+		cache.put(KEY, data, Arrays.asList(app));
+		File target = cache.entry(other);
+		Files.createDirectories(target.getParentFile().toPath());
+		Files.copy(cache.entry(KEY).toPath(), target.toPath());
+		assertNull(cache.get(other));
+		assertEquals(data, cache.get(KEY));
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupted() throws IOException {
+		cache.put(KEY, data, Arrays.asList(app));
+		Files.write(cache.entry(KEY).toPath(), "{\"key\":".getBytes(StandardCharsets.UTF_8));
+		cache.get(KEY);
+	}
+
+}
@@ -1,30 +1,36 @@
 package org.aroundthecode.pathfinder.client.rest;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.net.URLEncoder;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
 import org.aroundthecode.pathfinder.client.rest.manager.PathfinderUrlManager;
+import org.aroundthecode.pathfinder.client.rest.manager.ServerProbe;
 import org.aroundthecode.pathfinder.client.rest.manager.configuration.PathfinderConnectionConfiguration;
-import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.client.rest.utils.BinarySnapshot;
 import org.aroundthecode.tools.remote.api.auth.Auth;
 import org.aroundthecode.tools.remote.api.auth.NoAuth;
 import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfiguration;
 import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfiguration.AllowedProtocol;
 import org.aroundthecode.tools.remote.api.response.EmptyResponseParser;
 import org.aroundthecode.tools.remote.api.response.JsonArrayResponseParser;
+import org.aroundthecode.tools.remote.api.response.JsonItemHandler;
 import org.aroundthecode.tools.remote.api.response.JsonObjectResponseParser;
+import org.aroundthecode.tools.remote.api.response.JsonStreamResponseParser;
 import org.aroundthecode.tools.remote.api.response.StringResponseParser;
 import org.aroundthecode.tools.remote.api.response.TemporaryFileResponseParser;
 import org.json.simple.JSONArray;
@@ -40,19 +46,25 @@ import org.json.simple.parser.ParseException;
 public class PathfinderClient {
 
 	private static final String CHARSET = "UTF-8";
-	private static final int RETRY_TIMES = 3;
-	private static final int RETRY_SLEEP = 10000;
 	
 	private static final int NOERROR = 299;
+	private static final long COMPRESSION_THRESHOLD = 1024;
 	private static final Logger log = LogManager.getLogger(PathfinderClient.class.getName());
 
+	/**
+	 * Clients shared by {@link #shared(String, String, int, String)}, one per server
+	 */
+	private static final ConcurrentMap<String, PathfinderClient> SHARED = new ConcurrentHashMap<>();
+
 	private NameValuePair[] headers = new NameValuePair[2];
 	private PathfinderUrlManager um = null;
+	private ServerProbe probe = null;
 
 	/**
 	 * Base constructor, provide connection parameters. 
-	 * Upon creation the client will try to connect to check server availability.
-	 * Upon connection failure it will attempt RETRY_TIMES times, with RETRY_SLEEP sleeping time.
+	 * Upon creation the client starts checking server availability in background and never blocks;
+	 * requests wait for the server up to {@link ServerProbe#DEFAULT_MAX_WAIT} ms, retrying with exponential backoff and jitter,
+	 * then fail fast for {@link ServerProbe#DEFAULT_COOL_DOWN} ms while the server is checked again in background.
 	 * @param protocol http, https values allowed
 	 * @param domain FQDN or IP to connect to
 	 * @param port socket port Pathfinder server listen to
@@ -75,33 +87,59 @@ public class PathfinderClient {
 		um.setAuth( auth );
 		headers[0] = new NameValuePair("Content-Type", AbstractConnectionConfiguration.APPLICATION_JSON);
 		headers[1] = new NameValuePair("Accept", AbstractConnectionConfiguration.APPLICATION_JSON);		
+		um.setCompressionThreshold(COMPRESSION_THRESHOLD);
 
+		probe = new ServerProbe(domain, port, ServerProbe.DEFAULT_MAX_WAIT);
+		um.setProbe(probe);
+		probe.start();
+	}
 
-
-		try(Socket socket = new Socket()){
-			for (int i = 1; i <= RETRY_TIMES; i++) {
-				try {
-					socket.connect(new InetSocketAddress(domain, port), 10);
-					log.warn("Connected");
-					break;
-				} catch (IOException ex) {
-					if(i<3){
-						log.error("Connection failed [{}/{}], will sleep {}ms and retry...",i,RETRY_TIMES,RETRY_SLEEP);
-						try {
-							Thread.sleep(RETRY_SLEEP);
-						} catch (InterruptedException e) {
-							Thread.currentThread().interrupt();
-						}
-					}
-					else{
-						log.error("Connection failed [{}/{}], giving up sorry.",i,RETRY_TIMES);
-						throw new IOException(ex);
-					}
-				} 
+	/**
+	 * Get a client shared with every caller using the same connection parameters in this class loader,
+	 * e.g. all mojo executions of a Maven session, so that server availability is checked only once
+	 * @param protocol http, https values allowed
+	 * @param domain FQDN or IP to connect to
+	 * @param port socket port Pathfinder server listen to
+	 * @param path additional context path ("/" if not present)
+	 * @return shared client
+	 * @throws IOException
+	 */
+	public static PathfinderClient shared(String protocol,String domain, int port, String path) throws IOException {
+		String key = protocol + "://" + domain + ":" + port + path;
+		PathfinderClient client = SHARED.get(key);
+		if(client==null){
+			PathfinderClient created = new PathfinderClient(protocol, domain, port, path);
+			client = SHARED.putIfAbsent(key, created);
+			if(client==null){
+				log.debug("Shared client created for [{}]", key);
+				client = created;
 			}
 		}
+		return client;
+	}
 
+	/**
+	 * Set minimum size of request bodies sent gzip compressed, default 1024 bytes.
+	 * Responses are always requested compressed
+	 * @param threshold size in bytes, -1 to never compress requests
+	 */
+	public void setCompressionThreshold(long threshold) {
+		um.setCompressionThreshold(threshold);
+	}
 
+	/**
+	 * Wait for server availability
+	 * @throws IOException if server is not reachable within {@link ServerProbe#DEFAULT_MAX_WAIT} ms, or was not within cool-down
+	 */
+	public void awaitServer() throws IOException {
+		probe.await();
+	}
+
+	/**
+	 * @return true once server accepted a connection, never blocks
+	 */
+	public boolean isServerAvailable() {
+		return probe.isAvailable();
 	}
 
 
@@ -155,13 +193,16 @@ public class PathfinderClient {
 	 */
 	public JSONObject saveArtifact(String uniqueId) throws IOException {
 
-		Map<String, String> map = ArtifactUtils.splitUniqueId(uniqueId);
+		ArtifactCoordinate c = ArtifactCoordinate.parse(uniqueId);
+		if(c==null){
+			throw new IOException("Invalid uniqueId ["+uniqueId+"]");
+		}
 		return saveArtifact(
-				map.get(ArtifactUtils.G),
-				map.get(ArtifactUtils.A),
-				map.get(ArtifactUtils.P),
-				map.get(ArtifactUtils.C),
-				map.get(ArtifactUtils.V)
+				c.getGroupId(),
+				c.getArtifactId(),
+				c.getPackaging(),
+				c.getClassifier(),
+				c.getVersion()
 				);
 	}
 
@@ -233,15 +274,31 @@ public class PathfinderClient {
 	/**
 	 * Invoke /cypher/query method to Pathfinder server to perform a standard Neo4J cypher query
 	 * @param cypherQuery cypher query to run
-	 * @return String list, each line representing  nodeId-relationType-nodeId
+	 * @return JSON text {"columns":[..],"rows":[[..],..],"count":n,"truncated":bool}, null if query is rejected
 	 * @throws IOException
 	 */
 	public String query(String cypherQuery) throws IOException {
+		return query(cypherQuery, new JSONObject(), -1);
+	}
+
+	/**
+	 * Invoke /cypher/query method to Pathfinder server to perform a standard Neo4J cypher query
+	 * @param cypherQuery cypher query to run
+	 * @param params query parameters
+	 * @param max maximum number of rows, server default if negative
+	 * @return JSON text {"columns":[..],"rows":[[..],..],"count":n,"truncated":bool}, null if query is rejected
+	 * @throws IOException
+	 */
+	public String query(String cypherQuery, JSONObject params, int max) throws IOException {
 
 		String resp = null;
 		StringResponseParser sparser = new StringResponseParser();
 		JSONObject body = new JSONObject();
 		body.put("q", cypherQuery);
+		body.put("params", params);
+		if(max >= 0){
+			body.put("max", max);
+		}
 
 		um.getLog().debug("query: [{}]",body.toString());
 		RequestEntity postData = getStringRequestEntity(body.toString());
@@ -259,6 +316,43 @@ public class PathfinderClient {
 		return resp;
 	}
 
+	/**
+	 * Invoke /cypher/query method to Pathfinder server passing each row to <b>handler</b> while the response is read,
+	 * so results of any size are processed with constant memory
+	 * @param cypherQuery cypher query to run
+	 * @param params query parameters
+	 * @param max maximum number of rows, server default if negative
+	 * @param handler receives each row as a JSON array of column values, returns false to stop
+	 * @return JSON object {"columns":[..],"count":n,"truncated":bool} without rows, null if query is rejected;
+	 * count and truncated are missing if <b>handler</b> stopped before the end of the response
+	 * @throws IOException
+	 */
+	public JSONObject query(String cypherQuery, JSONObject params, int max, JsonItemHandler handler) throws IOException {
+
+		JSONObject resp = null;
+		JsonStreamResponseParser sparser = new JsonStreamResponseParser(handler, "rows");
+		JSONObject body = new JSONObject();
+		body.put("q", cypherQuery);
+		body.put("params", params);
+		if(max >= 0){
+			body.put("max", max);
+		}
+
+		um.getLog().debug("query: [{}]",body.toString());
+		RequestEntity postData = getStringRequestEntity(body.toString());
+
+		int ret = um.doPost(PathfinderConnectionConfiguration.URL_CYPHER_QUERY, sparser,new NameValuePair[0],headers,  postData);
+		if(ret!=HttpStatus.SC_OK){
+			um.getLog().error("query - Request failed, return status [{}]", ret);
+		}
+		else{
+			resp = sparser.getEnvelope();
+			um.getLog().debug("query - [{}] rows handled", sparser.getResponse());
+		}
+
+		return resp;
+	}
+
 	/**
 	 * Invoke /query/filterall method to Pathfinder server to retrieve the full list of nodes filtered via <b>FilterItem</b> rules
 	 * @param f FilterItem containing filtering rules
@@ -267,24 +361,9 @@ public class PathfinderClient {
 	 */
 	public JSONArray filterAll(FilterItem f) throws IOException {
 
-		NameValuePair[] filters = new NameValuePair[10];
-		int i = 0;
-
-		filters[i++] = new NameValuePair("gn1", URLEncoder.encode(f.getFilterGN1(),CHARSET));
-		filters[i++] = new NameValuePair("an1", URLEncoder.encode(f.getFilterAN1(),CHARSET));
-		filters[i++] = new NameValuePair("pn1", URLEncoder.encode(f.getFilterPN1(),CHARSET));
-		filters[i++] = new NameValuePair("cn1", URLEncoder.encode(f.getFilterCN1(),CHARSET));
-		filters[i++] = new NameValuePair("vn1", URLEncoder.encode(f.getFilterVN1(),CHARSET));
-
-		filters[i++] = new NameValuePair("gn2", URLEncoder.encode(f.getFilterGN2(),CHARSET));
-		filters[i++] = new NameValuePair("an2", URLEncoder.encode(f.getFilterAN2(),CHARSET));
-		filters[i++] = new NameValuePair("pn2", URLEncoder.encode(f.getFilterPN2(),CHARSET));
-		filters[i++] = new NameValuePair("cn2", URLEncoder.encode(f.getFilterCN2(),CHARSET));
-		filters[i] = new NameValuePair("vn2", URLEncoder.encode(f.getFilterVN2(),CHARSET));
-
 		JSONArray resp = null;
 		JsonArrayResponseParser aparser = new JsonArrayResponseParser();
-		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_FILTERALL, aparser,filters,headers);
+		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_FILTERALL, aparser,getFilterParams(f),headers);
 		if(ret!=HttpStatus.SC_OK){
 			um.getLog().error("filterAll - Request failed, return status [{}]", ret);
 		}
@@ -296,6 +375,30 @@ public class PathfinderClient {
 		return resp;
 	}
 
+	/**
+	 * Invoke /query/filterall method to Pathfinder server passing each node to <b>handler</b> while the response is read,
+	 * so results of any size are processed with constant memory
+	 * @param f FilterItem containing filtering rules
+	 * @param handler receives each JSON object providing Artifact and relations data, returns false to stop
+	 * @return number of nodes handled, -1 if request failed
+	 * @throws IOException
+	 */
+	public long filterAll(FilterItem f, JsonItemHandler handler) throws IOException {
+
+		long resp = -1;
+		JsonStreamResponseParser sparser = new JsonStreamResponseParser(handler);
+		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_FILTERALL, sparser,getFilterParams(f),headers);
+		if(ret!=HttpStatus.SC_OK){
+			um.getLog().error("filterAll - Request failed, return status [{}]", ret);
+		}
+		else{
+			resp = sparser.getResponse();
+			um.getLog().debug("filterAll - [{}] nodes handled", resp);
+		}
+
+		return resp;
+	}
+
 	/**
 	 * Invoke /query/impact method to Pathfinder server to retrieve the full list of nodes impacting provided Artifact filtered via <b>FilterItem</b> rules
 	 * @param depth Impact search depth, this represents the number of relations hops the search will traverse before stopping
@@ -310,15 +413,54 @@ public class PathfinderClient {
 	 */
 	public JSONArray impact(int depth,String groupId,String artifactId,String packaging,String classifier,String version,FilterItem f) throws IOException {
 
-		NameValuePair[] filters = new NameValuePair[16];
-		int i = 0;
+		JSONArray resp = null;
+		JsonArrayResponseParser aparser = new JsonArrayResponseParser();
+		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_IMPACT, aparser,getImpactParams(depth, groupId, artifactId, packaging, classifier, version, f),headers);
+		if(ret!=HttpStatus.SC_OK){
+			um.getLog().error("impact - Request failed, return status [{}]", ret);
+		}
+		else{
+			resp = aparser.getResponse();
+			um.getLog().debug("impact - response [{}]", resp);
+		}
 
-		filters[i++] = new NameValuePair("d", Integer.toString(depth) );
-		filters[i++] = new NameValuePair("g", URLEncoder.encode(groupId,CHARSET));
-		filters[i++] = new NameValuePair("a", URLEncoder.encode(artifactId,CHARSET));
-		filters[i++] = new NameValuePair("p", URLEncoder.encode(packaging,CHARSET));
-		filters[i++] = new NameValuePair("c", URLEncoder.encode(classifier,CHARSET));
-		filters[i++] = new NameValuePair("v", URLEncoder.encode(version,CHARSET));
+		return resp;
+	}
+
+	/**
+	 * Invoke /query/impact method to Pathfinder server passing each node to <b>handler</b> while the response is read,
+	 * so results of any size are processed with constant memory
+	 * @param depth Impact search depth, this represents the number of relations hops the search will traverse before stopping
+	 * @param groupId artifact GroupId
+	 * @param artifactId artifact ArtifactId
+	 * @param packaging artifact Packaging type
+	 * @param classifier artifact classifier
+	 * @param version artifact version
+	 * @param f FilterItem containing filtering rules
+	 * @param handler receives each JSON object providing Artifact and relations data, returns false to stop
+	 * @return number of nodes handled, -1 if request failed
+	 * @throws IOException
+	 */
+	public long impact(int depth,String groupId,String artifactId,String packaging,String classifier,String version,FilterItem f, JsonItemHandler handler) throws IOException {
+
+		long resp = -1;
+		JsonStreamResponseParser sparser = new JsonStreamResponseParser(handler);
+		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_IMPACT, sparser,getImpactParams(depth, groupId, artifactId, packaging, classifier, version, f),headers);
+		if(ret!=HttpStatus.SC_OK){
+			um.getLog().error("impact - Request failed, return status [{}]", ret);
+		}
+		else{
+			resp = sparser.getResponse();
+			um.getLog().debug("impact - [{}] nodes handled", resp);
+		}
+
+		return resp;
+	}
+
+	private static NameValuePair[] getFilterParams(FilterItem f) throws UnsupportedEncodingException {
+
+		NameValuePair[] filters = new NameValuePair[10];
+		int i = 0;
 
 		filters[i++] = new NameValuePair("gn1", URLEncoder.encode(f.getFilterGN1(),CHARSET));
 		filters[i++] = new NameValuePair("an1", URLEncoder.encode(f.getFilterAN1(),CHARSET));
@@ -332,20 +474,163 @@ public class PathfinderClient {
 		filters[i++] = new NameValuePair("cn2", URLEncoder.encode(f.getFilterCN2(),CHARSET));
 		filters[i] = new NameValuePair("vn2", URLEncoder.encode(f.getFilterVN2(),CHARSET));
 
-		JSONArray resp = null;
-		JsonArrayResponseParser aparser = new JsonArrayResponseParser();
-		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_IMPACT, aparser,filters,headers);
+		return filters;
+	}
+
+	private static NameValuePair[] getImpactParams(int depth,String groupId,String artifactId,String packaging,String classifier,String version,FilterItem f) throws UnsupportedEncodingException {
+
+		NameValuePair[] filters = new NameValuePair[16];
+		int i = 0;
+
+		filters[i++] = new NameValuePair("d", Integer.toString(depth) );
+		filters[i++] = new NameValuePair("g", URLEncoder.encode(groupId,CHARSET));
+		filters[i++] = new NameValuePair("a", URLEncoder.encode(artifactId,CHARSET));
+		filters[i++] = new NameValuePair("p", URLEncoder.encode(packaging,CHARSET));
+		filters[i++] = new NameValuePair("c", URLEncoder.encode(classifier,CHARSET));
+		filters[i++] = new NameValuePair("v", URLEncoder.encode(version,CHARSET));
+
+		System.arraycopy(getFilterParams(f), 0, filters, i, 10);
+
+		return filters;
+	}
+
+	/**
+	 * Invoke /query/dependents method to Pathfinder server to retrieve all artifacts transitively depending on provided Artifact
+	 * @param uniqueId artifact unique ID groupId:artifacId:packaging:classifier:version
+	 * @param depth maximum number of relations hops to traverse
+	 * @param max maximum number of dependents returned
+	 * @param scopes dependency scopes to follow, all scopes if none given
+	 * @return JSON object with roots, count, truncated flag and dependents list
+	 * @throws IOException
+	 */
+	public JSONObject dependents(String uniqueId,int depth,int max,Dependency... scopes) throws IOException {
+		NameValuePair[] params = new NameValuePair[4];
+		params[0] = new NameValuePair("id", uniqueId);
+		params[1] = new NameValuePair("d", Integer.toString(depth));
+		params[2] = new NameValuePair("max", Integer.toString(max));
+		params[3] = new NameValuePair("s", scopeList(scopes));
+		return doDependents(params);
+	}
+
+	/**
+	 * Invoke /query/dependents method to Pathfinder server to retrieve all artifacts transitively depending on any version
+	 * of provided groupId:artifactId matching versionRegex, e.g. all dependents of log4j-core 2.x
+	 * @param groupId artifact GroupId
+	 * @param artifactId artifact ArtifactId
+	 * @param versionRegex regular expression matched against artifact version
+	 * @param depth maximum number of relations hops to traverse
+	 * @param max maximum number of dependents returned
+	 * @param scopes dependency scopes to follow, all scopes if none given
+	 * @return JSON object with roots, count, truncated flag and dependents list
+	 * @throws IOException
+	 */
+	public JSONObject dependents(String groupId,String artifactId,String versionRegex,int depth,int max,Dependency... scopes) throws IOException {
+		NameValuePair[] params = new NameValuePair[6];
+		params[0] = new NameValuePair("g", groupId);
+		params[1] = new NameValuePair("a", artifactId);
+		params[2] = new NameValuePair("v", versionRegex);
+		params[3] = new NameValuePair("d", Integer.toString(depth));
+		params[4] = new NameValuePair("max", Integer.toString(max));
+		params[5] = new NameValuePair("s", scopeList(scopes));
+		return doDependents(params);
+	}
+
+	private JSONObject doDependents(NameValuePair[] params) throws IOException {
+		JSONObject resp = null;
+		JsonObjectResponseParser jparser = new JsonObjectResponseParser();
+		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_DEPENDENTS, jparser,params,headers);
 		if(ret!=HttpStatus.SC_OK){
-			um.getLog().error("impact - Request failed, return status [{}]", ret);
+			um.getLog().error("dependents - Request failed, return status [{}]", ret);
 		}
 		else{
-			resp = aparser.getResponse();
-			um.getLog().debug("impact - response [{}]", resp);
+			resp = jparser.getResponse();
+			um.getLog().debug("dependents - response [{}]", resp);
+		}
+		return resp;
+	}
+
+	/**
+	 * Invoke /query/path method to Pathfinder server to retrieve the shortest paths from an Artifact to another one,
+	 * e.g. how an application pulls a library in
+	 * @param from source artifact unique ID groupId:artifacId:packaging:classifier:version
+	 * @param to target artifact unique ID groupId:artifacId:packaging:classifier:version
+	 * @param depth maximum path length
+	 * @param max maximum number of paths returned
+	 * @param scopes dependency scopes to follow, all relations including parents if none given
+	 * @return JSON object with length (-1 if no path), count and paths list of nodes and relations
+	 * @throws IOException
+	 */
+	public JSONObject paths(String from,String to,int depth,int max,Dependency... scopes) throws IOException {
+		NameValuePair[] params = new NameValuePair[5];
+		params[0] = new NameValuePair("from", from);
+		params[1] = new NameValuePair("to", to);
+		params[2] = new NameValuePair("d", Integer.toString(depth));
+		params[3] = new NameValuePair("max", Integer.toString(max));
+		params[4] = new NameValuePair("s", scopeList(scopes));
+
+		JSONObject resp = null;
+		JsonObjectResponseParser jparser = new JsonObjectResponseParser();
+		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_PATH, jparser,params,headers);
+		if(ret!=HttpStatus.SC_OK){
+			um.getLog().error("paths - Request failed, return status [{}]", ret);
 		}
+		else{
+			resp = jparser.getResponse();
+			um.getLog().debug("paths - response [{}]", resp);
+		}
+		return resp;
+	}
+
+	/**
+	 * Invoke /query/conflicts method to Pathfinder server to retrieve groupId:artifactId reached in more than one version
+	 * through compile and runtime dependencies of provided Artifact
+	 * @param uniqueId artifact unique ID groupId:artifacId:packaging:classifier:version
+	 * @return JSON object with root and conflicts list of groupId:artifactId and versions
+	 * @throws IOException
+	 */
+	public JSONObject conflicts(String uniqueId) throws IOException {
+		NameValuePair[] params = new NameValuePair[1];
+		params[0] = new NameValuePair("id", uniqueId);
+		return doConflicts(params);
+	}
+
+	/**
+	 * Invoke /query/conflicts method to Pathfinder server to retrieve version conflicts of every root artifact
+	 * @param max maximum number of roots returned
+	 * @return JSON object with count, truncated flag and roots list
+	 * @throws IOException
+	 */
+	public JSONObject conflicts(int max) throws IOException {
+		NameValuePair[] params = new NameValuePair[1];
+		params[0] = new NameValuePair("max", Integer.toString(max));
+		return doConflicts(params);
+	}
 
+	private JSONObject doConflicts(NameValuePair[] params) throws IOException {
+		JSONObject resp = null;
+		JsonObjectResponseParser jparser = new JsonObjectResponseParser();
+		int ret = um.doGet(PathfinderConnectionConfiguration.URL_QUERY_CONFLICTS, jparser,params,headers);
+		if(ret!=HttpStatus.SC_OK){
+			um.getLog().error("conflicts - Request failed, return status [{}]", ret);
+		}
+		else{
+			resp = jparser.getResponse();
+			um.getLog().debug("conflicts - response [{}]", resp);
+		}
 		return resp;
 	}
 
+	private static String scopeList(Dependency... scopes) {
+		StringBuilder sb = new StringBuilder();
+		for (Dependency d : scopes) {
+			if(sb.length()>0){
+				sb.append(',');
+			}
+			sb.append(d.name());
+		}
+		return sb.toString();
+	}
+
 	/**
 	 * Invoke /node/get method to Pathfinder server to retrieve a node given its unique ID
 	 * @param uniqueId artifact unique ID groupId:artifacId:packaging:classifier:version  
@@ -373,14 +658,14 @@ public class PathfinderClient {
 	}
 
 	/**
-	 * Invoke /node/download to Pathfinder server to download the full project file
-	 * @return File pointing to temporary download resource
+	 * Invoke /node/download to Pathfinder server to download the full project file, interrupted transfers are resumed
+	 * @return File pointing to temporary download resource, a new file for each call to be deleted by the caller
 	 * @throws IOException
 	 */
 	public File downloadProject() throws IOException{
 		
 		File out = null;
-		TemporaryFileResponseParser fparser = new TemporaryFileResponseParser("/tmp");
+		TemporaryFileResponseParser fparser = new TemporaryFileResponseParser(System.getProperty("java.io.tmpdir"));
 		try {
 			int ret = um.downloadFile(PathfinderConnectionConfiguration.URL_NODE_DOWNLOAD, fparser, new NameValuePair[0], new NameValuePair[0]);
 			if(ret>NOERROR){
@@ -428,6 +713,67 @@ public class PathfinderClient {
 
 	}
 	
+	/**
+	 * Invoke /node/snapshot to Pathfinder server to download the full project as a binary snapshot, interrupted transfers are resumed
+	 * @return File pointing to temporary download resource, a new file for each call to be deleted by the caller; read it with {@link BinarySnapshot#read}
+	 * @throws IOException
+	 */
+	public File downloadSnapshot() throws IOException{
+
+		File out = null;
+		TemporaryFileResponseParser fparser = new TemporaryFileResponseParser(System.getProperty("java.io.tmpdir"));
+		try {
+			int ret = um.downloadFile(PathfinderConnectionConfiguration.URL_NODE_SNAPSHOT, fparser, new NameValuePair[0], new NameValuePair[0]);
+			if(ret>NOERROR){
+				um.getLog().error("downloadSnapshot - Request failed, return status" + ret);
+			}
+			else{
+				out = fparser.getResponse();
+				um.getLog().debug("downloadSnapshot - response:"+out.getAbsolutePath());
+			}
+		} catch (IOException e) {
+			um.getLog().error("downloadSnapshot - request failed", e);
+		}
+		return out;
+
+	}
+
+	/**
+	 * Invoke /node/snapshot to Pathfinder server to import a full project, sent as a binary snapshot instead of JSON
+	 * @param json a JSONArray with full data to be imported, as for {@link #uploadProject(JSONArray)}
+	 * @return a JSONObject containing summary of the operation
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject uploadSnapshot(JSONArray json) {
+
+		JSONObject resp = null;
+		JsonObjectResponseParser jparser = new JsonObjectResponseParser();
+		try {
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			BinarySnapshot.write(json, out);
+			um.getLog().debug("uploadSnapshot: [{}] artifacts in [{}] bytes", json.size(), out.size());
+			RequestEntity postData = new ByteArrayRequestEntity(out.toByteArray(), BinarySnapshot.CONTENT_TYPE);
+
+			// content type comes from the entity
+			NameValuePair[] accept = new NameValuePair[]{ headers[1] };
+			int ret = um.doPost(PathfinderConnectionConfiguration.URL_NODE_SNAPSHOT, jparser,new NameValuePair[0],accept,  postData);
+			if(ret!=HttpStatus.SC_OK){
+				um.getLog().error("uploadSnapshot - Request failed, return status [{}]", ret);
+			}
+			else{
+				resp = jparser.getResponse();
+				um.getLog().debug("uploadSnapshot - response [{}]",resp);
+
+			}
+		} catch (IOException e) {
+			um.getLog().error("uploadSnapshot", e);
+		}
+
+		return resp;
+
+	}
+	
 	/**
 	 * Invoke /node/truncate to Pathfinder server to delete all nodes
 	 */
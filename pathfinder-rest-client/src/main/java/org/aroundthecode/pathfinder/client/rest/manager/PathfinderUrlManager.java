@@ -1,10 +1,15 @@
 package org.aroundthecode.pathfinder.client.rest.manager;
 
+import java.io.IOException;
+
+import org.apache.commons.httpclient.HttpMethod;
 import org.aroundthecode.pathfinder.client.rest.manager.configuration.PathfinderConnectionConfiguration;
 import org.aroundthecode.tools.remote.api.AbstractUrlManager;
 
 public class PathfinderUrlManager extends AbstractUrlManager {
 
+	private ServerProbe probe = null;
+
 	public PathfinderUrlManager(PathfinderConnectionConfiguration conf) {
 		super(conf);
 	}
@@ -14,4 +19,23 @@ public class PathfinderUrlManager extends AbstractUrlManager {
 		return PathfinderConnectionConfiguration.BASE_URL;
 	}
 
+	/**
+	 * Set the availability check requests wait for, none if null
+	 * @param probe
+	 */
+	public void setProbe(ServerProbe probe) {
+		this.probe = probe;
+	}
+
+	/**
+	 * Wait for server availability, then execute
+	 */
+	@Override
+	protected int executeHttpMethod(HttpMethod m) throws IOException {
+		if(probe!=null){
+			probe.await();
+		}
+		return super.executeHttpMethod(m);
+	}
+
 }
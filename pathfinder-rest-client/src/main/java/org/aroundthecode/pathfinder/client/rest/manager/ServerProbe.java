@@ -0,0 +1,182 @@
+package org.aroundthecode.pathfinder.client.rest.manager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Checks that a server accepts connections, retrying with exponential backoff and jitter until a maximum wait.
+ * <p>The check runs in a background daemon thread started by {@link #start()}, so creating a client never blocks;
+ * requests wait for it with {@link #await()}. Once the server answered no more checks are done.</p>
+ * <p>After a failed check requests fail fast for a cool-down period instead of waiting again, while a new check
+ * runs in background: requests pass again as soon as it succeeds.</p>
+ * @author msacchetti
+ *
+ */
+public class ServerProbe {
+
+	private static final Logger log = LogManager.getLogger(ServerProbe.class.getName());
+
+	/**
+	 * Connect timeout of a single check in milliseconds
+	 */
+	public static final int CONNECT_TIMEOUT = 1000;
+	/**
+	 * Delay after the first failed check in milliseconds, doubled at each failure
+	 */
+	public static final long BACKOFF_INITIAL = 100;
+	/**
+	 * Maximum delay between checks in milliseconds
+	 */
+	public static final long BACKOFF_MAX = 5000;
+	/**
+	 * Default maximum wait for the server in milliseconds
+	 */
+	public static final long DEFAULT_MAX_WAIT = 20000;
+	/**
+	 * Default time requests fail fast after a failed check in milliseconds
+	 */
+	public static final long DEFAULT_COOL_DOWN = 10000;
+
+	private final String host;
+	private final int port;
+	private final long maxWait;
+	private final long coolDown;
+
+	private volatile boolean available = false;
+	private volatile long failedAt = 0;
+	private FutureTask<Boolean> task = null;
+
+	/**
+	 * @param host server host
+	 * @param port server port
+	 * @param maxWait maximum wait for the server in milliseconds
+	 */
+	public ServerProbe(String host, int port, long maxWait) {
+		this(host, port, maxWait, DEFAULT_COOL_DOWN);
+	}
+
+	/**
+	 * @param host server host
+	 * @param port server port
+	 * @param maxWait maximum wait for the server in milliseconds
+	 * @param coolDown time requests fail fast after a failed check in milliseconds
+	 */
+	public ServerProbe(String host, int port, long maxWait, long coolDown) {
+		this.host = host;
+		this.port = port;
+		this.maxWait = maxWait;
+		this.coolDown = coolDown;
+	}
+
+	/**
+	 * Start a background check, unless server already answered or a check is running
+	 */
+	public synchronized void start() {
+		if(available || task!=null && !task.isDone()){
+			return;
+		}
+		task = new FutureTask<>(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws InterruptedException {
+				return probe();
+			}
+		});
+		Thread t = new Thread(task, "pathfinder-probe-" + host + ":" + port);
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Wait for the server, starting a new check if last one failed.
+	 * Within the cool-down after a failed check the new check runs in background and this fails immediately.
+	 * @throws IOException if server did not accept connections within maximum wait, or last check failed within cool-down
+	 */
+	public void await() throws IOException {
+		if(available){
+			return;
+		}
+		FutureTask<Boolean> t;
+		long since;
+		synchronized (this) {
+			since = System.currentTimeMillis() - failedAt;
+			start();
+			t = task;
+		}
+		if(since < coolDown){
+			throw new IOException("Pathfinder server [" + host + ":" + port + "] not reachable, last check failed " + since + "ms ago");
+		}
+		try {
+			if(!t.get()){
+				throw new IOException("Pathfinder server [" + host + ":" + port + "] not reachable after " + maxWait + "ms");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return true once server accepted a connection
+	 */
+	public boolean isAvailable() {
+		return available;
+	}
+
+	private boolean probe() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + maxWait;
+		long delay = BACKOFF_INITIAL;
+		for (int attempt = 1; ; attempt++) {
+			if(isReachable(host, port, CONNECT_TIMEOUT)){
+				log.debug("Connected to [{}:{}] at attempt [{}]", host, port, attempt);
+				available = true;
+				return true;
+			}
+			long left = deadline - System.currentTimeMillis();
+			if(left <= 0){
+				log.error("Connection to [{}:{}] failed [{}] times, giving up sorry.", host, port, attempt);
+				failedAt = System.currentTimeMillis();
+				return false;
+			}
+			// full jitter on the upper half, so concurrent clients do not retry in lockstep
+			long sleep = Math.min(left, ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+			log.debug("Connection to [{}:{}] failed [{}], will sleep {}ms and retry...", host, port, attempt, sleep);
+			Thread.sleep(sleep);
+			delay = Math.min(delay * 2, BACKOFF_MAX);
+		}
+	}
+
+	/**
+	 * Non blocking connect check
+	 * @param host server host
+	 * @param port server port
+	 * @param timeout maximum wait in milliseconds
+	 * @return true if a connection was established within timeout
+	 */
+	public static boolean isReachable(String host, int port, int timeout) {
+		try(SocketChannel ch = SocketChannel.open(); Selector selector = Selector.open()){
+			ch.configureBlocking(false);
+			if(ch.connect(new InetSocketAddress(host, port))){
+				return true;
+			}
+			ch.register(selector, SelectionKey.OP_CONNECT);
+			return selector.select(timeout) > 0 && ch.finishConnect();
+		} catch (IOException | UnresolvedAddressException e) {
+			log.debug("Connection to [{}:{}] failed: {}", host, port, e.getMessage());
+			return false;
+		}
+	}
+
+}
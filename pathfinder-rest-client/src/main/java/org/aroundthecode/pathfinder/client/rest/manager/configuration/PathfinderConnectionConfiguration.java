@@ -19,6 +19,9 @@ public class PathfinderConnectionConfiguration extends BasicConnectionConfigurat
 	
 	public static final String URL_QUERY_FILTERALL 	= BASE_URL + "query/filterall";
 	public static final String URL_QUERY_IMPACT 	= BASE_URL + "query/impact";
+	public static final String URL_QUERY_DEPENDENTS = BASE_URL + "query/dependents";
+	public static final String URL_QUERY_PATH 	= BASE_URL + "query/path";
+	public static final String URL_QUERY_CONFLICTS = BASE_URL + "query/conflicts";
 	
 	public static final String URL_NODE_GET 		= BASE_URL + "node/get";
 	public static final String URL_NODE_PARENT 		= BASE_URL + "node/parent";
@@ -26,6 +29,7 @@ public class PathfinderConnectionConfiguration extends BasicConnectionConfigurat
 	public static final String URL_NODE_SAVE 		= BASE_URL + "node/save";
 	public static final String URL_NODE_DOWNLOAD 	= BASE_URL + "node/download";
 	public static final String URL_NODE_UPLOAD 		= BASE_URL + "node/upload";
+	public static final String URL_NODE_SNAPSHOT 	= BASE_URL + "node/snapshot";
 	public static final String URL_NODE_TRUNCATE 	= BASE_URL + "node/truncate";
 	
 	public static final String URL_CRAWLER_CRAWL 	= BASE_URL + "crawler/crawl";
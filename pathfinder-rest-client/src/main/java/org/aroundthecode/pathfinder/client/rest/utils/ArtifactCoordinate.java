@@ -0,0 +1,140 @@
+package org.aroundthecode.pathfinder.client.rest.utils;
+
+/**
+ * Immutable maven coordinate groupId:artifactId:packaging:classifier:version.
+ * <p>Parsing scans the unique identifier once without regular expressions nor intermediate arrays,
+ * single coordinates are interned via {@link CoordinatePool} so repeated groupIds, versions and packaging
+ * share the same instance. Unique identifier and its hash are computed once.</p>
+ * @author msacchetti
+ *
+ */
+public final class ArtifactCoordinate {
+
+	/**
+	 * Coordinate of an empty artifact, see {@link ArtifactUtils#EMPTYID}
+	 */
+	public static final ArtifactCoordinate EMPTY = new ArtifactCoordinate(ArtifactUtils.EMPTYID, "", "", "jar", "", "");
+
+	private final String uniqueId;
+	private final String groupId;
+	private final String artifactId;
+	private final String packaging;
+	private final String classifier;
+	private final String version;
+
+	private ArtifactCoordinate(String uniqueId, String groupId, String artifactId, String packaging, String classifier, String version) {
+		this.uniqueId = uniqueId;
+		this.groupId = groupId;
+		this.artifactId = artifactId;
+		this.packaging = packaging;
+		this.classifier = classifier;
+		this.version = version;
+	}
+
+	/**
+	 * Build a coordinate from its attributes
+	 * @param groupId Artifact groupId
+	 * @param artifactId Artifact artifactId
+	 * @param packaging Artifact packaging
+	 * @param classifier Artifact classifier, null is considered empty
+	 * @param version Artifact version
+	 * @return ArtifactCoordinate
+	 */
+	public static ArtifactCoordinate of(String groupId,String artifactId,String packaging,String classifier,String version) {
+		String c = classifier!=null ? classifier : "";
+		return new ArtifactCoordinate(
+				ArtifactUtils.getUniqueId(groupId, artifactId, packaging, c, version),
+				CoordinatePool.intern(groupId),
+				CoordinatePool.intern(artifactId),
+				CoordinatePool.intern(packaging),
+				CoordinatePool.intern(c),
+				CoordinatePool.intern(version));
+	}
+
+	/**
+	 * Parse a unique identifier in form of groupId:artifactId:packaging:classifier:version or groupId:artifactId:packaging:version
+	 * @param uniqueId unique identifier
+	 * @return ArtifactCoordinate, null if uniqueId is null or has not 4 or 5 tokens
+	 */
+	public static ArtifactCoordinate parse(String uniqueId) {
+		if(uniqueId==null){
+			return null;
+		}
+		int c1 = uniqueId.indexOf(':');
+		int c2 = c1 < 0 ? -1 : uniqueId.indexOf(':', c1 + 1);
+		int c3 = c2 < 0 ? -1 : uniqueId.indexOf(':', c2 + 1);
+		if(c3 < 0){
+			return null;
+		}
+		int c4 = uniqueId.indexOf(':', c3 + 1);
+		if(c4 >= 0 && uniqueId.indexOf(':', c4 + 1) >= 0){
+			return null;
+		}
+
+		String g = CoordinatePool.intern(uniqueId, 0, c1);
+		String a = CoordinatePool.intern(uniqueId, c1 + 1, c2);
+		String p = CoordinatePool.intern(uniqueId, c2 + 1, c3);
+		String c;
+		String v;
+		if(c4 < 0){
+			c = "";
+			v = CoordinatePool.intern(uniqueId, c3 + 1, uniqueId.length());
+		}
+		else{
+			c = CoordinatePool.intern(uniqueId, c3 + 1, c4);
+			v = CoordinatePool.intern(uniqueId, c4 + 1, uniqueId.length());
+		}
+		// 4 tokens ids are normalized to the 5 tokens form
+		String u = c4 < 0 ? ArtifactUtils.getUniqueId(g, a, p, c, v) : uniqueId;
+		return new ArtifactCoordinate(u, g, a, p, c, v);
+	}
+
+	/**
+	 * @return groupId:artifactId:packaging:classifier:version
+	 */
+	public String getUniqueId() {
+		return uniqueId;
+	}
+
+	public String getGroupId() {
+		return groupId;
+	}
+
+	public String getArtifactId() {
+		return artifactId;
+	}
+
+	public String getPackaging() {
+		return packaging;
+	}
+
+	public String getClassifier() {
+		return classifier;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	@Override
+	public int hashCode() {
+		return uniqueId.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+
+		if (! (other instanceof ArtifactCoordinate))
+			return false;
+
+		return uniqueId.equals(((ArtifactCoordinate)other).uniqueId);
+	}
+
+	@Override
+	public String toString() {
+		return uniqueId;
+	}
+
+}
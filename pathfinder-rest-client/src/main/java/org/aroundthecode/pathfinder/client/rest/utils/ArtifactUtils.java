@@ -55,6 +55,14 @@ public final class ArtifactUtils {
 				version ;
 	}
 
+	/**
+	 * Split an unique identifier into its coordinates.
+	 * <p>Lenient historical contract: trailing empty tokens are dropped, so ids left with less than 4 tokens, as the empty id
+	 * {@link #EMPTYID}, give an empty map; ids with 4 or with 6 and more tokens take the 4th one as version. Use
+	 * {@link ArtifactCoordinate#parse(String)} for strict parsing without the map allocation.</p>
+	 * @param uniqueId A string in form of groupId:artifactId:packaging:classifier:version
+	 * @return map of coordinates keyed by G,A,P,C,V constants, empty if uniqueId has less than 4 tokens
+	 */
 	public static final Map<String,String> splitUniqueId(String uniqueId){
 
 		Map<String,String> out = new HashMap<String, String>();
@@ -71,8 +79,7 @@ public final class ArtifactUtils {
 			if(tokens.length == 5){
 				out.put(C, tokens[3]);
 				out.put(V, tokens[4]);
-
-			} 
+			}
 		}
 		return out;
 
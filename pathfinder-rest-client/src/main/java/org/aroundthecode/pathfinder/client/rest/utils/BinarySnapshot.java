@@ -0,0 +1,486 @@
+package org.aroundthecode.pathfinder.client.rest.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.tools.remote.api.response.JsonItemHandler;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Compact binary snapshot of artifacts, alternative to the JSON array of <b>/node/download</b> and <b>/node/upload</b>.
+ * Each coordinate string is stored once and artifacts refer to each other by node id.
+ * <p>Layout, all integers are unsigned LEB128 varints:</p>
+ * <pre>
+ * "PFSN" version
+ * strings:      count, then byte length and UTF-8 bytes of each distinct coordinate
+ * nodes:        count, then for each node the indexes + 1 of groupId, artifactId, packaging, classifier and version,
+ *               or 0 and the index of a uniqueId not in canonical form
+ * artifacts:    count, then for each node id, timestamp + 1 (0 if missing) and parent node id + 1 (0 if none)
+ * dependencies: for each scope in {@link Dependency} order, count of artifacts with dependencies in such scope, then for each
+ *               artifact index delta, amount of dependencies and deltas of their sorted node ids
+ * CRC32 of all previous bytes, 4 bytes big endian
+ * </pre>
+ * Nodes are every artifact plus every parent or dependency not in the snapshot, artifacts come first in their original order.
+ * @author msacchetti
+ *
+ */
+public final class BinarySnapshot {
+
+	/**
+	 * Content type of snapshots
+	 */
+	public static final String CONTENT_TYPE = "application/x-pathfinder-snapshot";
+
+	private static final byte[] MAGIC = {'P', 'F', 'S', 'N'};
+	private static final int VERSION = 1;
+	private static final int BUF_SIZE = 64 * 1024;
+
+	private BinarySnapshot() {
+	}
+
+	/**
+	 * Builds dictionary and node table while artifacts are added
+	 */
+	private static final class Tables {
+		final Map<String, Integer> strings = new HashMap<>();
+		final List<String> stringList = new ArrayList<>();
+		final Map<String, Integer> nodes = new HashMap<>();
+		final List<String> nodeList = new ArrayList<>();
+
+		int string(String s) {
+			Integer i = strings.get(s);
+			if(i==null){
+				i = stringList.size();
+				strings.put(s, i);
+				stringList.add(s);
+			}
+			return i;
+		}
+
+		int node(String uniqueId) {
+			Integer i = nodes.get(uniqueId);
+			if(i==null){
+				i = nodeList.size();
+				nodes.put(uniqueId, i);
+				nodeList.add(uniqueId);
+			}
+			return i;
+		}
+	}
+
+	/**
+	 * Write artifacts as a snapshot
+	 * @param artifacts JSON representations of artifacts, see {@link ArtifactUtils#artifactJSON}
+	 * @param out destination, flushed but not closed
+	 * @throws IOException
+	 */
+	public static void write(Iterable<JSONObject> artifacts, OutputStream out) throws IOException {
+		Tables t = new Tables();
+
+		// artifacts first, so their node id is their position unless repeated
+		List<JSONObject> list = new ArrayList<>();
+		for (JSONObject o : artifacts) {
+			t.node(o.get(ArtifactUtils.U).toString());
+			list.add(o);
+		}
+		int[] ids = new int[list.size()];
+		long[] timestamps = new long[list.size()];
+		int[] parents = new int[list.size()];
+		int[][][] deps = new int[Dependency.values().length][][];
+		for (int s = 0; s < deps.length; s++) {
+			deps[s] = new int[list.size()][];
+		}
+		for (int i = 0; i < list.size(); i++) {
+			JSONObject o = list.get(i);
+			ids[i] = t.node(o.get(ArtifactUtils.U).toString());
+			Object ts = o.get(ArtifactUtils.T);
+			timestamps[i] = ts!=null ? Long.parseLong(ts.toString()) + 1 : 0;
+			Object pn = o.get(ArtifactUtils.PN);
+			parents[i] = pn!=null ? t.node(pn.toString()) + 1 : 0;
+			JSONObject d = (JSONObject) o.get(ArtifactUtils.D);
+			if(d==null){
+				continue;
+			}
+			for (Dependency dep : Dependency.values()) {
+				JSONArray a = (JSONArray) d.get(dep.toString());
+				if(a==null || a.isEmpty()){
+					continue;
+				}
+				int[] targets = new int[a.size()];
+				for (int k = 0; k < targets.length; k++) {
+					targets[k] = t.node(a.get(k).toString());
+				}
+				Arrays.sort(targets);
+				deps[dep.ordinal()][i] = targets;
+			}
+		}
+
+		// node coordinates, filling the dictionary
+		int[][] coordinates = new int[t.nodeList.size()][];
+		for (int n = 0; n < coordinates.length; n++) {
+			String uid = t.nodeList.get(n);
+			ArtifactCoordinate c = ArtifactCoordinate.parse(uid);
+			if(c!=null && uid.equals(ArtifactUtils.getUniqueId(c.getGroupId(), c.getArtifactId(), c.getPackaging(), c.getClassifier(), c.getVersion()))){
+				coordinates[n] = new int[]{
+						t.string(c.getGroupId()) + 1, t.string(c.getArtifactId()) + 1, t.string(c.getPackaging()) + 1,
+						t.string(c.getClassifier()) + 1, t.string(c.getVersion()) + 1};
+			}
+			else{
+				coordinates[n] = new int[]{0, t.string(uid)};
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		DataOutputStream data = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(out, BUF_SIZE), crc));
+		data.write(MAGIC);
+		writeVarLong(data, VERSION);
+
+		writeVarLong(data, t.stringList.size());
+		for (String s : t.stringList) {
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(data, b.length);
+			data.write(b);
+		}
+
+		writeVarLong(data, coordinates.length);
+		for (int[] c : coordinates) {
+			for (int v : c) {
+				writeVarLong(data, v);
+			}
+		}
+
+		writeVarLong(data, list.size());
+		for (int i = 0; i < ids.length; i++) {
+			writeVarLong(data, ids[i]);
+			writeVarLong(data, timestamps[i]);
+			writeVarLong(data, parents[i]);
+		}
+
+		for (int[][] scope : deps) {
+			int count = 0;
+			for (int[] targets : scope) {
+				if(targets!=null){
+					count++;
+				}
+			}
+			writeVarLong(data, count);
+			int previous = 0;
+			for (int i = 0; i < scope.length; i++) {
+				int[] targets = scope[i];
+				if(targets==null){
+					continue;
+				}
+				writeVarLong(data, i - previous);
+				previous = i;
+				writeVarLong(data, targets.length);
+				int last = 0;
+				for (int target : targets) {
+					writeVarLong(data, target - last);
+					last = target;
+				}
+			}
+		}
+
+		data.flush();
+		// checksum is not part of itself
+		long sum = crc.getValue();
+		data.writeInt((int) sum);
+		data.flush();
+	}
+
+	/**
+	 * Read a snapshot of unknown length, see {@link #read(InputStream, long)}
+	 * @param in source, read up to the checksum and not closed
+	 * @return JSON representations of artifacts, see {@link ArtifactUtils#artifactJSON}
+	 * @throws IOException if source is not a snapshot, is truncated or checksum does not match
+	 */
+	public static JSONArray read(InputStream in) throws IOException {
+		return read(in, -1);
+	}
+
+	/**
+	 * Read a snapshot
+	 * @param in source, read up to the checksum and not closed
+	 * @param length maximum snapshot length in bytes, negative if unknown
+	 * @return JSON representations of artifacts, see {@link ArtifactUtils#artifactJSON}
+	 * @throws IOException if source is not a snapshot, is truncated, longer than length or checksum does not match
+	 */
+	public static JSONArray read(InputStream in, long length) throws IOException {
+		final JSONArray out = new JSONArray();
+		read(in, length, new JsonItemHandler() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean item(Object item) {
+				out.add(item);
+				return true;
+			}
+		});
+		return out;
+	}
+
+	/**
+	 * Read a snapshot of unknown length, see {@link #read(InputStream, long, JsonItemHandler)}
+	 * @param in source, read up to the checksum and not closed
+	 * @param handler receives the JSON representation of each artifact, see {@link ArtifactUtils#artifactJSON}
+	 * @return amount of artifacts handled
+	 * @throws IOException if source is not a snapshot, is truncated or checksum does not match, or thrown by handler
+	 */
+	public static long read(InputStream in, JsonItemHandler handler) throws IOException {
+		return read(in, -1, handler);
+	}
+
+	/**
+	 * Read a snapshot passing artifacts to a handler one at a time, so only the decoded node and edge tables are held in memory.
+	 * The whole snapshot is decoded and its checksum verified before the first artifact is handled.
+	 * <p>Every count is checked against the bytes left within length, each counted item taking at least one byte, so a
+	 * corrupted count fails before allocating; with an unknown length counts are only bounded by <code>Integer.MAX_VALUE</code>.</p>
+	 * @param in source, read up to the checksum and not closed
+	 * @param length maximum snapshot length in bytes, negative if unknown
+	 * @param handler receives the JSON representation of each artifact, see {@link ArtifactUtils#artifactJSON}
+	 * @return amount of artifacts handled
+	 * @throws IOException if source is not a snapshot, is truncated, longer than length or checksum does not match, or thrown by handler
+	 */
+	public static long read(InputStream in, long length, JsonItemHandler handler) throws IOException {
+		CRC32 crc = new CRC32();
+		Bounded bounded = new Bounded(new BufferedInputStream(in, BUF_SIZE), length < 0 ? Long.MAX_VALUE : length);
+		DataInputStream data = new DataInputStream(new CheckedInputStream(bounded, crc));
+		String[] nodes;
+		int size;
+		int[] ids;
+		long[] timestamps;
+		int[] parents;
+		int[][][] deps;
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			data.readFully(magic);
+			if(!Arrays.equals(MAGIC, magic)){
+				throw new IOException("Not a Pathfinder snapshot");
+			}
+			long version = readVarLong(data);
+			if(version!=VERSION){
+				throw new IOException("Unsupported snapshot version " + version);
+			}
+
+			// length and bytes of each string
+			String[] strings = new String[count(data, bounded, 1)];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] b = new byte[count(data, bounded, 1)];
+				data.readFully(b);
+				strings[i] = new String(b, StandardCharsets.UTF_8);
+			}
+
+			// 0 and string index at least
+			nodes = new String[count(data, bounded, 2)];
+			for (int n = 0; n < nodes.length; n++) {
+				int g = index(data, strings.length + 1);
+				if(g==0){
+					nodes[n] = strings[index(data, strings.length)];
+				}
+				else{
+					nodes[n] = ArtifactUtils.getUniqueId(strings[g - 1],
+							strings[index(data, strings.length + 1) - 1],
+							strings[index(data, strings.length + 1) - 1],
+							strings[index(data, strings.length + 1) - 1],
+							strings[index(data, strings.length + 1) - 1]);
+				}
+			}
+
+			// node id, timestamp and parent
+			size = count(data, bounded, 3);
+			ids = new int[size];
+			timestamps = new long[size];
+			parents = new int[size];
+			for (int i = 0; i < size; i++) {
+				ids[i] = index(data, nodes.length);
+				timestamps[i] = readVarLong(data);
+				parents[i] = index(data, nodes.length + 1);
+			}
+
+			deps = new int[Dependency.values().length][size][];
+			for (int s = 0; s < deps.length; s++) {
+				// index delta and amount of dependencies
+				int count = count(data, bounded, 2);
+				int artifact = 0;
+				for (int k = 0; k < count; k++) {
+					artifact += index(data, size - artifact);
+					int[] targets = new int[count(data, bounded, 1)];
+					int node = 0;
+					for (int j = 0; j < targets.length; j++) {
+						node += index(data, nodes.length - node);
+						targets[j] = node;
+					}
+					deps[s][artifact] = targets;
+				}
+			}
+
+			long expected = crc.getValue();
+			if(data.readInt()!=(int) expected){
+				throw new IOException("Snapshot checksum mismatch");
+			}
+		}
+		catch (EOFException e) {
+			throw new IOException("Truncated snapshot", e);
+		}
+
+		for (int i = 0; i < size; i++) {
+			JSONObject o = ArtifactUtils.artifactJSON(
+					nodes[ids[i]],
+					timestamps[i] > 0 ? timestamps[i] - 1 : System.currentTimeMillis(),
+					parents[i] > 0 ? nodes[parents[i] - 1] : null,
+					dependencies(deps, nodes, Dependency.COMPILE, i),
+					dependencies(deps, nodes, Dependency.IMPORT, i),
+					dependencies(deps, nodes, Dependency.PROVIDED, i),
+					dependencies(deps, nodes, Dependency.RUNTIME, i),
+					dependencies(deps, nodes, Dependency.SYSTEM, i),
+					dependencies(deps, nodes, Dependency.TEST, i));
+			// handled artifacts can be released
+			for (int[][] scope : deps) {
+				scope[i] = null;
+			}
+			if(!handler.item(o)){
+				return i + 1L;
+			}
+		}
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONArray dependencies(int[][][] deps, String[] nodes, Dependency scope, int artifact) {
+		JSONArray a = new JSONArray();
+		int[] targets = deps[scope.ordinal()][artifact];
+		if(targets!=null){
+			for (int t : targets) {
+				a.add(nodes[t]);
+			}
+		}
+		return a;
+	}
+
+	/**
+	 * Read a varint to be used as an amount of items, checking the items fit in the bytes left
+	 * @param itemBytes minimum encoded size of an item
+	 */
+	private static int count(DataInputStream in, Bounded bounded, int itemBytes) throws IOException {
+		long v = readVarLong(in);
+		if(v < 0 || v > Integer.MAX_VALUE - 8 || v > bounded.remaining / itemBytes){
+			throw new IOException("Corrupted snapshot, count " + v + " exceeds input");
+		}
+		return (int) v;
+	}
+
+	/**
+	 * Input ending after a given amount of bytes, tracking how many are left
+	 */
+	private static final class Bounded extends FilterInputStream {
+		long remaining;
+
+		Bounded(InputStream in, long remaining) {
+			super(in);
+			this.remaining = remaining;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if(remaining <= 0){
+				return -1;
+			}
+			int b = in.read();
+			if(b >= 0){
+				remaining--;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(remaining <= 0){
+				return -1;
+			}
+			int n = in.read(b, off, (int) Math.min(len, remaining));
+			if(n > 0){
+				remaining -= n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(Math.min(n, remaining));
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(in.available(), remaining);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
+	/**
+	 * Read a varint checking it is lower than bound, so corrupted data fails before allocating or indexing
+	 */
+	private static int index(DataInputStream in, int bound) throws IOException {
+		long v = readVarLong(in);
+		if(v < 0 || v >= bound){
+			throw new IOException("Corrupted snapshot, value " + v + " out of range");
+		}
+		return (int) v;
+	}
+
+	/**
+	 * Write an unsigned LEB128 varint, 7 bits per byte with the high bit set on all bytes but the last
+	 * @param out destination
+	 * @param value non negative value
+	 * @throws IOException
+	 */
+	static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		long v = value;
+		while((v & ~0x7FL) != 0){
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.writeByte((int) v);
+	}
+
+	/**
+	 * Read an unsigned LEB128 varint
+	 * @param in source
+	 * @return value
+	 * @throws IOException if varint is longer than 64 bits
+	 */
+	static long readVarLong(DataInputStream in) throws IOException {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			v |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0){
+				return v;
+			}
+		}
+		throw new IOException("Corrupted snapshot, varint too long");
+	}
+
+}
@@ -0,0 +1,122 @@
+package org.aroundthecode.pathfinder.client.rest.utils;
+
+/**
+ * Interning pool for artifact coordinate strings.
+ * <p>Lookups work on a character range of a source string, so a coordinate already in the pool
+ * is returned without allocating any substring. Reads are lock free, inserts are synchronized.</p>
+ * <p>The pool is shared by the whole JVM and never evicts, so it stops growing at {@link #MAX_SIZE} entries, enough for
+ * the groupIds, packagings and common versions that repeat across artifacts; after that unknown values are returned
+ * as plain substrings.</p>
+ * @author msacchetti
+ *
+ */
+final class CoordinatePool {
+
+	private static final int INITIAL_CAPACITY = 1 << 12;
+	static final int MAX_SIZE = 1 << 14;
+
+	private static volatile String[] table = new String[INITIAL_CAPACITY];
+	private static int size = 0;
+
+	private CoordinatePool() {
+	}
+
+	/**
+	 * Return the pooled instance equal to s.substring(start,end), adding it to the pool if missing
+	 * @param s source string
+	 * @param start range start, inclusive
+	 * @param end range end, exclusive
+	 * @return pooled string
+	 */
+	static String intern(String s, int start, int end) {
+		int len = end - start;
+		if(len==0){
+			return "";
+		}
+		int h = hash(s, start, end);
+		String found = lookup(table, s, start, len, h);
+		if(found!=null){
+			return found;
+		}
+		return insert(s, start, end, h);
+	}
+
+	/**
+	 * Return the pooled instance equal to s, adding it to the pool if missing
+	 * @param s string to intern
+	 * @return pooled string, null if s is null
+	 */
+	static String intern(String s) {
+		return s==null ? null : intern(s, 0, s.length());
+	}
+
+	/**
+	 * @return amount of pooled strings
+	 */
+	static synchronized int size() {
+		return size;
+	}
+
+	private static String lookup(String[] t, String s, int start, int len, int h) {
+		int mask = t.length - 1;
+		for (int i = h & mask; ; i = (i + 1) & mask) {
+			String e = t[i];
+			if(e==null){
+				return null;
+			}
+			if(e.length()==len && e.hashCode()==h && e.regionMatches(0, s, start, len)){
+				return e;
+			}
+		}
+	}
+
+	private static synchronized String insert(String s, int start, int end, int h) {
+		String[] t = table;
+		String found = lookup(t, s, start, end - start, h);
+		if(found!=null){
+			return found;
+		}
+		String value = (start==0 && end==s.length()) ? s : s.substring(start, end);
+		if(size >= MAX_SIZE){
+			return value;
+		}
+		if( (size + 1) * 2 > t.length ){
+			t = resize(t);
+		}
+		put(t, value);
+		size++;
+		table = t;
+		return value;
+	}
+
+	private static String[] resize(String[] old) {
+		String[] t = new String[old.length * 2];
+		for (String e : old) {
+			if(e!=null){
+				put(t, e);
+			}
+		}
+		return t;
+	}
+
+	private static void put(String[] t, String value) {
+		int mask = t.length - 1;
+		int i = value.hashCode() & mask;
+		while(t[i]!=null){
+			i = (i + 1) & mask;
+		}
+		t[i] = value;
+	}
+
+	/**
+	 * Same value as String.hashCode() computed over a character range
+	 */
+	private static int hash(String s, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + s.charAt(i);
+		}
+		return h;
+	}
+
+}
@@ -15,7 +15,16 @@ import org.json.simple.parser.ParseException;
  */
 public class RestUtils {
 
-	private static final JSONParser jparser = new JSONParser();
+	/**
+	 * JSONParser keeps parsing state in instance fields and is not thread-safe,
+	 * each thread gets its own reusable instance
+	 */
+	private static final ThreadLocal<JSONParser> jparser = new ThreadLocal<JSONParser>(){
+		@Override
+		protected JSONParser initialValue() {
+			return new JSONParser();
+		}
+	};
 
 	private RestUtils() {
 	}
@@ -29,7 +38,7 @@ public class RestUtils {
 	 * @throws IOException 
 	 */
 	public static final JSONObject string2JSONObject(Reader r) throws ParseException, IOException{
-		return (JSONObject) jparser.parse(r);
+		return (JSONObject) jparser.get().parse(r);
 	}
 	
 	/**
@@ -39,7 +48,7 @@ public class RestUtils {
 	 * @throws ParseException
 	 */
 	public static final JSONObject string2Json(String s) throws ParseException{
-		return (JSONObject) jparser.parse(s);
+		return (JSONObject) jparser.get().parse(s);
 	}
 	
 	/**
@@ -50,7 +59,7 @@ public class RestUtils {
 	 * @throws IOException 
 	 */
 	public static final JSONArray string2JSONArray(Reader r) throws ParseException, IOException{
-		return (JSONArray) jparser.parse(r);
+		return (JSONArray) jparser.get().parse(r);
 	}
 	
 	/**
@@ -60,7 +69,7 @@ public class RestUtils {
 	 * @throws ParseException
 	 */
 	public static final JSONArray string2JSONArray(String s) throws ParseException{
-		return (JSONArray) jparser.parse(s);
+		return (JSONArray) jparser.get().parse(s);
 	}
 
 
@@ -0,0 +1,89 @@
+package org.aroundthecode.pathfinder.client.rest.manager;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+
+import org.junit.Test;
+
+public class ServerProbeTest {
+
+	/**
+	 * A listening server is found at first attempt
+	 */
+	@Test
+	public void testAvailable() throws IOException {
+		try(ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())){
+			ServerProbe probe = new ServerProbe("127.0.0.1", server.getLocalPort(), 1000);
+			probe.start();
+			probe.await();
+			assertTrue(probe.isAvailable());
+		}
+	}
+
+	/**
+	 * A missing server fails after maximum wait, retrying with backoff meanwhile
+	 */
+	@Test
+	public void testUnavailable() throws IOException {
+		int port;
+		try(ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())){
+			port = server.getLocalPort();
+		}
+		ServerProbe probe = new ServerProbe("127.0.0.1", port, 300);
+		long start = System.currentTimeMillis();
+		try {
+			probe.await();
+			fail("Server should not be reachable");
+		} catch (IOException e) {
+			// expected
+		}
+		assertFalse(probe.isAvailable());
+		assertTrue(System.currentTimeMillis() - start >= 300);
+	}
+
+	/**
+	 * After a failed check requests fail fast, until the background check finds the server
+	 */
+	@Test
+	public void testCoolDown() throws IOException, InterruptedException {
+		try(ServerSocket server = new ServerSocket()){
+			server.setReuseAddress(true);
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			int port = server.getLocalPort();
+			server.close();
+
+			ServerProbe probe = new ServerProbe("127.0.0.1", port, 300, 60000);
+			try {
+				probe.await();
+				fail("Server should not be reachable");
+			} catch (IOException e) {
+				// expected
+			}
+			long start = System.currentTimeMillis();
+			try {
+				probe.await();
+				fail("Server should not be reachable");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("last check failed"));
+			}
+			assertTrue(System.currentTimeMillis() - start < 300);
+
+			try(ServerSocket again = new ServerSocket()){
+				again.setReuseAddress(true);
+				again.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+				for (int i = 0; i < 50 && !probe.isAvailable(); i++) {
+					Thread.sleep(20);
+				}
+				probe.await();
+				assertTrue(probe.isAvailable());
+			}
+		}
+	}
+
+}
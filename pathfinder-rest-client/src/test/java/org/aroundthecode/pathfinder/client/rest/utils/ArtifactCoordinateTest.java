@@ -0,0 +1,60 @@
+package org.aroundthecode.pathfinder.client.rest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ArtifactCoordinateTest {
+
+	@Test
+	public void testParse() {
+		ArtifactCoordinate c = ArtifactCoordinate.parse("my.group:test:jar:sources:1.0.0");
+		assertEquals("my.group", c.getGroupId());
+		assertEquals("test", c.getArtifactId());
+		assertEquals("jar", c.getPackaging());
+		assertEquals("sources", c.getClassifier());
+		assertEquals("1.0.0", c.getVersion());
+		assertEquals("my.group:test:jar:sources:1.0.0", c.getUniqueId());
+	}
+
+	@Test
+	public void testParseNoClassifier() {
+		ArtifactCoordinate c = ArtifactCoordinate.parse("my.group:test:jar:1.0.0");
+		assertEquals("", c.getClassifier());
+		assertEquals("1.0.0", c.getVersion());
+		assertEquals("my.group:test:jar::1.0.0", c.getUniqueId());
+		assertEquals(ArtifactCoordinate.of("my.group", "test", "jar", null, "1.0.0"), c);
+	}
+
+	@Test
+	public void testParseInvalid() {
+		assertNull(ArtifactCoordinate.parse(null));
+		assertNull(ArtifactCoordinate.parse("my.group:test:1.0.0"));
+		assertNull(ArtifactCoordinate.parse("a:b:c:d:e:f"));
+	}
+
+	@Test
+	public void testInterning() {
+		ArtifactCoordinate c1 = ArtifactCoordinate.parse(new String("my.group:test-1:jar::1.0.0"));
+		ArtifactCoordinate c2 = ArtifactCoordinate.parse(new String("my.group:test-2:jar::1.0.0"));
+		assertSame(c1.getGroupId(), c2.getGroupId());
+		assertSame(c1.getVersion(), c2.getVersion());
+	}
+
+	/**
+	 * The shared pool stops growing at its maximum size, values are still returned and pooled ones still shared
+	 */
+	@Test
+	public void testPoolBound() {
+		String group = ArtifactCoordinate.parse("my.group:test-0:jar::1.0.0").getGroupId();
+		for (int i = 0; i <= CoordinatePool.MAX_SIZE; i++) {
+			assertEquals("bound-" + i, CoordinatePool.intern("bound-" + i));
+		}
+		assertTrue(CoordinatePool.size() <= CoordinatePool.MAX_SIZE);
+		assertSame(group, ArtifactCoordinate.parse(new String("my.group:test-3:jar::1.0.0")).getGroupId());
+	}
+
+}
@@ -0,0 +1,51 @@
+package org.aroundthecode.pathfinder.client.rest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+public class ArtifactUtilsTest {
+
+	@Test
+	public void testSplitUniqueId() {
+		Map<String, String> m = ArtifactUtils.splitUniqueId("my.group:test:jar:sources:1.0.0");
+		assertEquals("my.group", m.get(ArtifactUtils.G));
+		assertEquals("test", m.get(ArtifactUtils.A));
+		assertEquals("jar", m.get(ArtifactUtils.P));
+		assertEquals("sources", m.get(ArtifactUtils.C));
+		assertEquals("1.0.0", m.get(ArtifactUtils.V));
+
+		m = ArtifactUtils.splitUniqueId("my.group:test:jar:1.0.0");
+		assertEquals("", m.get(ArtifactUtils.C));
+		assertEquals("1.0.0", m.get(ArtifactUtils.V));
+	}
+
+	@Test
+	public void testSplitUniqueIdLenient() {
+		// contract differs from ArtifactCoordinate.parse, which is strict
+		assertTrue(ArtifactUtils.splitUniqueId(null).isEmpty());
+		assertTrue(ArtifactUtils.splitUniqueId(ArtifactUtils.EMPTYID).isEmpty());
+		assertTrue(ArtifactUtils.splitUniqueId("my.group:test:jar:").isEmpty());
+
+		Map<String, String> m = ArtifactUtils.splitUniqueId("a:b:c:d:e:f");
+		assertEquals("a", m.get(ArtifactUtils.G));
+		assertEquals("", m.get(ArtifactUtils.C));
+		assertEquals("d", m.get(ArtifactUtils.V));
+	}
+
+	@Test
+	public void testArtifactJSONLenient() {
+		JSONObject o = ArtifactUtils.artifactJSON("a:b:c:d:e:f", 1L, null);
+		assertEquals("a:b:c:d:e:f", o.get(ArtifactUtils.U));
+		assertEquals("a", o.get(ArtifactUtils.G));
+		assertEquals("", o.get(ArtifactUtils.C));
+		assertEquals("d", o.get(ArtifactUtils.V));
+		assertNull(ArtifactUtils.artifactJSON(ArtifactUtils.EMPTYID, 1L, null).get(ArtifactUtils.G));
+	}
+
+}
@@ -0,0 +1,130 @@
+package org.aroundthecode.pathfinder.client.rest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+public class BinarySnapshotTest {
+
+	@SuppressWarnings("unchecked")
+	private static JSONArray uids(String... uids) {
+		JSONArray a = new JSONArray();
+		for (String u : uids) {
+			a.add(u);
+		}
+		return a;
+	}
+
+	private static List<JSONObject> artifacts() {
+		List<JSONObject> l = new ArrayList<>();
+		l.add(ArtifactUtils.artifactJSON("my.group:app:jar::1.0.0", 1000L, "my.group:parent:pom::1.0.0",
+				uids("my.group:lib:jar::2.0.0", "org.other:util:jar:tests:3.1"), new JSONArray(), uids("javax:api:jar::1.0"),
+				new JSONArray(), new JSONArray(), uids("junit:junit:jar::4.12")));
+		l.add(ArtifactUtils.artifactJSON("my.group:lib:jar::2.0.0", 2000L, null));
+		l.add(ArtifactUtils.artifactJSON("my.group:parent:pom::1.0.0", 3000L, null));
+		return l;
+	}
+
+	private static byte[] write(List<JSONObject> artifacts) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinarySnapshot.write(artifacts, out);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		JSONArray read = BinarySnapshot.read(new ByteArrayInputStream(write(artifacts())));
+		assertEquals(3, read.size());
+
+		JSONObject app = (JSONObject) read.get(0);
+		assertEquals("my.group:app:jar::1.0.0", app.get(ArtifactUtils.U));
+		assertEquals("1000", app.get(ArtifactUtils.T));
+		assertEquals("my.group:parent:pom::1.0.0", app.get(ArtifactUtils.PN));
+		JSONObject d = (JSONObject) app.get(ArtifactUtils.D);
+		assertEquals(uids("my.group:lib:jar::2.0.0", "org.other:util:jar:tests:3.1"), d.get(Dependency.COMPILE.toString()));
+		assertEquals(uids("javax:api:jar::1.0"), d.get(Dependency.PROVIDED.toString()));
+		assertEquals(uids("junit:junit:jar::4.12"), d.get(Dependency.TEST.toString()));
+		assertEquals(0, ((JSONArray) d.get(Dependency.RUNTIME.toString())).size());
+
+		JSONObject lib = (JSONObject) read.get(1);
+		assertEquals("my.group:lib:jar::2.0.0", lib.get(ArtifactUtils.U));
+		assertEquals("2000", lib.get(ArtifactUtils.T));
+		assertNull(lib.get(ArtifactUtils.PN));
+	}
+
+	@Test
+	public void testNonCanonicalUniqueId() throws IOException {
+		List<JSONObject> l = new ArrayList<>();
+		l.add(ArtifactUtils.artifactJSON("my.group:short:jar:1.0", 1L, null, uids("not-a-coordinate"),
+				new JSONArray(), new JSONArray(), new JSONArray(), new JSONArray(), new JSONArray()));
+		JSONObject o = (JSONObject) BinarySnapshot.read(new ByteArrayInputStream(write(l))).get(0);
+		assertEquals("my.group:short:jar:1.0", o.get(ArtifactUtils.U));
+		assertEquals(uids("not-a-coordinate"), ((JSONObject) o.get(ArtifactUtils.D)).get(Dependency.COMPILE.toString()));
+	}
+
+	@Test
+	public void testCorrupted() throws IOException {
+		byte[] b = write(artifacts());
+		b[b.length / 2] ^= 0x01;
+		try {
+			BinarySnapshot.read(new ByteArrayInputStream(b));
+			fail("Corruption not detected");
+		}
+		catch (IOException e) {
+			// expected, either checksum or bounds
+		}
+
+		byte[] truncated = new byte[b.length - 3];
+		System.arraycopy(write(artifacts()), 0, truncated, 0, truncated.length);
+		try {
+			BinarySnapshot.read(new ByteArrayInputStream(truncated));
+			fail("Truncation not detected");
+		}
+		catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * A corrupted count fails before allocating, input longer than the given length is not read
+	 */
+	@Test
+	public void testCorruptedCount() throws IOException {
+		byte[] b = write(artifacts());
+		// strings count follows magic and version, replaced by a 200 million varint
+		byte[] count = {(byte) 0x80, (byte) 0x84, (byte) 0xAF, (byte) 0x5F};
+		byte[] corrupted = new byte[b.length + count.length - 1];
+		System.arraycopy(b, 0, corrupted, 0, 5);
+		System.arraycopy(count, 0, corrupted, 5, count.length);
+		System.arraycopy(b, 6, corrupted, 5 + count.length, b.length - 6);
+		try {
+			BinarySnapshot.read(new ByteArrayInputStream(corrupted), corrupted.length);
+			fail("Corrupted count not detected");
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("200000000"));
+		}
+
+		assertEquals(3, BinarySnapshot.read(new ByteArrayInputStream(b), b.length).size());
+		try {
+			BinarySnapshot.read(new ByteArrayInputStream(b), b.length - 1);
+			fail("Snapshot longer than length read");
+		}
+		catch (IOException e) {
+			// expected
+		}
+	}
+
+}
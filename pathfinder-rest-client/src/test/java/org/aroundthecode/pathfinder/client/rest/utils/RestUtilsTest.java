@@ -1,4 +1,91 @@
 package org.aroundthecode.pathfinder.client.rest.utils;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
-public class RestUtilsTest {}
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+
+public class RestUtilsTest {
+
+	private static final int THREADS = 8;
+	private static final int PARSES_PER_THREAD = 20000;
+
+	@Test
+	public void testString2Json() throws ParseException {
+		JSONObject o = RestUtils.string2Json(json(1));
+		assertNotNull(o);
+		assertEquals("my.group:test-1:jar::1.0.1", o.get(ArtifactUtils.U));
+	}
+
+	@Test
+	public void testString2JsonArray() throws Exception {
+		JSONArray a = RestUtils.string2JSONArray("[" + json(1) + "," + json(2) + "]");
+		assertEquals(2, a.size());
+		a = RestUtils.string2JSONArray(new StringReader("[" + json(3) + "]"));
+		assertEquals(1, a.size());
+	}
+
+	/**
+	 * Every thread parses its own documents through the shared utility methods and checks
+	 * the result matches the input, a shared parser would mix up tokens among threads
+	 */
+	@Test
+	public void testConcurrentParsing() throws Exception {
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> results = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			results.add(pool.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					start.await();
+					int ok = 0;
+					for (int i = 0; i < PARSES_PER_THREAD; i++) {
+						int id = thread * PARSES_PER_THREAD + i;
+						JSONObject o = RestUtils.string2Json(json(id));
+						if( ("my.group:test-" + id + ":jar::1.0." + id).equals(o.get(ArtifactUtils.U))
+								&& ((JSONArray)((JSONObject)o.get(ArtifactUtils.D)).get("COMPILE")).size()==3 ){
+							ok++;
+						}
+					}
+					return ok;
+				}
+			}));
+		}
+
+		start.countDown();
+		int total = 0;
+		for (Future<Integer> f : results) {
+			total += f.get();
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(THREADS * PARSES_PER_THREAD, total);
+	}
+
+	private static String json(int id) {
+		String uid = "my.group:test-" + id + ":jar::1.0." + id;
+		return "{\"uniqueId\":\"" + uid + "\",\"groupId\":\"my.group\",\"artifactId\":\"test-" + id + "\","
+				+ "\"packaging\":\"jar\",\"classifier\":\"\",\"version\":\"1.0." + id + "\",\"timestamp\":\"1000\","
+				+ "\"dependencies\":{\"COMPILE\":[\"a:b:jar::1\",\"a:c:jar::1\",\"a:d:jar::1\"],\"TEST\":[]}}";
+	}
+
+}
@@ -1,10 +1,7 @@
 package org.aroundthecode.pathfinder.server;
 
-import java.io.File;
-
 import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.io.fs.FileUtils;
 import org.neo4j.kernel.GraphDatabaseAPI;
 import org.neo4j.server.WrappingNeoServerBootstrapper;
 import org.neo4j.server.configuration.Configurator;
@@ -52,7 +49,6 @@ public class Application extends SpringBootServletInitializer implements Command
 	}
 
 	public static void main(String[] args) throws Exception {
-		FileUtils.deleteRecursively(new File(ConfigurationManager.getNeo4jDbPath()));
 		SpringApplication.run(Application.class, args);
 	}
 
@@ -1,8 +1,12 @@
 package org.aroundthecode.pathfinder.server;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.neo4j.config.EnableNeo4jRepositories;
@@ -16,8 +20,14 @@ public class ApplicationConfig extends Neo4jConfiguration {
 		setBasePackage("org.aroundthecode.pathfinder.server");
 	}
 
+	/**
+	 * Open the store at <b>pathfinder.neo4j.db.path</b>, deleted first only with <b>pathfinder.neo4j.db.reset</b>
+	 */
 	@Bean(destroyMethod = "shutdown")
-	GraphDatabaseService graphDatabaseService() {
+	GraphDatabaseService graphDatabaseService() throws IOException {
+		if(ConfigurationManager.isNeo4jDbReset()){
+			FileUtils.deleteRecursively(new File(ConfigurationManager.getNeo4jDbPath()));
+		}
 		return new GraphDatabaseFactory().newEmbeddedDatabase(ConfigurationManager.getNeo4jDbPath());
 	}
 }
\ No newline at end of file
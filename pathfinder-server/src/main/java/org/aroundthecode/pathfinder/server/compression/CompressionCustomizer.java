@@ -0,0 +1,63 @@
+package org.aroundthecode.pathfinder.server.compression;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.springframework.boot.context.embedded.Compression;
+import org.springframework.boot.context.embedded.ConfigurableEmbeddedServletContainer;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.jetty.JettyEmbeddedServletContainerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Enable gzip compression of JSON responses in the embedded container when <b>pathfinder.compression.enabled</b>.
+ * Only responses of at least <b>pathfinder.compression.minsize</b> bytes to clients sending <b>Accept-Encoding: gzip</b>
+ * are compressed, streamed responses of unknown length always are.
+ * <p>Jetty compresses through a GzipHandler, missing from the Jetty 9.2 jars pulled in by neo4j-server unless jetty-servlets is added:
+ * in that case responses are not compressed and a warning is logged, instead of failing the container startup.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class CompressionCustomizer implements EmbeddedServletContainerCustomizer {
+
+	private static final Logger log = LogManager.getLogger(CompressionCustomizer.class.getName());
+
+	/**
+	 * Jetty 9.3, 9.2 and 8 gzip handlers, as looked up by the Jetty container factory
+	 */
+	static final String[] GZIP_HANDLERS = {"org.eclipse.jetty.server.handler.gzip.GzipHandler", "org.eclipse.jetty.servlets.gzip.GzipHandler",
+		"org.eclipse.jetty.server.handler.GzipHandler"};
+
+	/**
+	 * Compressed response types
+	 */
+	static final String[] MIME_TYPES = {"application/json", "text/plain", "text/html", "text/css", "application/javascript"};
+
+	@Override
+	public void customize(ConfigurableEmbeddedServletContainer container) {
+		if(!ConfigurationManager.isCompressionEnabled()){
+			return;
+		}
+		if(container instanceof JettyEmbeddedServletContainerFactory && !isGzipHandlerPresent()){
+			log.warn("Response compression disabled: Jetty GzipHandler is not on the classpath, add jetty-servlets to enable it");
+			return;
+		}
+		Compression compression = new Compression();
+		compression.setEnabled(true);
+		compression.setMimeTypes(MIME_TYPES);
+		compression.setMinResponseSize(ConfigurationManager.getCompressionMinSize());
+		container.setCompression(compression);
+	}
+
+	private boolean isGzipHandlerPresent() {
+		for (String handler : GZIP_HANDLERS) {
+			if(ClassUtils.isPresent(handler, getClass().getClassLoader())){
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.aroundthecode.pathfinder.server.compression;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decode request bodies sent with <b>Content-Encoding</b> gzip or deflate, so controllers always read plain JSON.
+ * Other encodings are rejected with 415 Unsupported Media Type and an <b>Accept-Encoding</b> header listing the supported ones,
+ * as of RFC 7694, letting clients fall back to uncompressed requests.
+ * <p>Decoded bodies are read blocking only: the decoder pulls from the container stream on demand, so a
+ * {@link ReadListener} could not be told when decoded bytes are ready, and {@link ServletInputStream#setReadListener(ReadListener)}
+ * throws IllegalStateException, as for requests not in async mode.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String ACCEPTED = "gzip, deflate, identity";
+	private static final int BUF_SIZE = 8192;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		String encoding = request.getHeader(CONTENT_ENCODING);
+		if(encoding==null || "identity".equalsIgnoreCase(encoding.trim())){
+			chain.doFilter(request, response);
+			return;
+		}
+		String e = encoding.trim().toLowerCase(Locale.ROOT);
+		if(!"gzip".equals(e) && !"x-gzip".equals(e) && !"deflate".equals(e)){
+			response.setHeader(ACCEPT_ENCODING, ACCEPTED);
+			response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding " + encoding);
+			return;
+		}
+		chain.doFilter(new DecompressedRequest(request, "deflate".equals(e)), response);
+	}
+
+	/**
+	 * Request exposing the decoded body, without Content-Encoding and Content-Length
+	 */
+	private static final class DecompressedRequest extends HttpServletRequestWrapper {
+
+		private final boolean deflate;
+		private ServletInputStream stream = null;
+
+		DecompressedRequest(HttpServletRequest request, boolean deflate) {
+			super(request);
+			this.deflate = deflate;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if(stream==null){
+				InputStream raw = super.getInputStream();
+				final InputStream in = deflate ? new InflaterInputStream(raw) : new GZIPInputStream(raw, BUF_SIZE);
+				stream = new ServletInputStream() {
+
+					private boolean finished = false;
+
+					@Override
+					public int read() throws IOException {
+						int b = in.read();
+						finished = b < 0;
+						return b;
+					}
+
+					@Override
+					public int read(byte[] b, int off, int len) throws IOException {
+						int n = in.read(b, off, len);
+						finished = n < 0;
+						return n;
+					}
+
+					@Override
+					public void close() throws IOException {
+						in.close();
+					}
+
+					@Override
+					public boolean isFinished() {
+						return finished;
+					}
+
+					@Override
+					public boolean isReady() {
+						return true;
+					}
+
+					/**
+					 * @throws IllegalStateException always, compressed requests are read blocking only
+					 */
+					@Override
+					public void setReadListener(ReadListener listener) {
+						throw new IllegalStateException("Asynchronous read of compressed requests is not supported");
+					}
+				};
+			}
+			return stream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			String charset = getCharacterEncoding();
+			return new BufferedReader(new InputStreamReader(getInputStream(), charset!=null ? charset : "UTF-8"));
+		}
+
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return CONTENT_ENCODING.equalsIgnoreCase(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return CONTENT_ENCODING.equalsIgnoreCase(name) ? Collections.<String>emptyEnumeration() : super.getHeaders(name);
+		}
+
+	}
+
+}
@@ -20,8 +20,25 @@ public class ConfigurationManager {
 	private static final String PATHFINDER_PROTOCOL = "pathfinder.protocol";
 	private static final String PATHFINDER_NEO4J_DB_ENABLE = "pathfinder.neo4j.db.enable";
 	private static final String PATHFINDER_NEO4J_DB_PATH = "pathfinder.neo4j.db.path";
+	private static final String PATHFINDER_NEO4J_DB_RESET = "pathfinder.neo4j.db.reset";
 	private static final String PATHFINDER_NEO4J_DB_PORT = "pathfinder.neo4j.db.port";
 	private static final String PATHFINDER_NEO4J_DB_HOST = "pathfinder.neo4j.db.host";
+	private static final String PATHFINDER_QUERY_SLOW_THRESHOLD = "pathfinder.query.slow.threshold";
+	private static final String PATHFINDER_QUERY_SLOW_SIZE = "pathfinder.query.slow.size";
+	private static final String PATHFINDER_QUERY_SLOW_PROFILE = "pathfinder.query.slow.profile";
+	private static final String PATHFINDER_REACHABILITY_ENABLED = "pathfinder.reachability.enabled";
+	private static final String PATHFINDER_REACHABILITY_MAXNODES = "pathfinder.reachability.maxnodes";
+	private static final String PATHFINDER_REACHABILITY_MAXBYTES = "pathfinder.reachability.maxbytes";
+	private static final String PATHFINDER_COMPACTGRAPH_ENABLED = "pathfinder.compactgraph.enabled";
+	private static final String PATHFINDER_COMPACTGRAPH_SNAPSHOT = "pathfinder.compactgraph.snapshot";
+	private static final String PATHFINDER_COMPACTGRAPH_SNAPSHOT_INTERVAL = "pathfinder.compactgraph.snapshot.interval";
+	private static final String PATHFINDER_CONFLICTS_ENABLED = "pathfinder.conflicts.enabled";
+	private static final String PATHFINDER_CYPHER_TIMEOUT = "pathfinder.cypher.timeout";
+	private static final String PATHFINDER_CYPHER_MAXROWS = "pathfinder.cypher.maxrows";
+	private static final String PATHFINDER_CYPHER_READONLY = "pathfinder.cypher.readonly";
+	private static final String PATHFINDER_COMPRESSION_ENABLED = "pathfinder.compression.enabled";
+	private static final String PATHFINDER_COMPRESSION_MINSIZE = "pathfinder.compression.minsize";
+	private static final String PATHFINDER_SNAPSHOT_MAXBYTES = "pathfinder.snapshot.maxbytes";
 	private static final String CONFIG = "config/pathfinder.properties";
 	private final static Properties p = new Properties();
 	private static final Logger log = LogManager.getLogger(ConfigurationManager.class.getName());
@@ -91,6 +108,14 @@ public class ConfigurationManager {
 		return getConfig(PATHFINDER_NEO4J_DB_PATH);
 	}
 
+	/**
+	 * @return pathfinder.neo4j.db.reset value, delete the store at startup, default false so stores written by a previous
+	 * run or by pathfinder-bulkloader are kept
+	 */
+	public static Boolean isNeo4jDbReset(){
+		return Boolean.valueOf( getConfig(PATHFINDER_NEO4J_DB_RESET, "false") );
+	}
+
 	/**
 	 * @return pathfinder.neo4j.db.enable value
 	 */
@@ -98,8 +123,125 @@ public class ConfigurationManager {
 		return Boolean.valueOf( getConfig(PATHFINDER_NEO4J_DB_ENABLE) );
 	}
 
+	/**
+	 * @return pathfinder.query.slow.threshold value, milliseconds above which a query is logged as slow, default 500
+	 */
+	public static long getSlowQueryThreshold(){
+		return Long.parseLong( getConfig(PATHFINDER_QUERY_SLOW_THRESHOLD, "500") );
+	}
+
+	/**
+	 * @return pathfinder.query.slow.size value, amount of recent slow queries kept in memory, default 100
+	 */
+	public static int getSlowQuerySize(){
+		return Integer.parseInt( getConfig(PATHFINDER_QUERY_SLOW_SIZE, "100") );
+	}
+
+	/**
+	 * @return pathfinder.query.slow.profile value, re-run read only slow queries with PROFILE, default true
+	 */
+	public static Boolean isSlowQueryProfile(){
+		return Boolean.valueOf( getConfig(PATHFINDER_QUERY_SLOW_PROFILE, "true") );
+	}
+
+	/**
+	 * @return pathfinder.reachability.enabled value, keep an in memory transitive closure for reachability queries, default false
+	 */
+	public static Boolean isReachabilityEnabled(){
+		return Boolean.valueOf( getConfig(PATHFINDER_REACHABILITY_ENABLED, "false") );
+	}
+
+	/**
+	 * @return pathfinder.reachability.maxnodes value, reachability index is not built for larger graphs, default 200000
+	 */
+	public static int getReachabilityMaxNodes(){
+		return Integer.parseInt( getConfig(PATHFINDER_REACHABILITY_MAXNODES, "200000") );
+	}
+
+	/**
+	 * @return pathfinder.reachability.maxbytes value, reachability index is not built when its bitsets exceed it, default 268435456 (256MB).
+	 * Bitsets need up to nodes&sup2; / 8 bytes, about 5GB for 200000 nodes
+	 */
+	public static long getReachabilityMaxBytes(){
+		return Long.parseLong( getConfig(PATHFINDER_REACHABILITY_MAXBYTES, "268435456") );
+	}
+
+	/**
+	 * @return pathfinder.compactgraph.enabled value, answer filterall and impact queries from an in memory copy of the graph, default false
+	 */
+	public static Boolean isCompactGraphEnabled(){
+		return Boolean.valueOf( getConfig(PATHFINDER_COMPACTGRAPH_ENABLED, "false") );
+	}
+
+	/**
+	 * @return pathfinder.compactgraph.snapshot value, file the compact graph is saved to and restored from at startup, default empty (disabled)
+	 */
+	public static String getCompactGraphSnapshot(){
+		return getConfig(PATHFINDER_COMPACTGRAPH_SNAPSHOT, "").trim();
+	}
+
+	/**
+	 * @return pathfinder.compactgraph.snapshot.interval value, minutes between compact graph snapshots, default 0 (only at shutdown)
+	 */
+	public static long getCompactGraphSnapshotInterval(){
+		return Long.parseLong( getConfig(PATHFINDER_COMPACTGRAPH_SNAPSHOT_INTERVAL, "0") );
+	}
+
+	/**
+	 * @return pathfinder.conflicts.enabled value, keep version conflicts of every root artifact up to date after uploads, default false
+	 */
+	public static Boolean isConflictsEnabled(){
+		return Boolean.valueOf( getConfig(PATHFINDER_CONFLICTS_ENABLED, "false") );
+	}
+
+	/**
+	 * @return pathfinder.cypher.timeout value, /cypher/query execution time limit in milliseconds, default 30000
+	 */
+	public static long getCypherTimeout(){
+		return Long.parseLong( getConfig(PATHFINDER_CYPHER_TIMEOUT, "30000") );
+	}
+
+	/**
+	 * @return pathfinder.cypher.maxrows value, maximum amount of rows returned by /cypher/query, default 100000
+	 */
+	public static int getCypherMaxRows(){
+		return Integer.parseInt( getConfig(PATHFINDER_CYPHER_MAXROWS, "100000") );
+	}
+
+	/**
+	 * @return pathfinder.cypher.readonly value, reject /cypher/query queries that write, default true
+	 */
+	public static Boolean isCypherReadOnly(){
+		return Boolean.valueOf( getConfig(PATHFINDER_CYPHER_READONLY, "true") );
+	}
+
+	/**
+	 * @return pathfinder.compression.enabled value, gzip JSON responses for clients accepting it, default true
+	 */
+	public static Boolean isCompressionEnabled(){
+		return Boolean.valueOf( getConfig(PATHFINDER_COMPRESSION_ENABLED, "true") );
+	}
+
+	/**
+	 * @return pathfinder.compression.minsize value, minimum size in bytes of compressed responses, default 2048
+	 */
+	public static int getCompressionMinSize(){
+		return Integer.parseInt( getConfig(PATHFINDER_COMPRESSION_MINSIZE, "2048") );
+	}
+
+	/**
+	 * @return pathfinder.snapshot.maxbytes value, maximum size in bytes of a /node/snapshot body without Content-Length, e.g. a compressed one, default 1073741824
+	 */
+	public static long getSnapshotMaxBytes(){
+		return Long.parseLong( getConfig(PATHFINDER_SNAPSHOT_MAXBYTES, "1073741824") );
+	}
+
 	protected static String getConfig(String key){
 		return p.getProperty(key);
 	}
 
+	protected static String getConfig(String key, String defaultValue){
+		return p.getProperty(key, defaultValue);
+	}
+
 }
@@ -0,0 +1,125 @@
+package org.aroundthecode.pathfinder.server.controller;
+
+import org.aroundthecode.pathfinder.server.graph.CompactQueryEngine;
+import org.aroundthecode.pathfinder.server.graph.ReachabilityIndex;
+import org.aroundthecode.pathfinder.server.graph.VersionConflictIndex;
+import org.aroundthecode.pathfinder.server.metrics.PathfinderMetrics;
+import org.aroundthecode.pathfinder.server.metrics.SlowQuery;
+import org.aroundthecode.pathfinder.server.metrics.SlowQueryLog;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * AdminController exposes server internals for monitoring
+ * @author msacchetti
+ *
+ */
+@RestController
+public class AdminController {
+
+	@Autowired SlowQueryLog slowQueryLog;
+
+	@Autowired ReachabilityIndex reachabilityIndex;
+
+	@Autowired CompactQueryEngine compactQueryEngine;
+
+	@Autowired VersionConflictIndex versionConflictIndex;
+
+	/**
+	 * Snapshot of all server metrics: endpoint and phase timers, counters and histograms.
+	 * Durations are in milliseconds, rates in events per second.
+	 * @return JSONObject with counters, histograms and timers sections
+	 */
+	@RequestMapping(value="/admin/metrics", method=RequestMethod.GET)
+	public JSONObject metrics()
+	{
+		return PathfinderMetrics.toJSON();
+	}
+
+	/**
+	 * Slowest queries among the recent ones above <b>pathfinder.query.slow.threshold</b>, slowest first.
+	 * Each item has query text, parameters, duration, returned rows and, for read only queries, db hits and PROFILE plan
+	 * once background profiling is done.
+	 * @param n maximum amount of queries to return
+	 * @return JSONArray of slow queries
+	 */
+	@SuppressWarnings("unchecked")
+	@RequestMapping(value="/admin/slowqueries", method=RequestMethod.GET)
+	public JSONArray slowQueries(@RequestParam(value="n", defaultValue="10") int n)
+	{
+		JSONArray out = new JSONArray();
+		for (SlowQuery q : slowQueryLog.top(n)) {
+			out.add(q.toJSON());
+		}
+		return out;
+	}
+
+	/**
+	 * Reachability index state: enabled and ready flags, nodes, components, closure size and last build time
+	 * @return JSONObject with index state
+	 */
+	@RequestMapping(value="/admin/reachability", method=RequestMethod.GET)
+	public JSONObject reachability()
+	{
+		return reachabilityIndex.toJSON();
+	}
+
+	/**
+	 * Queue a background rebuild of the reachability index
+	 * @return JSONObject with index state
+	 */
+	@RequestMapping(value="/admin/reachability/rebuild", method=RequestMethod.POST)
+	public JSONObject reachabilityRebuild()
+	{
+		reachabilityIndex.scheduleRebuild();
+		return reachabilityIndex.toJSON();
+	}
+
+	/**
+	 * Compact graph engine state and memory footprint: nodes, edges and estimated bytes for rows, delta, coordinates and index
+	 * @return JSONObject with engine state
+	 */
+	@RequestMapping(value="/admin/compactgraph", method=RequestMethod.GET)
+	public JSONObject compactGraph()
+	{
+		return compactQueryEngine.toJSON();
+	}
+
+	/**
+	 * Queue a background rebuild of the compact graph
+	 * @return JSONObject with engine state
+	 */
+	@RequestMapping(value="/admin/compactgraph/rebuild", method=RequestMethod.POST)
+	public JSONObject compactGraphRebuild()
+	{
+		compactQueryEngine.scheduleRebuild();
+		return compactQueryEngine.toJSON();
+	}
+
+	/**
+	 * Version conflicts index state: nodes, roots, roots with conflicts and whether a refresh is pending
+	 * @return JSONObject with index state
+	 */
+	@RequestMapping(value="/admin/conflicts", method=RequestMethod.GET)
+	public JSONObject conflicts()
+	{
+		return versionConflictIndex.toJSON();
+	}
+
+	/**
+	 * Queue a background rebuild of the version conflicts index, analysing every root again
+	 * @return JSONObject with index state
+	 */
+	@RequestMapping(value="/admin/conflicts/rebuild", method=RequestMethod.POST)
+	public JSONObject conflictsRebuild()
+	{
+		versionConflictIndex.scheduleRebuild();
+		return versionConflictIndex.toJSON();
+	}
+
+}
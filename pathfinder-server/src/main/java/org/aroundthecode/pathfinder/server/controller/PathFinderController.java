@@ -1,22 +1,53 @@
 package org.aroundthecode.pathfinder.server.controller;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
 import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.client.rest.utils.BinarySnapshot;
 import org.aroundthecode.pathfinder.client.rest.utils.RestUtils;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
 import org.aroundthecode.pathfinder.server.controller.exception.ArtifactSaveException;
+import org.aroundthecode.pathfinder.server.controller.exception.QueryParameterException;
+import org.aroundthecode.pathfinder.server.controller.exception.QueryRejectedException;
 import org.aroundthecode.pathfinder.server.crawler.CrawlerWrapper;
 import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.graph.CompactGraph;
+import org.aroundthecode.pathfinder.server.graph.CompactQueryEngine;
+import org.aroundthecode.pathfinder.server.graph.CypherStreamer;
+import org.aroundthecode.pathfinder.server.graph.DependentsResult;
+import org.aroundthecode.pathfinder.server.graph.Neo4jGraphView;
+import org.aroundthecode.pathfinder.server.graph.ReachabilityIndex;
+import org.aroundthecode.pathfinder.server.graph.ReverseDependencyFinder;
+import org.aroundthecode.pathfinder.server.graph.ShortestPaths;
+import org.aroundthecode.pathfinder.server.graph.VersionConflictIndex;
+import org.aroundthecode.pathfinder.server.graph.VersionConflicts;
+import org.aroundthecode.pathfinder.server.metrics.PathfinderMetrics;
+import org.aroundthecode.pathfinder.server.metrics.SlowQueryLog;
+import org.aroundthecode.pathfinder.server.repository.ArtifactGraphWriter;
 import org.aroundthecode.pathfinder.server.repository.ArtifactRepository;
 import org.aroundthecode.pathfinder.server.utils.QueryUtils;
 import org.json.simple.JSONArray;
@@ -28,10 +59,13 @@ import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.neo4j.core.GraphDatabase;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -48,6 +82,20 @@ public class PathFinderController {
 
 	@Autowired ArtifactRepository artifactRepository;
 
+	@Autowired ArtifactGraphWriter artifactGraphWriter;
+
+	@Autowired SlowQueryLog slowQueryLog;
+
+	@Autowired ReverseDependencyFinder reverseDependencyFinder;
+
+	@Autowired ReachabilityIndex reachabilityIndex;
+
+	@Autowired CompactQueryEngine compactQueryEngine;
+
+	@Autowired VersionConflictIndex versionConflictIndex;
+
+	@Autowired CypherStreamer cypherStreamer;
+
 	@Autowired GraphDatabase graphDatabase;
 
 	@Autowired
@@ -56,36 +104,62 @@ public class PathFinderController {
 	private static final Logger log = LogManager.getLogger(PathFinderController.class.getName());
 
 	/**
-	 * Execute cypher query passed in post method as a json object with "q" key
-	 * @param body. {"q":"cypher query goes here"}
-	 * @return a String object, each line representing  nodeId-relationType-nodeId
+	 * Serializes writes, explicit lock so that waiting time can be measured
+	 */
+	private final ReentrantLock mergeLock = new ReentrantLock();
+
+	/**
+	 * Upload progress is logged once every UPLOAD_PROGRESS_STEP artifacts instead of once per artifact
+	 */
+	private static final int UPLOAD_PROGRESS_STEP = 1000;
+
+	private static final String REACHABLE_QUERY =
+			"MATCH (n1:Artifact { uniqueId: {from} }), (n2:Artifact { uniqueId: {to} }) "
+			+ "MATCH p = shortestPath( (n1)-[*]->(n2) ) RETURN length(p) as l";
+	private static final String DESCENDANTS_QUERY =
+			"MATCH (n1:Artifact { uniqueId: {id} })-[*]->(n2:Artifact) RETURN DISTINCT n2.uniqueId as u";
+	private static final String ANCESTORS_QUERY =
+			"MATCH (n1:Artifact { uniqueId: {id} })<-[*]-(n2:Artifact) RETURN DISTINCT n2.uniqueId as u";
+
+	/**
+	 * Execute cypher query passed in post method as a json object with "q" key, streaming rows as they are read.
+	 * Optional keys: "params" query parameters object, "max" maximum amount of rows and "timeout" in milliseconds,
+	 * both capped by <b>pathfinder.cypher.maxrows</b> and <b>pathfinder.cypher.timeout</b>.
+	 * @param body. {"q":"cypher query goes here","params":{..},"max":1000,"timeout":5000}
+	 * @param response written with {"columns":[..],"rows":[[..],..],"count":n,"truncated":bool} and "error" if query failed while streaming
 	 * @throws ParseException
+	 * @throws IOException
+	 * @throws QueryRejectedException if query is invalid or not read only while <b>pathfinder.cypher.readonly</b> is set
+	 * @throws QueryParameterException if max or timeout is not a positive number
 	 */
+	@SuppressWarnings("unchecked")
 	@RequestMapping(value="/cypher/query", method=RequestMethod.POST)
-	public String doQuery(@RequestBody String body) throws ParseException 
+	public void doQuery(@RequestBody String body, HttpServletResponse response) throws ParseException, IOException, QueryRejectedException, QueryParameterException 
 	{
 		JSONObject o = RestUtils.string2Json(body);
 		String query = o.get("q").toString();
+		Map<String,Object> params = o.get("params") instanceof Map ? (Map<String,Object>) o.get("params") : new HashMap<String,Object>();
+		int max;
+		long timeout;
+		try {
+			max = o.get("max")!=null ? Integer.parseInt(o.get("max").toString()) : cypherStreamer.getMaxRows();
+			timeout = o.get("timeout")!=null ? Long.parseLong(o.get("timeout").toString()) : cypherStreamer.getTimeoutMillis();
+		}
+		catch (NumberFormatException e) {
+			throw new QueryParameterException("Invalid max or timeout: " + e.getMessage());
+		}
+		if(max <= 0){
+			throw new QueryParameterException("Invalid max [" + max + "], at least 1 row has to be returned");
+		}
+		if(timeout <= 0){
+			throw new QueryParameterException("Invalid timeout [" + timeout + "]ms, must be positive");
+		}
 
-		StringBuilder rows = new StringBuilder("");
-
-		try ( Transaction ignored = db.beginTx();
-				Result result = db.execute( query ) )
-				{
-			while ( result.hasNext() )
-			{
-				Map<String,Object> row = result.next();
-
-				Node n1 = (Node) row.get("n");
-				Node n2 = (Node) row.get("n2");
-				String r = (String) row.get("rel");
-				rows.append(n1.getProperty("uniqueId"))
-				.append(" - ").append( r )
-				.append(" - ").append( n2.getProperty("uniqueId"))
-				.append("\n");
-			}
-				}
-		return rows.toString();
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		long start = System.nanoTime();
+		int count = cypherStreamer.stream(query, params, max, timeout, response.getWriter());
+		slowQueryLog.record(query, params, count, System.nanoTime() - start);
 	}
 
 	/**
@@ -118,8 +192,13 @@ public class PathFinderController {
 			) throws ParseException 
 	{
 		FilterItem f = new FilterItem(filterGN1, filterAN1, filterPN1, filterCN1, filterVN1, filterGN2, filterAN2, filterPN2, filterCN2, filterVN2);
+		long start = System.nanoTime();
+		JSONArray out = compactQueryEngine.filterAll(f);
+		if(out!=null){
+			return recordCompactQuery(out, start);
+		}
 		String query = QueryUtils.getFilterAllQuery(f);
-		return doNodeRelationNodeQuery(query);
+		return doNodeRelationNodeQuery(query, filterParams(f));
 	}
 
 	/**
@@ -165,28 +244,313 @@ public class PathFinderController {
 			) throws ParseException 
 	{
 		FilterItem f = new FilterItem(filterGN1, filterAN1, filterPN1, filterCN1, filterVN1, filterGN2, filterAN2, filterPN2, filterCN2, filterVN2);
+		long start = System.nanoTime();
+		JSONArray out = compactQueryEngine.impact(depth, groupId, artifactId, packaging, classifier, version, f);
+		if(out!=null){
+			return recordCompactQuery(out, start);
+		}
 		String query = QueryUtils.getImpactQuery(depth, groupId, artifactId, packaging, classifier, version, f);
+		Map<String, Object> params = filterParams(f);
+		params.put("d", depth);
+		params.put("g", groupId);
+		params.put("a", artifactId);
+		params.put("p", packaging);
+		params.put("c", classifier);
+		params.put("v", version);
+		return doNodeRelationNodeQuery(query, params);
+	}
 
-		return doNodeRelationNodeQuery(query);
+	/**
+	 * Return all artifacts transitively depending on the main one within a maximum of <i>depth</i> hops.
+	 * Main artifacts are selected either by uniqueId or by groupId, artifactId and a version regular expression,
+	 * e.g. g=org.apache.logging.log4j&amp;a=log4j-core&amp;v=2\..* for every log4j-core 2.x version.
+	 * Each dependent is reported once, with its shortest distance from the main artifacts.
+	 * @param uniqueId main artifact uniqueId, if provided g, a and v are ignored
+	 * @param groupId main artifacts groupId
+	 * @param artifactId main artifacts artifactId
+	 * @param versionRegex main artifacts version regular expression
+	 * @param depth maximum number of relations to traverse
+	 * @param scopes comma separated list of scopes to follow, all scopes if empty
+	 * @param max maximum number of dependents returned, result is marked as truncated when reached
+	 * @return JSONObject with roots, count, truncated flag and dependents list
+	 * @throws QueryParameterException if a scope is unknown
+	 */
+	@RequestMapping(value="/query/dependents", method=RequestMethod.GET)
+	public JSONObject doDependents(
+			@RequestParam(value="id", defaultValue="") String uniqueId,
+			@RequestParam(value="g", defaultValue="") String groupId,
+			@RequestParam(value="a", defaultValue="") String artifactId,
+			@RequestParam(value="v", defaultValue=".*") String versionRegex,
+			@RequestParam(value="d", defaultValue="10") int depth,
+			@RequestParam(value="s", defaultValue="") String scopes,
+			@RequestParam(value="max", defaultValue="10000") int max
+			) throws QueryParameterException
+	{
+		List<ArtifactUtils.Dependency> followed = new ArrayList<>();
+		for (String s : scopes.split(",")) {
+			if(!s.trim().isEmpty()){
+				try {
+					followed.add(ArtifactUtils.Dependency.valueOf(s.trim().toUpperCase()));
+				}
+				catch (IllegalArgumentException e) {
+					throw new QueryParameterException("Unknown scope [" + s + "]");
+				}
+			}
+		}
+		if(followed.isEmpty()){
+			followed = Arrays.asList(ArtifactUtils.Dependency.values());
+		}
+
+		DependentsResult out;
+		long start = System.nanoTime();
+		try ( Transaction ignored = db.beginTx() )
+		{
+			List<Node> roots = reverseDependencyFinder.findRoots(uniqueId, groupId, artifactId, versionRegex);
+			out = reverseDependencyFinder.find(roots, depth, followed, max);
+		}
+		PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_QUERY, start);
+		PathfinderMetrics.histogram("query.rows").update(out.size());
+		log.debug("Dependents of [{}{}:{}:{}] found [{}] truncated [{}]", uniqueId, groupId, artifactId, versionRegex, out.size(), out.isTruncated());
+		return out.toJSON();
+	}
+
+	/**
+	 * Return all shortest paths from artifact <i>from</i> to artifact <i>to</i> following relations direction,
+	 * e.g. from=lib&amp;to=app shows how app pulls lib in. Computed with a bidirectional breadth first search,
+	 * on the compact graph when available, on the database otherwise.
+	 * @param from source artifact uniqueId
+	 * @param to target artifact uniqueId
+	 * @param relations comma separated list of relations to follow (scopes and PARENT), all relations if empty
+	 * @param depth maximum path length
+	 * @param max maximum number of paths returned
+	 * @return JSONObject with from, to, length (-1 if no path), count, source ("compact" or "graph") and paths list
+	 * @throws QueryParameterException if a relation is unknown or max is not positive
+	 */
+	@SuppressWarnings("unchecked")
+	@RequestMapping(value="/query/path", method=RequestMethod.GET)
+	public JSONObject doPath(
+			@RequestParam(value="from") String from,
+			@RequestParam(value="to") String to,
+			@RequestParam(value="s", defaultValue="") String relations,
+			@RequestParam(value="d", defaultValue="10") int depth,
+			@RequestParam(value="max", defaultValue="10") int max
+			) throws QueryParameterException
+	{
+		if(max <= 0){
+			throw new QueryParameterException("Invalid max [" + max + "], at least 1 path has to be returned");
+		}
+		int mask;
+		try {
+			mask = CompactGraph.relationMask(relations);
+		}
+		catch (IllegalArgumentException e) {
+			throw new QueryParameterException(e.getMessage());
+		}
+		long start = System.nanoTime();
+		JSONObject o = compactQueryEngine.paths(from, to, mask, depth, max);
+		if(o!=null){
+			o.put("source", "compact");
+		}
+		else{
+			try ( Transaction ignored = db.beginTx() )
+			{
+				o = ShortestPaths.query(new Neo4jGraphView(db), from, to, mask, depth, max);
+			}
+			o.put("source", "graph");
+		}
+		PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_QUERY, start);
+		log.debug("Paths from [{}] to [{}] length [{}] count [{}]", from, to, o.get("length"), o.get("count"));
+		return o;
+	}
+
+	/**
+	 * Version conflicts: groupId:artifactId reached in more than one version through compile and runtime dependencies.
+	 * With an id return conflicts of that artifact, otherwise conflicts of every root artifact (no other artifact
+	 * depends on it in compile or runtime scope), as stored by the conflicts index after the last upload.
+	 * Single artifacts are analysed on the database when the index is not available.
+	 * @param uniqueId artifact uniqueId, all roots if empty
+	 * @param max maximum number of roots returned
+	 * @return JSONObject with root and conflicts list, or count, truncated flag and roots list; source is "index", "graph" or "unavailable"
+	 */
+	@SuppressWarnings("unchecked")
+	@RequestMapping(value="/query/conflicts", method=RequestMethod.GET)
+	public JSONObject doConflicts(
+			@RequestParam(value="id", defaultValue="") String uniqueId,
+			@RequestParam(value="max", defaultValue="1000") int max
+			)
+	{
+		long start = System.nanoTime();
+		JSONObject o = uniqueId.isEmpty() ? versionConflictIndex.all(max) : versionConflictIndex.conflicts(uniqueId);
+		if(o!=null){
+			o.put("source", "index");
+		}
+		else if(uniqueId.isEmpty()){
+			o = new JSONObject();
+			o.put("count", 0);
+			o.put("truncated", false);
+			o.put("roots", new JSONArray());
+			o.put("source", "unavailable");
+		}
+		else{
+			try ( Transaction ignored = db.beginTx() )
+			{
+				Neo4jGraphView view = new Neo4jGraphView(db);
+				long node = view.find(uniqueId);
+				o = VersionConflicts.toJSON(uniqueId, node < 0 ? new TreeMap<String, SortedSet<String>>()
+						: VersionConflicts.analyze(view, node, VersionConflicts.RELATIONS));
+			}
+			o.put("source", "graph");
+		}
+		PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_QUERY, start);
+		return o;
+	}
+
+	/**
+	 * Check whether artifact <i>to</i> is reachable from artifact <i>from</i> following relations direction,
+	 * i.e. whether <i>to</i> is impacted by <i>from</i>. Answered by the reachability index when available, by the database otherwise.
+	 * @param from source artifact uniqueId
+	 * @param to target artifact uniqueId
+	 * @return JSONObject with from, to, reachable flag and source ("index" or "graph")
+	 */
+	@SuppressWarnings("unchecked")
+	@RequestMapping(value="/query/reachable", method=RequestMethod.GET)
+	public JSONObject doReachable(
+			@RequestParam(value="from") String from,
+			@RequestParam(value="to") String to
+			)
+	{
+		JSONObject o = new JSONObject();
+		o.put("from", from);
+		o.put("to", to);
+		long start = System.nanoTime();
+		Boolean reachable = reachabilityIndex.reaches(from, to);
+		if(reachable!=null){
+			o.put("source", "index");
+		}
+		else{
+			Map<String,Object> params = new HashMap<>();
+			params.put("from", from);
+			params.put("to", to);
+			try ( Transaction ignored = db.beginTx();
+					Result result = db.execute( REACHABLE_QUERY, params ) )
+			{
+				reachable = result.hasNext();
+			}
+			slowQueryLog.record(REACHABLE_QUERY, params, reachable ? 1 : 0, System.nanoTime() - start);
+			o.put("source", "graph");
+		}
+		PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_QUERY, start);
+		o.put("reachable", reachable);
+		return o;
+	}
+
+	/**
+	 * Return all artifacts reachable from the given one (impacted by it) or, with reverse, all artifacts reaching it.
+	 * Answered by the reachability index when available, by the database otherwise.
+	 * @param uniqueId artifact uniqueId
+	 * @param reverse false to follow relations direction, true to follow them backwards
+	 * @return JSONObject with id, reverse flag, count, source ("index" or "graph") and uniqueIds list
+	 */
+	@SuppressWarnings("unchecked")
+	@RequestMapping(value="/query/closure", method=RequestMethod.GET)
+	public JSONObject doClosure(
+			@RequestParam(value="id") String uniqueId,
+			@RequestParam(value="reverse", defaultValue="false") boolean reverse
+			)
+	{
+		JSONObject o = new JSONObject();
+		o.put("id", uniqueId);
+		o.put("reverse", reverse);
+		long start = System.nanoTime();
+		List<String> ids = reachabilityIndex.closure(uniqueId, reverse);
+		if(ids!=null){
+			o.put("source", "index");
+		}
+		else{
+			ids = new ArrayList<>();
+			String query = reverse ? ANCESTORS_QUERY : DESCENDANTS_QUERY;
+			Map<String,Object> params = new HashMap<>();
+			params.put("id", uniqueId);
+			try ( Transaction ignored = db.beginTx();
+					Result result = db.execute( query, params ) )
+			{
+				while ( result.hasNext() )
+				{
+					Object u = result.next().get("u");
+					if(!uniqueId.equals(u)){
+						ids.add(u.toString());
+					}
+				}
+			}
+			slowQueryLog.record(query, params, ids.size(), System.nanoTime() - start);
+			o.put("source", "graph");
+		}
+		PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_QUERY, start);
+		PathfinderMetrics.histogram("query.rows").update(ids.size());
+		JSONArray nodes = new JSONArray();
+		nodes.addAll(ids);
+		o.put("count", ids.size());
+		o.put("nodes", nodes);
+		return o;
+	}
+
+	/**
+	 * Record metrics of a query answered by the compact graph engine
+	 * @param out query result
+	 * @param start query start, nanoseconds
+	 * @return query result
+	 */
+	private static JSONArray recordCompactQuery(JSONArray out, long start) {
+		PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_QUERY, start);
+		PathfinderMetrics.counter("query.compact").inc();
+		PathfinderMetrics.histogram("query.rows").update(out.size());
+		return out;
+	}
+
+	/**
+	 * Request filters, recorded with slow queries having them inlined in their text
+	 * @param f FilterItem
+	 * @return request parameter name to value
+	 */
+	private static Map<String, Object> filterParams(FilterItem f) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		params.put("gn1", f.getFilterGN1());
+		params.put("an1", f.getFilterAN1());
+		params.put("pn1", f.getFilterPN1());
+		params.put("cn1", f.getFilterCN1());
+		params.put("vn1", f.getFilterVN1());
+		params.put("gn2", f.getFilterGN2());
+		params.put("an2", f.getFilterAN2());
+		params.put("pn2", f.getFilterPN2());
+		params.put("cn2", f.getFilterCN2());
+		params.put("vn2", f.getFilterVN2());
+		return params;
 	}
 
 	/**
 	 * execute a Cypher query expecting a node-relation-node columns result to map to JSONArray
 	 * @param query Cypher query 
+	 * @param params request parameters the query was built from, recorded if the query is slow
 	 * @return JSONArray with query result
 	 */
 	@SuppressWarnings("unchecked")
-	private JSONArray doNodeRelationNodeQuery(String query) {
+	private JSONArray doNodeRelationNodeQuery(String query, Map<String, Object> params) {
 		JSONArray out = new JSONArray();
-		log.info("QUERY: [{}]",query);
+		log.debug("QUERY: [{}]",query);
+		// Cypher results are lazy, execution and mapping time are accumulated row by row
+		long queryNanos = 0;
+		long mappingNanos = 0;
+		long start = System.nanoTime();
 		try ( Transaction ignored = db.beginTx();
 				Result result = db.execute( query ) )
 				{
 			while ( result.hasNext() )
 			{
-				JSONObject o = new JSONObject();
 				Map<String,Object> row = result.next();
+				long mapping = System.nanoTime();
+				queryNanos += mapping - start;
 
+				JSONObject o = new JSONObject();
 				Artifact a1 = new Artifact((Node) row.get("node1"));
 				Artifact a2 = new Artifact((Node) row.get("node2"));
 
@@ -195,8 +559,15 @@ public class PathFinderController {
 				o.put("n2", a2.toJSON());
 
 				out.add(o);
+				start = System.nanoTime();
+				mappingNanos += start - mapping;
 			}
+			queryNanos += System.nanoTime() - start;
 				}
+		PathfinderMetrics.timer(PathfinderMetrics.PHASE_QUERY).update(queryNanos, TimeUnit.NANOSECONDS);
+		PathfinderMetrics.timer(PathfinderMetrics.PHASE_ROW_MAPPING).update(mappingNanos, TimeUnit.NANOSECONDS);
+		PathfinderMetrics.histogram("query.rows").update(out.size());
+		slowQueryLog.record(query, params, out.size(), queryNanos + mappingNanos);
 		return out;
 	}
 
@@ -209,7 +580,13 @@ public class PathFinderController {
 	@RequestMapping(value="/node/get", method=RequestMethod.GET)
 	public Artifact getArtifact(@RequestParam(value="id", defaultValue=ArtifactUtils.EMPTYID) String uniqueId) 
 	{
-		return artifactRepository.findByUniqueId(uniqueId);
+		long start = System.nanoTime();
+		try {
+			return artifactRepository.findByUniqueId(uniqueId);
+		}
+		finally {
+			PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_LOOKUP, start);
+		}
 	}
 
 	/**
@@ -222,12 +599,7 @@ public class PathFinderController {
 	@RequestMapping(value="/node/parent", method=RequestMethod.POST)
 	public Artifact parent(@RequestBody String body) throws ArtifactSaveException 
 	{
-		JSONObject o;
-		try {
-			o = RestUtils.string2Json(body);
-		} catch (ParseException e) {
-			throw new ArtifactSaveException(e);
-		}
+		JSONObject o = parseBody(body);
 		Artifact main = new Artifact(o.get("main").toString());
 		Artifact parent = new Artifact(o.get("parent").toString());
 		main.hasParent(parent);
@@ -244,12 +616,7 @@ public class PathFinderController {
 	@RequestMapping(value="/node/depends", method=RequestMethod.POST)
 	public Artifact depends(@RequestBody String body) throws ArtifactSaveException 
 	{
-		JSONObject o;
-		try {
-			o = RestUtils.string2Json(body);
-		} catch (ParseException e) {
-			throw new ArtifactSaveException(e);
-		}
+		JSONObject o = parseBody(body);
 		Artifact aFrom = new Artifact(o.get("from").toString());
 		Artifact aTo = new Artifact(o.get("to").toString());
 		aFrom.dependsOn(aTo,o.get("scope").toString());
@@ -270,12 +637,7 @@ public class PathFinderController {
 	@RequestMapping(value="/node/save", method=RequestMethod.POST)
 	public JSONObject saveArtifact(@RequestBody String body) throws ArtifactSaveException 
 	{
-		JSONObject o;
-		try {
-			o = RestUtils.string2Json(body);
-		} catch (ParseException e) {
-			throw new ArtifactSaveException(e);
-		}
+		JSONObject o = parseBody(body);
 		Artifact a = Artifact.parse(o);
 		return saveArtifactWithMerge(a).toJSON();
 	}
@@ -294,24 +656,34 @@ public class PathFinderController {
 		uid = uid.substring(0, uid.lastIndexOf('='));
 		log.debug("Request body:[{}]",uid);
 
-		Map<String, String> map = ArtifactUtils.splitUniqueId(uid);
+		ArtifactCoordinate c = ArtifactCoordinate.parse(uid);
+		if(c==null){
+			c = ArtifactCoordinate.EMPTY;
+		}
 		return CrawlerWrapper.crawl(
-				map.get(ArtifactUtils.G),
-				map.get(ArtifactUtils.A), 
-				map.get(ArtifactUtils.P), 
-				map.get(ArtifactUtils.C), 
-				map.get(ArtifactUtils.V)
+				c.getGroupId(),
+				c.getArtifactId(), 
+				c.getPackaging(), 
+				c.getClassifier(), 
+				c.getVersion()
 				);
 	}
 
 
 	/**
-	 * Generate an array of JSONObject for the whole Artifact database to be download as a file
-	 * @return download Json file as attachment
+	 * Generate an array of JSONObject for the whole Artifact database to be download as a file.
+	 * The file has an ETag and a single byte <b>Range</b> is honoured, provided <b>If-Range</b> is missing or still matches,
+	 * so interrupted downloads can be resumed
+	 * @param range optional Range header
+	 * @param ifRange optional If-Range header
+	 * @return download Json file as attachment, or the requested part of it
 	 * @throws IOException
 	 */
 	@RequestMapping(value="/node/download", method=RequestMethod.GET )
-	public HttpEntity<byte[]>  downloadNodes() throws IOException {
+	public ResponseEntity<byte[]>  downloadNodes(
+			@RequestHeader(value="Range", required=false) String range,
+			@RequestHeader(value="If-Range", required=false) String ifRange
+			) throws IOException {
 
 		Iterable<Artifact> all = null;
 
@@ -336,12 +708,97 @@ public class PathFinderController {
 		} 
 		sb.append("]");
 
+		return attachment(sb.toString().getBytes(), MediaType.APPLICATION_JSON, "pathfinder.json", range, ifRange);
+	}
+
+	/**
+	 * Generate a binary snapshot of the whole Artifact database, same content as <b>/node/download</b> in the compact
+	 * format of {@link BinarySnapshot}. Range requests are honoured as in <b>/node/download</b>
+	 * @param range optional Range header
+	 * @param ifRange optional If-Range header
+	 * @return snapshot file as attachment, or the requested part of it
+	 * @throws IOException
+	 */
+	@RequestMapping(value="/node/snapshot", method=RequestMethod.GET )
+	public ResponseEntity<byte[]> downloadSnapshot(
+			@RequestHeader(value="Range", required=false) String range,
+			@RequestHeader(value="If-Range", required=false) String ifRange
+			) throws IOException {
+
+		List<JSONObject> artifacts = new ArrayList<>();
+		try(Transaction tx = graphDatabase.beginTx();) 
+		{
+			Iterable<Artifact> all = artifactRepository.findAll();
+			tx.success();
+			if(all!=null){
+				for (Artifact artifact : all) {
+					artifacts.add(artifact.toJSON());
+				}
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinarySnapshot.write(artifacts, out);
+		return attachment(out.toByteArray(), MediaType.parseMediaType(BinarySnapshot.CONTENT_TYPE), "pathfinder.pfs", range, ifRange);
+	}
+
+	/**
+	 * Build a file download with an ETag, honouring a single byte <b>Range</b> provided <b>If-Range</b> is missing or still matches
+	 */
+	private static ResponseEntity<byte[]> attachment(byte[] body, MediaType type, String filename, String range, String ifRange) {
+		String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+
 		HttpHeaders header = new HttpHeaders();
-		header.setContentType(new MediaType("application", "pdf"));
-		header.set("Content-Disposition", "attachment; filename=pathfinder.json" );
-		header.setContentLength(sb.length());
+		header.setContentType(type);
+		header.set("Content-Disposition", "attachment; filename=" + filename );
+		header.setETag(etag);
+		header.set("Accept-Ranges", "bytes");
+
+		long[] r = range!=null && (ifRange==null || ifRange.equals(etag)) ? parseRange(range, body.length) : null;
+		if(r!=null){
+			if(r[0] >= body.length || r[0] > r[1]){
+				header.set("Content-Range", "bytes */" + body.length);
+				return new ResponseEntity<>(header, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+			}
+			byte[] part = Arrays.copyOfRange(body, (int) r[0], (int) r[1] + 1);
+			header.set("Content-Range", "bytes " + r[0] + "-" + r[1] + "/" + body.length);
+			header.setContentLength(part.length);
+			return new ResponseEntity<>(part, header, HttpStatus.PARTIAL_CONTENT);
+		}
+
+		header.setContentLength(body.length);
+		return new ResponseEntity<>(body, header, HttpStatus.OK);
+	}
 
-		return new HttpEntity<>(sb.toString().getBytes(),header);
+	/**
+	 * Parse a single byte range
+	 * @param range Range header value, e.g. <code>bytes=100-</code>, <code>bytes=100-199</code> or <code>bytes=-100</code>
+	 * @param length content length
+	 * @return first and last byte positions, last capped to content length; null if range is malformed or multiple, so to be ignored
+	 */
+	static long[] parseRange(String range, long length) {
+		if(!range.startsWith("bytes=") || range.indexOf(',') >= 0){
+			return null;
+		}
+		String spec = range.substring("bytes=".length()).trim();
+		int dash = spec.indexOf('-');
+		if(dash < 0){
+			return null;
+		}
+		try {
+			String first = spec.substring(0, dash).trim();
+			String last = spec.substring(dash + 1).trim();
+			if(first.isEmpty()){
+				// suffix range, last n bytes
+				long n = Long.parseLong(last);
+				return new long[]{Math.max(0, length - n), length - 1};
+			}
+			long start = Long.parseLong(first);
+			long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+			return new long[]{start, end};
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
 	}
 
 	/**
@@ -355,8 +812,10 @@ public class PathFinderController {
 	public JSONObject uploadNodes(@RequestBody String body) throws ArtifactSaveException 
 	{
 		JSONArray in = new JSONArray();
+		long start = System.nanoTime();
 		try {
 			in = RestUtils.string2JSONArray(body);
+			PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_PARSE, start);
 		} catch (ParseException e) {
 			log.error(e.getMessage());
 			throw new ArtifactSaveException(e);
@@ -364,6 +823,29 @@ public class PathFinderController {
 		return internalUpload(in);
 	}
 
+	/**
+	 * Import a binary snapshot (typically produced by <b>/node/snapshot</b> method) into the database
+	 * Note: previously data is not truncated nor backup, please refer to <b>/node/truncate</b> and <b>/node/download</b> for this
+	 * @param request request whose body is the snapshot
+	 * @return a JSONObject with total nodes available for import, amount of successful and failed import
+	 * @throws ArtifactSaveException raised if body is not a valid snapshot, or without Content-Length is longer than <b>pathfinder.snapshot.maxbytes</b>
+	 */
+	@RequestMapping(value="/node/snapshot", method=RequestMethod.POST, consumes=BinarySnapshot.CONTENT_TYPE)
+	public JSONObject uploadSnapshot(HttpServletRequest request) throws ArtifactSaveException 
+	{
+		JSONArray in;
+		long start = System.nanoTime();
+		try {
+			long length = request.getContentLengthLong();
+			in = BinarySnapshot.read(request.getInputStream(), length >= 0 ? length : ConfigurationManager.getSnapshotMaxBytes());
+			PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_PARSE, start);
+		} catch (IOException e) {
+			log.error(e.getMessage());
+			throw new ArtifactSaveException(e);
+		}
+		return internalUpload(in);
+	}
+
 	/**
 	 * Import an array of JSONObject (typically produced by <b>/node/download</b> method) into the database
 	 * This method is tha same as uploadNodes but manage multipart file submission
@@ -379,8 +861,10 @@ public class PathFinderController {
 		BufferedReader br;
 		JSONArray array = new JSONArray();
 		try {
+			long start = System.nanoTime();
 			br = new BufferedReader(new InputStreamReader(file.getInputStream(), "UTF-8"));
 			array = RestUtils.string2JSONArray(br);
+			PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_PARSE, start);
 		} catch (IOException | ParseException e) {
 			log.error(e.getMessage());
 			throw new ArtifactSaveException(e);
@@ -397,19 +881,38 @@ public class PathFinderController {
 	private JSONObject internalUpload(JSONArray in) {
 		int nodesSuccess = 0;
 		int nodesFail = 0;
-		for (int i = 0; i < in.size(); i++) {
-			JSONObject item = (JSONObject) in.get(i);
-			log.info("Saving [{}]", item.get(ArtifactUtils.U).toString());
-			Artifact a = Artifact.parse(item);
-			try {
-				saveArtifactWithMerge(a);
-				nodesSuccess++;
-			} catch (ArtifactSaveException e) {
-				nodesFail++;
-				log.error("Could not save [{}]", item.get(ArtifactUtils.U).toString());
-				log.error(e);
+		long start = System.currentTimeMillis();
+		// mirrors are not updated per artifact: queries fall back to the database until they are rebuilt,
+		// the conflicts index is not available while the compact graph is stale and analyses the rebuilt one
+		reachabilityIndex.beginBulkWrite();
+		compactQueryEngine.beginBulkWrite();
+		try {
+			for (int i = 0; i < in.size(); i++) {
+				JSONObject item = (JSONObject) in.get(i);
+				log.debug("Saving [{}]", item.get(ArtifactUtils.U));
+				Artifact a = Artifact.parse(item);
+				try {
+					mergeArtifact(a);
+					nodesSuccess++;
+				} catch (ArtifactSaveException e) {
+					nodesFail++;
+					log.error("Could not save [{}]", item.get(ArtifactUtils.U));
+					log.error(e);
+				}
+				if( (i + 1) % UPLOAD_PROGRESS_STEP == 0 ){
+					log.info("Upload progress [{}/{}], [{}] failed", i + 1, in.size(), nodesFail);
+				}
 			}
 		}
+		finally {
+			reachabilityIndex.endBulkWrite();
+			compactQueryEngine.endBulkWrite();
+		}
+		log.info("Uploaded [{}] artifacts in [{}]ms, [{}] failed", in.size(), System.currentTimeMillis() - start, nodesFail);
+
+		PathfinderMetrics.histogram("upload.size").update(in.size());
+		PathfinderMetrics.counter("upload.success").inc(nodesSuccess);
+		PathfinderMetrics.counter("upload.fail").inc(nodesFail);
 
 		JSONObject o = new JSONObject();
 		o.put("total", in.size() );
@@ -432,40 +935,89 @@ public class PathFinderController {
 		catch (Exception e) {
 			log.error(e);
 		}
+		reachabilityIndex.clear();
+		compactQueryEngine.clear();
+		versionConflictIndex.clear();
 	}
 
 
 	/**
-	 * Internal method to save artifact 
+	 * Internal method to save artifact, returning the stored entity
 	 * @param a Artifact to be stored
 	 * @return 
 	 * @throws ArtifactSaveException 
 	 */
-	private synchronized Artifact saveArtifactWithMerge(Artifact a) throws ArtifactSaveException {
+	private Artifact saveArtifactWithMerge(Artifact a) throws ArtifactSaveException {
 
-		Artifact out = null;
+		mergeArtifact(a);
+		reachabilityIndex.addArtifact(a);
+		compactQueryEngine.addArtifact(a);
+		versionConflictIndex.addArtifact(a);
+		versionConflictIndex.scheduleRefresh();
+		long start = System.nanoTime();
 		try(Transaction tx = graphDatabase.beginTx();) {
+			Artifact out = artifactRepository.findByUniqueId(a.getUniqueId());
+			tx.success();
+			return out;
+		}
+		finally {
+			PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_LOOKUP, start);
+		}
+	}
 
-			String uniqueId = a.getUniqueId();
-			out = artifactRepository.findByUniqueId(uniqueId);
+	/**
+	 * Internal method to store artifact: node and relations are merged at relationship level
+	 * so that existing relations of the stored node are never loaded nor rewritten
+	 * @param a Artifact to be stored
+	 * @throws ArtifactSaveException 
+	 */
+	private void mergeArtifact(Artifact a) throws ArtifactSaveException {
 
-			if(out!=null){
-				log.info("Element [{}] already found in database, merging data.",uniqueId);
-				Artifact.merge(out, a);
-				out = artifactRepository.save(out);
-			}
-			else{
-				out = artifactRepository.save(a);
-			}
+		long start = System.nanoTime();
+		mergeLock.lock();
+		PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_LOCK_WAIT, start);
+		try {
+			long commit;
+			try(Transaction tx = graphDatabase.beginTx();) {
 
-			log.info("Saved with merge [{}].",uniqueId);
-			tx.success();
+				String uniqueId = a.getUniqueId();
+				start = System.nanoTime();
+				int created = artifactGraphWriter.merge(a);
+				PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_MERGE, start);
+				PathfinderMetrics.histogram("merge.relationsCreated").update(created);
+				log.debug("Saved with merge [{}], [{}] new relations.",uniqueId,created);
+				tx.success();
+				commit = System.nanoTime();
+			}
+			// transaction is committed on close
+			PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_SAVE, commit);
 		} 
 		catch (Exception e) {
+			PathfinderMetrics.counter("merge.errors").inc();
 			log.error(e);
 			throw new ArtifactSaveException(e);
 		}
-		return out;
+		finally {
+			mergeLock.unlock();
+		}
+	}
+
+	/**
+	 * Parse request body as JSON, recording parse time
+	 * @param body request body
+	 * @return JSONObject
+	 * @throws ArtifactSaveException if body is not parsable
+	 */
+	private static JSONObject parseBody(String body) throws ArtifactSaveException {
+		long start = System.nanoTime();
+		try {
+			return RestUtils.string2Json(body);
+		} catch (ParseException e) {
+			throw new ArtifactSaveException(e);
+		}
+		finally {
+			PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_PARSE, start);
+		}
 	}
 
 
@@ -0,0 +1,26 @@
+package org.aroundthecode.pathfinder.server.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom Exception to be rised when a query request parameter has an invalid value, answered as 400 Bad Request
+ * @author msacchetti
+ *
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class QueryParameterException extends Exception {
+
+	/**
+	 * Serial Id
+	 */
+	private static final long serialVersionUID = -3652417728104937352L;
+
+	/**
+	 * @param message invalid parameter and value
+	 */
+	public QueryParameterException(String message) {
+		super(message);
+	}
+
+}
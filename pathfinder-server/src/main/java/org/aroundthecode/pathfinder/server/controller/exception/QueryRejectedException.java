@@ -0,0 +1,26 @@
+package org.aroundthecode.pathfinder.server.controller.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom Exception to be rised when a query is not accepted: invalid Cypher or writing while only read only queries are allowed
+ * @author msacchetti
+ *
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class QueryRejectedException extends Exception {
+
+	/**
+	 * Serial Id
+	 */
+	private static final long serialVersionUID = 4127338569014785210L;
+
+	/**
+	 * @param message rejection reason
+	 */
+	public QueryRejectedException(String message) {
+		super(message);
+	}
+
+}
@@ -14,8 +14,12 @@ import org.apache.maven.shared.invoker.InvocationRequest;
 import org.apache.maven.shared.invoker.InvocationResult;
 import org.apache.maven.shared.invoker.Invoker;
 import org.aroundthecode.pathfinder.server.crawler.handler.JsonResponseHandler;
+import org.aroundthecode.pathfinder.server.metrics.PathfinderMetrics;
 import org.json.simple.JSONObject;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+
 /**
  * Utility class to wrap Pathfinder maven crawler plugin
  * @author msacchetti
@@ -28,6 +32,13 @@ public class CrawlerWrapper {
 	private static File filePom = null;
 	private static final Logger log = LogManager.getLogger(CrawlerWrapper.class.getName());
 
+	/**
+	 * Crawls currently running, each crawl blocks its request thread so this is also the crawl queue depth
+	 */
+	public static final String CRAWL_IN_FLIGHT = "crawl.inFlight";
+	public static final String CRAWL_DURATION = "crawl.duration";
+	public static final String CRAWL_FAILED = "crawl.failed";
+
 	private CrawlerWrapper() {
 		throw new IllegalAccessError("Utility class");
 	}
@@ -69,16 +80,28 @@ public class CrawlerWrapper {
 		request.setProperties(params);
 		log.info("Request [{}]", params );
 		InvocationResult result;
+		Counter inFlight = PathfinderMetrics.counter(CRAWL_IN_FLIGHT);
+		inFlight.inc();
+		Timer.Context t = PathfinderMetrics.timer(CRAWL_DURATION).time();
+		int status = -1;
 		try {
 			result = invoker.execute( request );
 			log.info("Completed!");
-			jHandler.setReturnStatus( result.getExitCode() );
+			status = result.getExitCode();
+			jHandler.setReturnStatus( status );
 			jHandler.setException( result.getExecutionException() );
 		} 
 		catch (Exception e) {
 			jHandler.setReturnStatus( -1 );
 			jHandler.setException( e );
 		}
+		finally {
+			t.stop();
+			inFlight.dec();
+		}
+		if(status!=0){
+			PathfinderMetrics.counter(CRAWL_FAILED).inc();
+		}
 
 		return jHandler.getJson();
 
@@ -4,6 +4,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
 import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
 import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
 import org.aroundthecode.pathfinder.server.entity.exception.ArtifactMergeException;
@@ -115,11 +116,7 @@ public class Artifact {
 	 * @param classifier maven classifier string
 	 */
 	public Artifact(String groupId,String artifactId, String version,String type, String classifier) {
-		setGroupId(groupId);
-		setArtifactId(artifactId);
-		setPackaging(type);
-		setClassifier(classifier);
-		setVersion(version);
+		setCoordinate( ArtifactCoordinate.of(groupId, artifactId, type, classifier, version) );
 		setTimestamp( System.currentTimeMillis() );
 	}
 
@@ -131,14 +128,29 @@ public class Artifact {
 	{
 		Map<String, String> map = ArtifactUtils.splitUniqueId(uniqueId);
 		if(map.size()>0){
-			setGroupId(		map.get(ArtifactUtils.G));
-			setArtifactId(	map.get(ArtifactUtils.A));
-			setPackaging(	map.get(ArtifactUtils.P));
-			setClassifier(	map.get(ArtifactUtils.C));
-			setVersion(		map.get(ArtifactUtils.V));
+			setCoordinate( ArtifactCoordinate.of(
+					map.get(ArtifactUtils.G),
+					map.get(ArtifactUtils.A),
+					map.get(ArtifactUtils.P),
+					map.get(ArtifactUtils.C),
+					map.get(ArtifactUtils.V)) );
 		}
 	}
 
+	/**
+	 * Set all coordinates attributes at once, uniqueId is taken from the coordinate without being rebuilt
+	 * @param c artifact coordinate
+	 */
+	private void setCoordinate(ArtifactCoordinate c)
+	{
+		this.groupId = c.getGroupId();
+		this.artifactId = c.getArtifactId();
+		this.packaging = c.getPackaging();
+		this.classifier = c.getClassifier();
+		this.version = c.getVersion();
+		this.uniqueId = c.getUniqueId();
+	}
+
 	/**
 	 * Getter for parent artifact
 	 * @return parent artifact
@@ -199,7 +211,7 @@ public class Artifact {
 	 */
 	public void setGroupId(String groupId) {
 		this.groupId = groupId;
-		this.uniqueId = getUniqueId();
+		this.uniqueId = buildUniqueId();
 	}
 
 	/**
@@ -216,7 +228,7 @@ public class Artifact {
 	 */
 	public void setArtifactId(String artifactId) {
 		this.artifactId = artifactId;
-		this.uniqueId = getUniqueId();
+		this.uniqueId = buildUniqueId();
 	}
 
 	/**
@@ -233,7 +245,7 @@ public class Artifact {
 	 */
 	public void setVersion(String version) {
 		this.version = version;
-		this.uniqueId = getUniqueId();
+		this.uniqueId = buildUniqueId();
 	}
 
 	/**
@@ -250,7 +262,7 @@ public class Artifact {
 	 */
 	public void setPackaging(String packaging) {
 		this.packaging = packaging;
-		this.uniqueId = getUniqueId();
+		this.uniqueId = buildUniqueId();
 	}
 
 	/**
@@ -267,18 +279,24 @@ public class Artifact {
 	 */
 	public void setClassifier(String classifier) {
 		this.classifier = classifier;
-		this.uniqueId = getUniqueId();
+		this.uniqueId = buildUniqueId();
 	}
 
 	/**
-	 * Getter for uniqueId attribute
+	 * Getter for uniqueId attribute, value is kept up to date by setters and not rebuilt on each call
 	 * @return uniqueId attribute
 	 */
 	public String getUniqueId(){
-		this.uniqueId = ArtifactUtils.getUniqueId(getGroupId(), getArtifactId(), getPackaging(), getClassifier(), getVersion());
+		if(this.uniqueId==null){
+			this.uniqueId = buildUniqueId();
+		}
 		return this.uniqueId;
 	}
 
+	private String buildUniqueId(){
+		return ArtifactUtils.getUniqueId(getGroupId(), getArtifactId(), getPackaging(), getClassifier(), getVersion());
+	}
+
 	/**
 	 * @return the timestamp
 	 */
@@ -294,11 +312,14 @@ public class Artifact {
 	}
 
 	/**
-	 * hashCode method
+	 * hashCode method, consistent with {@link #equals(Object)}: both rely on uniqueId only, so saved and unsaved
+	 * instances of the same artifact collapse into a single entry of the dependency sets.
+	 * uniqueId is cached and String caches its own hash, so this does not rebuild nor rehash anything.
+	 * Do not change coordinates of an Artifact while it is stored in a Set.
 	 */
 	@Override
 	public int hashCode() {
-		return id == null ? System.identityHashCode(this) : id.hashCode();
+		return getUniqueId().hashCode();
 	}
 
 	/**
@@ -0,0 +1,732 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.json.simple.JSONObject;
+import org.neo4j.graphdb.GraphDatabaseService;
+
+/**
+ * Artifact graph held in primitive arrays.
+ * <p>Nodes have dense int ids and an interned {@link ArtifactCoordinate}. Relations are stored twice, outgoing and incoming,
+ * in compressed sparse row form: an offsets array per node and a packed int per edge holding
+ * <code>target &lt;&lt; 3 | relation</code>, relation being the index in {@link #RELATIONS}.</p>
+ * <p>Edges added after the build go to small per node delta arrays, merged into the rows once they exceed
+ * one eighth of the compacted edges. Not thread safe, see {@link CompactQueryEngine}.</p>
+ * <p>The graph can be saved to a snapshot file and mapped back, see {@link #save(Path)} and {@link #map(Path)}.</p>
+ * @author msacchetti
+ *
+ */
+public final class CompactGraph {
+
+	/**
+	 * Relation types, position is the relation code stored in edges
+	 */
+	public static final String[] RELATIONS = {"COMPILE", "PROVIDED", "RUNTIME", "TEST", "SYSTEM", "IMPORT", "PARENT"};
+
+	private static final int REL_BITS = 3;
+	private static final int REL_MASK = (1 << REL_BITS) - 1;
+	private static final int MIN_DELTA = 1024;
+	private static final int[] NO_EDGES = new int[0];
+	private static final int SNAPSHOT_MAGIC = 0x50464347;
+	private static final int SNAPSHOT_VERSION = 2;
+
+	private final Map<String, Integer> ids;
+	private ArtifactCoordinate[] nodes;
+	private int size;
+
+	private int[] outOffset;
+	private int[] outEdges;
+	private int[] inOffset;
+	private int[] inEdges;
+	private int rowNodes;
+	private int rowEdges;
+
+	private int[][] deltaOut;
+	private int[][] deltaIn;
+	private int[] deltaOutSize;
+	private int[] deltaInSize;
+	private int deltaEdges;
+
+	private CompactGraph(ArtifactCoordinate[] nodes, int size) {
+		this(nodes, size, new HashMap<String, Integer>(Math.max(size * 2, 16)));
+		for (int i = 0; i < size; i++) {
+			ids.put(nodes[i].getUniqueId(), i);
+		}
+	}
+
+	private CompactGraph(ArtifactCoordinate[] nodes, int size, Map<String, Integer> ids) {
+		this.nodes = nodes;
+		this.size = size;
+		this.ids = ids;
+	}
+
+	/**
+	 * @param type relation type name
+	 * @return relation code, -1 if type is not a known relation
+	 */
+	public static byte relation(String type) {
+		for (byte i = 0; i < RELATIONS.length; i++) {
+			if(RELATIONS[i].equals(type)){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param types comma separated relation types, case insensitive
+	 * @return bit mask of relation codes, all relations if types is empty
+	 * @throws IllegalArgumentException if a type is not a known relation
+	 */
+	public static int relationMask(String types) {
+		int mask = 0;
+		for (String t : types.split(",")) {
+			String type = t.trim().toUpperCase();
+			if(type.isEmpty()){
+				continue;
+			}
+			byte rel = relation(type);
+			if(rel < 0){
+				throw new IllegalArgumentException("Unknown relation [" + t + "]");
+			}
+			mask |= 1 << rel;
+		}
+		return mask!=0 ? mask : (1 << RELATIONS.length) - 1;
+	}
+
+	/**
+	 * @return a {@link GraphView} on this graph, node ids are compact ids
+	 */
+	public GraphView view() {
+		return new GraphView() {
+			private final Cursor c = cursor();
+
+			@Override
+			public long find(String uniqueId) {
+				return id(uniqueId);
+			}
+
+			@Override
+			public String uniqueId(long node) {
+				return nodes[(int) node].getUniqueId();
+			}
+
+			@Override
+			public ArtifactCoordinate coordinate(long node) {
+				return nodes[(int) node];
+			}
+
+			@Override
+			public void expand(long node, boolean reverse, int relations, Neighbours out) {
+				out.clear();
+				c.of((int) node, reverse);
+				while(c.next()){
+					if((relations & (1 << c.relation()))!=0){
+						out.add(c.node(), c.relation());
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Copy the graph, e.g. to read it without holding the lock of its owner. Rows are shared, they are never modified
+	 * in place; nodes and delta edges are copied, so each graph can then be changed independently.
+	 * @return CompactGraph
+	 */
+	public CompactGraph copy() {
+		CompactGraph g = new CompactGraph(Arrays.copyOf(nodes, nodes.length), size, new HashMap<>(ids));
+		g.outOffset = outOffset;
+		g.outEdges = outEdges;
+		g.inOffset = inOffset;
+		g.inEdges = inEdges;
+		g.rowNodes = rowNodes;
+		g.rowEdges = rowEdges;
+		g.deltaOut = copy(deltaOut);
+		g.deltaIn = copy(deltaIn);
+		g.deltaOutSize = Arrays.copyOf(deltaOutSize, deltaOutSize.length);
+		g.deltaInSize = Arrays.copyOf(deltaInSize, deltaInSize.length);
+		g.deltaEdges = deltaEdges;
+		return g;
+	}
+
+	private static int[][] copy(int[][] delta) {
+		int[][] out = new int[delta.length][];
+		for (int i = 0; i < delta.length; i++) {
+			if(delta[i]!=null){
+				out[i] = Arrays.copyOf(delta[i], delta[i].length);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * @return an empty graph
+	 */
+	public static CompactGraph empty() {
+		return build(new String[0], 0, NO_EDGES, NO_EDGES, new byte[0], 0);
+	}
+
+	/**
+	 * Build a graph
+	 * @param uniqueIds node uniqueIds, position is the node id used in edges
+	 * @param from edges source node ids
+	 * @param to edges target node ids
+	 * @param relation edges relation code
+	 * @param edges amount of edges, only the first <i>edges</i> items of from, to and relation are considered
+	 * @return CompactGraph
+	 */
+	public static CompactGraph build(List<String> uniqueIds, int[] from, int[] to, byte[] relation, int edges) {
+		return build(uniqueIds.toArray(new String[uniqueIds.size()]), uniqueIds.size(), from, to, relation, edges);
+	}
+
+	/**
+	 * Build a graph with all artifacts and relations stored in a database
+	 * @param db database
+	 * @return CompactGraph
+	 */
+	public static CompactGraph load(GraphDatabaseService db) {
+		EdgeList e = EdgeList.read(db, Integer.MAX_VALUE);
+		return build(e.names, e.from, e.to, e.relation, e.edges);
+	}
+
+	private static CompactGraph build(String[] uniqueIds, int n, int[] from, int[] to, byte[] relation, int edges) {
+		ArtifactCoordinate[] nodes = new ArtifactCoordinate[Math.max(n, 16)];
+		for (int i = 0; i < n; i++) {
+			ArtifactCoordinate c = ArtifactCoordinate.parse(uniqueIds[i]);
+			nodes[i] = c!=null ? c : ArtifactCoordinate.EMPTY;
+		}
+		CompactGraph g = new CompactGraph(nodes, n);
+		g.rows(n, from, to, relation, edges);
+		return g;
+	}
+
+	/**
+	 * Build outgoing and incoming rows, dropping duplicated edges, and reset deltas
+	 */
+	private void rows(int n, int[] from, int[] to, byte[] relation, int edges) {
+		int[] packedOut = new int[edges];
+		int[] packedIn = new int[edges];
+		outOffset = new int[n + 1];
+		inOffset = new int[n + 1];
+		for (int e = 0; e < edges; e++) {
+			outOffset[from[e] + 1]++;
+			inOffset[to[e] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			outOffset[i + 1] += outOffset[i];
+			inOffset[i + 1] += inOffset[i];
+		}
+		int[] outFill = Arrays.copyOf(outOffset, n);
+		int[] inFill = Arrays.copyOf(inOffset, n);
+		for (int e = 0; e < edges; e++) {
+			packedOut[outFill[from[e]]++] = to[e] << REL_BITS | relation[e];
+			packedIn[inFill[to[e]]++] = from[e] << REL_BITS | relation[e];
+		}
+		outEdges = dedup(outOffset, packedOut, n);
+		inEdges = dedup(inOffset, packedIn, n);
+		rowNodes = n;
+		rowEdges = outEdges.length;
+		resetDelta();
+	}
+
+	private void resetDelta() {
+		int capacity = nodes.length;
+		deltaOut = new int[capacity][];
+		deltaIn = new int[capacity][];
+		deltaOutSize = new int[capacity];
+		deltaInSize = new int[capacity];
+		deltaEdges = 0;
+	}
+
+	/**
+	 * Sort each row and drop repeated edges, offsets are updated in place
+	 */
+	private static int[] dedup(int[] offset, int[] packed, int n) {
+		int w = 0;
+		int start = 0;
+		for (int i = 0; i < n; i++) {
+			int end = offset[i + 1];
+			Arrays.sort(packed, start, end);
+			offset[i] = w;
+			for (int k = start; k < end; k++) {
+				if(k==start || packed[k]!=packed[k - 1]){
+					packed[w++] = packed[k];
+				}
+			}
+			start = end;
+		}
+		offset[n] = w;
+		return w==packed.length ? packed : Arrays.copyOf(packed, w);
+	}
+
+	/**
+	 * @param uniqueId node uniqueId
+	 * @return node id, -1 if missing
+	 */
+	public int id(String uniqueId) {
+		Integer id = ids.get(uniqueId);
+		return id!=null ? id : -1;
+	}
+
+	/**
+	 * @param id node id
+	 * @return node coordinate
+	 */
+	public ArtifactCoordinate node(int id) {
+		return nodes[id];
+	}
+
+	/**
+	 * @return amount of nodes
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return amount of edges
+	 */
+	public int edges() {
+		return rowEdges + deltaEdges;
+	}
+
+	/**
+	 * Add a node if missing
+	 * @param uniqueId node uniqueId
+	 * @return node id
+	 */
+	public int addNode(String uniqueId) {
+		Integer id = ids.get(uniqueId);
+		if(id!=null){
+			return id;
+		}
+		ArtifactCoordinate c = ArtifactCoordinate.parse(uniqueId);
+		if(size==nodes.length){
+			int capacity = size * 2;
+			nodes = Arrays.copyOf(nodes, capacity);
+			deltaOut = Arrays.copyOf(deltaOut, capacity);
+			deltaIn = Arrays.copyOf(deltaIn, capacity);
+			deltaOutSize = Arrays.copyOf(deltaOutSize, capacity);
+			deltaInSize = Arrays.copyOf(deltaInSize, capacity);
+		}
+		nodes[size] = c!=null ? c : ArtifactCoordinate.EMPTY;
+		ids.put(uniqueId, size);
+		return size++;
+	}
+
+	/**
+	 * Add an edge if missing, nodes are added if needed
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @param relation relation type
+	 * @return false if relation type is unknown
+	 */
+	public boolean addEdge(String from, String to, String relation) {
+		byte rel = relation(relation);
+		if(rel < 0){
+			return false;
+		}
+		int u = addNode(from);
+		int v = addNode(to);
+		int packed = v << REL_BITS | rel;
+		if(contains(u, packed)){
+			return true;
+		}
+		append(deltaOut, deltaOutSize, u, packed);
+		append(deltaIn, deltaInSize, v, u << REL_BITS | rel);
+		deltaEdges++;
+		if(deltaEdges > Math.max(MIN_DELTA, rowEdges >> 3)){
+			compact();
+		}
+		return true;
+	}
+
+	private boolean contains(int u, int packed) {
+		if(u < rowNodes && Arrays.binarySearch(outEdges, outOffset[u], outOffset[u + 1], packed) >= 0){
+			return true;
+		}
+		int[] d = deltaOut[u];
+		for (int k = 0; k < deltaOutSize[u]; k++) {
+			if(d[k]==packed){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void append(int[][] delta, int[] deltaSize, int node, int packed) {
+		int[] d = delta[node];
+		if(d==null){
+			d = new int[4];
+			delta[node] = d;
+		}
+		else if(deltaSize[node]==d.length){
+			d = Arrays.copyOf(d, d.length * 2);
+			delta[node] = d;
+		}
+		d[deltaSize[node]++] = packed;
+	}
+
+	/**
+	 * Merge delta edges into rows, if any
+	 */
+	public void compact() {
+		if(deltaEdges==0){
+			return;
+		}
+		int edges = edges();
+		int[] from = new int[edges];
+		int[] to = new int[edges];
+		byte[] rel = new byte[edges];
+		int e = 0;
+		Cursor c = cursor();
+		for (int u = 0; u < size; u++) {
+			c.of(u, false);
+			while(c.next()){
+				from[e] = u;
+				to[e] = c.node();
+				rel[e++] = (byte) c.relation();
+			}
+		}
+		rows(size, from, to, rel, e);
+	}
+
+	/**
+	 * Write the graph to a snapshot file of unknown origin, see {@link #save(Path, StoreVersion)}
+	 * @param file snapshot file
+	 * @throws IOException
+	 */
+	public void save(Path file) throws IOException {
+		save(file, StoreVersion.UNKNOWN);
+	}
+
+	/**
+	 * Write the graph to a snapshot file, to be loaded by {@link #map(Path, StoreVersion)}. Delta edges are merged into rows first.
+	 * <p>Layout, big endian: magic and version as ints; store creation time, store random id and transaction id of the origin
+	 * as longs; nodes, distinct coordinate strings and edges as ints; each string as int length
+	 * and UTF-8 bytes; five string indexes per node (groupId, artifactId, packaging, classifier, version); outgoing offsets
+	 * and edges, incoming offsets and edges exactly as held in memory; CRC32 of all previous bytes as long.</p>
+	 * <p>The file is written aside and moved in place, so a concurrent or interrupted save never leaves a partial snapshot.</p>
+	 * @param file snapshot file
+	 * @param origin version of the store the graph was built from
+	 * @throws IOException
+	 */
+	public void save(Path file, StoreVersion origin) throws IOException {
+		compact();
+		Map<String, Integer> dictionary = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		int[] coordinates = new int[size * 5];
+		for (int i = 0; i < size; i++) {
+			ArtifactCoordinate c = nodes[i];
+			coordinates[i * 5] = dictionaryIndex(dictionary, strings, c.getGroupId());
+			coordinates[i * 5 + 1] = dictionaryIndex(dictionary, strings, c.getArtifactId());
+			coordinates[i * 5 + 2] = dictionaryIndex(dictionary, strings, c.getPackaging());
+			coordinates[i * 5 + 3] = dictionaryIndex(dictionary, strings, c.getClassifier());
+			coordinates[i * 5 + 4] = dictionaryIndex(dictionary, strings, c.getVersion());
+		}
+
+		Path dir = file.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try {
+			CRC32 crc = new CRC32();
+			try(DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), crc))){
+				out.writeInt(SNAPSHOT_MAGIC);
+				out.writeInt(SNAPSHOT_VERSION);
+				out.writeLong(origin.getCreationTime());
+				out.writeLong(origin.getRandomId());
+				out.writeLong(origin.getTransactionId());
+				out.writeInt(size);
+				out.writeInt(strings.size());
+				out.writeInt(rowEdges);
+				for (String str : strings) {
+					byte[] b = str.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(b.length);
+					out.write(b);
+				}
+				writeInts(out, coordinates, coordinates.length);
+				writeInts(out, outOffset, size + 1);
+				writeInts(out, outEdges, rowEdges);
+				writeInts(out, inOffset, size + 1);
+				writeInts(out, inEdges, rowEdges);
+				out.flush();
+				// checksum is not part of itself
+				out.writeLong(crc.getValue());
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private static int dictionaryIndex(Map<String, Integer> dictionary, List<String> strings, String s) {
+		Integer i = dictionary.get(s);
+		if(i==null){
+			i = strings.size();
+			dictionary.put(s, i);
+			strings.add(s);
+		}
+		return i;
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+		for (int i = 0; i < length; i++) {
+			out.writeInt(values[i]);
+		}
+	}
+
+	/**
+	 * Load a snapshot whatever its origin, see {@link #map(Path, StoreVersion)}
+	 * @param file snapshot file
+	 * @return CompactGraph
+	 * @throws IOException if file is missing, not a snapshot of this version, truncated or corrupted
+	 */
+	public static CompactGraph map(Path file) throws IOException {
+		return map(file, null);
+	}
+
+	/**
+	 * Load a snapshot written by {@link #save(Path, StoreVersion)}. The file is memory mapped and rows are bulk copied from the mapping,
+	 * coordinates are rebuilt from the dictionary without parsing uniqueIds: no database access is needed.
+	 * @param file snapshot file
+	 * @param expected version of the store the snapshot must have been saved from, null to accept any
+	 * @return CompactGraph
+	 * @throws IOException if file is missing, not a snapshot of this version, saved from another store version, truncated or corrupted
+	 */
+	public static CompactGraph map(Path file, StoreVersion expected) throws IOException {
+		MappedByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			int length = buffer.limit() - 8;
+			CRC32 crc = new CRC32();
+			ByteBuffer body = buffer.duplicate();
+			body.limit(length);
+			crc.update(body);
+			if(buffer.getLong(length)!=crc.getValue()){
+				throw new IOException("Snapshot [" + file + "] checksum mismatch");
+			}
+			if(buffer.getInt()!=SNAPSHOT_MAGIC || buffer.getInt()!=SNAPSHOT_VERSION){
+				throw new IOException("[" + file + "] is not a compact graph snapshot of version " + SNAPSHOT_VERSION);
+			}
+			StoreVersion origin = new StoreVersion(buffer.getLong(), buffer.getLong(), buffer.getLong());
+			if(expected!=null && !expected.equals(origin)){
+				throw new IOException("Snapshot [" + file + "] was saved from " + origin + ", database is " + expected);
+			}
+			int n = buffer.getInt();
+			String[] strings = new String[buffer.getInt()];
+			int edges = buffer.getInt();
+			for (int i = 0; i < strings.length; i++) {
+				byte[] b = new byte[buffer.getInt()];
+				buffer.get(b);
+				strings[i] = new String(b, StandardCharsets.UTF_8);
+			}
+			int[] coordinates = readInts(buffer, n * 5);
+			ArtifactCoordinate[] nodes = new ArtifactCoordinate[Math.max(n, 16)];
+			for (int i = 0; i < n; i++) {
+				nodes[i] = ArtifactCoordinate.of(strings[coordinates[i * 5]], strings[coordinates[i * 5 + 1]],
+						strings[coordinates[i * 5 + 2]], strings[coordinates[i * 5 + 3]], strings[coordinates[i * 5 + 4]]);
+			}
+			CompactGraph g = new CompactGraph(nodes, n);
+			g.outOffset = readInts(buffer, n + 1);
+			g.outEdges = readInts(buffer, edges);
+			g.inOffset = readInts(buffer, n + 1);
+			g.inEdges = readInts(buffer, edges);
+			g.rowNodes = n;
+			g.rowEdges = edges;
+			g.resetDelta();
+			return g;
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+			throw new IOException("Snapshot [" + file + "] is truncated or corrupted", e);
+		}
+	}
+
+	private static int[] readInts(ByteBuffer buffer, int length) {
+		int[] out = new int[length];
+		buffer.asIntBuffer().get(out);
+		buffer.position(buffer.position() + 4 * length);
+		return out;
+	}
+
+	/**
+	 * Evaluate a coordinates filter on all nodes, same semantic as Cypher <code>=~</code>
+	 * @param g groupId regular expression
+	 * @param a artifactId regular expression
+	 * @param p packaging regular expression
+	 * @param c classifier regular expression
+	 * @param v version regular expression
+	 * @return matching flag by node id
+	 */
+	public boolean[] match(String g, String a, String p, String c, String v) {
+		Pattern pg = pattern(g);
+		Pattern pa = pattern(a);
+		Pattern pp = pattern(p);
+		Pattern pc = pattern(c);
+		Pattern pv = pattern(v);
+		boolean[] out = new boolean[size];
+		for (int i = 0; i < size; i++) {
+			ArtifactCoordinate n = nodes[i];
+			out[i] = matches(pg, n.getGroupId()) && matches(pa, n.getArtifactId()) && matches(pp, n.getPackaging())
+					&& matches(pc, n.getClassifier()) && matches(pv, n.getVersion());
+		}
+		return out;
+	}
+
+	private static Pattern pattern(String regex) {
+		return regex==null || ".*".equals(regex) ? null : Pattern.compile(regex);
+	}
+
+	private static boolean matches(Pattern p, String value) {
+		return p==null || p.matcher(value).matches();
+	}
+
+	/**
+	 * @return a new edge cursor, a cursor can be reused for any node
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Iterates the edges of one node, rows first then delta, without allocations
+	 */
+	public final class Cursor {
+
+		private int[] row;
+		private int pos;
+		private int end;
+		private int[] delta;
+		private int dpos;
+		private int dend;
+		private int current;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Position the cursor before the first edge of a node
+		 * @param node node id
+		 * @param reverse false for outgoing edges, true for incoming ones
+		 * @return this cursor
+		 */
+		public Cursor of(int node, boolean reverse) {
+			int[] offset = reverse ? inOffset : outOffset;
+			row = reverse ? inEdges : outEdges;
+			if(node < rowNodes){
+				pos = offset[node];
+				end = offset[node + 1];
+			}
+			else{
+				pos = 0;
+				end = 0;
+			}
+			delta = reverse ? deltaIn[node] : deltaOut[node];
+			dpos = 0;
+			dend = reverse ? deltaInSize[node] : deltaOutSize[node];
+			return this;
+		}
+
+		/**
+		 * @return false when no more edges are available
+		 */
+		public boolean next() {
+			if(pos < end){
+				current = row[pos++];
+				return true;
+			}
+			if(dpos < dend){
+				current = delta[dpos++];
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * @return other node id of current edge: target for outgoing edges, source for incoming ones
+		 */
+		public int node() {
+			return current >>> REL_BITS;
+		}
+
+		/**
+		 * @return relation code of current edge
+		 */
+		public int relation() {
+			return current & REL_MASK;
+		}
+
+	}
+
+	/**
+	 * Estimated heap footprint, JVM with compressed references assumed
+	 * @return JSONObject with nodes, edges and bytes for rows, delta, coordinates and uniqueId index
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject memory() {
+		long rowsBytes = 4L * (outOffset.length + inOffset.length + outEdges.length + inEdges.length);
+		long deltaBytes = 4L * (deltaOutSize.length + deltaInSize.length) + 8L * deltaOut.length;
+		for (int i = 0; i < size; i++) {
+			deltaBytes += deltaOut[i]!=null ? 16 + 4L * deltaOut[i].length : 0;
+			deltaBytes += deltaIn[i]!=null ? 16 + 4L * deltaIn[i].length : 0;
+		}
+		// coordinate object, its uniqueId and each distinct interned value
+		long coordinateBytes = 4L * nodes.length;
+		Map<String, Boolean> distinct = new IdentityHashMap<>();
+		for (int i = 0; i < size; i++) {
+			ArtifactCoordinate c = nodes[i];
+			coordinateBytes += 32 + string(c.getUniqueId());
+			distinct.put(c.getGroupId(), Boolean.TRUE);
+			distinct.put(c.getArtifactId(), Boolean.TRUE);
+			distinct.put(c.getPackaging(), Boolean.TRUE);
+			distinct.put(c.getClassifier(), Boolean.TRUE);
+			distinct.put(c.getVersion(), Boolean.TRUE);
+		}
+		for (String s : distinct.keySet()) {
+			coordinateBytes += string(s);
+		}
+		// HashMap entry and boxed Integer per node, plus table
+		long indexBytes = 48L * size + 4L * Integer.highestOneBit(Math.max(size * 2, 16));
+
+		JSONObject o = new JSONObject();
+		o.put("nodes", size);
+		o.put("edges", edges());
+		o.put("deltaEdges", deltaEdges);
+		o.put("distinctCoordinates", distinct.size());
+		o.put("rowsBytes", rowsBytes);
+		o.put("deltaBytes", deltaBytes);
+		o.put("coordinateBytes", coordinateBytes);
+		o.put("indexBytes", indexBytes);
+		o.put("totalBytes", rowsBytes + deltaBytes + coordinateBytes + indexBytes);
+		return o;
+	}
+
+	private static long string(String s) {
+		return 24 + 16 + s.length();
+	}
+
+}
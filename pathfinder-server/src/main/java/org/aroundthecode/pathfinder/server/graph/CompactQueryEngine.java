@@ -0,0 +1,443 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.aroundthecode.pathfinder.server.metrics.PathfinderMetrics;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional read side engine answering graph queries from a {@link CompactGraph}, enabled by <b>pathfinder.compactgraph.enabled</b>.
+ * <p>Results are the ones of the Cypher queries, with the same node1 - relation - node2 layout. Every method returns null
+ * while the mirror is not ready, or when it cannot answer as Cypher would, callers then run the Cypher query.</p>
+ * <p>With <b>pathfinder.compactgraph.snapshot</b> the graph is saved to that file at shutdown and, if
+ * <b>pathfinder.compactgraph.snapshot.interval</b> is positive, every such minutes. At startup the file is mapped and
+ * queries are answered from it while the graph is rebuilt from the database in background. The snapshot records the database
+ * store and last committed transaction it was saved from, it is ignored if the database was changed or replaced since.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class CompactQueryEngine extends GraphMirror<CompactGraph> {
+
+	private static final Logger log = LogManager.getLogger(CompactQueryEngine.class.getName());
+
+	private final boolean enabled = ConfigurationManager.isCompactGraphEnabled();
+	private final String snapshot = ConfigurationManager.getCompactGraphSnapshot();
+	private final long snapshotInterval = ConfigurationManager.getCompactGraphSnapshotInterval();
+
+	private final ScheduledThreadPoolExecutor saver = new ScheduledThreadPoolExecutor(1);
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	protected String name() {
+		return "compactgraph";
+	}
+
+	@Override
+	protected int maxNodes() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	protected CompactGraph build(EdgeList edges) {
+		return CompactGraph.build(edges.names, edges.from, edges.to, edges.relation, edges.edges);
+	}
+
+	/**
+	 * Map the snapshot saved by the previous run, if any, only if it was saved from the current database store
+	 * at its last committed transaction. Never used when the store was wiped at startup.
+	 */
+	@Override
+	protected CompactGraph restore() {
+		if(snapshot.isEmpty() || !Files.exists(Paths.get(snapshot))){
+			return null;
+		}
+		if(ConfigurationManager.isNeo4jDbReset()){
+			log.info("Snapshot [{}] ignored: database store was reset", snapshot);
+			return null;
+		}
+		try {
+			return CompactGraph.map(Paths.get(snapshot), StoreVersion.of(db));
+		}
+		catch (IOException e) {
+			log.warn("Snapshot [{}] ignored: {}", snapshot, e.getMessage());
+			return null;
+		}
+	}
+
+	@Override
+	public void init() {
+		super.init();
+		if(isEnabled() && !snapshot.isEmpty() && snapshotInterval > 0){
+			saver.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					saveSnapshot();
+				}
+			}, snapshotInterval, snapshotInterval, TimeUnit.MINUTES);
+		}
+	}
+
+	/**
+	 * Save the graph to <b>pathfinder.compactgraph.snapshot</b>, skipped if not configured or graph is not ready.
+	 * Pending delta edges are merged holding the write lock, the file is written holding the read lock only
+	 * @return true if snapshot was written
+	 */
+	public boolean saveSnapshot() {
+		if(snapshot.isEmpty()){
+			return false;
+		}
+		long start = System.nanoTime();
+		CompactGraph g;
+		StoreVersion origin;
+		lock.writeLock().lock();
+		try {
+			origin = StoreVersion.of(db);
+			g = current();
+			if(g!=null){
+				g.compact();
+			}
+			// downgrade, readers are served while the file is written
+			lock.readLock().lock();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		try {
+			if(g==null){
+				return false;
+			}
+			g.save(Paths.get(snapshot), origin);
+			PathfinderMetrics.timer(name() + ".snapshot").update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			log.info("[{}] nodes saved to [{}] in [{}]ms", g.size(), snapshot, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			return true;
+		}
+		catch (IOException e) {
+			log.error("Snapshot [" + snapshot + "] not saved", e);
+			return false;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Save a last snapshot and stop
+	 */
+	@Override
+	public void shutdown() {
+		saver.shutdownNow();
+		saveSnapshot();
+		super.shutdown();
+	}
+
+	@Override
+	protected CompactGraph empty() {
+		return CompactGraph.empty();
+	}
+
+	@Override
+	protected void addNode(CompactGraph target, String uniqueId) {
+		target.addNode(uniqueId);
+	}
+
+	@Override
+	protected boolean addEdge(CompactGraph target, String from, String to, String relation) {
+		return target.addEdge(from, to, relation);
+	}
+
+	@Override
+	protected JSONObject describe(CompactGraph target) {
+		return target.memory();
+	}
+
+	/**
+	 * Same result of <b>/query/filterall</b>: every relation whose source matches inner filters and target matches outer ones
+	 * @param f FilterItem
+	 * @return JSONArray of {r,n1,n2} objects, null if engine is not available
+	 */
+	public JSONArray filterAll(FilterItem f) {
+		lock.readLock().lock();
+		try {
+			CompactGraph g = current();
+			return g!=null ? filterAll(g, f) : null;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @see #filterAll(FilterItem)
+	 * @param g graph
+	 * @param f FilterItem
+	 * @return JSONArray of {r,n1,n2} objects
+	 */
+	public static JSONArray filterAll(CompactGraph g, FilterItem f) {
+		boolean[] m1 = g.match(f.getFilterGN1(), f.getFilterAN1(), f.getFilterPN1(), f.getFilterCN1(), f.getFilterVN1());
+		boolean[] m2 = g.match(f.getFilterGN2(), f.getFilterAN2(), f.getFilterPN2(), f.getFilterCN2(), f.getFilterVN2());
+		Rows rows = new Rows(g);
+		CompactGraph.Cursor c = g.cursor();
+		for (int u = 0; u < g.size(); u++) {
+			if(!m1[u]){
+				continue;
+			}
+			c.of(u, false);
+			while(c.next()){
+				if(m2[c.node()]){
+					rows.add(u, c.relation(), c.node());
+				}
+			}
+		}
+		return rows.out;
+	}
+
+	/**
+	 * Shortest paths between two artifacts on the compact graph
+	 * @see ShortestPaths#query(GraphView, String, String, int, int, int)
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @param relations bit mask of relation codes to follow
+	 * @param maxDepth maximum path length
+	 * @param maxPaths maximum amount of paths returned
+	 * @return paths JSONObject, null if engine is not available
+	 */
+	public JSONObject paths(String from, String to, int relations, int maxDepth, int maxPaths) {
+		lock.readLock().lock();
+		try {
+			CompactGraph g = current();
+			return g!=null ? ShortestPaths.query(g.view(), from, to, relations, maxDepth, maxPaths) : null;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Same result of <b>/query/impact</b>, see {@link org.aroundthecode.pathfinder.server.utils.QueryUtils#getImpactQuery}:
+	 * relations from the main artifacts matching inner filters toward artifacts matching outer ones and, for each path of
+	 * 2 up to <i>depth</i> hops whose second node matches inner filters and third node outer ones, its last node and
+	 * relation as a node - relation - same node row. Rows are distinct as in the Cypher UNION.
+	 * Empty coordinates but classifier are not used to select main artifacts.
+	 * @param depth maximum amount of hops
+	 * @param groupId main artifact groupId
+	 * @param artifactId main artifact artifactId
+	 * @param packaging main artifact packaging
+	 * @param classifier main artifact classifier
+	 * @param version main artifact version
+	 * @param f FilterItem
+	 * @return JSONArray of {r,n1,n2} objects, null if engine is not available or cannot answer as Cypher would
+	 */
+	public JSONArray impact(int depth, String groupId, String artifactId, String packaging, String classifier, String version, FilterItem f) {
+		lock.readLock().lock();
+		try {
+			CompactGraph g = current();
+			return g!=null ? impact(g, depth, groupId, artifactId, packaging, classifier, version, f) : null;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @see #impact(int, String, String, String, String, String, FilterItem)
+	 * <p>Paths are walked layer by layer, which is what Cypher matches as long as no walk can visit a node twice: Cypher
+	 * paths never repeat a relation, walks through a cycle may. When a cycle is reachable within <i>depth</i> hops the
+	 * result could differ, null is returned and the Cypher query has to be run.</p>
+	 * @param g graph
+	 * @param depth maximum amount of hops
+	 * @param groupId main artifact groupId
+	 * @param artifactId main artifact artifactId
+	 * @param packaging main artifact packaging
+	 * @param classifier main artifact classifier
+	 * @param version main artifact version
+	 * @param f FilterItem
+	 * @return JSONArray of {r,n1,n2} objects, null if a cycle is reachable within depth hops
+	 */
+	public static JSONArray impact(CompactGraph g, int depth, String groupId, String artifactId, String packaging, String classifier, String version, FilterItem f) {
+		boolean[] m1 = g.match(f.getFilterGN1(), f.getFilterAN1(), f.getFilterPN1(), f.getFilterCN1(), f.getFilterVN1());
+		boolean[] m2 = g.match(f.getFilterGN2(), f.getFilterAN2(), f.getFilterPN2(), f.getFilterCN2(), f.getFilterVN2());
+
+		int[] frontier = new int[g.size()];
+		int count = 0;
+		for (int u = 0; u < g.size(); u++) {
+			ArtifactCoordinate n = g.node(u);
+			if(same(groupId, n.getGroupId()) && same(artifactId, n.getArtifactId()) && same(packaging, n.getPackaging())
+					&& same(version, n.getVersion()) && classifier.equals(n.getClassifier())){
+				frontier[count++] = u;
+			}
+		}
+		if(depth > 1 && cyclic(g, frontier, count, depth - 1)){
+			return null;
+		}
+
+		Rows rows = new Rows(g);
+		Set<Long> emitted = new HashSet<>();
+		CompactGraph.Cursor c = g.cursor();
+		int[] next = new int[g.size()];
+		boolean[] queued = new boolean[g.size()];
+		for (int d = 1; d <= depth && count > 0; d++) {
+			int nextCount = 0;
+			for (int i = 0; i < count; i++) {
+				int u = frontier[i];
+				c.of(u, false);
+				while(c.next()){
+					int v = c.node();
+					if(d==1){
+						if(m1[u] && m2[v]){
+							emit(rows, emitted, u, c.relation(), v);
+						}
+						// longer paths need their second node to match inner filters
+						if(!m1[v]){
+							continue;
+						}
+					}
+					else{
+						// and their third one to match outer filters
+						if(d==2 && !m2[v]){
+							continue;
+						}
+						emit(rows, emitted, v, c.relation(), v);
+					}
+					if(!queued[v]){
+						queued[v] = true;
+						next[nextCount++] = v;
+					}
+				}
+			}
+			for (int i = 0; i < nextCount; i++) {
+				queued[next[i]] = false;
+			}
+			int[] t = frontier;
+			frontier = next;
+			next = t;
+			count = nextCount;
+		}
+		return rows.out;
+	}
+
+	private static void emit(Rows rows, Set<Long> emitted, int n1, int relation, int n2) {
+		if(emitted.add(((long) n1 * rows.g.size() + n2) * CompactGraph.RELATIONS.length + relation)){
+			rows.add(n1, relation, n2);
+		}
+	}
+
+	/**
+	 * Check for a cycle among the nodes within <i>hops</i> from the main artifacts, the only ones a shorter walk can visit
+	 * twice. Nodes are removed in topological order, a cycle leaves some behind.
+	 * @return true if a cycle is reachable
+	 */
+	private static boolean cyclic(CompactGraph g, int[] roots, int count, int hops) {
+		int[] dist = new int[g.size()];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[g.size()];
+		int tail = 0;
+		for (int i = 0; i < count; i++) {
+			dist[roots[i]] = 0;
+			queue[tail++] = roots[i];
+		}
+		CompactGraph.Cursor c = g.cursor();
+		for (int head = 0; head < tail; head++) {
+			int u = queue[head];
+			if(dist[u] >= hops){
+				continue;
+			}
+			c.of(u, false);
+			while(c.next()){
+				if(dist[c.node()] < 0){
+					dist[c.node()] = dist[u] + 1;
+					queue[tail++] = c.node();
+				}
+			}
+		}
+
+		int[] indegree = new int[g.size()];
+		for (int i = 0; i < tail; i++) {
+			c.of(queue[i], false);
+			while(c.next()){
+				if(dist[c.node()] >= 0 && dist[c.node()] <= hops){
+					indegree[c.node()]++;
+				}
+			}
+		}
+		int[] ready = new int[tail];
+		int readyCount = 0;
+		for (int i = 0; i < tail; i++) {
+			if(indegree[queue[i]]==0){
+				ready[readyCount++] = queue[i];
+			}
+		}
+		int removed = 0;
+		while(readyCount > 0){
+			int u = ready[--readyCount];
+			removed++;
+			c.of(u, false);
+			while(c.next()){
+				if(dist[c.node()] >= 0 && dist[c.node()] <= hops && --indegree[c.node()]==0){
+					ready[readyCount++] = c.node();
+				}
+			}
+		}
+		return removed < tail;
+	}
+
+	private static boolean same(String filter, String value) {
+		return filter==null || filter.isEmpty() || filter.equals(value);
+	}
+
+	/**
+	 * Result rows, node JSON is built once per node and shared among rows
+	 */
+	static final class Rows {
+
+		final JSONArray out = new JSONArray();
+		private final CompactGraph g;
+		private final Map<Integer, JSONObject> nodes = new HashMap<>();
+		private final Long now = System.currentTimeMillis();
+
+		Rows(CompactGraph g) {
+			this.g = g;
+		}
+
+		@SuppressWarnings("unchecked")
+		void add(int n1, int relation, int n2) {
+			JSONObject o = new JSONObject();
+			o.put("r", CompactGraph.RELATIONS[relation]);
+			o.put("n1", node(n1));
+			o.put("n2", node(n2));
+			out.add(o);
+		}
+
+		private JSONObject node(int id) {
+			JSONObject o = nodes.get(id);
+			if(o==null){
+				o = ArtifactUtils.artifactJSON(g.node(id).getUniqueId(), now, null);
+				nodes.put(id, o);
+			}
+			return o;
+		}
+
+	}
+
+}
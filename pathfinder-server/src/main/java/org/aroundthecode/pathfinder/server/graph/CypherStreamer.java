@@ -0,0 +1,344 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.aroundthecode.pathfinder.server.controller.exception.QueryRejectedException;
+import org.aroundthecode.pathfinder.server.metrics.PathfinderMetrics;
+import org.json.simple.JSONValue;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.QueryExecutionType.QueryType;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs arbitrary Cypher queries writing rows as JSON while they are read, so results are never held in memory.
+ * <p>Output is <code>{"columns":[..],"rows":[[..],..],"count":n,"truncated":bool}</code>, with an <code>"error"</code>
+ * field when the query fails after streaming started. Nodes, relationships and paths are written with ids and properties,
+ * lists, arrays and maps recursively.</p>
+ * <p>Queries are limited by <b>pathfinder.cypher.timeout</b> and <b>pathfinder.cypher.maxrows</b>; a watchdog terminates
+ * the transaction on timeout, a failed write (client gone) stops the query. A terminated query is answered with the rows
+ * written so far and a timeout error, wherever the termination is detected. With <b>pathfinder.cypher.readonly</b>
+ * only read only queries are accepted and the transaction is never committed.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class CypherStreamer {
+
+	private static final Logger log = LogManager.getLogger(CypherStreamer.class.getName());
+
+	private static final int FLUSH_ROWS = 1000;
+
+	@Autowired
+	GraphDatabaseService db;
+
+	private final long timeoutMillis = ConfigurationManager.getCypherTimeout();
+	private final int maxRows = ConfigurationManager.getCypherMaxRows();
+	private final boolean readOnly = ConfigurationManager.isCypherReadOnly();
+
+	private final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1);
+
+	public CypherStreamer() {
+		watchdog.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * @return configured execution timeout in milliseconds
+	 */
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * @return configured maximum amount of rows
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * Run a query and write its result
+	 * @param query Cypher text
+	 * @param params query parameters
+	 * @param rowLimit requested maximum amount of rows, positive, capped by configuration
+	 * @param timeout requested timeout in milliseconds, positive, capped by configuration
+	 * @param out destination, flushed every {@value #FLUSH_ROWS} rows
+	 * @return amount of rows written, -1 if client disconnected
+	 * @throws QueryRejectedException if query is invalid or writes while only read only queries are allowed; nothing is written
+	 * @throws IllegalArgumentException if rowLimit or timeout is not positive
+	 */
+	public int stream(String query, Map<String, Object> params, int rowLimit, long timeout, Writer out) throws QueryRejectedException {
+		if(rowLimit <= 0 || timeout <= 0){
+			throw new IllegalArgumentException("Row limit [" + rowLimit + "] and timeout [" + timeout + "] must be positive");
+		}
+		int limit = Math.min(rowLimit, maxRows);
+		long millis = Math.min(timeout, timeoutMillis);
+		final AtomicBoolean timedOut = new AtomicBoolean(false);
+		int rows = 0;
+		boolean truncated = false;
+		boolean started = false;
+		boolean finished = false;
+		String error = null;
+
+		try {
+			try ( final Transaction tx = db.beginTx() )
+			{
+				if(readOnly){
+					checkReadOnly(query, params);
+				}
+				ScheduledFuture<?> guard = watchdog.schedule(new Runnable() {
+					@Override
+					public void run() {
+						timedOut.set(true);
+						tx.terminate();
+					}
+				}, millis, TimeUnit.MILLISECONDS);
+
+				try {
+					Result result;
+					try {
+						result = db.execute(query, params);
+					}
+					catch (QueryExecutionException e) {
+						if(timedOut.get()){
+							throw e;
+						}
+						throw new QueryRejectedException(e.getMessage());
+					}
+					try {
+						List<String> columns = result.columns();
+						out.write("{\"columns\":");
+						out.write(JSONValue.toJSONString(columns));
+						out.write(",\"rows\":[");
+						started = true;
+						try {
+							while ( result.hasNext() )
+							{
+								if(rows >= limit){
+									truncated = true;
+									break;
+								}
+								Map<String,Object> row = result.next();
+								if(rows > 0){
+									out.write(',');
+								}
+								out.write('[');
+								for (int i = 0; i < columns.size(); i++) {
+									if(i > 0){
+										out.write(',');
+									}
+									writeValue(row.get(columns.get(i)), out);
+								}
+								out.write(']');
+								rows++;
+								if(rows % FLUSH_ROWS == 0){
+									out.flush();
+								}
+							}
+						}
+						catch (RuntimeException e) {
+							error = timedOut.get() ? terminated(millis) : e.getMessage();
+						}
+						end(out, rows, truncated, error);
+						finished = true;
+					}
+					finally {
+						result.close();
+					}
+				}
+				finally {
+					guard.cancel(false);
+				}
+
+				if(error==null && !readOnly){
+					tx.success();
+				}
+			}
+			catch (RuntimeException e) {
+				// a terminated transaction fails wherever it is used next: execution, result or commit
+				if(!timedOut.get()){
+					throw e;
+				}
+				if(!finished){
+					if(!started){
+						out.write("{\"columns\":[],\"rows\":[");
+					}
+					end(out, rows, truncated, terminated(millis));
+				}
+			}
+		}
+		catch (IOException e) {
+			log.debug("Client disconnected after [{}] rows, query cancelled: {}", rows, e.getMessage());
+			PathfinderMetrics.counter("cypher.cancelled").inc();
+			return -1;
+		}
+
+		if(timedOut.get()){
+			PathfinderMetrics.counter("cypher.timeout").inc();
+			log.warn("Query terminated after [{}]ms: [{}]", millis, query);
+		}
+		if(truncated){
+			PathfinderMetrics.counter("cypher.truncated").inc();
+		}
+		return rows;
+	}
+
+	private static String terminated(long millis) {
+		return "Query terminated after " + millis + "ms";
+	}
+
+	/**
+	 * Close the rows array and the result object
+	 */
+	private static void end(Writer out, int rows, boolean truncated, String error) throws IOException {
+		out.write("],\"count\":" + rows + ",\"truncated\":" + truncated);
+		if(error!=null){
+			out.write(",\"error\":" + JSONValue.toJSONString(error));
+		}
+		out.write('}');
+		out.flush();
+	}
+
+	private void checkReadOnly(String query, Map<String, Object> params) throws QueryRejectedException {
+		try (Result explain = db.execute("EXPLAIN " + query, params)) {
+			if(explain.getQueryExecutionType().queryType() != QueryType.READ_ONLY){
+				throw new QueryRejectedException("Only read only queries are allowed");
+			}
+		}
+		catch (QueryExecutionException e) {
+			throw new QueryRejectedException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Write a Cypher value as JSON
+	 */
+	static void writeValue(Object v, Writer out) throws IOException {
+		if(v==null){
+			out.write("null");
+		}
+		else if(v instanceof Node){
+			Node n = (Node) v;
+			out.write("{\"id\":" + n.getId() + ",\"labels\":[");
+			boolean first = true;
+			for (Label l : n.getLabels()) {
+				if(!first){
+					out.write(',');
+				}
+				out.write(JSONValue.toJSONString(l.name()));
+				first = false;
+			}
+			out.write("],\"properties\":");
+			writeProperties(n, out);
+			out.write('}');
+		}
+		else if(v instanceof Relationship){
+			Relationship r = (Relationship) v;
+			out.write("{\"id\":" + r.getId() + ",\"type\":" + JSONValue.toJSONString(r.getType().name())
+					+ ",\"start\":" + r.getStartNode().getId() + ",\"end\":" + r.getEndNode().getId() + ",\"properties\":");
+			writeProperties(r, out);
+			out.write('}');
+		}
+		else if(v instanceof Path){
+			Path p = (Path) v;
+			out.write("{\"length\":" + p.length() + ",\"nodes\":");
+			writeValue(p.nodes(), out);
+			out.write(",\"relationships\":");
+			writeValue(p.relationships(), out);
+			out.write('}');
+		}
+		else if(v instanceof Map){
+			out.write('{');
+			boolean first = true;
+			for (Object o : ((Map<?, ?>) v).entrySet()) {
+				Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+				if(!first){
+					out.write(',');
+				}
+				out.write(JSONValue.toJSONString(String.valueOf(e.getKey())));
+				out.write(':');
+				writeValue(e.getValue(), out);
+				first = false;
+			}
+			out.write('}');
+		}
+		else if(v instanceof Iterable){
+			out.write('[');
+			Iterator<?> it = ((Iterable<?>) v).iterator();
+			boolean first = true;
+			while(it.hasNext()){
+				if(!first){
+					out.write(',');
+				}
+				writeValue(it.next(), out);
+				first = false;
+			}
+			out.write(']');
+		}
+		else if(v.getClass().isArray()){
+			out.write('[');
+			for (int i = 0; i < Array.getLength(v); i++) {
+				if(i > 0){
+					out.write(',');
+				}
+				writeValue(Array.get(v, i), out);
+			}
+			out.write(']');
+		}
+		else if(v instanceof Double && !Double.isFinite((Double) v) || v instanceof Float && !Float.isFinite((Float) v)){
+			out.write("null");
+		}
+		else if(v instanceof Number || v instanceof Boolean){
+			out.write(v.toString());
+		}
+		else{
+			out.write(JSONValue.toJSONString(v.toString()));
+		}
+	}
+
+	private static void writeProperties(PropertyContainer c, Writer out) throws IOException {
+		out.write('{');
+		boolean first = true;
+		for (String key : c.getPropertyKeys()) {
+			if(!first){
+				out.write(',');
+			}
+			out.write(JSONValue.toJSONString(key));
+			out.write(':');
+			writeValue(c.getProperty(key), out);
+			first = false;
+		}
+		out.write('}');
+	}
+
+	/**
+	 * Stop the watchdog
+	 */
+	@PreDestroy
+	public void shutdown() {
+		watchdog.shutdownNow();
+	}
+
+}
@@ -0,0 +1,111 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Result of a reverse dependency search, see {@link ReverseDependencyFinder}.
+ * Each dependent is reported once with its distance from roots, the artifact it was reached from and the relation scope.
+ * @author msacchetti
+ *
+ */
+public class DependentsResult {
+
+	private final int depth;
+	private final Collection<Dependency> scopes;
+	private final List<String> roots = new ArrayList<>();
+	private final List<String> ids = new ArrayList<>();
+	private final List<Integer> distances = new ArrayList<>();
+	private final List<String> vias = new ArrayList<>();
+	private final List<String> relations = new ArrayList<>();
+	private boolean truncated = false;
+
+	/**
+	 * @param depth search depth
+	 * @param scopes followed scopes
+	 */
+	public DependentsResult(int depth, Collection<Dependency> scopes) {
+		this.depth = depth;
+		this.scopes = scopes;
+	}
+
+	void addRoot(String uniqueId) {
+		roots.add(uniqueId);
+	}
+
+	void add(String uniqueId, int distance, String via, String scope) {
+		ids.add(uniqueId);
+		distances.add(distance);
+		vias.add(via);
+		relations.add(scope);
+	}
+
+	void setTruncated(boolean truncated) {
+		this.truncated = truncated;
+	}
+
+	/**
+	 * @return true if search stopped because the limit was reached
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * @return amount of dependents found
+	 */
+	public int size() {
+		return ids.size();
+	}
+
+	/**
+	 * @return dependents uniqueIds, ordered by distance
+	 */
+	public List<String> getDependents() {
+		return ids;
+	}
+
+	/**
+	 * @return root uniqueIds
+	 */
+	public List<String> getRoots() {
+		return roots;
+	}
+
+	/**
+	 * Compact JSON: <code>{"roots":[..],"depth":d,"scopes":[..],"count":n,"truncated":false,"dependents":[{"u":id,"d":1,"via":id,"s":"COMPILE"}]}</code>
+	 * @return JSON representation
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSON() {
+		JSONObject o = new JSONObject();
+		JSONArray r = new JSONArray();
+		r.addAll(roots);
+		o.put("roots", r);
+		o.put("depth", depth);
+		JSONArray s = new JSONArray();
+		for (Dependency d : scopes) {
+			s.add(d.name());
+		}
+		o.put("scopes", s);
+		o.put("count", ids.size());
+		o.put("truncated", truncated);
+		JSONArray deps = new JSONArray();
+		for (int i = 0; i < ids.size(); i++) {
+			JSONObject d = new JSONObject();
+			d.put("u", ids.get(i));
+			d.put("d", distances.get(i));
+			d.put("via", vias.get(i));
+			d.put("s", relations.get(i));
+			deps.add(d);
+		}
+		o.put("dependents", deps);
+		return o;
+	}
+
+}
@@ -0,0 +1,91 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * Plain dump of the artifact graph: node uniqueIds by dense int id and relations as parallel int arrays.
+ * Used to build in memory mirrors of the database, see {@link GraphMirror}.
+ * @author msacchetti
+ *
+ */
+final class EdgeList {
+
+	private static final Label ARTIFACT = DynamicLabel.label("Artifact");
+	private static final String UNIQUE_ID = "uniqueId";
+
+	final List<String> names;
+	int[] from = new int[1024];
+	int[] to = new int[1024];
+	byte[] relation = new byte[1024];
+	int edges = 0;
+
+	private EdgeList(List<String> names) {
+		this.names = names;
+	}
+
+	private void add(int source, int target, byte rel) {
+		if(edges==from.length){
+			from = Arrays.copyOf(from, edges * 2);
+			to = Arrays.copyOf(to, edges * 2);
+			relation = Arrays.copyOf(relation, edges * 2);
+		}
+		from[edges] = source;
+		to[edges] = target;
+		relation[edges++] = rel;
+	}
+
+	/**
+	 * Read all artifacts and relations in a single read transaction
+	 * @param db database
+	 * @param maxNodes maximum amount of nodes
+	 * @return EdgeList, null if database has more than maxNodes artifacts
+	 */
+	static EdgeList read(GraphDatabaseService db, int maxNodes) {
+		try(Transaction tx = db.beginTx()){
+			Map<Long, Integer> dense = new HashMap<>();
+			List<String> names = new ArrayList<>();
+			try(ResourceIterator<Node> it = db.findNodes(ARTIFACT)){
+				while(it.hasNext()){
+					Node n = it.next();
+					dense.put(n.getId(), names.size());
+					names.add(n.getProperty(UNIQUE_ID).toString());
+				}
+			}
+			if(names.size() > maxNodes){
+				tx.success();
+				return null;
+			}
+
+			EdgeList out = new EdgeList(names);
+			try(ResourceIterator<Node> it = db.findNodes(ARTIFACT)){
+				while(it.hasNext()){
+					Node n = it.next();
+					int source = dense.get(n.getId());
+					for (Relationship r : n.getRelationships(Direction.OUTGOING)) {
+						Integer target = dense.get(r.getEndNode().getId());
+						byte rel = CompactGraph.relation(r.getType().name());
+						if(target!=null && rel >= 0){
+							out.add(source, target, rel);
+						}
+					}
+				}
+			}
+			tx.success();
+			return out;
+		}
+	}
+
+}
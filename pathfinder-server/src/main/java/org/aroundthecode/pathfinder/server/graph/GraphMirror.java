@@ -0,0 +1,391 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.metrics.PathfinderMetrics;
+import org.json.simple.JSONObject;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Base class for in memory structures mirroring the artifact graph.
+ * <p>The mirror is built from the database at startup and after bulk uploads, stale while they are written,
+ * and updated incrementally for single artifact saves. An update the structure cannot apply makes the mirror stale until the
+ * next background rebuild; while stale or building, subclasses return null and callers fall back to the database.
+ * Relations saved during a rebuild are replayed on the new structure. A structure saved by a previous run, see {@link #restore()},
+ * is served from startup until the first rebuild replaces it.</p>
+ * <p>Rebuilds run on a single thread, at most one more rebuild is queued so bursts of uploads coalesce.
+ * Subclasses read the structure via {@link #current()} holding the read lock. Listeners, see {@link #addListener(Runnable)},
+ * are told when a new structure replaces the previous one.</p>
+ * @author msacchetti
+ *
+ * @param <T> mirrored structure
+ */
+public abstract class GraphMirror<T> {
+
+	private static final Logger log = LogManager.getLogger(GraphMirror.class.getName());
+
+	private static final String PARENT = "PARENT";
+
+	@Autowired
+	GraphDatabaseService db;
+
+	protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private T current = null;
+	private boolean stale = true;
+	private boolean building = false;
+	private final List<String[]> pending = new ArrayList<>();
+	private int bulkWrites = 0;
+	private long generation = 0;
+	private long builtAt = 0;
+	private long buildMillis = 0;
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+	private final ThreadPoolExecutor builder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(1), new ThreadPoolExecutor.DiscardPolicy());
+
+	/**
+	 * @return true if mirror is enabled by configuration
+	 */
+	public abstract boolean isEnabled();
+
+	/**
+	 * @return mirror name, used in logs and metrics
+	 */
+	protected abstract String name();
+
+	/**
+	 * @return maximum amount of nodes, mirror is not built for larger graphs
+	 */
+	protected abstract int maxNodes();
+
+	/**
+	 * @param edges database dump
+	 * @return structure built from dump, null if it cannot be built
+	 */
+	protected abstract T build(EdgeList edges);
+
+	/**
+	 * @return empty structure
+	 */
+	protected abstract T empty();
+
+	/**
+	 * Apply a saved node
+	 * @param target structure
+	 * @param uniqueId node uniqueId
+	 */
+	protected abstract void addNode(T target, String uniqueId);
+
+	/**
+	 * Apply a saved relation
+	 * @param target structure
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @param relation relation type
+	 * @return false if structure cannot be updated incrementally and must be rebuilt
+	 */
+	protected abstract boolean addEdge(T target, String from, String to, String relation);
+
+	/**
+	 * @param target structure
+	 * @return structure specific state, added to {@link #toJSON()}
+	 */
+	protected abstract JSONObject describe(T target);
+
+	/**
+	 * @return structure saved by a previous run, served until the first rebuild completes; null if not available
+	 */
+	protected T restore() {
+		return null;
+	}
+
+	/**
+	 * Register a listener invoked, without holding the lock, every time a restored, rebuilt or cleared structure replaces the previous one
+	 * @param listener listener, must not block
+	 */
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	private void installed() {
+		for (Runnable l : listeners) {
+			l.run();
+		}
+	}
+
+	/**
+	 * Build the mirror in background at startup, serving the restored structure meanwhile if any
+	 */
+	@PostConstruct
+	public void init() {
+		if(!isEnabled()){
+			return;
+		}
+		long start = System.nanoTime();
+		T restored = null;
+		try {
+			restored = restore();
+		}
+		catch (Exception e) {
+			log.warn("[" + name() + "] restore failed, waiting for rebuild", e);
+		}
+		boolean installed = false;
+		if(restored!=null){
+			lock.writeLock().lock();
+			try {
+				if(current==null){
+					installed = true;
+					current = restored;
+					stale = false;
+					builtAt = System.currentTimeMillis();
+					buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					log.info("[{}] restored in [{}]ms", name(), buildMillis);
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		if(installed){
+			installed();
+		}
+		scheduleRebuild();
+	}
+
+	/**
+	 * @return mirrored structure if up to date, null otherwise. Must be invoked holding the read lock
+	 */
+	protected T current() {
+		return isEnabled() && !stale ? current : null;
+	}
+
+	/**
+	 * Apply relations of a just saved artifact: one edge from each dependency and one to the parent
+	 * @param a saved Artifact
+	 */
+	public void addArtifact(Artifact a) {
+		if(!isEnabled()){
+			return;
+		}
+		List<String[]> edges = new ArrayList<>();
+		addEdges(edges, a.dependenciesCompile, a, Dependency.COMPILE);
+		addEdges(edges, a.dependenciesProvided, a, Dependency.PROVIDED);
+		addEdges(edges, a.dependenciesRuntime, a, Dependency.RUNTIME);
+		addEdges(edges, a.dependenciesTest, a, Dependency.TEST);
+		addEdges(edges, a.dependenciesSystem, a, Dependency.SYSTEM);
+		addEdges(edges, a.dependenciesImport, a, Dependency.IMPORT);
+		if(a.getParent()!=null){
+			edges.add(new String[]{a.getUniqueId(), a.getParent().getUniqueId(), PARENT});
+		}
+
+		boolean invalidated = false;
+		lock.writeLock().lock();
+		try {
+			if(building){
+				pending.add(new String[]{a.getUniqueId()});
+				pending.addAll(edges);
+			}
+			if(current!=null && !stale){
+				invalidated = !apply(current, a.getUniqueId(), edges);
+				stale = invalidated;
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		if(invalidated){
+			scheduleRebuild();
+		}
+	}
+
+	private static void addEdges(List<String[]> edges, Set<Artifact> dependencies, Artifact a, Dependency scope) {
+		for (Artifact d : dependencies) {
+			edges.add(new String[]{d.getUniqueId(), a.getUniqueId(), scope.name()});
+		}
+	}
+
+	private boolean apply(T target, String uniqueId, List<String[]> edges) {
+		if(uniqueId!=null){
+			addNode(target, uniqueId);
+		}
+		for (String[] e : edges) {
+			if(e.length==1){
+				addNode(target, e[0]);
+			}
+			else if(!addEdge(target, e[0], e[1], e[2])){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Queue a background rebuild, ignored if one is already queued
+	 */
+	public void scheduleRebuild() {
+		if(!isEnabled()){
+			return;
+		}
+		builder.execute(new Runnable() {
+			@Override
+			public void run() {
+				rebuild();
+			}
+		});
+	}
+
+	/**
+	 * Mark the mirror stale before writing to the database without applying changes to the mirror, e.g. a bulk upload:
+	 * callers fall back to the database until {@link #endBulkWrite()} is invoked and the rebuild it queues completes.
+	 * Rebuilds completing meanwhile are not served, they may have read part of the writes only.
+	 */
+	public void beginBulkWrite() {
+		if(!isEnabled()){
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			bulkWrites++;
+			generation++;
+			stale = true;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Queue the rebuild following a write started by {@link #beginBulkWrite()}, to be invoked even if the write failed
+	 */
+	public void endBulkWrite() {
+		if(!isEnabled()){
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			bulkWrites--;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		scheduleRebuild();
+	}
+
+	/**
+	 * Drop all content, used after database truncate
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			current = empty();
+			stale = false;
+			pending.clear();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		installed();
+	}
+
+	/**
+	 * Rebuild the structure from database
+	 */
+	public void rebuild() {
+		long started;
+		lock.writeLock().lock();
+		try {
+			building = true;
+			pending.clear();
+			started = generation;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+
+		long start = System.nanoTime();
+		T built = null;
+		try {
+			EdgeList edges = EdgeList.read(db, maxNodes());
+			if(edges==null){
+				log.warn("[{}] not built, graph exceeds [{}] nodes", name(), maxNodes());
+			}
+			else{
+				built = build(edges);
+			}
+		}
+		catch (Exception e) {
+			log.error("[" + name() + "] rebuild failed", e);
+		}
+		long elapsed = System.nanoTime() - start;
+		PathfinderMetrics.timer(name() + ".rebuild").update(elapsed, TimeUnit.NANOSECONDS);
+
+		boolean again = false;
+		lock.writeLock().lock();
+		try {
+			building = false;
+			if(built!=null){
+				again = !apply(built, null, pending);
+				// a bulk write running or started meanwhile queues its own rebuild
+				stale = again || bulkWrites > 0 || generation!=started;
+				current = built;
+				builtAt = System.currentTimeMillis();
+				buildMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+				log.info("[{}] built in [{}]ms", name(), buildMillis);
+			}
+			pending.clear();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		if(built!=null){
+			installed();
+		}
+		if(again){
+			scheduleRebuild();
+		}
+	}
+
+	/**
+	 * @return mirror state: enabled, ready and building flags, last build time and structure specific values
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSON() {
+		lock.readLock().lock();
+		try {
+			JSONObject o = current!=null ? describe(current) : new JSONObject();
+			o.put("enabled", isEnabled());
+			o.put("ready", current()!=null);
+			o.put("building", building);
+			o.put("builtAt", builtAt);
+			o.put("buildMillis", buildMillis);
+			return o;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Stop background rebuilds
+	 */
+	@PreDestroy
+	public void shutdown() {
+		builder.shutdownNow();
+	}
+
+}
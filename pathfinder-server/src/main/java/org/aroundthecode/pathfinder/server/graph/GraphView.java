@@ -0,0 +1,78 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.Arrays;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+
+/**
+ * Minimal read only view of the artifact graph used by traversal algorithms, see {@link ShortestPaths}.
+ * Node ids are only meaningful for the view that returned them.
+ * @author msacchetti
+ *
+ */
+public interface GraphView {
+
+	/**
+	 * @param uniqueId artifact uniqueId
+	 * @return node id, -1 if missing
+	 */
+	long find(String uniqueId);
+
+	/**
+	 * @param node node id
+	 * @return artifact uniqueId
+	 */
+	String uniqueId(long node);
+
+	/**
+	 * @param node node id
+	 * @return artifact coordinates
+	 */
+	ArtifactCoordinate coordinate(long node);
+
+	/**
+	 * Collect relations of a node
+	 * @param node node id
+	 * @param reverse false for outgoing relations, true for incoming ones
+	 * @param relations bit mask of relation codes to follow, see {@link CompactGraph#RELATIONS}
+	 * @param out cleared and filled with other node and relation code of each relation
+	 */
+	void expand(long node, boolean reverse, int relations, Neighbours out);
+
+	/**
+	 * Reusable buffer of neighbour nodes
+	 */
+	final class Neighbours {
+
+		private long[] nodes = new long[16];
+		private byte[] relations = new byte[16];
+		private int size = 0;
+
+		public void clear() {
+			size = 0;
+		}
+
+		public void add(long node, int relation) {
+			if(size==nodes.length){
+				nodes = Arrays.copyOf(nodes, size * 2);
+				relations = Arrays.copyOf(relations, size * 2);
+			}
+			nodes[size] = node;
+			relations[size++] = (byte) relation;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public long node(int i) {
+			return nodes[i];
+		}
+
+		public byte relation(int i) {
+			return relations[i];
+		}
+
+	}
+
+}
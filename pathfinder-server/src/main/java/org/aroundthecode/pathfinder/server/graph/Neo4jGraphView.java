@@ -0,0 +1,58 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * {@link GraphView} on the Neo4j core API, node ids are Neo4j ids. Must be used within a transaction.
+ * @author msacchetti
+ *
+ */
+public class Neo4jGraphView implements GraphView {
+
+	private static final Label ARTIFACT = DynamicLabel.label("Artifact");
+	private static final String UNIQUE_ID = "uniqueId";
+
+	private final GraphDatabaseService db;
+
+	/**
+	 * @param db database
+	 */
+	public Neo4jGraphView(GraphDatabaseService db) {
+		this.db = db;
+	}
+
+	@Override
+	public long find(String uniqueId) {
+		Node n = db.findNode(ARTIFACT, UNIQUE_ID, uniqueId);
+		return n!=null ? n.getId() : -1;
+	}
+
+	@Override
+	public String uniqueId(long node) {
+		return db.getNodeById(node).getProperty(UNIQUE_ID).toString();
+	}
+
+	@Override
+	public ArtifactCoordinate coordinate(long node) {
+		return ArtifactCoordinate.parse(uniqueId(node));
+	}
+
+	@Override
+	public void expand(long node, boolean reverse, int relations, Neighbours out) {
+		out.clear();
+		Node n = db.getNodeById(node);
+		for (Relationship r : n.getRelationships(reverse ? Direction.INCOMING : Direction.OUTGOING)) {
+			byte rel = CompactGraph.relation(r.getType().name());
+			if(rel >= 0 && (relations & (1 << rel))!=0){
+				out.add(r.getOtherNode(n).getId(), rel);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.json.simple.JSONObject;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional in memory reachability index over all artifact relations, enabled by <b>pathfinder.reachability.enabled</b>.
+ * <p>Mirrors the database in a {@link TransitiveClosure}; edges closing a cycle between components cannot be
+ * applied incrementally and make the index stale until the next background rebuild.</p>
+ * <p>The index is not built for graphs larger than <b>pathfinder.reachability.maxnodes</b> nor when its bitsets exceed
+ * <b>pathfinder.reachability.maxbytes</b>; queries then run on the database.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class ReachabilityIndex extends GraphMirror<TransitiveClosure> {
+
+	private static final Logger log = LogManager.getLogger(ReachabilityIndex.class.getName());
+
+	private final boolean enabled = ConfigurationManager.isReachabilityEnabled();
+	private final int maxNodes = ConfigurationManager.getReachabilityMaxNodes();
+	private final long maxBytes = ConfigurationManager.getReachabilityMaxBytes();
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	protected String name() {
+		return "reachability";
+	}
+
+	@Override
+	protected int maxNodes() {
+		return maxNodes;
+	}
+
+	@Override
+	protected TransitiveClosure build(EdgeList edges) {
+		TransitiveClosure c = TransitiveClosure.build(edges.names, edges.from, edges.to, edges.edges, maxBytes);
+		if(c==null){
+			log.warn("[{}] not built, closure of [{}] nodes exceeds [{}] bytes", name(), edges.names.size(), maxBytes);
+		}
+		return c;
+	}
+
+	@Override
+	protected TransitiveClosure empty() {
+		return TransitiveClosure.empty(maxBytes);
+	}
+
+	@Override
+	protected void addNode(TransitiveClosure target, String uniqueId) {
+		target.addNode(uniqueId);
+	}
+
+	@Override
+	protected boolean addEdge(TransitiveClosure target, String from, String to, String relation) {
+		return target.addEdge(from, to);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected JSONObject describe(TransitiveClosure target) {
+		JSONObject o = new JSONObject();
+		o.put("nodes", target.size());
+		o.put("components", target.components());
+		o.put("bitsetBytes", target.bitsetBytes());
+		return o;
+	}
+
+	/**
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @return true if target is reachable from source following relations direction, null if index is not available
+	 */
+	public Boolean reaches(String from, String to) {
+		lock.readLock().lock();
+		try {
+			TransitiveClosure c = current();
+			return c!=null ? c.reaches(from, to) : null;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param uniqueId artifact uniqueId
+	 * @param reverse if true return artifacts reaching the given one, otherwise artifacts reached by it
+	 * @return uniqueIds list, null if index is not available
+	 */
+	public List<String> closure(String uniqueId, boolean reverse) {
+		lock.readLock().lock();
+		try {
+			TransitiveClosure c = current();
+			if(c==null){
+				return null;
+			}
+			return reverse ? c.ancestors(uniqueId) : c.descendants(uniqueId);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transitive reverse dependencies: all artifacts depending, directly or not, on a set of root artifacts.
+ * <p>Dependency relations are stored as (dependency)-[:SCOPE]-&gt;(dependent), so dependents are reached following
+ * outgoing relations. The walk is a breadth first search on the core API, each node is visited once
+ * and reported with the shortest distance from the roots.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class ReverseDependencyFinder {
+
+	private static final String UNIQUE_ID = "uniqueId";
+	private static final Label ARTIFACT = DynamicLabel.label("Artifact");
+
+	private static final String ROOTS_QUERY =
+			"MATCH (n:Artifact) WHERE n.groupId = {g} AND n.artifactId = {a} AND n.version =~ {v} RETURN n";
+
+	@Autowired GraphDatabaseService db;
+
+	/**
+	 * Resolve root nodes, must be invoked within a transaction
+	 * @param uniqueId root uniqueId, if not empty other parameters are ignored
+	 * @param groupId roots groupId
+	 * @param artifactId roots artifactId
+	 * @param versionRegex roots version regular expression, e.g. <code>2\\..*</code> for all 2.x versions
+	 * @return matching nodes, empty if none
+	 */
+	public List<Node> findRoots(String uniqueId, String groupId, String artifactId, String versionRegex) {
+		List<Node> roots = new ArrayList<>();
+		if(uniqueId!=null && !uniqueId.isEmpty()){
+			Node n = db.findNode(ARTIFACT, UNIQUE_ID, uniqueId);
+			if(n!=null){
+				roots.add(n);
+			}
+			return roots;
+		}
+		Map<String,Object> params = new HashMap<>();
+		params.put("g", groupId);
+		params.put("a", artifactId);
+		params.put("v", versionRegex);
+		try(ResourceIterator<Node> it = db.execute(ROOTS_QUERY, params).columnAs("n")){
+			while (it.hasNext()) {
+				roots.add(it.next());
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * Find dependents of given roots, must be invoked within a transaction
+	 * @param roots root artifact nodes, not included in the result
+	 * @param depth maximum amount of hops from roots
+	 * @param scopes dependency scopes to follow
+	 * @param limit maximum amount of dependents, search stops and result is marked truncated when reached
+	 * @return search result
+	 */
+	public DependentsResult find(Collection<Node> roots, int depth, Collection<Dependency> scopes, int limit) {
+
+		RelationshipType[] types = new RelationshipType[scopes.size()];
+		int t = 0;
+		for (Dependency s : scopes) {
+			types[t++] = DynamicRelationshipType.withName(s.name());
+		}
+
+		DependentsResult result = new DependentsResult(depth, scopes);
+		Set<Long> visited = new HashSet<>();
+		List<Node> frontier = new ArrayList<>(roots);
+		for (Node root : roots) {
+			visited.add(root.getId());
+			result.addRoot(root.getProperty(UNIQUE_ID).toString());
+		}
+
+		for (int d = 1; d <= depth && !frontier.isEmpty(); d++) {
+			List<Node> next = new ArrayList<>();
+			for (Node n : frontier) {
+				String via = null;
+				for (Relationship r : n.getRelationships(Direction.OUTGOING, types)) {
+					Node dependent = r.getEndNode();
+					if(visited.add(dependent.getId())){
+						if(result.size() >= limit){
+							result.setTruncated(true);
+							return result;
+						}
+						if(via==null){
+							via = n.getProperty(UNIQUE_ID).toString();
+						}
+						result.add(dependent.getProperty(UNIQUE_ID).toString(), d, via, r.getType().name());
+						next.add(dependent);
+					}
+				}
+			}
+			frontier = next;
+		}
+		return result;
+	}
+
+}
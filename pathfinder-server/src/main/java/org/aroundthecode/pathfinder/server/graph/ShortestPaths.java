@@ -0,0 +1,263 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * All shortest paths between two artifacts following relations direction, computed with a bidirectional
+ * breadth first search on a {@link GraphView}.
+ * <p>Search alternates the smaller frontier, forward from the source on outgoing relations and backward from
+ * the target on incoming ones, and stops at the first level where the two searches meet. Each visited node keeps
+ * all its predecessors at the previous level, so every shortest path can be rebuilt through the meeting nodes.</p>
+ * @author msacchetti
+ *
+ */
+public final class ShortestPaths {
+
+	private ShortestPaths() {
+	}
+
+	/**
+	 * A path: nodes from source to target and the relation code between each pair of nodes
+	 */
+	public static final class Path {
+
+		private final long[] nodes;
+		private final byte[] relations;
+
+		Path(long[] nodes, byte[] relations) {
+			this.nodes = nodes;
+			this.relations = relations;
+		}
+
+		/**
+		 * @return node ids from source to target
+		 */
+		public long[] getNodes() {
+			return nodes;
+		}
+
+		/**
+		 * @return relation codes, one less than nodes
+		 */
+		public byte[] getRelations() {
+			return relations;
+		}
+
+		/**
+		 * @param g view this path comes from
+		 * @return <code>{"nodes":[uniqueId,..],"relations":["COMPILE",..]}</code>
+		 */
+		@SuppressWarnings("unchecked")
+		public JSONObject toJSON(GraphView g) {
+			JSONArray n = new JSONArray();
+			for (long node : nodes) {
+				n.add(g.uniqueId(node));
+			}
+			JSONArray r = new JSONArray();
+			for (byte rel : relations) {
+				r.add(CompactGraph.RELATIONS[rel]);
+			}
+			JSONObject o = new JSONObject();
+			o.put("nodes", n);
+			o.put("relations", r);
+			return o;
+		}
+
+	}
+
+	/**
+	 * Predecessor of a node on one search side
+	 */
+	private static final class Step {
+		final long node;
+		final byte relation;
+
+		Step(long node, byte relation) {
+			this.node = node;
+			this.relation = relation;
+		}
+	}
+
+	/**
+	 * One search direction
+	 */
+	private static final class Side {
+		final boolean reverse;
+		final Map<Long, Integer> dist = new HashMap<>();
+		final Map<Long, List<Step>> parents = new HashMap<>();
+		List<Long> frontier = new ArrayList<>();
+		int depth = 0;
+
+		Side(boolean reverse, long start) {
+			this.reverse = reverse;
+			dist.put(start, 0);
+			frontier.add(start);
+		}
+	}
+
+	/**
+	 * Find shortest paths, traversal state is kept per call so the method is thread safe as long as the view is
+	 * @param g graph view
+	 * @param from source node id
+	 * @param to target node id
+	 * @param relations bit mask of relation codes to follow, see {@link CompactGraph#relationMask(String)}
+	 * @param maxDepth maximum path length
+	 * @param maxPaths maximum amount of paths returned
+	 * @return shortest paths, empty if target is not reachable within maxDepth
+	 */
+	public static List<Path> find(GraphView g, long from, long to, int relations, int maxDepth, int maxPaths) {
+		List<Path> out = new ArrayList<>();
+		if(from==to){
+			out.add(new Path(new long[]{from}, new byte[0]));
+			return out;
+		}
+		Side forward = new Side(false, from);
+		Side backward = new Side(true, to);
+		GraphView.Neighbours buffer = new GraphView.Neighbours();
+
+		while(forward.depth + backward.depth < maxDepth && !forward.frontier.isEmpty() && !backward.frontier.isEmpty()){
+			boolean expandForward = forward.frontier.size() <= backward.frontier.size();
+			Side s = expandForward ? forward : backward;
+			Side other = expandForward ? backward : forward;
+			expand(g, s, relations, buffer);
+
+			int best = Integer.MAX_VALUE;
+			List<Long> meets = new ArrayList<>();
+			for (Long v : s.frontier) {
+				Integer d = other.dist.get(v);
+				if(d==null){
+					continue;
+				}
+				if(d < best){
+					best = d;
+					meets.clear();
+				}
+				if(d==best){
+					meets.add(v);
+				}
+			}
+			if(!meets.isEmpty()){
+				for (Long m : meets) {
+					if(!collect(forward, backward, m, out, maxPaths)){
+						break;
+					}
+				}
+				return out;
+			}
+		}
+		return out;
+	}
+
+	private static void expand(GraphView g, Side s, int relations, GraphView.Neighbours buffer) {
+		int level = s.depth + 1;
+		List<Long> next = new ArrayList<>();
+		for (Long u : s.frontier) {
+			g.expand(u, s.reverse, relations, buffer);
+			for (int i = 0; i < buffer.size(); i++) {
+				long v = buffer.node(i);
+				Integer d = s.dist.get(v);
+				if(d==null){
+					s.dist.put(v, level);
+					List<Step> p = new ArrayList<>(1);
+					p.add(new Step(u, buffer.relation(i)));
+					s.parents.put(v, p);
+					next.add(v);
+				}
+				else if(d==level){
+					s.parents.get(v).add(new Step(u, buffer.relation(i)));
+				}
+			}
+		}
+		s.depth = level;
+		s.frontier = next;
+	}
+
+	/**
+	 * Combine every source to meeting node path with every meeting node to target path
+	 * @return false once maxPaths is reached
+	 */
+	private static boolean collect(Side forward, Side backward, long meet, List<Path> out, int maxPaths) {
+		List<List<Step>> heads = new ArrayList<>();
+		walk(forward, meet, new ArrayList<Step>(), heads, maxPaths);
+		List<List<Step>> tails = new ArrayList<>();
+		walk(backward, meet, new ArrayList<Step>(), tails, maxPaths);
+
+		for (List<Step> head : heads) {
+			for (List<Step> tail : tails) {
+				if(out.size() >= maxPaths){
+					return false;
+				}
+				// head holds predecessors from meet back to source, tail successors from meet forward to target
+				int length = head.size() + tail.size();
+				long[] nodes = new long[length + 1];
+				byte[] relations = new byte[length];
+				int k = 0;
+				for (int i = head.size() - 1; i >= 0; i--) {
+					nodes[k] = head.get(i).node;
+					relations[k++] = head.get(i).relation;
+				}
+				nodes[k] = meet;
+				for (Step t : tail) {
+					relations[k++] = t.relation;
+					nodes[k] = t.node;
+				}
+				out.add(new Path(nodes, relations));
+			}
+		}
+		return out.size() < maxPaths;
+	}
+
+	/**
+	 * Enumerate chains of predecessors from node back to the side start
+	 */
+	private static void walk(Side s, long node, List<Step> chain, List<List<Step>> out, int max) {
+		if(out.size() >= max){
+			return;
+		}
+		List<Step> parents = s.parents.get(node);
+		if(parents==null){
+			out.add(new ArrayList<>(chain));
+			return;
+		}
+		for (Step p : parents) {
+			chain.add(p);
+			walk(s, p.node, chain, out, max);
+			chain.remove(chain.size() - 1);
+		}
+	}
+
+	/**
+	 * Find shortest paths between two artifacts and map them to JSON
+	 * @param g graph view
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @param relations bit mask of relation codes to follow
+	 * @param maxDepth maximum path length
+	 * @param maxPaths maximum amount of paths returned
+	 * @return <code>{"from":..,"to":..,"length":n,"count":n,"paths":[..]}</code>, length is -1 when no path is found
+	 */
+	@SuppressWarnings("unchecked")
+	public static JSONObject query(GraphView g, String from, String to, int relations, int maxDepth, int maxPaths) {
+		JSONObject o = new JSONObject();
+		o.put("from", from);
+		o.put("to", to);
+		long f = g.find(from);
+		long t = g.find(to);
+		List<Path> paths = f < 0 || t < 0 ? new ArrayList<Path>() : find(g, f, t, relations, maxDepth, maxPaths);
+		JSONArray p = new JSONArray();
+		for (Path path : paths) {
+			p.add(path.toJSON(g));
+		}
+		o.put("length", paths.isEmpty() ? -1 : paths.get(0).getRelations().length);
+		o.put("count", paths.size());
+		o.put("paths", p);
+		return o;
+	}
+
+}
@@ -0,0 +1,74 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.impl.store.StoreId;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+
+/**
+ * Identity of a Neo4j store at a given point: store creation time and random id, last committed transaction id.
+ * Written in {@link CompactGraph} snapshots so that a snapshot is only mapped on the store state it was saved from.
+ * @author msacchetti
+ *
+ */
+public final class StoreVersion {
+
+	/**
+	 * Origin of snapshots not saved from a store, never equal to a store version
+	 */
+	public static final StoreVersion UNKNOWN = new StoreVersion(0L, 0L, -1L);
+
+	private final long creationTime;
+	private final long randomId;
+	private final long transactionId;
+
+	public StoreVersion(long creationTime, long randomId, long transactionId) {
+		this.creationTime = creationTime;
+		this.randomId = randomId;
+		this.transactionId = transactionId;
+	}
+
+	/**
+	 * @param db open database
+	 * @return current version of the database store
+	 */
+	public static StoreVersion of(GraphDatabaseService db) {
+		GraphDatabaseAPI api = (GraphDatabaseAPI) db;
+		StoreId id = api.storeId();
+		long tx = api.getDependencyResolver().resolveDependency(TransactionIdStore.class).getLastCommittedTransactionId();
+		return new StoreVersion(id.getCreationTime(), id.getRandomId(), tx);
+	}
+
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	public long getRandomId() {
+		return randomId;
+	}
+
+	public long getTransactionId() {
+		return transactionId;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(!(o instanceof StoreVersion)){
+			return false;
+		}
+		StoreVersion v = (StoreVersion) o;
+		return creationTime==v.creationTime && randomId==v.randomId && transactionId==v.transactionId;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = Long.hashCode(creationTime);
+		h = 31 * h + Long.hashCode(randomId);
+		return 31 * h + Long.hashCode(transactionId);
+	}
+
+	@Override
+	public String toString() {
+		return "store [" + creationTime + "/" + randomId + "] at transaction [" + transactionId + "]";
+	}
+}
@@ -0,0 +1,353 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transitive closure of the artifact graph, condensed on strongly connected components.
+ * <p>Every node is mapped to a dense int id and to its component, every component keeps a BitSet of the components
+ * it reaches. Reachability between two artifacts is then a map lookup and a single bit test.</p>
+ * <p>Edges can be added incrementally as long as they do not close a cycle between different components,
+ * in that case {@link #addEdge(String, String)} returns false and the closure must be rebuilt.
+ * Not thread safe, see {@link ReachabilityIndex}.</p>
+ * <p>Bitsets need up to components x reachable components bits, components&sup2; / 8 bytes in the worst case: about 5GB
+ * for 200000 components. Their size is bounded by a byte budget, a closure exceeding it is not built and an edge making
+ * it exceed the budget is rejected as a cycle would be.</p>
+ * @author msacchetti
+ *
+ */
+public final class TransitiveClosure {
+
+	private final Map<String, Integer> ids;
+	private String[] names;
+	private int[] comp;
+	private int nodes;
+	private BitSet[] desc;
+	private int[] compSize;
+	private int components;
+	private final long maxBytes;
+	private long bytes;
+
+	private TransitiveClosure(Map<String, Integer> ids, String[] names, int[] comp, int nodes, BitSet[] desc, int[] compSize, int components, long maxBytes, long bytes) {
+		this.ids = ids;
+		this.names = names;
+		this.comp = comp;
+		this.nodes = nodes;
+		this.desc = desc;
+		this.compSize = compSize;
+		this.components = components;
+		this.maxBytes = maxBytes;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * @return an empty closure without byte budget
+	 */
+	public static TransitiveClosure empty() {
+		return empty(Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxBytes bitsets byte budget
+	 * @return an empty closure
+	 */
+	public static TransitiveClosure empty(long maxBytes) {
+		return new TransitiveClosure(new HashMap<String, Integer>(), new String[16], new int[16], 0, new BitSet[16], new int[16], 0, maxBytes, 0);
+	}
+
+	/**
+	 * Build the closure of a graph
+	 * @param names node uniqueIds, position is the node id used in edges
+	 * @param from edges source node ids
+	 * @param to edges target node ids
+	 * @param edges amount of edges, only the first <i>edges</i> items of from and to are considered
+	 * @return TransitiveClosure without byte budget
+	 */
+	public static TransitiveClosure build(List<String> names, int[] from, int[] to, int edges) {
+		return build(names, from, to, edges, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Build the closure of a graph, giving up as soon as bitsets exceed the byte budget
+	 * @param names node uniqueIds, position is the node id used in edges
+	 * @param from edges source node ids
+	 * @param to edges target node ids
+	 * @param edges amount of edges, only the first <i>edges</i> items of from and to are considered
+	 * @param maxBytes bitsets byte budget
+	 * @return TransitiveClosure, null if bitsets exceed the budget
+	 */
+	public static TransitiveClosure build(List<String> names, int[] from, int[] to, int edges, long maxBytes) {
+		int n = names.size();
+
+		// CSR adjacency
+		int[] offset = new int[n + 1];
+		for (int e = 0; e < edges; e++) {
+			offset[from[e] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			offset[i + 1] += offset[i];
+		}
+		int[] target = new int[edges];
+		int[] fill = Arrays.copyOf(offset, n);
+		for (int e = 0; e < edges; e++) {
+			target[fill[from[e]]++] = to[e];
+		}
+
+		int[] comp = new int[Math.max(n, 16)];
+		int components = tarjan(n, offset, target, comp);
+
+		// Tarjan completes components sinks first: successors of a component always have a lower id
+		int[] byComp = new int[n];
+		int[] compStart = new int[components + 1];
+		for (int i = 0; i < n; i++) {
+			compStart[comp[i] + 1]++;
+		}
+		for (int c = 0; c < components; c++) {
+			compStart[c + 1] += compStart[c];
+		}
+		int[] compSize = new int[Math.max(components, 16)];
+		for (int c = 0; c < components; c++) {
+			compSize[c] = compStart[c + 1] - compStart[c];
+		}
+		fill = Arrays.copyOf(compStart, components);
+		for (int i = 0; i < n; i++) {
+			byComp[fill[comp[i]]++] = i;
+		}
+
+		BitSet[] desc = new BitSet[Math.max(components, 16)];
+		long bytes = 0;
+		for (int c = 0; c < components; c++) {
+			BitSet d = new BitSet();
+			for (int k = compStart[c]; k < compStart[c + 1]; k++) {
+				int v = byComp[k];
+				for (int e = offset[v]; e < offset[v + 1]; e++) {
+					int w = comp[target[e]];
+					if(w!=c && !d.get(w)){
+						d.set(w);
+						d.or(desc[w]);
+					}
+				}
+			}
+			desc[c] = d;
+			bytes += d.size() / 8;
+			if(bytes > maxBytes){
+				return null;
+			}
+		}
+
+		Map<String, Integer> ids = new HashMap<>(n * 2);
+		String[] nameArray = names.toArray(new String[Math.max(n, 16)]);
+		for (int i = 0; i < n; i++) {
+			ids.put(nameArray[i], i);
+		}
+		return new TransitiveClosure(ids, nameArray, comp, n, desc, compSize, components, maxBytes, bytes);
+	}
+
+	/**
+	 * Iterative Tarjan strongly connected components
+	 * @return amount of components, comp is filled with the component of each node
+	 */
+	private static int tarjan(int n, int[] offset, int[] target, int[] comp) {
+		int[] index = new int[n];
+		int[] low = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] stack = new int[n];
+		int[] callNode = new int[n];
+		int[] callEdge = new int[n];
+		Arrays.fill(index, -1);
+		int sp = 0;
+		int counter = 0;
+		int components = 0;
+
+		for (int root = 0; root < n; root++) {
+			if(index[root]!=-1){
+				continue;
+			}
+			int depth = 0;
+			callNode[0] = root;
+			callEdge[0] = offset[root];
+			index[root] = low[root] = counter++;
+			stack[sp++] = root;
+			onStack[root] = true;
+
+			while(depth >= 0){
+				int v = callNode[depth];
+				if(callEdge[depth] < offset[v + 1]){
+					int w = target[callEdge[depth]++];
+					if(index[w]==-1){
+						index[w] = low[w] = counter++;
+						stack[sp++] = w;
+						onStack[w] = true;
+						depth++;
+						callNode[depth] = w;
+						callEdge[depth] = offset[w];
+					}
+					else if(onStack[w]){
+						low[v] = Math.min(low[v], index[w]);
+					}
+				}
+				else{
+					if(low[v]==index[v]){
+						int w;
+						do {
+							w = stack[--sp];
+							onStack[w] = false;
+							comp[w] = components;
+						} while(w!=v);
+						components++;
+					}
+					depth--;
+					if(depth >= 0){
+						int parent = callNode[depth];
+						low[parent] = Math.min(low[parent], low[v]);
+					}
+				}
+			}
+		}
+		return components;
+	}
+
+	/**
+	 * Add a node if missing, as a new single node component
+	 * @param uniqueId node uniqueId
+	 * @return node id
+	 */
+	public int addNode(String uniqueId) {
+		Integer id = ids.get(uniqueId);
+		if(id!=null){
+			return id;
+		}
+		if(nodes==names.length){
+			names = Arrays.copyOf(names, nodes * 2);
+			comp = Arrays.copyOf(comp, nodes * 2);
+		}
+		if(components==desc.length){
+			desc = Arrays.copyOf(desc, components * 2);
+			compSize = Arrays.copyOf(compSize, components * 2);
+		}
+		names[nodes] = uniqueId;
+		comp[nodes] = components;
+		desc[components] = new BitSet();
+		bytes += desc[components].size() / 8;
+		compSize[components] = 1;
+		components++;
+		ids.put(uniqueId, nodes);
+		return nodes++;
+	}
+
+	/**
+	 * Add an edge, updating the closure of every component reaching its source
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @return false if the edge closes a cycle between different components, closure is then left unchanged and must be rebuilt;
+	 * false also if the closure exceeds its byte budget, it is then updated anyway but must not be used any more
+	 */
+	public boolean addEdge(String from, String to) {
+		int u = addNode(from);
+		int v = addNode(to);
+		int cu = comp[u];
+		int cv = comp[v];
+		if(cu==cv || desc[cu].get(cv)){
+			return true;
+		}
+		if(desc[cv].get(cu)){
+			return false;
+		}
+		BitSet added = (BitSet) desc[cv].clone();
+		added.set(cv);
+		for (int c = 0; c < components; c++) {
+			if(c==cu || desc[c].get(cu)){
+				bytes -= desc[c].size() / 8;
+				desc[c].or(added);
+				bytes += desc[c].size() / 8;
+			}
+		}
+		return bytes <= maxBytes;
+	}
+
+	/**
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @return true if a path of at least one relation exists from source to target
+	 */
+	public boolean reaches(String from, String to) {
+		Integer u = ids.get(from);
+		Integer v = ids.get(to);
+		if(u==null || v==null){
+			return false;
+		}
+		int cu = comp[u];
+		int cv = comp[v];
+		if(cu==cv){
+			return compSize[cu] > 1;
+		}
+		return desc[cu].get(cv);
+	}
+
+	/**
+	 * @param uniqueId source uniqueId
+	 * @return uniqueIds of all nodes reachable from source, empty if source is unknown
+	 */
+	public List<String> descendants(String uniqueId) {
+		List<String> out = new ArrayList<>();
+		Integer u = ids.get(uniqueId);
+		if(u==null){
+			return out;
+		}
+		int cu = comp[u];
+		BitSet d = desc[cu];
+		for (int i = 0; i < nodes; i++) {
+			int c = comp[i];
+			if(d.get(c) || (c==cu && i!=u)){
+				out.add(names[i]);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * @param uniqueId target uniqueId
+	 * @return uniqueIds of all nodes reaching target, empty if target is unknown
+	 */
+	public List<String> ancestors(String uniqueId) {
+		List<String> out = new ArrayList<>();
+		Integer v = ids.get(uniqueId);
+		if(v==null){
+			return out;
+		}
+		int cv = comp[v];
+		for (int i = 0; i < nodes; i++) {
+			int c = comp[i];
+			if(desc[c].get(cv) || (c==cv && i!=v)){
+				out.add(names[i]);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * @return amount of nodes
+	 */
+	public int size() {
+		return nodes;
+	}
+
+	/**
+	 * @return amount of strongly connected components
+	 */
+	public int components() {
+		return components;
+	}
+
+	/**
+	 * @return approximate heap used by closure bitsets, in bytes
+	 */
+	public long bitsetBytes() {
+		return bytes;
+	}
+
+}
@@ -0,0 +1,398 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.metrics.PathfinderMetrics;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional version conflict analysis of every root artifact, enabled by <b>pathfinder.conflicts.enabled</b>.
+ * <p>Conflicts are computed over a copy of the graph of {@link CompactQueryEngine}, so the compact graph must be enabled too.
+ * The whole copy is analysed, without holding any lock, every time the engine installs a new graph; artifacts saved meanwhile
+ * are replayed on the copy before it is installed. Saved artifacts, applied to the graph by the engine first, are then applied
+ * to the copy and only mark their nodes dirty; {@link #scheduleRefresh()} recomputes, in background, the roots depending on them.
+ * While the engine is stale or building, or the analysis of its new graph is not complete, the index is not available.</p>
+ * <p>Locks are always taken in the same order: the engine read lock first, then the index lock.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class VersionConflictIndex {
+
+	private static final Logger log = LogManager.getLogger(VersionConflictIndex.class.getName());
+
+	private static final String NAME = "conflicts";
+
+	private final boolean enabled = ConfigurationManager.isConflictsEnabled();
+
+	@Autowired
+	CompactQueryEngine engine;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private VersionConflicts current = null;
+	private CompactGraph source = null;
+	private boolean building = false;
+	private final List<String[]> pending = new ArrayList<>();
+	private long builtAt = 0;
+	private long buildMillis = 0;
+
+	private final ThreadPoolExecutor builder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(1), new ThreadPoolExecutor.DiscardPolicy());
+
+	private final ThreadPoolExecutor refresher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(1), new ThreadPoolExecutor.DiscardPolicy());
+
+	/**
+	 * @return true if index and compact graph are enabled by configuration
+	 */
+	public boolean isEnabled() {
+		return enabled && engine.isEnabled();
+	}
+
+	/**
+	 * Analyse the engine graph in background at startup and every time the engine installs a new one
+	 */
+	@PostConstruct
+	public void init() {
+		if(enabled && !engine.isEnabled()){
+			log.warn("[{}] disabled, pathfinder.compactgraph.enabled is false", NAME);
+		}
+		if(!isEnabled()){
+			return;
+		}
+		engine.addListener(new Runnable() {
+			@Override
+			public void run() {
+				scheduleRebuild();
+			}
+		});
+		scheduleRebuild();
+	}
+
+	/**
+	 * @return analysis of the current engine graph, null if not available. Must be invoked holding the engine read lock and the index lock
+	 */
+	private VersionConflicts current() {
+		CompactGraph g = engine.current();
+		return g!=null && current!=null && source==g ? current : null;
+	}
+
+	/**
+	 * Queue a background analysis of the whole engine graph, ignored if one is already queued
+	 */
+	public void scheduleRebuild() {
+		if(!isEnabled()){
+			return;
+		}
+		builder.execute(new Runnable() {
+			@Override
+			public void run() {
+				rebuild();
+			}
+		});
+	}
+
+	/**
+	 * Analyse every root of a copy of the engine graph. The engine read lock is held only to copy the graph and to install
+	 * the analysis; artifacts saved in between are recorded and replayed on the copy, the analysis is dropped if the engine
+	 * installed another graph meanwhile
+	 */
+	public void rebuild() {
+		long start = System.nanoTime();
+		CompactGraph g;
+		CompactGraph copy;
+		engine.lock.readLock().lock();
+		try {
+			g = engine.current();
+			if(g==null){
+				return;
+			}
+			copy = g.copy();
+			lock.writeLock().lock();
+			try {
+				building = true;
+				pending.clear();
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		finally {
+			engine.lock.readLock().unlock();
+		}
+
+		VersionConflicts built = null;
+		try {
+			built = VersionConflicts.build(copy);
+		}
+		catch (Exception e) {
+			log.error("[" + NAME + "] rebuild failed", e);
+		}
+		long elapsed = System.nanoTime() - start;
+		PathfinderMetrics.timer(NAME + ".rebuild").update(elapsed, TimeUnit.NANOSECONDS);
+
+		boolean replayed = false;
+		engine.lock.readLock().lock();
+		try {
+			lock.writeLock().lock();
+			try {
+				building = false;
+				// a replaced engine graph is analysed by the rebuild its listener queued
+				if(built!=null && engine.current()==g){
+					for (String[] change : pending) {
+						apply(built, change);
+					}
+					replayed = !pending.isEmpty();
+					current = built;
+					source = g;
+					builtAt = System.currentTimeMillis();
+					buildMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+					log.info("[{}] built in [{}]ms, [{}] changes replayed", NAME, buildMillis, pending.size());
+				}
+				pending.clear();
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		finally {
+			engine.lock.readLock().unlock();
+		}
+		if(replayed){
+			scheduleRefresh();
+		}
+	}
+
+	/**
+	 * Apply a saved node or relation to the analysed graph copy and mark it dirty
+	 * @param c analysis
+	 * @param change node uniqueId, or source uniqueId, target uniqueId and relation type
+	 */
+	private static void apply(VersionConflicts c, String[] change) {
+		if(change.length==1){
+			c.graph().addNode(change[0]);
+			c.addNode(change[0]);
+		}
+		else{
+			c.graph().addEdge(change[0], change[1], change[2]);
+			c.addEdge(change[0], change[1], change[2]);
+		}
+	}
+
+	/**
+	 * Apply the nodes and relations of a just saved artifact and mark them dirty, to be invoked after
+	 * {@link CompactQueryEngine#addArtifact(Artifact)}
+	 * @param a saved Artifact
+	 */
+	public void addArtifact(Artifact a) {
+		if(!isEnabled()){
+			return;
+		}
+		List<String[]> changes = new ArrayList<>();
+		changes.add(new String[]{a.getUniqueId()});
+		for (Artifact d : a.dependenciesCompile) {
+			changes.add(new String[]{d.getUniqueId(), a.getUniqueId(), Dependency.COMPILE.name()});
+		}
+		for (Artifact d : a.dependenciesRuntime) {
+			changes.add(new String[]{d.getUniqueId(), a.getUniqueId(), Dependency.RUNTIME.name()});
+		}
+		engine.lock.readLock().lock();
+		try {
+			lock.writeLock().lock();
+			try {
+				if(building){
+					pending.addAll(changes);
+				}
+				VersionConflicts c = current();
+				if(c!=null){
+					for (String[] change : changes) {
+						apply(c, change);
+					}
+				}
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		finally {
+			engine.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Queue a background refresh of roots depending on artifacts saved since last one, ignored if one is already queued
+	 */
+	public void scheduleRefresh() {
+		if(!isEnabled()){
+			return;
+		}
+		refresher.execute(new Runnable() {
+			@Override
+			public void run() {
+				refresh();
+			}
+		});
+	}
+
+	/**
+	 * Recompute conflicts of roots depending on artifacts saved since last refresh
+	 */
+	public void refresh() {
+		long start = System.nanoTime();
+		int analysed;
+		engine.lock.readLock().lock();
+		try {
+			lock.writeLock().lock();
+			try {
+				VersionConflicts c = current();
+				if(c==null){
+					return;
+				}
+				analysed = c.refresh();
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+		}
+		finally {
+			engine.lock.readLock().unlock();
+		}
+		if(analysed > 0){
+			PathfinderMetrics.timer(NAME + ".refresh").update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			log.debug("[{}] roots analysed in [{}]ms", analysed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+	}
+
+	/**
+	 * Drop the analysis, used after database truncate; the engine cleared graph is analysed again in background
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			current = null;
+			source = null;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		scheduleRebuild();
+	}
+
+	/**
+	 * @param uniqueId artifact uniqueId
+	 * @return <code>{"root":..,"conflicts":[..]}</code>, null if index is not available
+	 */
+	public JSONObject conflicts(String uniqueId) {
+		engine.lock.readLock().lock();
+		try {
+			lock.readLock().lock();
+			try {
+				VersionConflicts c = current();
+				return c!=null ? VersionConflicts.toJSON(uniqueId, c.get(uniqueId)) : null;
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		finally {
+			engine.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param max maximum amount of roots returned
+	 * @return <code>{"count":n,"truncated":bool,"dirty":bool,"roots":[{"root":..,"conflicts":[..]}]}</code>, null if index is not available
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject all(int max) {
+		engine.lock.readLock().lock();
+		try {
+			lock.readLock().lock();
+			try {
+				VersionConflicts c = current();
+				if(c==null){
+					return null;
+				}
+				List<String> roots = c.conflicting();
+				JSONArray out = new JSONArray();
+				for (String root : roots) {
+					if(out.size() >= max){
+						break;
+					}
+					out.add(VersionConflicts.toJSON(root, c.get(root)));
+				}
+				JSONObject o = new JSONObject();
+				o.put("count", roots.size());
+				o.put("truncated", roots.size() > out.size());
+				o.put("dirty", c.isDirty());
+				o.put("roots", out);
+				return o;
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		finally {
+			engine.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return index state: enabled, ready and building flags, last build time, nodes, roots, roots with conflicts and whether a refresh is pending
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSON() {
+		engine.lock.readLock().lock();
+		try {
+			lock.readLock().lock();
+			try {
+				VersionConflicts c = current();
+				JSONObject o = new JSONObject();
+				if(c!=null){
+					o.put("nodes", c.size());
+					o.put("roots", c.roots());
+					o.put("conflicting", c.conflicting().size());
+					o.put("dirty", c.isDirty());
+				}
+				o.put("enabled", isEnabled());
+				o.put("ready", c!=null);
+				o.put("building", building);
+				o.put("builtAt", builtAt);
+				o.put("buildMillis", buildMillis);
+				return o;
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+		finally {
+			engine.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Stop background rebuilds and refreshes
+	 */
+	@PreDestroy
+	public void shutdown() {
+		refresher.shutdownNow();
+		builder.shutdownNow();
+	}
+
+}
@@ -0,0 +1,282 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactCoordinate;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Version conflicts of every root artifact, i.e. every artifact no other one depends on in compile or runtime scope.
+ * A root has a conflict when its compile and runtime dependencies reach more than one version of the same groupId:artifactId.
+ * <p>Keeps the conflicts of each root of a {@link CompactGraph} owned by someone else, which applies saved nodes and relations
+ * before they are marked here; {@link #refresh()} then recomputes only the roots depending on them. The graph must not change
+ * while any method runs. Not thread safe, see {@link VersionConflictIndex}.</p>
+ * @author msacchetti
+ *
+ */
+public final class VersionConflicts {
+
+	/**
+	 * Relations followed by the analysis
+	 */
+	public static final int RELATIONS = CompactGraph.relationMask("COMPILE,RUNTIME");
+
+	private final CompactGraph graph;
+	private final Map<String, SortedMap<String, SortedSet<String>>> conflicts = new HashMap<>();
+	private final BitSet dirty = new BitSet();
+	private final BitSet roots = new BitSet();
+
+	private VersionConflicts(CompactGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Analyse every root of a graph
+	 * @param graph graph, read but never modified by the returned instance
+	 * @return VersionConflicts
+	 */
+	public static VersionConflicts build(CompactGraph graph) {
+		VersionConflicts out = new VersionConflicts(graph);
+		GraphView view = graph.view();
+		GraphView.Neighbours buffer = new GraphView.Neighbours();
+		for (int u = 0; u < graph.size(); u++) {
+			if(out.isRoot(view, u, buffer)){
+				out.roots.set(u);
+				out.store(view, u);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Collect versions reached from a root through dependencies
+	 * @param g graph view
+	 * @param root root node id
+	 * @param relations bit mask of relation codes to follow
+	 * @return groupId:artifactId to versions, only those with more than one version
+	 */
+	public static SortedMap<String, SortedSet<String>> analyze(GraphView g, long root, int relations) {
+		Map<String, SortedSet<String>> versions = new HashMap<>();
+		Set<Long> visited = new HashSet<>();
+		List<Long> frontier = new ArrayList<>();
+		GraphView.Neighbours buffer = new GraphView.Neighbours();
+		visited.add(root);
+		frontier.add(root);
+		while(!frontier.isEmpty()){
+			List<Long> next = new ArrayList<>();
+			for (Long u : frontier) {
+				ArtifactCoordinate c = g.coordinate(u);
+				if(c!=null){
+					String ga = c.getGroupId() + ":" + c.getArtifactId();
+					SortedSet<String> v = versions.get(ga);
+					if(v==null){
+						v = new TreeSet<>();
+						versions.put(ga, v);
+					}
+					v.add(c.getVersion());
+				}
+				// dependencies are the sources of incoming relations
+				g.expand(u, true, relations, buffer);
+				for (int i = 0; i < buffer.size(); i++) {
+					if(visited.add(buffer.node(i))){
+						next.add(buffer.node(i));
+					}
+				}
+			}
+			frontier = next;
+		}
+
+		SortedMap<String, SortedSet<String>> out = new TreeMap<>();
+		for (Map.Entry<String, SortedSet<String>> e : versions.entrySet()) {
+			if(e.getValue().size() > 1){
+				out.put(e.getKey(), e.getValue());
+			}
+		}
+		return out;
+	}
+
+	private boolean isRoot(GraphView view, long u, GraphView.Neighbours buffer) {
+		view.expand(u, false, RELATIONS, buffer);
+		return buffer.size()==0;
+	}
+
+	private void store(GraphView view, int u) {
+		SortedMap<String, SortedSet<String>> c = analyze(view, u, RELATIONS);
+		String uniqueId = graph.node(u).getUniqueId();
+		if(c.isEmpty()){
+			conflicts.remove(uniqueId);
+		}
+		else{
+			conflicts.put(uniqueId, c);
+		}
+	}
+
+	/**
+	 * @return analysed graph
+	 */
+	public CompactGraph graph() {
+		return graph;
+	}
+
+	/**
+	 * Mark a node already added to the graph dirty
+	 * @param uniqueId node uniqueId
+	 * @return false if node is not in the graph
+	 */
+	public boolean addNode(String uniqueId) {
+		int u = graph.id(uniqueId);
+		if(u < 0){
+			return false;
+		}
+		dirty.set(u);
+		return true;
+	}
+
+	/**
+	 * Mark a relation already added to the graph. If followed by the analysis the target is marked dirty and the source,
+	 * now a dependency, is no longer a root
+	 * @param from source uniqueId
+	 * @param to target uniqueId
+	 * @param relation relation type
+	 * @return false if relation type is unknown or a node is not in the graph
+	 */
+	public boolean addEdge(String from, String to, String relation) {
+		byte rel = CompactGraph.relation(relation);
+		int u = graph.id(from);
+		int v = graph.id(to);
+		if(rel < 0 || u < 0 || v < 0){
+			return false;
+		}
+		if((RELATIONS & (1 << rel))!=0){
+			roots.clear(u);
+			conflicts.remove(from);
+			dirty.set(v);
+		}
+		return true;
+	}
+
+	/**
+	 * Recompute conflicts of roots depending on dirty nodes, and drop those that are no longer roots
+	 * @return amount of roots analysed
+	 */
+	public int refresh() {
+		if(dirty.isEmpty()){
+			return 0;
+		}
+		GraphView view = graph.view();
+		GraphView.Neighbours buffer = new GraphView.Neighbours();
+
+		// dependents of dirty nodes are the targets of outgoing relations
+		BitSet affected = (BitSet) dirty.clone();
+		int[] frontier = new int[graph.size()];
+		int count = 0;
+		for (int u = dirty.nextSetBit(0); u >= 0; u = dirty.nextSetBit(u + 1)) {
+			frontier[count++] = u;
+		}
+		while(count > 0){
+			int u = frontier[--count];
+			view.expand(u, false, RELATIONS, buffer);
+			for (int i = 0; i < buffer.size(); i++) {
+				int v = (int) buffer.node(i);
+				if(!affected.get(v)){
+					affected.set(v);
+					frontier[count++] = v;
+				}
+			}
+		}
+
+		int analysed = 0;
+		for (int u = affected.nextSetBit(0); u >= 0; u = affected.nextSetBit(u + 1)) {
+			if(isRoot(view, u, buffer)){
+				roots.set(u);
+				store(view, u);
+				analysed++;
+			}
+			else{
+				roots.clear(u);
+				conflicts.remove(graph.node(u).getUniqueId());
+			}
+		}
+		dirty.clear();
+		return analysed;
+	}
+
+	/**
+	 * @param uniqueId root uniqueId
+	 * @return groupId:artifactId to conflicting versions, stored for roots and computed for other artifacts;
+	 * empty if artifact is unknown or has no conflicts
+	 */
+	public SortedMap<String, SortedSet<String>> get(String uniqueId) {
+		SortedMap<String, SortedSet<String>> c = conflicts.get(uniqueId);
+		if(c!=null){
+			return c;
+		}
+		int u = graph.id(uniqueId);
+		if(u < 0 || roots.get(u)){
+			return new TreeMap<>();
+		}
+		return analyze(graph.view(), u, RELATIONS);
+	}
+
+	/**
+	 * @return uniqueIds of roots having conflicts, sorted
+	 */
+	public List<String> conflicting() {
+		return new ArrayList<>(new TreeSet<>(conflicts.keySet()));
+	}
+
+	/**
+	 * @return amount of nodes
+	 */
+	public int size() {
+		return graph.size();
+	}
+
+	/**
+	 * @return amount of roots as of last build or refresh
+	 */
+	public int roots() {
+		return roots.cardinality();
+	}
+
+	/**
+	 * @return true if some node changed since last refresh
+	 */
+	public boolean isDirty() {
+		return !dirty.isEmpty();
+	}
+
+	/**
+	 * @param root root uniqueId
+	 * @param versions groupId:artifactId to conflicting versions
+	 * @return <code>{"root":..,"conflicts":[{"ga":..,"versions":[..]}]}</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public static JSONObject toJSON(String root, SortedMap<String, SortedSet<String>> versions) {
+		JSONArray c = new JSONArray();
+		for (Map.Entry<String, SortedSet<String>> e : versions.entrySet()) {
+			JSONObject ga = new JSONObject();
+			ga.put("ga", e.getKey());
+			JSONArray v = new JSONArray();
+			v.addAll(e.getValue());
+			ga.put("versions", v);
+			c.add(ga);
+		}
+		JSONObject o = new JSONObject();
+		o.put("root", root);
+		o.put("conflicts", c);
+		return o;
+	}
+
+}
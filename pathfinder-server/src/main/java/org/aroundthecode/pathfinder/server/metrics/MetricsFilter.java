@@ -0,0 +1,70 @@
+package org.aroundthecode.pathfinder.server.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Time every REST request by endpoint and the serialisation of its response body.
+ * Serialisation starts when {@link SerialisationMarker} sees the handler return value.
+ * @author msacchetti
+ *
+ */
+@Component
+public class MetricsFilter extends OncePerRequestFilter {
+
+	/**
+	 * Request attribute holding System.nanoTime() at serialisation start
+	 */
+	public static final String SERIALISATION_START = MetricsFilter.class.getName() + ".serialisation";
+
+	private static final String[] ENDPOINTS = {"/node/", "/query/", "/cypher/", "/crawler/", "/admin/"};
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		String name = endpoint(request.getRequestURI());
+		if(name==null){
+			chain.doFilter(request, response);
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(request, response);
+		}
+		finally {
+			PathfinderMetrics.recordSince(name, start);
+			if(response.getStatus() >= 400){
+				PathfinderMetrics.counter(name + ".errors").inc();
+			}
+			Object s = request.getAttribute(SERIALISATION_START);
+			if(s instanceof Long){
+				PathfinderMetrics.recordSince(PathfinderMetrics.PHASE_SERIALISATION, (Long) s);
+			}
+		}
+	}
+
+	/**
+	 * Map request URI to a metric name, only known REST endpoints are tracked to keep amount of metrics bounded
+	 * @param uri request URI
+	 * @return metric name or null if URI is not a REST endpoint
+	 */
+	static String endpoint(String uri) {
+		for (String e : ENDPOINTS) {
+			int i = uri.indexOf(e);
+			if(i >= 0){
+				String path = uri.substring(i + 1);
+				return path.indexOf('/', e.length() - 1) < 0 ? "http." + path.replace('/', '.') : null;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,154 @@
+package org.aroundthecode.pathfinder.server.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+/**
+ * Utility class holding Pathfinder metric registry.
+ * <p>Metrics are created on first use, names are dot separated:</p>
+ * <ul>
+ * <li><b>http.*</b> request timers per endpoint</li>
+ * <li><b>phase.*</b> timers of each request phase: parse, lockWait, lookup, merge, save, query, rowMapping, serialisation</li>
+ * <li><b>crawl.*</b> crawler invocations</li>
+ * </ul>
+ * @author msacchetti
+ *
+ */
+public final class PathfinderMetrics {
+
+	public static final String PHASE_PARSE = "phase.parse";
+	public static final String PHASE_LOCK_WAIT = "phase.lockWait";
+	public static final String PHASE_LOOKUP = "phase.lookup";
+	public static final String PHASE_MERGE = "phase.merge";
+	public static final String PHASE_SAVE = "phase.save";
+	public static final String PHASE_QUERY = "phase.query";
+	public static final String PHASE_ROW_MAPPING = "phase.rowMapping";
+	public static final String PHASE_SERIALISATION = "phase.serialisation";
+
+	private static final MetricRegistry REGISTRY = new MetricRegistry();
+	private static final double NANOS_PER_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private PathfinderMetrics() {
+		throw new IllegalAccessError("Utility class");
+	}
+
+	/**
+	 * @return shared registry
+	 */
+	public static MetricRegistry getRegistry() {
+		return REGISTRY;
+	}
+
+	/**
+	 * Get or create a timer
+	 * @param name metric name
+	 * @return Timer
+	 */
+	public static Timer timer(String name) {
+		return REGISTRY.timer(name);
+	}
+
+	/**
+	 * Get or create a counter
+	 * @param name metric name
+	 * @return Counter
+	 */
+	public static Counter counter(String name) {
+		return REGISTRY.counter(name);
+	}
+
+	/**
+	 * Get or create a histogram
+	 * @param name metric name
+	 * @return Histogram
+	 */
+	public static Histogram histogram(String name) {
+		return REGISTRY.histogram(name);
+	}
+
+	/**
+	 * Record elapsed time since given start
+	 * @param name timer name
+	 * @param startNanos start time as returned by System.nanoTime()
+	 */
+	public static void recordSince(String name, long startNanos) {
+		timer(name).update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * JSON snapshot of all metrics, durations in milliseconds, rates in events per second
+	 * @return JSONObject with counters, histograms and timers sections
+	 */
+	@SuppressWarnings("unchecked")
+	public static JSONObject toJSON() {
+		JSONObject counters = new JSONObject();
+		for (Map.Entry<String, Counter> e : REGISTRY.getCounters().entrySet()) {
+			counters.put(e.getKey(), e.getValue().getCount());
+		}
+
+		JSONObject histograms = new JSONObject();
+		for (Map.Entry<String, Histogram> e : REGISTRY.getHistograms().entrySet()) {
+			JSONObject h = snapshot(e.getValue().getSnapshot(), 1d);
+			h.put("count", e.getValue().getCount());
+			histograms.put(e.getKey(), h);
+		}
+
+		JSONObject timers = new JSONObject();
+		SortedMap<String, Timer> all = REGISTRY.getTimers();
+		for (Map.Entry<String, Timer> e : all.entrySet()) {
+			Timer t = e.getValue();
+			JSONObject o = snapshot(t.getSnapshot(), NANOS_PER_MS);
+			o.put("count", t.getCount());
+			o.put("m1_rate", t.getOneMinuteRate());
+			o.put("mean_rate", t.getMeanRate());
+			timers.put(e.getKey(), o);
+		}
+
+		JSONObject out = new JSONObject();
+		out.put("counters", counters);
+		out.put("histograms", histograms);
+		out.put("timers", timers);
+		return out;
+	}
+
+	/**
+	 * Remove all metrics, mainly for tests
+	 */
+	public static void reset() {
+		for (String name : REGISTRY.getNames()) {
+			REGISTRY.remove(name);
+		}
+	}
+
+	/**
+	 * @param name metric name
+	 * @return registered metric, null if missing
+	 */
+	public static Metric get(String name) {
+		return REGISTRY.getMetrics().get(name);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject snapshot(Snapshot s, double scale) {
+		JSONObject o = new JSONObject();
+		o.put("min", s.getMin() / scale);
+		o.put("mean", s.getMean() / scale);
+		o.put("p50", s.getMedian() / scale);
+		o.put("p75", s.get75thPercentile() / scale);
+		o.put("p95", s.get95thPercentile() / scale);
+		o.put("p99", s.get99thPercentile() / scale);
+		o.put("max", s.getMax() / scale);
+		return o;
+	}
+
+}
@@ -0,0 +1,35 @@
+package org.aroundthecode.pathfinder.server.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Mark the moment a controller returned its body and message conversion starts, see {@link MetricsFilter}
+ * @author msacchetti
+ *
+ */
+@ControllerAdvice
+public class SerialisationMarker implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		if(request instanceof ServletServerHttpRequest){
+			((ServletServerHttpRequest) request).getServletRequest().setAttribute(MetricsFilter.SERIALISATION_START, System.nanoTime());
+		}
+		return body;
+	}
+
+}
@@ -0,0 +1,102 @@
+package org.aroundthecode.pathfinder.server.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+
+/**
+ * A query which took longer than the slow query threshold, see {@link SlowQueryLog}
+ * @author msacchetti
+ *
+ */
+public class SlowQuery {
+
+	private final String query;
+	private final Map<String, Object> params;
+	private final long millis;
+	private final int rows;
+	private final long timestamp;
+	private volatile long dbHits = -1;
+	private volatile String plan = null;
+
+	/**
+	 * @param query Cypher text
+	 * @param params query parameters, may be null
+	 * @param millis execution time, rows mapping included
+	 * @param rows amount of returned rows
+	 */
+	public SlowQuery(String query, Map<String, Object> params, long millis, int rows) {
+		this.query = query;
+		this.params = params == null ? Collections.<String, Object> emptyMap() : new HashMap<>(params);
+		this.millis = millis;
+		this.rows = rows;
+		this.timestamp = System.currentTimeMillis();
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public Map<String, Object> getParams() {
+		return params;
+	}
+
+	public long getMillis() {
+		return millis;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return total database hits from PROFILE, -1 if not profiled
+	 */
+	public long getDbHits() {
+		return dbHits;
+	}
+
+	/**
+	 * @return PROFILE plan, null if not profiled
+	 */
+	public String getPlan() {
+		return plan;
+	}
+
+	/**
+	 * Attach profiling data
+	 * @param dbHits total database hits
+	 * @param plan textual plan description
+	 */
+	void setProfile(long dbHits, String plan) {
+		this.dbHits = dbHits;
+		this.plan = plan;
+	}
+
+	/**
+	 * @return JSON representation
+	 */
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSON() {
+		JSONObject o = new JSONObject();
+		o.put("query", query);
+		JSONObject p = new JSONObject();
+		for (Map.Entry<String, Object> e : params.entrySet()) {
+			p.put(e.getKey(), String.valueOf(e.getValue()));
+		}
+		o.put("params", p);
+		o.put("millis", millis);
+		o.put("rows", rows);
+		o.put("timestamp", timestamp);
+		o.put("dbHits", dbHits);
+		o.put("plan", plan);
+		return o;
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.aroundthecode.pathfinder.server.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
+import org.neo4j.graphdb.ExecutionPlanDescription;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.QueryExecutionType.QueryType;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the most recent queries slower than <b>pathfinder.query.slow.threshold</b> milliseconds.
+ * <p>Read only slow queries are re-run in background with PROFILE to capture db hits and plan,
+ * the profiling transaction is always rolled back. Profiling runs on a single thread with a short queue,
+ * when the queue is full the query is kept without profile rather than adding more load.</p>
+ * @author msacchetti
+ *
+ */
+@Component
+public class SlowQueryLog {
+
+	private static final Logger log = LogManager.getLogger(SlowQueryLog.class.getName());
+
+	private static final int PROFILE_QUEUE = 8;
+
+	@Autowired
+	GraphDatabaseService db;
+
+	private final long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(ConfigurationManager.getSlowQueryThreshold());
+	private final int size = ConfigurationManager.getSlowQuerySize();
+	private final boolean profile = ConfigurationManager.isSlowQueryProfile();
+	private final Deque<SlowQuery> recent = new ArrayDeque<>();
+
+	private final ThreadPoolExecutor profiler = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(PROFILE_QUEUE), new ThreadPoolExecutor.DiscardPolicy());
+
+	/**
+	 * Record a query execution, kept only if slower than threshold
+	 * @param query Cypher text
+	 * @param params query parameters, or request parameters of a query built with inlined values; may be null
+	 * @param rows amount of returned rows
+	 * @param nanos execution time
+	 */
+	public void record(String query, Map<String, Object> params, int rows, long nanos) {
+		if(nanos < thresholdNanos){
+			return;
+		}
+		final SlowQuery q = new SlowQuery(query, params, TimeUnit.NANOSECONDS.toMillis(nanos), rows);
+		log.warn("Slow query [{}ms], [{}] rows: {}", q.getMillis(), rows, query);
+		PathfinderMetrics.counter("query.slow").inc();
+		synchronized (recent) {
+			recent.addFirst(q);
+			while(recent.size() > size){
+				recent.removeLast();
+			}
+		}
+		if(profile){
+			profiler.execute(new Runnable() {
+				@Override
+				public void run() {
+					profile(q);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @param n amount of queries to return
+	 * @return slowest among recent slow queries, slowest first
+	 */
+	public List<SlowQuery> top(int n) {
+		List<SlowQuery> out;
+		synchronized (recent) {
+			out = new ArrayList<>(recent);
+		}
+		Collections.sort(out, new Comparator<SlowQuery>() {
+			@Override
+			public int compare(SlowQuery a, SlowQuery b) {
+				return Long.compare(b.getMillis(), a.getMillis());
+			}
+		});
+		return out.subList(0, Math.min(n, out.size()));
+	}
+
+	/**
+	 * Re-run query with PROFILE if read only, the transaction is never committed
+	 */
+	void profile(SlowQuery q) {
+		try(Transaction tx = db.beginTx()){
+			try(Result explain = db.execute("EXPLAIN " + q.getQuery(), q.getParams())){
+				if(explain.getQueryExecutionType().queryType() != QueryType.READ_ONLY){
+					log.debug("Not profiling write query [{}]", q.getQuery());
+					return;
+				}
+			}
+			try(Result r = db.execute("PROFILE " + q.getQuery(), q.getParams())){
+				while(r.hasNext()){
+					r.next();
+				}
+				ExecutionPlanDescription plan = r.getExecutionPlanDescription();
+				q.setProfile(dbHits(plan), plan.toString());
+			}
+			tx.failure();
+		}
+		catch (Exception e) {
+			log.warn("Could not profile query [{}]: {}", q.getQuery(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Sum of db hits of a plan and all its children
+	 */
+	private static long dbHits(ExecutionPlanDescription plan) {
+		long hits = plan.hasProfilerStatistics() ? plan.getProfilerStatistics().getDbHits() : 0;
+		for (ExecutionPlanDescription child : plan.getChildren()) {
+			hits += dbHits(child);
+		}
+		return hits;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		profiler.shutdownNow();
+	}
+
+}
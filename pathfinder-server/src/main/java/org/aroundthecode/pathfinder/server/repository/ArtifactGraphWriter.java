@@ -0,0 +1,185 @@
+package org.aroundthecode.pathfinder.server.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.entity.exception.ArtifactMergeException;
+import org.aroundthecode.pathfinder.server.utils.QueryUtils;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Relationship level writer for Artifact nodes.
+ * Instead of loading and saving the whole entity graph via Spring Data it MERGEs the artifact node
+ * and only the relationships provided by the incoming Artifact, so that write cost depends on the amount
+ * of new edges and not on the degree of the stored node.
+ * @author msacchetti
+ *
+ */
+@Component
+public class ArtifactGraphWriter {
+
+	private static final Logger log = LogManager.getLogger(ArtifactGraphWriter.class.getName());
+
+	private static final Label ARTIFACT = DynamicLabel.label("Artifact");
+
+	@Autowired
+	GraphDatabaseService db;
+
+	/**
+	 * Empty constructor, used by Spring
+	 */
+	public ArtifactGraphWriter() {
+		//db is injected
+	}
+
+	/**
+	 * Build a writer outside Spring context on given database
+	 * @param db Neo4j database
+	 */
+	public ArtifactGraphWriter(GraphDatabaseService db) {
+		this.db = db;
+	}
+
+	/**
+	 * Merge given Artifact into database: node is created if missing, every dependency and parent relation
+	 * not already present is created, existing relations are left untouched.
+	 * Must be invoked within a transaction.
+	 * @param a Artifact to be merged
+	 * @return number of relationships created
+	 * @throws ArtifactMergeException raised if stored parent differs from given one
+	 */
+	public int merge(Artifact a) throws ArtifactMergeException {
+
+		Map<String, Object> params = new HashMap<>();
+		params.put("uniqueId", a.getUniqueId());
+		params.put("node", nodeProperties(a));
+		execute(QueryUtils.MERGE_NODE, params);
+
+		int created = 0;
+		created += mergeDependencies(a, Dependency.COMPILE, a.dependenciesCompile);
+		created += mergeDependencies(a, Dependency.PROVIDED, a.dependenciesProvided);
+		created += mergeDependencies(a, Dependency.RUNTIME, a.dependenciesRuntime);
+		created += mergeDependencies(a, Dependency.TEST, a.dependenciesTest);
+		created += mergeDependencies(a, Dependency.SYSTEM, a.dependenciesSystem);
+		created += mergeDependencies(a, Dependency.IMPORT, a.dependenciesImport);
+		created += mergeParent(a);
+
+		log.debug("Merged [{}] with [{}] new relations", a.getUniqueId(), created);
+		return created;
+	}
+
+	/**
+	 * Create all dependency relations of the given scope from dependencies to main artifact
+	 * @param a main artifact
+	 * @param scope dependency scope
+	 * @param dependencies dependency artifacts
+	 * @return number of relationships created
+	 */
+	private int mergeDependencies(Artifact a, Dependency scope, Set<Artifact> dependencies) {
+		if(dependencies.isEmpty()){
+			return 0;
+		}
+		List<Map<String, Object>> nodes = new ArrayList<>(dependencies.size());
+		for (Artifact d : dependencies) {
+			nodes.add(nodeProperties(d));
+		}
+		Map<String, Object> params = new HashMap<>();
+		params.put("uniqueId", a.getUniqueId());
+		params.put("nodes", nodes);
+		return execute(QueryUtils.getMergeDependenciesQuery(scope), params);
+	}
+
+	/**
+	 * Create PARENT relation if given artifact has a parent and stored node has none
+	 * @param a main artifact
+	 * @return number of relationships created
+	 * @throws ArtifactMergeException raised if stored parent differs from given one
+	 */
+	private int mergeParent(Artifact a) throws ArtifactMergeException {
+		Artifact parent = a.getParent();
+		if(parent==null){
+			return 0;
+		}
+		Map<String, Object> params = new HashMap<>();
+		params.put("uniqueId", a.getUniqueId());
+		try(Result r = db.execute(QueryUtils.GET_PARENT, params)){
+			if(r.hasNext()){
+				Object stored = r.next().get("parent");
+				if( !parent.getUniqueId().equals(stored) ){
+					throw new ArtifactMergeException("master ["+stored+"] and merge ["+parent.getUniqueId()+"] Parent UniqueId mismatch");
+				}
+				return 0;
+			}
+		}
+		params.put("parentId", parent.getUniqueId());
+		params.put("parent", nodeProperties(parent));
+		return execute(QueryUtils.MERGE_PARENT, params);
+	}
+
+	/**
+	 * Run a write query and return the number of relationships it created
+	 */
+	private int execute(String query, Map<String, Object> params){
+		try(Result r = db.execute(query, params)){
+			return r.getQueryStatistics().getRelationshipsCreated();
+		}
+	}
+
+	/**
+	 * Map basic Artifact attributes to Cypher parameters
+	 * @param a Artifact
+	 * @return map of node properties
+	 */
+	private static Map<String, Object> nodeProperties(Artifact a){
+		Map<String, Object> m = new HashMap<>();
+		m.put("uniqueId", a.getUniqueId());
+		m.put("groupId", a.getGroupId());
+		m.put("artifactId", a.getArtifactId());
+		m.put("packaging", a.getPackaging());
+		m.put("classifier", a.getClassifier());
+		m.put("version", a.getVersion());
+		m.put("timestamp", a.getTimestamp());
+		return m;
+	}
+
+	/**
+	 * MERGE lookups on uniqueId need a schema index to stay constant time, create it at startup if missing.
+	 * Schema changes cannot share a transaction with data changes, so this cannot be done lazily in merge.
+	 */
+	@PostConstruct
+	public void ensureIndex(){
+		try(Transaction tx = db.beginTx()){
+			boolean found = false;
+			for (IndexDefinition idx : db.schema().getIndexes(ARTIFACT)) {
+				for (String key : idx.getPropertyKeys()) {
+					found |= "uniqueId".equals(key);
+				}
+			}
+			if(!found){
+				log.info("Creating schema index on :Artifact(uniqueId)");
+				db.schema().indexFor(ARTIFACT).on("uniqueId").create();
+			}
+			tx.success();
+		}
+		catch (Exception e) {
+			log.warn("Could not check schema index on :Artifact(uniqueId)", e);
+		}
+	}
+
+}
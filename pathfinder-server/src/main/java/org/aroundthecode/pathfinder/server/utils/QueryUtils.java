@@ -1,6 +1,7 @@
 package org.aroundthecode.pathfinder.server.utils;
 
 import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
 
 /**
  * Utility class to manage Cypher queries
@@ -23,9 +24,48 @@ public final class QueryUtils {
 			+ "n2.version =~ \"%s\" "
 			+ "RETURN n1 as node1,type(r) as rel ,n2 as node2";
 
+	/**
+	 * Create artifact node if missing, parameters: <b>uniqueId</b> and <b>node</b> properties map
+	 */
+	public static final String MERGE_NODE =
+			"MERGE (n:Artifact:_Artifact { uniqueId: {uniqueId} }) "
+			+ "ON CREATE SET n = {node}";
+
+	/**
+	 * Retrieve stored parent uniqueId, parameters: <b>uniqueId</b>
+	 */
+	public static final String GET_PARENT =
+			"MATCH (n:Artifact { uniqueId: {uniqueId} })-[:PARENT]->(p) "
+			+ "RETURN p.uniqueId as parent";
+
+	/**
+	 * Create parent node and PARENT relation if missing, parameters: <b>uniqueId</b>, <b>parentId</b> and <b>parent</b> properties map
+	 */
+	public static final String MERGE_PARENT =
+			"MATCH (n:Artifact { uniqueId: {uniqueId} }) "
+			+ "MERGE (p:Artifact:_Artifact { uniqueId: {parentId} }) "
+			+ "ON CREATE SET p = {parent} "
+			+ "MERGE (n)-[:PARENT]->(p)";
+
+	private static final String MERGE_DEPENDENCIES =
+			"MATCH (n:Artifact { uniqueId: {uniqueId} }) "
+			+ "UNWIND {nodes} AS dep "
+			+ "MERGE (d:Artifact:_Artifact { uniqueId: dep.uniqueId }) "
+			+ "ON CREATE SET d = dep "
+			+ "MERGE (d)-[:%s]->(n)";
+
 	private QueryUtils() {
 	}
 	
+	/**
+	 * Query creating missing dependency nodes and relations toward a main artifact, parameters: <b>uniqueId</b> of main artifact and <b>nodes</b> list of dependency properties maps
+	 * @param scope dependency scope, used as relation type
+	 * @return Cypher query
+	 */
+	public static String getMergeDependenciesQuery(Dependency scope) {
+		return String.format(MERGE_DEPENDENCIES, scope.name());
+	}
+
 	public static String getFilterAllQuery(FilterItem f) {
 		return String.format(FILTERALL, f.getFilterGN1(),f.getFilterAN1(),f.getFilterPN1(),f.getFilterCN1(),f.getFilterVN1(),f.getFilterGN2(),f.getFilterAN2(),f.getFilterPN2(),f.getFilterCN2(),f.getFilterVN2());
 	}
@@ -0,0 +1,134 @@
+package org.aroundthecode.pathfinder.server.compression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class RequestDecompressionFilterTest {
+
+	private static final String JSON = "[{\"u\":\"my.group:a:jar::1.0.0\"},{\"u\":\"my.group:b:jar::1.0.0\"}]";
+
+	/**
+	 * Request body seen by the controller
+	 */
+	private static final class Capture extends MockFilterChain {
+
+		private String body = null;
+		private String encoding = null;
+		private int length = 0;
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+			HttpServletRequest r = (HttpServletRequest) request;
+			encoding = r.getHeader("Content-Encoding");
+			length = r.getContentLength();
+			StringBuilder sb = new StringBuilder();
+			try(BufferedReader in = r.getReader()){
+				String line;
+				while((line = in.readLine())!=null){
+					sb.append(line);
+				}
+			}
+			body = sb.toString();
+		}
+	}
+
+	private static Capture filter(String encoding, byte[] body, MockHttpServletResponse response) throws ServletException, IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/node/upload");
+		request.setContentType("application/json");
+		request.setCharacterEncoding("UTF-8");
+		if(encoding!=null){
+			request.addHeader("Content-Encoding", encoding);
+		}
+		request.setContent(body);
+		Capture chain = new Capture();
+		new RequestDecompressionFilter().doFilter(request, response, chain);
+		return chain;
+	}
+
+	@Test
+	public void testGzip() throws ServletException, IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(OutputStream gz = new GZIPOutputStream(out)){
+			gz.write(JSON.getBytes(StandardCharsets.UTF_8));
+		}
+		Capture c = filter("gzip", out.toByteArray(), new MockHttpServletResponse());
+		assertEquals(JSON, c.body);
+		assertNull(c.encoding);
+		assertEquals(-1, c.length);
+	}
+
+	@Test
+	public void testDeflate() throws ServletException, IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(OutputStream d = new DeflaterOutputStream(out)){
+			d.write(JSON.getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(JSON, filter("deflate", out.toByteArray(), new MockHttpServletResponse()).body);
+	}
+
+	/**
+	 * Decoded bodies are read blocking only, asynchronous read is refused as for requests not in async mode
+	 */
+	@Test
+	public void testReadListener() throws ServletException, IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(OutputStream gz = new GZIPOutputStream(out)){
+			gz.write(JSON.getBytes(StandardCharsets.UTF_8));
+		}
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/node/upload");
+		request.addHeader("Content-Encoding", "gzip");
+		request.setContent(out.toByteArray());
+		final boolean[] refused = {false};
+		new RequestDecompressionFilter().doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+				try {
+					request.getInputStream().setReadListener(null);
+				}
+				catch (IllegalStateException e) {
+					refused[0] = true;
+				}
+			}
+		});
+		assertTrue(refused[0]);
+	}
+
+	@Test
+	public void testIdentity() throws ServletException, IOException {
+		Capture c = filter(null, JSON.getBytes(StandardCharsets.UTF_8), new MockHttpServletResponse());
+		assertEquals(JSON, c.body);
+		assertEquals(JSON.length(), c.length);
+	}
+
+	/**
+	 * Unknown encodings get 415 listing the accepted ones, the controller is not invoked
+	 */
+	@Test
+	public void testUnsupported() throws ServletException, IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Capture c = filter("br", new byte[]{1, 2, 3}, response);
+		assertNull(c.body);
+		assertEquals(415, response.getStatus());
+		assertEquals("gzip, deflate, identity", response.getHeader("Accept-Encoding"));
+	}
+
+}
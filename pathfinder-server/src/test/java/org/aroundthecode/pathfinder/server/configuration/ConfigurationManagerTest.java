@@ -19,6 +19,9 @@ public class ConfigurationManagerTest {
 		assertNotNull(ConfigurationManager.getPathfinderPort());
 		assertTrue(ConfigurationManager.getPathfinderPort()>0);
 		assertNotNull(ConfigurationManager.getPathfinderProtocol());
+		assertTrue(ConfigurationManager.getSlowQueryThreshold()>0);
+		assertTrue(ConfigurationManager.getSlowQuerySize()>0);
+		assertTrue(ConfigurationManager.getReachabilityMaxNodes()>0);
 		
 	}
 
@@ -1,19 +1,25 @@
 package org.aroundthecode.pathfinder.server.controller;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URL;
 
 import org.aroundthecode.pathfinder.client.rest.PathfinderClient;
 import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
 import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
 import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
+import org.aroundthecode.pathfinder.client.rest.utils.BinarySnapshot;
 import org.aroundthecode.pathfinder.client.rest.utils.RestUtils;
 import org.aroundthecode.pathfinder.server.Application;
 import org.aroundthecode.pathfinder.server.configuration.ConfigurationManager;
@@ -149,8 +155,17 @@ public class PathFinderControllerTest {
 			String response = client.query(FILTERALL);
 			assertNotNull(response);
 			System.out.println(response);
+			assertTrue(response.startsWith("{\"columns\":[\"n\",\"rel\",\"n2\"]"));
 
-		} catch (IOException e) {
+			JSONObject params = new JSONObject();
+			params.put("id", ArtifactTest.ID);
+			JSONObject limited = RestUtils.string2Json(client.query("MATCH (n:Artifact) WHERE n.uniqueId <> {id} RETURN n.uniqueId as u", params, 1));
+			assertEquals("1", limited.get("count").toString());
+			assertEquals(Boolean.TRUE, limited.get("truncated"));
+
+			assertNull(client.query("CREATE (n:Artifact { uniqueId: 'x:y:jar::1' }) RETURN n"));
+
+		} catch (IOException | ParseException e) {
 			fail(e.getMessage());
 		}
 
@@ -185,6 +200,67 @@ public class PathFinderControllerTest {
 		}
 	}
 
+	@Test
+	public void test73Dependents() {
+
+		try {
+			String dep = getJsonObject(Dependency.COMPILE.toString()).get(ArtifactUtils.U).toString();
+			JSONObject response = client.dependents(dep, 3, 100, Dependency.COMPILE);
+			assertNotNull(response);
+			System.out.println(response);
+			assertTrue(response.get("dependents").toString().contains(ArtifactTest.ID));
+
+			response = client.dependents(ArtifactTest.IDG, Dependency.TEST.toString() + ArtifactTest.IDA, ".*", 3, 100, Dependency.COMPILE);
+			assertNotNull(response);
+			assertEquals("0", response.get("count").toString());
+
+			assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, status("query/dependents?id=" + dep + "&s=compile,unknown"));
+
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void test74Path() {
+
+		try {
+			String dep = getJsonObject(Dependency.COMPILE.toString()).get(ArtifactUtils.U).toString();
+			JSONObject response = client.paths(dep, ArtifactTest.ID, 3, 10);
+			assertNotNull(response);
+			assertEquals("1", response.get("length").toString());
+			assertTrue(response.get("paths").toString().contains(ArtifactTest.ID));
+
+			response = client.paths(ArtifactTest.ID, dep, 3, 10, Dependency.COMPILE);
+			assertNotNull(response);
+			assertEquals("-1", response.get("length").toString());
+
+			assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, status("query/path?from=" + dep + "&to=" + ArtifactTest.ID + "&s=compile,unknown"));
+			assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, status("query/path?from=" + dep + "&to=" + ArtifactTest.ID + "&max=0"));
+
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void test75Conflicts() {
+
+		try {
+			JSONObject response = client.conflicts(ArtifactTest.ID);
+			assertNotNull(response);
+			assertEquals(ArtifactTest.ID, response.get("root"));
+			assertNotNull(response.get("conflicts"));
+
+			response = client.conflicts(10);
+			assertNotNull(response);
+			assertNotNull(response.get("roots"));
+
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+	}
+
 	@Test
 	public void test80Download() {
 
@@ -193,15 +269,55 @@ public class PathFinderControllerTest {
 			assertNotNull(f);
 			assertTrue(f.exists());
 
-			FileReader fr = new FileReader(f);
-			JSONArray obj = RestUtils.string2JSONArray(fr);
-			assertNotNull(obj);
+			try(FileReader fr = new FileReader(f)){
+				JSONArray obj = RestUtils.string2JSONArray(fr);
+				assertNotNull(obj);
+			}
+
+			File other = client.downloadProject();
+			assertNotEquals(f, other);
+			assertEquals(f.length(), other.length());
+			assertTrue(f.delete());
+			assertTrue(other.delete());
 
 		} catch (IOException | ParseException e) {
 			fail(e.getMessage());
 		}
 	}
 
+	@Test
+	public void test81DownloadRange() {
+		assertArrayEquals(new long[]{100, 199}, PathFinderController.parseRange("bytes=100-", 200));
+		assertArrayEquals(new long[]{100, 149}, PathFinderController.parseRange("bytes=100-149", 200));
+		assertArrayEquals(new long[]{150, 199}, PathFinderController.parseRange("bytes=-50", 200));
+		assertArrayEquals(new long[]{100, 199}, PathFinderController.parseRange("bytes=100-999", 200));
+		assertNull(PathFinderController.parseRange("bytes=0-1,5-6", 200));
+		assertNull(PathFinderController.parseRange("lines=1-", 200));
+	}
+
+	@Test
+	public void test82Snapshot() {
+
+		try {
+			File f = client.downloadSnapshot();
+			assertNotNull(f);
+			JSONArray snapshot;
+			try(FileInputStream in = new FileInputStream(f)){
+				snapshot = BinarySnapshot.read(in);
+			}
+			assertTrue(f.delete());
+			assertTrue(snapshot.size() > 0);
+
+			JSONObject out = client.uploadSnapshot(snapshot);
+			assertNotNull(out);
+			assertEquals("0", out.get("fail").toString());
+			assertEquals(snapshot.size()+"", out.get("success").toString());
+
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+	}
+
 	@Test
 	public void test90Upload() {
 
@@ -225,6 +341,16 @@ public class PathFinderControllerTest {
 		}
 	}
 
+	private static int status(String query) throws IOException {
+		HttpURLConnection c = (HttpURLConnection) new URL(PF_SERVER_PROTOCOL + "://" + PF_SERVER_HOST + ":" + PF_SERVER_PORT + PF_SERVER_PATH + query).openConnection();
+		try {
+			return c.getResponseCode();
+		}
+		finally {
+			c.disconnect();
+		}
+	}
+
 	private JSONObject getJsonObject() {
 		return getJsonObject("");
 	}
@@ -57,6 +57,22 @@ public class ArtifactTest {
 
 	}
 
+	/**
+	 * uniqueIds are split with the lenient {@link ArtifactUtils#splitUniqueId(String)} contract
+	 */
+	@Test
+	public void testSetUniqueIdLenient() {
+		Artifact a = new Artifact("a:b:c:d:e:f");
+		assertEquals("a", a.getGroupId());
+		assertEquals("", a.getClassifier());
+		assertEquals("d", a.getVersion());
+		assertEquals("a:b:c::d", a.getUniqueId());
+
+		a = new Artifact(ID);
+		a.setUniqueId("my.group:test:jar:");
+		assertEquals(ID, a.getUniqueId());
+	}
+
 	@Test
 	public void testArtifactCompare() {
 		Artifact a = new Artifact();
@@ -128,6 +144,28 @@ public class ArtifactTest {
 		
 	}
 	
+	@Test
+	public void testArtifactDeduplication() throws Exception {
+		Artifact a = new Artifact(ID);
+		Artifact b = new Artifact(ID);
+		assertEquals(a.hashCode(), b.hashCode());
+
+		//PARSEJSON lists the same dependency several times for each scope
+		Artifact p = Artifact.parse(RestUtils.string2Json(PARSEJSON));
+		assertEquals(1, p.dependenciesRuntime.size());
+		assertEquals(1, p.dependenciesTest.size());
+		assertEquals(1, p.dependenciesImport.size());
+
+		Artifact m = Artifact.merge(p, Artifact.parse(RestUtils.string2Json(PARSEJSON)));
+		assertEquals(1, m.dependenciesRuntime.size());
+		assertEquals(1, m.dependenciesSystem.size());
+
+		a.setVersion("2.0.0");
+		assertFalse(a.equals(b));
+		b.setVersion("2.0.0");
+		assertEquals(a.hashCode(), b.hashCode());
+	}
+
 	/**
 	 * Utility method to generate artifact for json tests
 	 * @return Artifact test object
@@ -0,0 +1,168 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.junit.Test;
+
+public class CompactGraphTest {
+
+	private static final String LIB = "my.group:lib:jar::1.0.0";
+	private static final String APP = "my.group:app:jar::1.0.0";
+	private static final String WEB = "my.group:web:war::1.0.0";
+	private static final String POM = "my.group:parent:pom::1.0.0";
+
+	// lib -COMPILE-> app, app -COMPILE-> web, lib -TEST-> web (twice), app -PARENT-> pom
+	private static CompactGraph graph() {
+		List<String> names = Arrays.asList(LIB, APP, WEB, POM);
+		int[] from = {0, 1, 0, 0, 1};
+		int[] to   = {1, 2, 2, 2, 3};
+		byte[] rel = {0, 0, 3, 3, 6};
+		return CompactGraph.build(names, from, to, rel, from.length);
+	}
+
+	private static List<String> edges(CompactGraph g, String uniqueId, boolean reverse) {
+		List<String> out = new ArrayList<>();
+		CompactGraph.Cursor c = g.cursor().of(g.id(uniqueId), reverse);
+		while(c.next()){
+			out.add(CompactGraph.RELATIONS[c.relation()] + ">" + g.node(c.node()).getArtifactId());
+		}
+		return out;
+	}
+
+	@Test
+	public void testBuild() {
+		CompactGraph g = graph();
+		assertEquals(4, g.size());
+		assertEquals(4, g.edges());
+		assertEquals(-1, g.id("my.group:missing:jar::1.0.0"));
+		assertEquals("lib", g.node(g.id(LIB)).getArtifactId());
+
+		assertEquals(Arrays.asList("COMPILE>app", "TEST>web"), edges(g, LIB, false));
+		assertEquals(Arrays.asList("TEST>lib", "COMPILE>app"), edges(g, WEB, true));
+		assertEquals(Arrays.asList("PARENT>app"), edges(g, POM, true));
+	}
+
+	@Test
+	public void testDelta() {
+		CompactGraph g = graph();
+		assertTrue(g.addEdge(LIB, APP, "COMPILE"));
+		assertEquals(4, g.edges());
+		assertTrue(g.addEdge(LIB, APP, "RUNTIME"));
+		assertTrue(g.addEdge("my.group:new:jar::2.0.0", WEB, "COMPILE"));
+		assertFalse(g.addEdge(LIB, WEB, "UNKNOWN"));
+		assertEquals(5, g.size());
+		assertEquals(6, g.edges());
+		assertEquals(Arrays.asList("TEST>lib", "COMPILE>app", "COMPILE>new"), edges(g, WEB, true));
+
+		g.compact();
+		assertEquals(6, g.edges());
+		assertEquals(Arrays.asList("TEST>lib", "COMPILE>app", "COMPILE>new"), edges(g, WEB, true));
+		assertEquals(Arrays.asList("COMPILE>app", "RUNTIME>app", "TEST>web"), edges(g, LIB, false));
+	}
+
+	/**
+	 * A copy shares rows only, changes to either graph are not seen by the other
+	 */
+	@Test
+	public void testCopy() {
+		CompactGraph g = graph();
+		assertTrue(g.addEdge("my.group:new:jar::2.0.0", WEB, "COMPILE"));
+		assertTrue(g.addEdge("invalid", WEB, "RUNTIME"));
+		CompactGraph c = g.copy();
+		assertEquals(g.size(), c.size());
+		assertEquals(g.id("invalid"), c.id("invalid"));
+		assertEquals(edges(g, WEB, true), edges(c, WEB, true));
+
+		assertTrue(c.addEdge(POM, WEB, "COMPILE"));
+		assertTrue(g.addEdge("my.group:other:jar::1.0.0", WEB, "TEST"));
+		g.compact();
+		assertEquals(Arrays.asList("TEST>lib", "COMPILE>app", "COMPILE>new", "RUNTIME>", "COMPILE>parent"), edges(c, WEB, true));
+		assertEquals(Arrays.asList("TEST>lib", "COMPILE>app", "COMPILE>new", "RUNTIME>", "TEST>other"), edges(g, WEB, true));
+		assertEquals(-1, c.id("my.group:other:jar::1.0.0"));
+	}
+
+	/**
+	 * A snapshot is only mapped on the store version it was saved from
+	 */
+	@Test
+	public void testSnapshotOrigin() throws IOException {
+		CompactGraph g = graph();
+		StoreVersion origin = new StoreVersion(1000L, 42L, 7L);
+		Path file = Files.createTempFile("compactgraph", ".snapshot");
+		try {
+			g.save(file, origin);
+			assertEquals(g.edges(), CompactGraph.map(file, new StoreVersion(1000L, 42L, 7L)).edges());
+			assertEquals(g.edges(), CompactGraph.map(file).edges());
+			for (StoreVersion other : new StoreVersion[]{new StoreVersion(1000L, 42L, 8L), new StoreVersion(2000L, 43L, 7L), StoreVersion.UNKNOWN}) {
+				try {
+					CompactGraph.map(file, other);
+					fail("Snapshot mapped on " + other);
+				}
+				catch (IOException e) {
+					// expected
+				}
+			}
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testSnapshot() throws IOException {
+		CompactGraph g = graph();
+		assertTrue(g.addEdge("my.group:new:jar::2.0.0", WEB, "COMPILE"));
+		assertTrue(g.addEdge("invalid", WEB, "RUNTIME"));
+		Path file = Files.createTempFile("compactgraph", ".snapshot");
+		try {
+			g.save(file);
+			CompactGraph m = CompactGraph.map(file);
+			assertEquals(g.size(), m.size());
+			assertEquals(g.edges(), m.edges());
+			assertEquals(g.id(LIB), m.id(LIB));
+			assertEquals(ArtifactUtils.EMPTYID, m.node(m.id(ArtifactUtils.EMPTYID)).getUniqueId());
+			assertEquals(Arrays.asList("TEST>lib", "COMPILE>app", "COMPILE>new", "RUNTIME>"), edges(m, WEB, true));
+			assertEquals(Arrays.asList("COMPILE>app", "TEST>web"), edges(m, LIB, false));
+
+			// mapped graph accepts further changes
+			assertTrue(m.addEdge(APP, POM, "RUNTIME"));
+			assertEquals(g.edges() + 1, m.edges());
+
+			byte[] b = Files.readAllBytes(file);
+			b[b.length / 2] ^= 0x01;
+			Files.write(file, b);
+			try {
+				CompactGraph.map(file);
+				fail("Corruption not detected");
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testMatch() {
+		CompactGraph g = graph();
+		boolean[] m = g.match(".*", "a.*|web", ".*", ".*", "1\\..*");
+		assertFalse(m[g.id(LIB)]);
+		assertTrue(m[g.id(APP)]);
+		assertTrue(m[g.id(WEB)]);
+		assertTrue(((Number) g.memory().get("totalBytes")).longValue() > 0);
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils;
+import org.aroundthecode.pathfinder.server.utils.QueryUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+
+/**
+ * Compare {@link CompactQueryEngine#impact(CompactGraph, int, String, String, String, String, String, FilterItem)}
+ * with the rows of {@link QueryUtils#getImpactQuery} run on the same graph
+ */
+public class CompactImpactParityTest {
+
+	// a -COMPILE-> b -COMPILE-> d -COMPILE-> e, a -TEST-> c -RUNTIME-> d, c -COMPILE-> e, b -COMPILE-> d (twice),
+	// a -PARENT-> parent, b -PARENT-> parent
+	private static final String FIXTURE = "CREATE "
+			+ "(a:Artifact { uniqueId:'my.group:a:jar::1.0.0', groupId:'my.group', artifactId:'a', packaging:'jar', classifier:'', version:'1.0.0' }),"
+			+ "(b:Artifact { uniqueId:'my.group:b:jar::1.0.0', groupId:'my.group', artifactId:'b', packaging:'jar', classifier:'', version:'1.0.0' }),"
+			+ "(c:Artifact { uniqueId:'my.group:c:jar::1.0.0', groupId:'my.group', artifactId:'c', packaging:'jar', classifier:'', version:'1.0.0' }),"
+			+ "(d:Artifact { uniqueId:'other:d:jar::2.0', groupId:'other', artifactId:'d', packaging:'jar', classifier:'', version:'2.0' }),"
+			+ "(e:Artifact { uniqueId:'my.group:e:war::1.0.0', groupId:'my.group', artifactId:'e', packaging:'war', classifier:'', version:'1.0.0' }),"
+			+ "(p:Artifact { uniqueId:'my.group:parent:pom::1.0.0', groupId:'my.group', artifactId:'parent', packaging:'pom', classifier:'', version:'1.0.0' }),"
+			+ "(a)-[:COMPILE]->(b), (b)-[:COMPILE]->(d), (b)-[:COMPILE]->(d), (d)-[:COMPILE]->(e),"
+			+ "(a)-[:TEST]->(c), (c)-[:RUNTIME]->(d), (c)-[:COMPILE]->(e),"
+			+ "(a)-[:PARENT]->(p), (b)-[:PARENT]->(p)";
+
+	private static final FilterItem[] FILTERS = {
+		new FilterItem(),
+		new FilterItem(".*", "b|c", ".*", ".*", ".*", ".*", ".*", "jar", ".*", ".*"),
+		new FilterItem("my.group", ".*", ".*", ".*", ".*", "other", ".*", ".*", ".*", ".*"),
+		new FilterItem(".*", "a|b|d", ".*", ".*", ".*", ".*", ".*", ".*", ".*", "1.*"),
+	};
+
+	private File dir;
+	private GraphDatabaseService db;
+
+	@Before
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("pathfinder-impact").toFile();
+		db = new GraphDatabaseFactory().newEmbeddedDatabase(dir.getAbsolutePath());
+		db.execute(FIXTURE).close();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		db.shutdown();
+		FileUtils.deleteRecursively(dir);
+	}
+
+	@Test
+	public void testParity() {
+		CompactGraph g = CompactGraph.load(db);
+		for (FilterItem f : FILTERS) {
+			for (int depth = 1; depth <= 4; depth++) {
+				check(g, depth, "my.group", "a", "jar", "", "1.0.0", f);
+				// empty coordinates select every artifact with that classifier
+				check(g, depth, "my.group", "", "", "", "", f);
+			}
+		}
+	}
+
+	@Test
+	public void testCycle() {
+		// e -COMPILE-> a closes cycles through a
+		db.execute("MATCH (e:Artifact { artifactId:'e' }), (a:Artifact { artifactId:'a' }) CREATE (e)-[:COMPILE]->(a)").close();
+		CompactGraph g = CompactGraph.load(db);
+		FilterItem f = new FilterItem();
+		check(g, 1, "my.group", "a", "jar", "", "1.0.0", f);
+		check(g, 2, "my.group", "a", "jar", "", "1.0.0", f);
+		// a -TEST-> c -COMPILE-> e -COMPILE-> a can be walked within 3 hops, Cypher has to answer
+		assertNull(CompactQueryEngine.impact(g, 3, "my.group", "a", "jar", "", "1.0.0", f));
+	}
+
+	private void check(CompactGraph g, int depth, String groupId, String artifactId, String packaging, String classifier, String version, FilterItem f) {
+		JSONArray compact = CompactQueryEngine.impact(g, depth, groupId, artifactId, packaging, classifier, version, f);
+		assertNotNull(compact);
+		Set<String> rows = new TreeSet<>();
+		for (Object o : compact) {
+			JSONObject row = (JSONObject) o;
+			rows.add(((JSONObject) row.get("n1")).get(ArtifactUtils.U) + " " + row.get("r") + " " + ((JSONObject) row.get("n2")).get(ArtifactUtils.U));
+		}
+		// rows are distinct
+		assertEquals(compact.size(), rows.size());
+
+		Set<String> expected = new TreeSet<>();
+		try(Transaction tx = db.beginTx(); Result r = db.execute(QueryUtils.getImpactQuery(depth, groupId, artifactId, packaging, classifier, version, f))){
+			while(r.hasNext()){
+				Map<String, Object> row = r.next();
+				expected.add(((Node) row.get("node1")).getProperty("uniqueId") + " " + row.get("rel") + " " + ((Node) row.get("node2")).getProperty("uniqueId"));
+			}
+			tx.success();
+		}
+		assertEquals("depth " + depth, expected, rows);
+	}
+
+}
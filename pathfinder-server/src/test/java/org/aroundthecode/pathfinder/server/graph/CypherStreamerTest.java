@@ -0,0 +1,84 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import org.aroundthecode.pathfinder.client.rest.utils.RestUtils;
+import org.aroundthecode.pathfinder.server.controller.exception.QueryRejectedException;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+
+public class CypherStreamerTest {
+
+	private File dir;
+	private CypherStreamer streamer;
+
+	@Before
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("pathfinder-cypher").toFile();
+		streamer = new CypherStreamer();
+		streamer.db = new GraphDatabaseFactory().newEmbeddedDatabase(dir.getAbsolutePath());
+		streamer.db.execute("UNWIND range(1, 1000) AS i CREATE (:Artifact { uniqueId:toString(i) })").close();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		streamer.shutdown();
+		streamer.db.shutdown();
+		FileUtils.deleteRecursively(dir);
+	}
+
+	private JSONObject stream(String query, int rowLimit, long timeout) throws QueryRejectedException, ParseException {
+		StringWriter out = new StringWriter();
+		streamer.stream(query, new HashMap<String, Object>(), rowLimit, timeout, out);
+		return RestUtils.string2Json(out.toString());
+	}
+
+	@Test
+	public void testRows() throws Exception {
+		JSONObject o = stream("UNWIND range(1, 5) AS i RETURN i", 3, 10000);
+		assertEquals(3L, o.get("count"));
+		assertEquals(Boolean.TRUE, o.get("truncated"));
+		assertEquals(3, ((JSONArray) o.get("rows")).size());
+		assertFalse(o.containsKey("error"));
+	}
+
+	/**
+	 * A terminated query is answered as a timeout, whatever step detects the termination. Termination is checked on
+	 * database access, queries walk a billion node triples
+	 */
+	@Test
+	public void testTimeout() throws Exception {
+		JSONObject o = stream("MATCH (a:Artifact), (b:Artifact), (c:Artifact) RETURN count(*)", 100, 50);
+		assertEquals(0L, o.get("count"));
+		assertTrue(o.toJSONString(), o.get("error").toString().startsWith("Query terminated after 50ms"));
+
+		// terminated while streaming rows
+		o = stream("MATCH (a:Artifact), (b:Artifact), (c:Artifact) WHERE c.uniqueId = '1000' RETURN a.uniqueId", 100000, 50);
+		assertTrue(o.toJSONString(), o.get("error").toString().startsWith("Query terminated after 50ms"));
+	}
+
+	@Test(expected = QueryRejectedException.class)
+	public void testWriteRejected() throws Exception {
+		stream("CREATE (n:Artifact) RETURN n", 10, 10000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLimit() throws Exception {
+		stream("RETURN 1", 0, 10000);
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+
+/**
+ * A mirror is not served while a bulk write runs, nor when rebuilt from part of it
+ */
+public class GraphMirrorTest {
+
+	private static final String CREATE = "CREATE (:Artifact { uniqueId:{u} })";
+
+	/**
+	 * Mirror of the uniqueIds only
+	 */
+	private static class Names extends GraphMirror<Set<String>> {
+
+		@Override
+		public boolean isEnabled() {
+			return true;
+		}
+
+		@Override
+		protected String name() {
+			return "names";
+		}
+
+		@Override
+		protected int maxNodes() {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		protected Set<String> build(EdgeList edges) {
+			return new TreeSet<>(edges.names);
+		}
+
+		@Override
+		protected Set<String> empty() {
+			return new TreeSet<>();
+		}
+
+		@Override
+		protected void addNode(Set<String> target, String uniqueId) {
+			target.add(uniqueId);
+		}
+
+		@Override
+		protected boolean addEdge(Set<String> target, String from, String to, String relation) {
+			return true;
+		}
+
+		@Override
+		protected JSONObject describe(Set<String> target) {
+			return new JSONObject();
+		}
+
+		Set<String> names() {
+			lock.readLock().lock();
+			try {
+				return current();
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+	}
+
+	private File dir;
+	private Names mirror;
+
+	@Before
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("pathfinder-mirror").toFile();
+		mirror = new Names();
+		mirror.db = new GraphDatabaseFactory().newEmbeddedDatabase(dir.getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		mirror.shutdown();
+		mirror.db.shutdown();
+		FileUtils.deleteRecursively(dir);
+	}
+
+	private void create(String uniqueId) {
+		mirror.db.execute(CREATE, Collections.<String, Object>singletonMap("u", uniqueId)).close();
+	}
+
+	@Test
+	public void testBulkWrite() {
+		create("a");
+		mirror.rebuild();
+		assertEquals(new TreeSet<>(Arrays.asList("a")), mirror.names());
+
+		mirror.beginBulkWrite();
+		assertNull(mirror.names());
+		create("b");
+		// rebuilt from part of the write
+		mirror.rebuild();
+		assertNull(mirror.names());
+		create("c");
+		mirror.endBulkWrite();
+		mirror.rebuild();
+		assertEquals(new TreeSet<>(Arrays.asList("a", "b", "c")), mirror.names());
+	}
+
+}
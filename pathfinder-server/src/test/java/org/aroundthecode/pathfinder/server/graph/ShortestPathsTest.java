@@ -0,0 +1,64 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+public class ShortestPathsTest {
+
+	private static final String LIB = "my.group:lib:jar::1.0.0";
+	private static final String CORE = "my.group:core:jar::1.0.0";
+	private static final String UTIL = "my.group:util:jar::1.0.0";
+	private static final String APP = "my.group:app:jar::1.0.0";
+	private static final String WEB = "my.group:web:war::1.0.0";
+
+	// diamond lib -> core|util -> app -> web, plus lib -TEST-> web shortcut
+	private static CompactGraph graph() {
+		List<String> names = Arrays.asList(LIB, CORE, UTIL, APP, WEB);
+		int[] from = {0, 0, 1, 2, 3, 0};
+		int[] to   = {1, 2, 3, 3, 4, 4};
+		byte[] rel = {0, 2, 0, 0, 0, 3};
+		return CompactGraph.build(names, from, to, rel, from.length);
+	}
+
+	@Test
+	public void testAllShortestPaths() {
+		GraphView g = graph().view();
+		int compileRuntime = CompactGraph.relationMask("COMPILE,runtime");
+
+		JSONObject o = ShortestPaths.query(g, LIB, APP, compileRuntime, 10, 10);
+		assertEquals(2, o.get("length"));
+		assertEquals(2, o.get("count"));
+		JSONArray paths = (JSONArray) o.get("paths");
+		assertEquals(Arrays.asList(LIB, CORE, APP), ((JSONObject) paths.get(0)).get("nodes"));
+		assertEquals(Arrays.asList("COMPILE", "COMPILE"), ((JSONObject) paths.get(0)).get("relations"));
+		assertEquals(Arrays.asList(LIB, UTIL, APP), ((JSONObject) paths.get(1)).get("nodes"));
+		assertEquals(Arrays.asList("RUNTIME", "COMPILE"), ((JSONObject) paths.get(1)).get("relations"));
+
+		assertEquals(1, ShortestPaths.query(g, LIB, APP, compileRuntime, 10, 1).get("count"));
+		assertEquals(3, ShortestPaths.query(g, LIB, WEB, compileRuntime, 10, 10).get("length"));
+		assertEquals(1, ShortestPaths.query(g, LIB, WEB, CompactGraph.relationMask(""), 10, 10).get("length"));
+	}
+
+	@Test
+	public void testNoPath() {
+		GraphView g = graph().view();
+		int all = CompactGraph.relationMask("");
+		assertEquals(-1, ShortestPaths.query(g, APP, LIB, all, 10, 10).get("length"));
+		assertEquals(-1, ShortestPaths.query(g, LIB, APP, all, 1, 10).get("length"));
+		assertEquals(-1, ShortestPaths.query(g, LIB, APP, CompactGraph.relationMask("TEST"), 10, 10).get("length"));
+		assertEquals(-1, ShortestPaths.query(g, LIB, "my.group:missing:jar::1.0.0", all, 10, 10).get("length"));
+		assertEquals(0, ShortestPaths.query(g, LIB, LIB, all, 10, 10).get("length"));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownRelation() {
+		CompactGraph.relationMask("COMPILE,FOO");
+	}
+
+}
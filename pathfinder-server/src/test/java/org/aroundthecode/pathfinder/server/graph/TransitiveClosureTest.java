@@ -0,0 +1,66 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TransitiveClosureTest {
+
+	// a -> b -> c -> d, c -> b (cycle), e isolated
+	private static final List<String> NAMES = Arrays.asList("a", "b", "c", "d", "e");
+	private static final int[] FROM = {0, 1, 2, 2};
+	private static final int[] TO   = {1, 2, 3, 1};
+
+	@Test
+	public void testBuild() {
+		TransitiveClosure c = TransitiveClosure.build(NAMES, FROM, TO, FROM.length);
+		assertEquals(5, c.size());
+		assertEquals(4, c.components());
+
+		assertTrue(c.reaches("a", "d"));
+		assertTrue(c.reaches("b", "c"));
+		assertTrue(c.reaches("c", "b"));
+		assertTrue(c.reaches("b", "b"));
+		assertFalse(c.reaches("a", "a"));
+		assertFalse(c.reaches("d", "a"));
+		assertFalse(c.reaches("a", "e"));
+		assertFalse(c.reaches("a", "unknown"));
+
+		assertEquals(Arrays.asList("b", "c", "d"), c.descendants("a"));
+		assertEquals(Arrays.asList("a", "b", "c"), c.ancestors("d"));
+	}
+
+	@Test
+	public void testIncremental() {
+		TransitiveClosure c = TransitiveClosure.build(NAMES, FROM, TO, FROM.length);
+
+		assertTrue(c.addEdge("d", "e"));
+		assertTrue(c.reaches("a", "e"));
+		assertTrue(c.addEdge("f", "a"));
+		assertTrue(c.reaches("f", "e"));
+		assertEquals(6, c.size());
+
+		// e -> a closes a cycle across components
+		assertFalse(c.addEdge("e", "a"));
+	}
+
+	@Test
+	public void testBudget() {
+		// 4 components, one 64 bits set each
+		assertNull(TransitiveClosure.build(NAMES, FROM, TO, FROM.length, 31));
+		TransitiveClosure c = TransitiveClosure.build(NAMES, FROM, TO, FROM.length, 40);
+		assertEquals(32, c.bitsetBytes());
+
+		assertTrue(c.addEdge("d", "e"));
+		assertTrue(c.addEdge("f", "a"));
+		assertEquals(40, c.bitsetBytes());
+		assertFalse(c.addEdge("g", "a"));
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.aroundthecode.pathfinder.server.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class VersionConflictsTest {
+
+	private static final String LOG1 = "my.group:log:jar::1.0.0";
+	private static final String LOG2 = "my.group:log:jar::2.0.0";
+	private static final String CORE = "my.group:core:jar::1.0.0";
+	private static final String APP = "my.group:app:jar::1.0.0";
+	private static final String TOOL = "my.group:tool:jar::1.0.0";
+
+	// log1 -COMPILE-> core -COMPILE-> app, log2 -RUNTIME-> app, log2 -TEST-> tool, log1 -COMPILE-> tool
+	private static CompactGraph graph() {
+		List<String> names = Arrays.asList(LOG1, LOG2, CORE, APP, TOOL);
+		int[] from = {0, 2, 1, 1, 0};
+		int[] to   = {2, 3, 3, 4, 4};
+		byte[] rel = {0, 0, 2, 3, 0};
+		return CompactGraph.build(names, from, to, rel, from.length);
+	}
+
+	@Test
+	public void testBuild() {
+		VersionConflicts c = VersionConflicts.build(graph());
+		assertEquals(2, c.roots());
+		assertEquals(Arrays.asList(APP), c.conflicting());
+		assertEquals("{my.group:log=[1.0.0, 2.0.0]}", c.get(APP).toString());
+		// test scope is not followed
+		assertTrue(c.get(TOOL).isEmpty());
+		assertTrue(c.get(CORE).isEmpty());
+	}
+
+	@Test
+	public void testRefresh() {
+		CompactGraph g = graph();
+		VersionConflicts c = VersionConflicts.build(g);
+		assertFalse(c.isDirty());
+
+		// relations are marked once applied to the graph
+		assertFalse(c.addEdge(LOG2, "my.group:other:jar::1.0.0", "COMPILE"));
+		assertFalse(c.isDirty());
+
+		// tool gets log 2 in compile scope too
+		assertTrue(g.addEdge(LOG2, TOOL, "COMPILE"));
+		assertTrue(c.addEdge(LOG2, TOOL, "COMPILE"));
+		assertTrue(c.isDirty());
+		assertEquals(1, c.refresh());
+		assertEquals(Arrays.asList(APP, TOOL), c.conflicting());
+
+		// app is now a dependency of web, web becomes the only root reaching the conflict through app
+		String web = "my.group:web:war::1.0.0";
+		assertTrue(g.addEdge(APP, web, "COMPILE"));
+		assertTrue(c.addNode(web));
+		assertTrue(c.addEdge(APP, web, "COMPILE"));
+		assertEquals(1, c.refresh());
+		assertEquals(Arrays.asList(TOOL, web), c.conflicting());
+		assertEquals(2, c.roots());
+		assertEquals("{my.group:log=[1.0.0, 2.0.0]}", c.get(APP).toString());
+
+		assertEquals(0, c.refresh());
+	}
+
+}
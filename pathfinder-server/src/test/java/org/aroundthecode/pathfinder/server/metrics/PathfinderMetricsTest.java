@@ -0,0 +1,43 @@
+package org.aroundthecode.pathfinder.server.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PathfinderMetricsTest {
+
+	@Before
+	public void setUp() {
+		PathfinderMetrics.reset();
+	}
+
+	@Test
+	public void testToJSON() {
+		PathfinderMetrics.timer(PathfinderMetrics.PHASE_MERGE).update(2, TimeUnit.MILLISECONDS);
+		PathfinderMetrics.counter("upload.success").inc(3);
+		PathfinderMetrics.histogram("query.rows").update(10);
+
+		JSONObject o = PathfinderMetrics.toJSON();
+		JSONObject merge = (JSONObject) ((JSONObject) o.get("timers")).get(PathfinderMetrics.PHASE_MERGE);
+		assertNotNull(merge);
+		assertEquals(1L, merge.get("count"));
+		assertEquals(2d, (Double) merge.get("max"), 0.001);
+		assertEquals(3L, ((JSONObject) o.get("counters")).get("upload.success"));
+		assertEquals(10d, (Double) ((JSONObject) ((JSONObject) o.get("histograms")).get("query.rows")).get("max"), 0.001);
+	}
+
+	@Test
+	public void testEndpointName() {
+		assertEquals("http.node.save", MetricsFilter.endpoint("/node/save"));
+		assertEquals("http.query.impact", MetricsFilter.endpoint("/pathfinder/query/impact"));
+		assertNull(MetricsFilter.endpoint("/index.html"));
+		assertNull(MetricsFilter.endpoint("/node/save/other"));
+	}
+
+}
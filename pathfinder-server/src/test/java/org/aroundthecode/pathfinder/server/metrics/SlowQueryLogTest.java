@@ -0,0 +1,34 @@
+package org.aroundthecode.pathfinder.server.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class SlowQueryLogTest {
+
+	@Test
+	public void testTopSlowQueries() {
+		SlowQueryLog l = new SlowQueryLog();
+		try {
+			l.record("MATCH fast", null, 1, TimeUnit.MILLISECONDS.toNanos(1));
+			l.record("MATCH slow", null, 2, TimeUnit.SECONDS.toNanos(1));
+			l.record("MATCH slowest", null, 3, TimeUnit.SECONDS.toNanos(5));
+
+			List<SlowQuery> top = l.top(10);
+			assertEquals(2, top.size());
+			assertEquals("MATCH slowest", top.get(0).getQuery());
+			assertEquals(5000, top.get(0).getMillis());
+			assertEquals("MATCH slow", top.get(1).getQuery());
+			assertEquals(1, l.top(1).size());
+			assertTrue(top.get(0).toJSON().containsKey("plan"));
+		}
+		finally {
+			l.shutdown();
+		}
+	}
+
+}
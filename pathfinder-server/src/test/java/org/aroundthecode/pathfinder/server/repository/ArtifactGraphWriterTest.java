@@ -0,0 +1,132 @@
+package org.aroundthecode.pathfinder.server.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.aroundthecode.pathfinder.server.entity.Artifact;
+import org.aroundthecode.pathfinder.server.entity.exception.ArtifactMergeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+
+public class ArtifactGraphWriterTest {
+
+	private static final String APP = "my.group:app:jar::1.0.0";
+	private static final String LIB = "my.group:lib:jar:tests:2.0.0";
+	private static final String POM = "my.group:parent:pom::1.0.0";
+
+	private File dir;
+	private GraphDatabaseService db;
+	private ArtifactGraphWriter writer;
+
+	@Before
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("pathfinder-writer").toFile();
+		db = new GraphDatabaseFactory().newEmbeddedDatabase(dir.getAbsolutePath());
+		writer = new ArtifactGraphWriter(db);
+		writer.ensureIndex();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		db.shutdown();
+		FileUtils.deleteRecursively(dir);
+	}
+
+	private static Artifact artifact(String uniqueId, String parent, String scope, String... dependencies) {
+		Artifact a = new Artifact(uniqueId);
+		if(parent!=null){
+			a.hasParent(new Artifact(parent));
+		}
+		for (String d : dependencies) {
+			a.dependsOn(new Artifact(d), scope);
+		}
+		return a;
+	}
+
+	private int merge(Artifact a) throws ArtifactMergeException {
+		try(Transaction tx = db.beginTx()){
+			int created = writer.merge(a);
+			tx.success();
+			return created;
+		}
+	}
+
+	private long count(String query) {
+		try(Transaction tx = db.beginTx(); Result r = db.execute(query)){
+			long c = ((Number) r.next().get("c")).longValue();
+			tx.success();
+			return c;
+		}
+	}
+
+	/**
+	 * Merging again only creates the relations not stored yet
+	 */
+	@Test
+	public void testMergeMissingOnly() throws ArtifactMergeException {
+		assertEquals(2, merge(artifact(APP, POM, "COMPILE", LIB)));
+		assertEquals(0, merge(artifact(APP, POM, "COMPILE", LIB)));
+
+		assertEquals(1, merge(artifact(APP, POM, "RUNTIME", LIB)));
+		assertEquals(0, merge(artifact(APP, null, "COMPILE")));
+		assertEquals(3, count("MATCH ()-[r]->() RETURN count(r) AS c"));
+		assertEquals(1, count("MATCH (:Artifact { uniqueId:'" + LIB + "' })-[r:RUNTIME]->(:Artifact { uniqueId:'" + APP + "' }) RETURN count(r) AS c"));
+		assertEquals(1, count("MATCH (:Artifact { uniqueId:'" + APP + "' })-[r:PARENT]->(:Artifact { uniqueId:'" + POM + "' }) RETURN count(r) AS c"));
+		assertEquals(3, count("MATCH (n:Artifact) RETURN count(n) AS c"));
+	}
+
+	/**
+	 * Dependency and parent nodes not merged yet are created with their parsed coordinates
+	 */
+	@Test
+	public void testPlaceholder() throws ArtifactMergeException {
+		merge(artifact(APP, POM, "TEST", LIB));
+		try(Transaction tx = db.beginTx(); Result r = db.execute("MATCH (n:Artifact) RETURN n ORDER BY n.uniqueId")){
+			for (String uniqueId : Arrays.asList(APP, LIB, POM)) {
+				Node n = (Node) r.next().get("n");
+				Artifact expected = new Artifact(uniqueId);
+				assertEquals(uniqueId, n.getProperty("uniqueId"));
+				assertEquals(expected.getGroupId(), n.getProperty("groupId"));
+				assertEquals(expected.getArtifactId(), n.getProperty("artifactId"));
+				assertEquals(expected.getPackaging(), n.getProperty("packaging"));
+				assertEquals(expected.getClassifier(), n.getProperty("classifier"));
+				assertEquals(expected.getVersion(), n.getProperty("version"));
+				assertTrue(n.hasProperty("timestamp"));
+			}
+			tx.success();
+		}
+		assertEquals(1, count("MATCH (n:Artifact { uniqueId:'" + LIB + "', classifier:'tests', version:'2.0.0' }) RETURN count(n) AS c"));
+	}
+
+	/**
+	 * A different parent fails the merge, relations created before the check are rolled back with the transaction
+	 */
+	@Test
+	public void testParentMismatch() throws ArtifactMergeException {
+		merge(artifact(APP, POM, "COMPILE"));
+		try {
+			merge(artifact(APP, "my.group:parent:pom::2.0.0", "COMPILE", LIB));
+			fail("Parent mismatch not detected");
+		}
+		catch (ArtifactMergeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("my.group:parent:pom::2.0.0"));
+		}
+		assertEquals(1, count("MATCH ()-[r]->() RETURN count(r) AS c"));
+		assertEquals(0, count("MATCH (n:Artifact { uniqueId:'" + LIB + "' }) RETURN count(n) AS c"));
+		assertEquals(0, count("MATCH (n:Artifact { uniqueId:'my.group:parent:pom::2.0.0' }) RETURN count(n) AS c"));
+	}
+
+}
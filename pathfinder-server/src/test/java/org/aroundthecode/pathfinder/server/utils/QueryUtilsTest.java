@@ -10,6 +10,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
 import org.aroundthecode.pathfinder.client.rest.items.FilterItem;
+import org.aroundthecode.pathfinder.client.rest.utils.ArtifactUtils.Dependency;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -19,6 +20,8 @@ public class QueryUtilsTest {
 	private final String TEST_CYPHER_FILTERALL ="MATCH n1-[r]->n2 WHERE n1.groupId =~ \".*\" AND n1.artifactId =~ \".*\" AND n1.packaging =~ \".*\" AND n1.classifier =~ \".*\" AND n1.version =~ \".*\" AND n2.groupId =~ \".*\" AND n2.artifactId =~ \".*\" AND n2.packaging =~ \".*\" AND n2.classifier =~ \".*\" AND n2.version =~ \".*\" RETURN n1 as node1,type(r) as rel ,n2 as node2";
 	private final String TEST_CYPHER_IMPACT ="MATCH (n1:Artifact { groupId:'org.sample' ,artifactId:'mypackage' ,packaging:'jar' ,version:'1.0.0' ,classifier: '' })-[r1]->(n2) WHERE n1.groupId =~ \".*\" AND n1.artifactId =~ \".*\" AND n1.packaging =~ \".*\" AND n1.classifier =~ \".*\" AND n1.version =~ \".*\" AND n2.groupId =~ \".*\" AND n2.artifactId =~ \".*\" AND n2.packaging =~ \".*\" AND n2.classifier =~ \".*\" AND n2.version =~ \".*\" RETURN n1 as node1,type(r1) as rel ,n2 as node2 UNION MATCH (n1:Artifact { groupId:'org.sample' ,artifactId:'mypackage' ,packaging:'jar' ,version:'1.0.0' ,classifier: '' })-[r1]->(n2)-[r2]->(n3) WHERE n2.groupId =~ \".*\" AND n2.artifactId =~ \".*\" AND n2.packaging =~ \".*\" AND n2.classifier =~ \".*\" AND n2.version =~ \".*\" AND n3.groupId =~ \".*\" AND n3.artifactId =~ \".*\" AND n3.packaging =~ \".*\" AND n3.classifier =~ \".*\" AND n3.version =~ \".*\" RETURN n3 as node1,type(r2) as rel ,n3 as node2";
 
+	private final String TEST_CYPHER_MERGE_RUNTIME ="MATCH (n:Artifact { uniqueId: {uniqueId} }) UNWIND {nodes} AS dep MERGE (d:Artifact:_Artifact { uniqueId: dep.uniqueId }) ON CREATE SET d = dep MERGE (d)-[:RUNTIME]->(n)";
+
 	@Test
 	public void testUtilityClassWellDefined(){
 		try {
@@ -52,6 +55,14 @@ public class QueryUtilsTest {
 		assertEquals(TEST_CYPHER_IMPACT, query);
 	}
 
+	@Test
+	public void testMergeDependenciesQuery() {
+
+		String query = QueryUtils.getMergeDependenciesQuery(Dependency.RUNTIME);
+		assertNotNull(query);
+		assertEquals(TEST_CYPHER_MERGE_RUNTIME, query);
+	}
+
 	/**
 	 * Verifies that a utility class is well defined.
 	 * 
@@ -1,15 +1,23 @@
 package org.aroundthecode.tools.remote.api;
 
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.PutMethod;
@@ -17,6 +25,7 @@ import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.methods.multipart.FilePart;
 import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
 import org.apache.commons.httpclient.methods.multipart.Part;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.commons.httpclient.params.HttpConnectionParams;
 import org.apache.commons.httpclient.params.HttpMethodParams;
 import org.apache.commons.httpclient.params.HttpParams;
@@ -25,6 +34,7 @@ import org.apache.logging.log4j.Logger;
 import org.aroundthecode.tools.remote.api.auth.Auth;
 import org.aroundthecode.tools.remote.api.auth.NoAuth;
 import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfiguration;
+import org.aroundthecode.tools.remote.api.request.GzipRequestEntity;
 import org.aroundthecode.tools.remote.api.response.ResponseParser;
 import org.aroundthecode.tools.remote.api.response.TemporaryFileResponseParser;
 
@@ -45,6 +55,13 @@ public abstract class AbstractUrlManager {
 
 	private static final int CLIENT_CONNECTION_TIMEOUT = 10 * 1000;
 	private static final int CLIENT_SOCKET_TIMEOT = 30 * 1000;
+	private static final int CLIENT_MAX_CONNECTIONS_PER_HOST = 32;
+	private static final int CLIENT_MAX_CONNECTIONS = 128;
+	private static final int DOWNLOAD_MAX_RESUMES = 3;
+	private static final int BUF_SIZE = 8192;
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String IDENTITY = "identity";
 
 	/**
 	 * Available HTTP methods
@@ -58,11 +75,15 @@ public abstract class AbstractUrlManager {
 
 
 	/**
-	 * Client to perform POST/GET calls
+	 * Client to perform POST/GET calls, shared among threads so backed by a pooling connection manager
 	 */
-	private static final HttpClient CLIENT = new HttpClient();
+	private static final HttpClient CLIENT = new HttpClient(new MultiThreadedHttpConnectionManager());
 
 	static {
+		HttpConnectionManagerParams managerParams = CLIENT.getHttpConnectionManager().getParams();
+		managerParams.setDefaultMaxConnectionsPerHost(CLIENT_MAX_CONNECTIONS_PER_HOST);
+		managerParams.setMaxTotalConnections(CLIENT_MAX_CONNECTIONS);
+		managerParams.setConnectionTimeout(CLIENT_CONNECTION_TIMEOUT);
 		HttpParams httpParams = CLIENT.getParams();
 		httpParams.setIntParameter(HttpConnectionParams.CONNECTION_TIMEOUT, CLIENT_CONNECTION_TIMEOUT);
 		httpParams.setIntParameter(HttpConnectionParams.SO_TIMEOUT, CLIENT_SOCKET_TIMEOT);
@@ -78,6 +99,11 @@ public abstract class AbstractUrlManager {
 	 */
 	private Auth auth = new NoAuth();
 
+	/**
+	 * Minimum size of request bodies compressed with gzip, -1 to never compress
+	 */
+	private volatile long compressionThreshold = -1;
+
 	/**
 	 * Default constructor
 	 * @param conf a {@link AbstractConnectionConfiguration} bean to manage connection informations
@@ -279,7 +305,12 @@ public abstract class AbstractUrlManager {
 	}
 
 	/**
-	 * Perform file download and uses provided {@link TemporaryFileResponseParser} to provide access to file
+	 * Perform file download and uses provided {@link TemporaryFileResponseParser} to provide access to file.
+	 * If the transfer breaks and the server sent an ETag, download is resumed up to {@value #DOWNLOAD_MAX_RESUMES} times
+	 * requesting only missing bytes with <b>Range</b> and <b>If-Range</b> headers; a server answering with the whole content,
+	 * because it changed meanwhile, restarts the download from scratch.
+	 * <p>A compressed response is checked against its Content-Length before decoding. Resumed requests ask for the uncompressed
+	 * content, since the partial file holds decoded bytes and ranges of a compressed response would count encoded ones.</p>
 	 * @param url to download
 	 * @param parser {@link TemporaryFileResponseParser} to provide access to file
 	 * @param params array of {@link NameValuePair} to be used as additional parameters
@@ -291,7 +322,59 @@ public abstract class AbstractUrlManager {
 	{
 		String filename = url.substring(url.lastIndexOf('/')+1);
 		parser.setFilename(filename);
-		return invoke(url,parser, params, headers, HttpMethods.GET, null);
+		for (int attempt = 0; ; attempt++) {
+			try {
+				return download(url, parser, params, headers);
+			} catch (IOException e) {
+				if(attempt >= DOWNLOAD_MAX_RESUMES || !parser.isResumable()){
+					parser.discard();
+					throw e;
+				}
+				getLog().warn("Download of [{}] interrupted at [{}] bytes, resuming: {}", url, parser.getPartialFile().length(), e.getMessage());
+			}
+		}
+	}
+
+	private int download(String url,TemporaryFileResponseParser parser,NameValuePair[] params, NameValuePair[] headers) throws IOException
+	{
+		GetMethod m = new GetMethod(getFullUrl(url));
+		m.setQueryString(params);
+		for (NameValuePair nvp : headers) {
+			m.setRequestHeader(nvp.getName(), nvp.getValue());
+		}
+		long offset = parser.isResumable() ? parser.getPartialFile().length() : 0;
+		if(offset > 0){
+			m.setRequestHeader("Range", "bytes=" + offset + "-");
+			m.setRequestHeader("If-Range", parser.getEtag());
+			m.setRequestHeader(ACCEPT_ENCODING, IDENTITY);
+		}
+		try {
+			int status = executeHttpMethod(m);
+			Header range = m.getResponseHeader("Content-Range");
+			if(offset > 0 && (status==HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE
+					|| status==HttpStatus.SC_PARTIAL_CONTENT && (range==null || !range.getValue().startsWith("bytes " + offset + "-") || isCompressed(m)))){
+				getLog().warn("Unable to resume download of [{}], restarting", url);
+				parser.discard();
+				m.releaseConnection();
+				return download(url, parser, params, headers);
+			}
+			if(status!=HttpStatus.SC_PARTIAL_CONTENT){
+				offset = 0;
+			}
+			Header etag = m.getResponseHeader("ETag");
+			long length = m.getResponseContentLength();
+			InputStream in = m.getResponseBodyAsStream();
+			if(isCompressed(m)){
+				// Content-Length counts encoded bytes, decoded length is unknown
+				in = decodeChecked(m, in, length);
+				length = -1;
+			}
+			parser.download(in, offset, length, etag!=null ? etag.getValue() : null);
+			return status;
+		}
+		finally {
+			m.releaseConnection();
+		}
 	}
 	
 	/**
@@ -344,22 +427,26 @@ public abstract class AbstractUrlManager {
 			case GET:
 				m = new GetMethod(url);
 				((GetMethod)m).setQueryString(params);
-				getLog().info("QueryString:["+m.getQueryString()+"]");	
+				if(getLog().isDebugEnabled()){
+					getLog().debug("QueryString:[{}]", m.getQueryString());
+				}
 				break;
 			case POST:
 				m = new PostMethod(url);
 				((PostMethod)m).addParameters(params);
-				for (NameValuePair nvp : params) {
-					getLog().info("POST params:["+nvp.getName()+"="+nvp.getValue()+"]");
+				if(getLog().isTraceEnabled()){
+					for (NameValuePair nvp : params) {
+						getLog().trace("POST params:[{}={}]", nvp.getName(), nvp.getValue());
+					}
 				}
 				if(bodyData!=null){
-					((PostMethod)m).setRequestEntity(bodyData);
+					((PostMethod)m).setRequestEntity(compress(m, bodyData));
 				}
 				break;
 			case PUT:
 				m = new PutMethod(url);
 				if(bodyData!=null){
-					((PutMethod)m).setRequestEntity(bodyData);
+					((PutMethod)m).setRequestEntity(compress(m, bodyData));
 				}
 				break;
 			case DELETE:
@@ -371,15 +458,30 @@ public abstract class AbstractUrlManager {
 			}
 
 
+			boolean trace = getLog().isTraceEnabled();
 			for (NameValuePair nvp : headers) {
-				getLog().info("Header data:["+nvp.getName()+"="+nvp.getValue()+"]");
+				if(trace){
+					getLog().trace("Header data:[{}={}]", nvp.getName(), nvp.getValue());
+				}
 				m.setRequestHeader(nvp.getName(), nvp.getValue());
 			}
 
-			getLog().info("url:["+m.getURI().toString()+"]");
+			if(getLog().isDebugEnabled()){
+				getLog().debug("url:[{}]", m.getURI());
+			}
 
 			status = executeHttpMethod(m);
-			in = m.getResponseBodyAsStream();
+			if(status==HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE && m.getRequestHeader(CONTENT_ENCODING)!=null && bodyData.isRepeatable()
+					&& !isAccepted(m, GzipRequestEntity.ENCODING)){
+				getLog().warn("Server does not accept [{}] request bodies, sending [{}] uncompressed", GzipRequestEntity.ENCODING, url);
+				m.releaseConnection();
+				m.removeRequestHeader(CONTENT_ENCODING);
+				// set for the compressed body of unknown length
+				m.removeRequestHeader("Transfer-Encoding");
+				((EntityEnclosingMethod)m).setRequestEntity(bodyData);
+				status = executeHttpMethod(m);
+			}
+			in = getResponseStream(m);
 			parser.parse(in);
 		}
 		finally{
@@ -391,15 +493,17 @@ public abstract class AbstractUrlManager {
 					in.close();
 				}
 			} catch (IOException e) {
-				getLog().info("Error closing stream",e);
+				getLog().debug("Error closing stream",e);
 			}
 		}	
 		return status;
 	}
 
 	/**
-	 * @param m
-	 * @return
+	 * Authenticate and execute method. On 401 Unauthorized the {@link Auth} cached state is dropped and,
+	 * if the request body can be sent again, the method is authenticated and executed once more
+	 * @param m method to execute
+	 * @return return status
 	 * @throws AuthenticationException
 	 * @throws IOException
 	 * @throws HttpException
@@ -407,15 +511,186 @@ public abstract class AbstractUrlManager {
 	protected int executeHttpMethod(HttpMethod m)
 			throws IOException {
 		int status;
+		if(m.getRequestHeader(ACCEPT_ENCODING)==null){
+			m.setRequestHeader(ACCEPT_ENCODING, "gzip, deflate");
+		}
 		getAuth().doAuth(getConfiguration(), getClient(), m);
+		long session = getAuth().getSession();
 		status = getClient().executeMethod(m);
 
+		if(status==HttpStatus.SC_UNAUTHORIZED && isRepeatable(m) && getAuth().invalidate(session)){
+			getLog().debug("Unauthorized, authenticating again [{}]", m.getURI());
+			m.releaseConnection();
+			getAuth().doAuth(getConfiguration(), getClient(), m);
+			status = getClient().executeMethod(m);
+		}
+
 		checkStatus(status,getLog());
 
-		getLog().info("return status:["+status+"]");
+		getLog().debug("return status:[{}]", status);
 		return status;
 	}
 	
+	/**
+	 * Compress a request body with gzip if compression is enabled, body is JSON or text and not smaller than threshold
+	 * @param m method the body belongs to, its Content-Encoding header is set when compressing
+	 * @param body request body
+	 * @return body to send
+	 */
+	private RequestEntity compress(HttpMethod m, RequestEntity body) {
+		long threshold = getCompressionThreshold();
+		String type = body.getContentType();
+		if(threshold < 0 || type==null || !(type.startsWith(AbstractConnectionConfiguration.APPLICATION_JSON) || type.startsWith("text/"))
+				|| body.getContentLength() >= 0 && body.getContentLength() < threshold){
+			return body;
+		}
+		m.setRequestHeader(CONTENT_ENCODING, GzipRequestEntity.ENCODING);
+		return new GzipRequestEntity(body);
+	}
+
+	/**
+	 * Get response body, decompressed according to its Content-Encoding
+	 * @param m executed method
+	 * @return response body stream, null if no body
+	 * @throws IOException
+	 */
+	protected static InputStream getResponseStream(HttpMethod m) throws IOException {
+		return decode(m, m.getResponseBodyAsStream());
+	}
+
+	private static InputStream decode(HttpMethod m, InputStream in) throws IOException {
+		Header encoding = m.getResponseHeader(CONTENT_ENCODING);
+		if(in==null || encoding==null){
+			return in;
+		}
+		String e = encoding.getValue().trim().toLowerCase(Locale.ROOT);
+		if("gzip".equals(e) || "x-gzip".equals(e)){
+			return new GZIPInputStream(in, BUF_SIZE);
+		}
+		if("deflate".equals(e)){
+			return new InflaterInputStream(in, new Inflater(), BUF_SIZE);
+		}
+		return in;
+	}
+
+	/**
+	 * Decode a response body, failing at its end if the encoded bytes read differ from the expected length
+	 * @param m executed method
+	 * @param raw encoded response body
+	 * @param length expected amount of encoded bytes, -1 if unknown
+	 * @return decoded response body
+	 * @throws IOException
+	 */
+	private static InputStream decodeChecked(HttpMethod m, InputStream raw, final long length) throws IOException {
+		final CountingInputStream counter = new CountingInputStream(raw);
+		return new FilterInputStream(decode(m, counter)) {
+
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if(b < 0){
+					check();
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if(n < 0){
+					check();
+				}
+				return n;
+			}
+
+			private void check() throws IOException {
+				// a decoder may stop at the end of its data, before the end of the body
+				byte[] rest = new byte[BUF_SIZE];
+				while(counter.read(rest) >= 0){
+					// skip
+				}
+				if(length >= 0 && counter.count != length){
+					throw new IOException("Incomplete download: " + counter.count + " encoded bytes of " + length);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Stream counting the bytes read through it
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count = 0;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if(b >= 0){
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if(n > 0){
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+	}
+
+	/**
+	 * @return true if the response body is compressed, so its Content-Length is not the size of decoded data
+	 */
+	private static boolean isCompressed(HttpMethod m) {
+		Header encoding = m.getResponseHeader(CONTENT_ENCODING);
+		return encoding!=null && !IDENTITY.equalsIgnoreCase(encoding.getValue().trim());
+	}
+
+	/**
+	 * A server rejecting a request content coding lists the accepted ones in Accept-Encoding, see RFC 7694
+	 * @param m method answered with 415 Unsupported Media Type
+	 * @param encoding request content coding
+	 * @return false if the response lists accepted codings and encoding is not among them
+	 */
+	private static boolean isAccepted(HttpMethod m, String encoding) {
+		Header accepted = m.getResponseHeader(ACCEPT_ENCODING);
+		if(accepted==null){
+			return true;
+		}
+		for (String coding : accepted.getValue().split(",")) {
+			String c = coding.trim();
+			int q = c.indexOf(';');
+			if((q < 0 ? c : c.substring(0, q).trim()).equalsIgnoreCase(encoding)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isRepeatable(HttpMethod m) {
+		if(m instanceof EntityEnclosingMethod){
+			RequestEntity e = ((EntityEnclosingMethod) m).getRequestEntity();
+			return e==null || e.isRepeatable();
+		}
+		return true;
+	}
+
 	/**
 	 * Checks HTTP status response and throws {@link HttpException} if needed 
 	 * @param status HTTP status response
@@ -435,10 +710,11 @@ public abstract class AbstractUrlManager {
 		case HttpStatus.SC_OK:
 		case HttpStatus.SC_MOVED_TEMPORARILY:
 		case HttpStatus.SC_NO_CONTENT:
-			l.debug("OK Return Status:"+status);
+		case HttpStatus.SC_PARTIAL_CONTENT:
+			l.debug("OK Return Status:{}", status);
 			break;
 		case HttpStatus.SC_CREATED:
-			l.debug("Created return status:"+status);
+			l.debug("Created return status:{}", status);
 			break;
 		default:
 			l.warn("Unhandled status:"+status);
@@ -479,6 +755,25 @@ public abstract class AbstractUrlManager {
 		this.configuration = configuration;
 	}
 
+	/**
+	 * Get minimum size of request bodies compressed with gzip
+	 * @return threshold in bytes, -1 if requests are never compressed
+	 */
+	public long getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	/**
+	 * Set minimum size of request bodies compressed with gzip, only JSON and text bodies are compressed.
+	 * The server must accept <b>Content-Encoding: gzip</b>; if it answers 415 Unsupported Media Type with an <b>Accept-Encoding</b> header
+	 * not listing gzip, that request is sent again uncompressed, the threshold is left unchanged.
+	 * Responses are always requested compressed and decoded transparently.
+	 * @param compressionThreshold threshold in bytes, -1 to never compress
+	 */
+	public void setCompressionThreshold(long compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
 	/**
 	 * Get Logger
 	 * @return
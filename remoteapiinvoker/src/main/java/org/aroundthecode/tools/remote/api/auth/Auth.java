@@ -20,5 +20,25 @@ public interface Auth {
 	 * @throws AuthenticationException raised if any part of the authentication would fail
 	 */
 	void doAuth(AbstractConnectionConfiguration conf, HttpClient client, HttpMethod m) throws AuthenticationException;
+
+	/**
+	 * Identify the cached authentication state requests are currently sent with, read right after
+	 * {@link #doAuth(AbstractConnectionConfiguration, HttpClient, HttpMethod)}
+	 * @return state identifier, by default nothing is cached and 0 is returned
+	 */
+	default long getSession() {
+		return 0;
+	}
+
+	/**
+	 * Drop the cached authentication state a request was sent with, invoked when the server answers 401 Unauthorized.
+	 * A state replaced meanwhile, e.g. by the login of a concurrent request, is kept
+	 * @param session state identifier the failed request was sent with, see {@link #getSession()}
+	 * @return true if a new {@link #doAuth(AbstractConnectionConfiguration, HttpClient, HttpMethod)} may succeed,
+	 * in that case the request is sent again once, by default nothing is cached and false is returned
+	 */
+	default boolean invalidate(long session) {
+		return false;
+	}
 	
 }
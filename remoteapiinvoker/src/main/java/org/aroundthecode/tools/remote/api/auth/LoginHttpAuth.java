@@ -1,7 +1,9 @@
 package org.aroundthecode.tools.remote.api.auth;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.httpclient.Cookie;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpStatus;
@@ -17,6 +19,11 @@ import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfig
  * 
  * Default <b>username</b> and <b>password</b> parameters are "user" and "pass", such value can be changed using public setters 
  * 
+ * <p>The session cookies set by the login page are kept in the {@link HttpClient} state and reused: login is performed
+ * again only when the session is older than {@link #getSessionTtl()}, when a session cookie expires, or after
+ * {@link #invalidate(long)} on a 401 answer. Each login starts a new session, a 401 answer to a request sent with a previous
+ * one does not drop it. Concurrent callers finding no valid session wait for a single login.</p>
+ * 
  * @author michele.sacchetti
  *
  */
@@ -24,6 +31,11 @@ public class LoginHttpAuth implements Auth {
 
 	private static final int NOERROR = 299;
 
+	/**
+	 * Default session time to live, 30 minutes
+	 */
+	public static final long DEFAULT_SESSION_TTL = 30 * 60 * 1000L;
+
 	/**
 	 * Simple Logger
 	 */
@@ -43,6 +55,13 @@ public class LoginHttpAuth implements Auth {
 	private String loginPage;
 	private String userString;
 	private String passString;
+	private long sessionTtl = DEFAULT_SESSION_TTL;
+
+	private final Object loginLock = new Object();
+	private volatile HttpClient sessionClient = null;
+	private volatile long sessionExpiresAt = 0;
+	private volatile long session = 0;
+	private final AtomicLong logins = new AtomicLong();
 
 	/**
 	 * Base constructor, default parameter for user name and password are used
@@ -72,8 +91,46 @@ public class LoginHttpAuth implements Auth {
 
 	/**
 	 * {@inheritDoc}
+	 * Login is skipped while the current session is valid
 	 */
 	public void doAuth(AbstractConnectionConfiguration conf, HttpClient client, HttpMethod m) throws AuthenticationException {
+		if(isSessionValid(client)){
+			return;
+		}
+		synchronized (loginLock) {
+			if(isSessionValid(client)){
+				return;
+			}
+			login(conf, client);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Sessions are numbered by login
+	 */
+	public long getSession() {
+		return session;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The session is dropped if still current, next request will login again; a newer session is kept and the request retried with it
+	 */
+	public boolean invalidate(long session) {
+		synchronized (loginLock) {
+			if(this.session==session){
+				sessionExpiresAt = 0;
+			}
+		}
+		return true;
+	}
+
+	private boolean isSessionValid(HttpClient client) {
+		return sessionClient==client && System.currentTimeMillis() < sessionExpiresAt;
+	}
+
+	private void login(AbstractConnectionConfiguration conf, HttpClient client) throws AuthenticationException {
 		
 		try {
 			
@@ -88,13 +145,31 @@ public class LoginHttpAuth implements Auth {
 
 			getLog().info("Auth user["+getUsername()+"] over url:["+loginCall.getURI().toString()+"]");
 			
-			int status = client.executeMethod(loginCall);
+			long now = System.currentTimeMillis();
+			int status;
+			try {
+				status = client.executeMethod(loginCall);
+			}
+			finally {
+				loginCall.releaseConnection();
+			}
 			
 			if(status != HttpStatus.SC_MOVED_TEMPORARILY && status > NOERROR){
 				throw new AuthenticationException("Error ["+status+"] invoking Auth user["+getUsername()+"] over url:["+loginCall.getURI().toString()+"]");
 			}
-			
-			
+			logins.incrementAndGet();
+
+			long expiresAt = now + getSessionTtl();
+			for (Cookie c : client.getState().getCookies()) {
+				if(c.getExpiryDate()!=null && isSameDomain(conf, c)
+						&& c.getExpiryDate().getTime() < expiresAt && c.getExpiryDate().getTime() > now){
+					expiresAt = c.getExpiryDate().getTime();
+				}
+			}
+			// numbered before it is seen as valid
+			session = logins.get();
+			sessionClient = client;
+			sessionExpiresAt = expiresAt;
 			
 		} catch (IOException e) {
 			throw new AuthenticationException(e.getMessage(), e);
@@ -102,6 +177,43 @@ public class LoginHttpAuth implements Auth {
 		
 	}
 
+	private static boolean isSameDomain(AbstractConnectionConfiguration conf, Cookie c) {
+		String d = c.getDomain();
+		if(d==null){
+			return false;
+		}
+		String host = conf.getDomain();
+		int port = host.indexOf(':');
+		if(port >= 0){
+			host = host.substring(0, port);
+		}
+		return host.endsWith(d.startsWith(".") ? d.substring(1) : d);
+	}
+
+	/**
+	 * Get session time to live in milliseconds
+	 * @return
+	 */
+	public long getSessionTtl() {
+		return sessionTtl;
+	}
+
+	/**
+	 * Set session time to live in milliseconds, 0 to login before every request
+	 * @return
+	 */
+	public void setSessionTtl(long sessionTtl) {
+		this.sessionTtl = sessionTtl;
+	}
+
+	/**
+	 * Get amount of successful logins performed
+	 * @return
+	 */
+	public long getLogins() {
+		return logins.get();
+	}
+
 	/**
 	 * Get User name used for login procedure
 	 * @return
@@ -0,0 +1,73 @@
+package org.aroundthecode.tools.remote.api.request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * {@link RequestEntity} compressing another entity with gzip while it is written, so the compressed body is never held in memory.
+ * Length is unknown in advance and the body is sent chunked; requests using it need a <b>Content-Encoding: gzip</b> header.
+ * @author michele.sacchetti
+ */
+public class GzipRequestEntity implements RequestEntity {
+
+	/**
+	 * Content-Encoding value of compressed bodies
+	 */
+	public static final String ENCODING = "gzip";
+
+	private static final int BUF_SIZE = 8192;
+
+	private final RequestEntity entity;
+
+	/**
+	 * @param entity entity to compress
+	 */
+	public GzipRequestEntity(RequestEntity entity) {
+		this.entity = entity;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isRepeatable() {
+		return entity.isRepeatable();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void writeRequest(OutputStream out) throws IOException {
+		GZIPOutputStream gzip = new GZIPOutputStream(out, BUF_SIZE);
+		entity.writeRequest(gzip);
+		// finish without closing the connection stream
+		gzip.finish();
+		gzip.flush();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @return -1, compressed length is known only once written
+	 */
+	public long getContentLength() {
+		return -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getContentType() {
+		return entity.getContentType();
+	}
+
+	/**
+	 * Get the uncompressed entity
+	 * @return uncompressed entity
+	 */
+	public RequestEntity getEntity() {
+		return entity;
+	}
+
+}
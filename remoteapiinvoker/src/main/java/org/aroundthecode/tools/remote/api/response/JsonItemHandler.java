@@ -0,0 +1,19 @@
+package org.aroundthecode.tools.remote.api.response;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving the items of a JSON array from a {@link JsonStreamResponseParser} as soon as each one is parsed
+ * @author michele.sacchetti
+ */
+public interface JsonItemHandler {
+
+	/**
+	 * Handle one array item
+	 * @param item item as {@link org.json.simple.JSONObject}, {@link org.json.simple.JSONArray}, String, Number, Boolean or null
+	 * @return false to stop parsing, remaining items are skipped
+	 * @throws IOException to abort parsing
+	 */
+	boolean item(Object item) throws IOException;
+
+}
@@ -0,0 +1,190 @@
+package org.aroundthecode.tools.remote.api.response;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfiguration;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * {@link ResponseParser} implementation streaming the items of a JSON array to a {@link JsonItemHandler} while the response is read,
+ * so only one item at a time is held in memory.
+ * <p>The streamed array is either the whole response or, if a field name is given, the array stored in that field
+ * of the top level object; other fields of such object are kept and available via {@link #getEnvelope()}.</p>
+ * {@link #getResponse()} returns the amount of items handled.
+ * @author michele.sacchetti
+ */
+public class JsonStreamResponseParser implements ResponseParser {
+
+	/**
+	 * Marks the streamed array on the parsing stack
+	 */
+	private static final Object STREAM = new Object();
+
+	private final JsonItemHandler handler;
+	private final String field;
+
+	/**
+	 * Thread-local response data
+	 */
+	private ThreadLocal<Long> count = new ThreadLocal<Long>();
+	private ThreadLocal<JSONObject> envelope = new ThreadLocal<JSONObject>();
+
+	/**
+	 * Stream items of a response made of a JSON array
+	 * @param handler item callback
+	 */
+	public JsonStreamResponseParser(JsonItemHandler handler) {
+		this(handler, null);
+	}
+
+	/**
+	 * Stream items of the array in a field of a response made of a JSON object
+	 * @param handler item callback
+	 * @param field name of top level field holding the array, null if response is the array itself
+	 */
+	public JsonStreamResponseParser(JsonItemHandler handler, String field) {
+		this.handler = handler;
+		this.field = field;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void parse(InputStream in) throws IOException {
+		StreamHandler h = new StreamHandler();
+		try {
+			new JSONParser().parse(new BufferedReader(new InputStreamReader(in, AbstractConnectionConfiguration.CHARSET_NAME)), h);
+		} catch (ParseException e) {
+			//just propagate
+			throw new IOException(e);
+		}
+		finally {
+			count.set(h.items);
+			envelope.set(h.envelope);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @return amount of items handled
+	 */
+	public Long getResponse() {
+		return count.get();
+	}
+
+	/**
+	 * Get top level object without the streamed field
+	 * @return top level object, null if response is an array
+	 */
+	public JSONObject getEnvelope() {
+		return envelope.get();
+	}
+
+	/**
+	 * Builds one item at a time, the streamed array itself is never filled
+	 */
+	private class StreamHandler implements ContentHandler {
+
+		private final Deque<Object> stack = new ArrayDeque<>();
+		private final Deque<String> keys = new ArrayDeque<>();
+		private JSONObject envelope = null;
+		private long items = 0;
+
+		@Override
+		public void startJSON() {
+			// nothing to do
+		}
+
+		@Override
+		public void endJSON() {
+			// nothing to do
+		}
+
+		@Override
+		public boolean startObject() {
+			JSONObject o = new JSONObject();
+			if(stack.isEmpty()){
+				envelope = o;
+			}
+			stack.push(o);
+			return true;
+		}
+
+		@Override
+		public boolean endObject() throws IOException {
+			return end();
+		}
+
+		@Override
+		public boolean startObjectEntry(String key) {
+			keys.push(key);
+			return true;
+		}
+
+		@Override
+		public boolean endObjectEntry() {
+			return true;
+		}
+
+		@Override
+		public boolean startArray() {
+			if(field==null ? stack.isEmpty() : stack.size()==1 && stack.peek()==envelope && field.equals(keys.peek())){
+				stack.push(STREAM);
+			}
+			else{
+				stack.push(new JSONArray());
+			}
+			return true;
+		}
+
+		@Override
+		public boolean endArray() throws IOException {
+			return end();
+		}
+
+		@Override
+		public boolean primitive(Object value) throws IOException {
+			return add(value);
+		}
+
+		private boolean end() throws IOException {
+			Object c = stack.pop();
+			if(stack.isEmpty()){
+				return true;
+			}
+			if(c==STREAM){
+				// streamed field is left out of the envelope
+				keys.pop();
+				return true;
+			}
+			return add(c);
+		}
+
+		@SuppressWarnings("unchecked")
+		private boolean add(Object value) throws IOException {
+			Object parent = stack.peek();
+			if(parent==STREAM){
+				items++;
+				return handler.item(value);
+			}
+			if(parent instanceof JSONObject){
+				((JSONObject) parent).put(keys.pop(), value);
+			}
+			else if(parent instanceof JSONArray){
+				((JSONArray) parent).add(value);
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -1,24 +1,30 @@
 package org.aroundthecode.tools.remote.api.response;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * {@link ResponseParser} implementation, save response stream to a temporary file provided its reference
+ * {@link ResponseParser} implementation, save response stream to a temporary file provided its reference.
+ * <p>Each download is written through a {@link FileChannel} into a new uniquely named file, created atomically in the
+ * storage path, and its size is checked against the expected length. The file belongs to the caller, who should delete it
+ * when done. If a download fails and the server provided an ETag, the partial file is kept so that
+ * {@link org.aroundthecode.tools.remote.api.AbstractUrlManager#downloadFile} can resume it with a range request.</p>
  * @author michele.sacchetti
  */
 public class TemporaryFileResponseParser implements ResponseParser {
 
-	private static final int BUFSIZE = 1024;
+	private static final long CHUNK = 1024 * 1024L;
 
 	private static final Logger log = LogManager.getLogger(TemporaryFileResponseParser.class.getName());
 
@@ -28,6 +34,8 @@ public class TemporaryFileResponseParser implements ResponseParser {
 	private ThreadLocal<File> response = new ThreadLocal<File>(); 
 	private ThreadLocal<String> tmpPath = new ThreadLocal<String>(); 
 	private ThreadLocal<String> filename = new ThreadLocal<String>(); 
+	private ThreadLocal<File> partial = new ThreadLocal<File>(); 
+	private ThreadLocal<String> etag = new ThreadLocal<String>(); 
 
 	/**
 	 * Save response stream to a temporary file provided its reference
@@ -55,36 +63,106 @@ public class TemporaryFileResponseParser implements ResponseParser {
 	/**
 	 * Set String response data
 	 * @param response
+	 * @throws IOException if the response cannot be saved
 	 */
-	public void setResponse(InputStream response) {
+	public void setResponse(InputStream response) throws IOException {
+		download(response, 0, -1, null);
+	}
+
+	/**
+	 * Save response stream, appending to the partial file of a previous download when resuming
+	 * @param in response stream, closed on return
+	 * @param offset position the stream starts from, 0 for a new download
+	 * @param length expected amount of bytes in the stream, -1 if unknown
+	 * @param tag response ETag, needed to resume after a failure
+	 * @throws IOException if the transfer fails or the amount of bytes differs from length
+	 */
+	public void download(InputStream in, long offset, long length, String tag) throws IOException {
+		File f = getPartialFile();
+		if(f==null || !f.exists()){
+			f = createFile();
+			offset = 0;
+		}
+		partial.set(f);
+		etag.set(tag);
+		response.set(null);
 
-		String file = (getStoragePath() + "/" + getFilename() ).replaceAll("//", "/");
-		File f = new File(file);
-		f.deleteOnExit();
+		long written = offset;
 		try(
-				BufferedInputStream bis= new BufferedInputStream(response);
-				FileOutputStream fos = new FileOutputStream(f);
-				OutputStream out = new BufferedOutputStream( fos );
+				ReadableByteChannel src = Channels.newChannel(in);
+				FileChannel dst = FileChannel.open(f.toPath(), StandardOpenOption.WRITE);
 				) {
-
-			byte[] buffer = new byte[BUFSIZE];
-			int count = -1;
-			while ((count = bis.read(buffer)) != -1) {
-				out.write(buffer, 0, count);
+			dst.truncate(offset);
+			long n;
+			while ((n = dst.transferFrom(src, written, CHUNK)) > 0) {
+				written += n;
 			}
 		} catch (IOException e) {
-			getLog().error(this.getClass().getName() + " : " + e.getMessage(),e);
-		}finally{
-			try {
-				response.close();
-			} catch (IOException e) {
-				getLog().error(e.getMessage(),e);
-			}
+			getLog().warn("Download interrupted at [{}] bytes of [{}]: {}", written, f, e.getMessage());
+			discardIfNotResumable();
+			throw e;
+		}
+
+		if(length >= 0 && written - offset != length){
+			getLog().warn("Incomplete download: [{}] bytes of [{}] expected", written - offset, length);
+			discardIfNotResumable();
+			throw new IOException("Incomplete download: " + (written - offset) + " bytes of " + length);
 		}
 
+		partial.remove();
+		etag.remove();
 		this.response.set(f);
 	}
 
+	private File createFile() throws IOException {
+		Path dir = Paths.get(getStoragePath());
+		Files.createDirectories(dir);
+		String prefix = getFilename()!=null && !getFilename().isEmpty() ? getFilename() + "." : "download.";
+		return Files.createTempFile(dir, prefix, ".tmp").toFile();
+	}
+
+	private void discardIfNotResumable() {
+		if(!isResumable()){
+			discard();
+		}
+	}
+
+	/**
+	 * Delete the partial file of an interrupted download and forget it
+	 */
+	public void discard() {
+		File f = partial.get();
+		if(f!=null && !f.delete()){
+			getLog().warn("Unable to delete [{}]", f);
+		}
+		partial.remove();
+		etag.remove();
+	}
+
+	/**
+	 * @return true if an interrupted download can be resumed
+	 */
+	public boolean isResumable() {
+		File f = partial.get();
+		return f!=null && f.exists() && etag.get()!=null;
+	}
+
+	/**
+	 * Get partial file of an interrupted download
+	 * @return partial file, null if none
+	 */
+	public File getPartialFile() {
+		return partial.get();
+	}
+
+	/**
+	 * Get ETag of an interrupted download
+	 * @return ETag, null if none
+	 */
+	public String getEtag() {
+		return etag.get();
+	}
+
 	/**
 	 * get Logger
 	 * @return
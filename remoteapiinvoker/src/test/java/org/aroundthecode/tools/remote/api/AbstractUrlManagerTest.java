@@ -0,0 +1,241 @@
+package org.aroundthecode.tools.remote.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfiguration.AllowedProtocol;
+import org.aroundthecode.tools.remote.api.configuration.BasicConnectionConfiguration;
+import org.aroundthecode.tools.remote.api.response.StringResponseParser;
+import org.aroundthecode.tools.remote.api.response.TemporaryFileResponseParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class AbstractUrlManagerTest {
+
+	private static final String TMP = System.getProperty("java.io.tmpdir");
+	private static final NameValuePair[] NONE = new NameValuePair[0];
+
+	private final byte[] data = new byte[256 * 1024];
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+	private HttpServer server;
+	private AbstractUrlManager manager;
+
+	@Before
+	public void setup() throws IOException {
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) ('a' + (i * 7 + i / 1024) % 26);
+		}
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/gzip", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange t) throws IOException {
+				send(t, HttpStatus.SC_OK, "gzip", gzip(data));
+			}
+		});
+		server.createContext("/deflate", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange t) throws IOException {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				try(OutputStream d = new DeflaterOutputStream(out)){
+					d.write(data);
+				}
+				send(t, HttpStatus.SC_OK, "deflate", out.toByteArray());
+			}
+		});
+		// accepts identity request bodies only, as RFC 7694 says
+		server.createContext("/identity", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange t) throws IOException {
+				String encoding = t.getRequestHeaders().getFirst("Content-Encoding");
+				requests.add(String.valueOf(encoding));
+				byte[] body = read(t.getRequestBody());
+				if(encoding!=null){
+					t.getResponseHeaders().set("Accept-Encoding", "identity");
+					send(t, HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, null, new byte[0]);
+				}
+				else{
+					send(t, HttpStatus.SC_OK, null, body);
+				}
+			}
+		});
+		// rejects every content type
+		server.createContext("/unsupported", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange t) throws IOException {
+				requests.add(String.valueOf(t.getRequestHeaders().getFirst("Content-Encoding")));
+				read(t.getRequestBody());
+				send(t, HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, null, new byte[0]);
+			}
+		});
+		server.createContext("/echo", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange t) throws IOException {
+				String encoding = t.getRequestHeaders().getFirst("Content-Encoding");
+				requests.add(String.valueOf(encoding));
+				byte[] body = read("gzip".equals(encoding) ? new GZIPInputStream(t.getRequestBody()) : t.getRequestBody());
+				send(t, HttpStatus.SC_OK, null, body);
+			}
+		});
+		// first transfer is compressed and breaks halfway, ranges are served uncompressed
+		server.createContext("/file", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange t) throws IOException {
+				requests.add(t.getRequestHeaders().getFirst("Accept-Encoding"));
+				String range = t.getRequestHeaders().getFirst("Range");
+				t.getResponseHeaders().set("ETag", "\"v1\"");
+				if(range!=null){
+					int from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+					t.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + (data.length - 1) + "/" + data.length);
+					send(t, HttpStatus.SC_PARTIAL_CONTENT, null, Arrays.copyOfRange(data, from, data.length));
+				}
+				else{
+					byte[] gz = gzip(data);
+					truncate(t, gz, gz.length, gz.length / 2);
+				}
+			}
+		});
+		// complete gzip data in a body shorter than its Content-Length
+		server.createContext("/short", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange t) throws IOException {
+				byte[] gz = gzip(data);
+				truncate(t, gz, gz.length + 10, gz.length);
+			}
+		});
+		server.start();
+
+		manager = new AbstractUrlManager(new BasicConnectionConfiguration(AllowedProtocol.HTTP, "localhost:" + server.getAddress().getPort())) {
+			@Override
+			public String getUrlPath() {
+				return "";
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	/**
+	 * gzip and deflate responses are decoded
+	 */
+	@Test
+	public void testResponseStream() throws IOException {
+		StringResponseParser p = new StringResponseParser();
+		manager.doGet("/gzip", p, NONE);
+		assertEquals(new String(data, StandardCharsets.UTF_8), p.getResponse());
+		manager.doGet("/deflate", p, NONE);
+		assertEquals(new String(data, StandardCharsets.UTF_8), p.getResponse());
+	}
+
+	/**
+	 * Large bodies are sent compressed, a server not accepting gzip gets that request uncompressed
+	 */
+	@Test
+	public void testRequestCompression() throws IOException {
+		String json = "[\"" + new String(data, StandardCharsets.UTF_8) + "\"]";
+		StringResponseParser p = new StringResponseParser();
+		manager.setCompressionThreshold(1024);
+
+		manager.doPost("/echo", p, NONE, new StringRequestEntity(json, "application/json", "UTF-8"));
+		assertEquals(json, p.getResponse());
+		manager.doPost("/identity", p, NONE, new StringRequestEntity(json, "application/json", "UTF-8"));
+		assertEquals(json, p.getResponse());
+		// 415 for another reason is not retried, compression stays on
+		assertEquals(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, manager.doPost("/unsupported", p, NONE, new StringRequestEntity(json, "application/json", "UTF-8")));
+		assertEquals(1024, manager.getCompressionThreshold());
+		assertEquals(Arrays.asList("gzip", "gzip", "null", "gzip"), requests);
+	}
+
+	/**
+	 * A broken compressed download is resumed asking for uncompressed bytes from the decoded length
+	 */
+	@Test
+	public void testResumeOverGzip() throws IOException {
+		TemporaryFileResponseParser p = new TemporaryFileResponseParser(TMP);
+		assertEquals(HttpStatus.SC_PARTIAL_CONTENT, manager.downloadFile("/file", p, NONE, NONE));
+		assertArrayEquals(data, Files.readAllBytes(p.getResponse().toPath()));
+		assertEquals(Arrays.asList("gzip, deflate", "identity"), requests);
+		Files.delete(p.getResponse().toPath());
+	}
+
+	/**
+	 * A compressed download is checked against its Content-Length
+	 */
+	@Test
+	public void testCompressedLength() {
+		TemporaryFileResponseParser p = new TemporaryFileResponseParser(TMP);
+		try {
+			manager.downloadFile("/short", p, NONE, NONE);
+			fail("Incomplete download expected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	private static byte[] gzip(byte[] b) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(OutputStream gz = new GZIPOutputStream(out)){
+			gz.write(b);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] b = new byte[8192];
+		int n;
+		while((n = in.read(b)) > 0){
+			out.write(b, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static void send(HttpExchange t, int status, String encoding, byte[] body) throws IOException {
+		if(encoding!=null){
+			t.getResponseHeaders().set("Content-Encoding", encoding);
+		}
+		t.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+		try(OutputStream out = t.getResponseBody()){
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Announce length bytes of a gzip body, send only the first sent ones and drop the connection
+	 */
+	private static void truncate(HttpExchange t, byte[] gz, int length, int sent) throws IOException {
+		t.getResponseHeaders().set("Content-Encoding", "gzip");
+		t.sendResponseHeaders(HttpStatus.SC_OK, length);
+		OutputStream out = t.getResponseBody();
+		out.write(gz, 0, sent);
+		out.flush();
+		// insufficient bytes written, the server closes the connection once the handler throws
+		out.close();
+	}
+
+}
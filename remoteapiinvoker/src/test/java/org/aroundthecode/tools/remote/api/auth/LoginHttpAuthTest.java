@@ -1,14 +1,28 @@
 package org.aroundthecode.tools.remote.api.auth;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.auth.AuthenticationException;
 import org.apache.commons.httpclient.methods.GetMethod;
+import org.aroundthecode.tools.remote.api.AbstractUrlManager;
 import org.aroundthecode.tools.remote.api.configuration.AbstractConnectionConfiguration.AllowedProtocol;
 import org.aroundthecode.tools.remote.api.configuration.BasicConnectionConfiguration;
+import org.aroundthecode.tools.remote.api.response.StringResponseParser;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 public class LoginHttpAuthTest {
 
 	
@@ -34,4 +48,72 @@ public class LoginHttpAuthTest {
 		}
 	}
 
+	/**
+	 * Tests session reuse and login on 401 against a local stub server
+	 */
+	@Test
+	public void testSessionReuse() throws IOException {
+		final AtomicInteger session = new AtomicInteger();
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/login", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().add("Set-Cookie", "SID=" + session.incrementAndGet() + "; Path=/");
+				exchange.sendResponseHeaders(HttpStatus.SC_OK, -1);
+				exchange.close();
+			}
+		});
+		server.createContext("/api", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+				boolean valid = cookie!=null && cookie.contains("SID=" + session.get());
+				byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(valid ? HttpStatus.SC_OK : HttpStatus.SC_UNAUTHORIZED, valid ? body.length : -1);
+				try(OutputStream out = exchange.getResponseBody()){
+					if(valid){
+						out.write(body);
+					}
+				}
+			}
+		});
+		server.start();
+
+		try {
+			LoginHttpAuth auth = new LoginHttpAuth("user", "pass", "/login");
+			BasicConnectionConfiguration conf = new BasicConnectionConfiguration(AllowedProtocol.HTTP, "127.0.0.1:" + server.getAddress().getPort());
+			AbstractUrlManager um = new AbstractUrlManager(conf) {
+				@Override
+				public String getUrlPath() {
+					return "/api";
+				}
+			};
+			um.setAuth(auth);
+			StringResponseParser parser = new StringResponseParser();
+
+			for (int i = 0; i < 3; i++) {
+				assertEquals(HttpStatus.SC_OK, um.doGet(parser));
+			}
+			assertEquals(1, auth.getLogins());
+
+			// server side session expiry: 401, login again and retry
+			session.incrementAndGet();
+			assertEquals(HttpStatus.SC_OK, um.doGet(parser));
+			assertEquals("ok", parser.getResponse());
+			assertEquals(2, auth.getLogins());
+
+			// late 401 of a request sent with the first session keeps the second one
+			assertEquals(2, auth.getSession());
+			auth.invalidate(1);
+			assertEquals(HttpStatus.SC_OK, um.doGet(parser));
+			assertEquals(2, auth.getLogins());
+			auth.invalidate(2);
+			assertEquals(HttpStatus.SC_OK, um.doGet(parser));
+			assertEquals(3, auth.getLogins());
+		}
+		finally {
+			server.stop(0);
+		}
+	}
+
 }
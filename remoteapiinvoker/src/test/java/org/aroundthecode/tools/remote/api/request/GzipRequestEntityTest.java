@@ -0,0 +1,54 @@
+package org.aroundthecode.tools.remote.api.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.junit.Test;
+
+public class GzipRequestEntityTest {
+
+	/**
+	 * The written body decodes to the original one, the connection stream is left open
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < 1000; i++) {
+			sb.append(i > 0 ? "," : "").append("{\"u\":\"my.group:artifact-").append(i).append(":jar::1.0.0\"}");
+		}
+		String json = sb.append(']').toString();
+		GzipRequestEntity e = new GzipRequestEntity(new StringRequestEntity(json, "application/json", "UTF-8"));
+		assertEquals(-1, e.getContentLength());
+		assertTrue(e.getContentType().startsWith("application/json"));
+		assertTrue(e.isRepeatable());
+
+		final boolean[] closed = {false};
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		e.writeRequest(out);
+		assertEquals(false, closed[0]);
+		assertTrue(out.size() < json.length() / 4);
+
+		ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+		try(InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))){
+			byte[] b = new byte[4096];
+			int n;
+			while((n = in.read(b)) > 0){
+				decoded.write(b, 0, n);
+			}
+		}
+		assertEquals(json, decoded.toString("UTF-8"));
+	}
+
+}
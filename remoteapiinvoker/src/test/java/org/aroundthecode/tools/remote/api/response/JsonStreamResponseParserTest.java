@@ -0,0 +1,85 @@
+package org.aroundthecode.tools.remote.api.response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+public class JsonStreamResponseParserTest {
+
+	private static ByteArrayInputStream stream(String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Items of a top level array are handled one by one
+	 */
+	@Test
+	public void testArray() throws IOException {
+		final List<Object> items = new ArrayList<>();
+		JsonStreamResponseParser p = new JsonStreamResponseParser(new JsonItemHandler() {
+			@Override
+			public boolean item(Object item) {
+				items.add(item);
+				return true;
+			}
+		});
+		p.parse(stream("[{\"a\":1},{\"b\":[1,2]},3]"));
+
+		assertEquals(Long.valueOf(3), p.getResponse());
+		assertEquals(3, items.size());
+		assertEquals(1L, ((JSONObject) items.get(0)).get("a"));
+		assertEquals(2, ((JSONArray) ((JSONObject) items.get(1)).get("b")).size());
+		assertEquals(3L, items.get(2));
+	}
+
+	/**
+	 * Items of an array field are handled one by one, other fields are kept in the envelope
+	 */
+	@Test
+	public void testField() throws IOException {
+		final List<Object> rows = new ArrayList<>();
+		JsonStreamResponseParser p = new JsonStreamResponseParser(new JsonItemHandler() {
+			@Override
+			public boolean item(Object item) {
+				rows.add(item);
+				return true;
+			}
+		}, "rows");
+		p.parse(stream("{\"columns\":[\"x\"],\"rows\":[[1],[2]],\"count\":2}"));
+
+		assertEquals(Long.valueOf(2), p.getResponse());
+		assertEquals(2, rows.size());
+		JSONObject envelope = p.getEnvelope();
+		assertFalse(envelope.containsKey("rows"));
+		assertEquals(2L, envelope.get("count"));
+		assertEquals(1, ((JSONArray) envelope.get("columns")).size());
+	}
+
+	/**
+	 * Parsing stops when handler returns false
+	 */
+	@Test
+	public void testStop() throws IOException {
+		JsonStreamResponseParser p = new JsonStreamResponseParser(new JsonItemHandler() {
+			@Override
+			public boolean item(Object item) {
+				return false;
+			}
+		});
+		p.parse(stream("[1,2,3]"));
+
+		assertEquals(Long.valueOf(1), p.getResponse());
+		assertTrue(p.getEnvelope()==null);
+	}
+
+}
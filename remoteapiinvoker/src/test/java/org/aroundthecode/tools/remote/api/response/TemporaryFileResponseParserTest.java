@@ -0,0 +1,89 @@
+package org.aroundthecode.tools.remote.api.response;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TemporaryFileResponseParserTest {
+
+	private static final String TMP = System.getProperty("java.io.tmpdir");
+
+	/**
+	 * Every download gets its own file
+	 */
+	@Test
+	public void testUniqueFiles() throws IOException {
+		TemporaryFileResponseParser p = new TemporaryFileResponseParser(TMP);
+		p.setFilename("download");
+		byte[] data = "[1,2,3]".getBytes("UTF-8");
+
+		p.download(new ByteArrayInputStream(data), 0, data.length, null);
+		File first = p.getResponse();
+		p.download(new ByteArrayInputStream(data), 0, data.length, null);
+		File second = p.getResponse();
+
+		assertNotEquals(first, second);
+		assertArrayEquals(data, Files.readAllBytes(first.toPath()));
+		assertArrayEquals(data, Files.readAllBytes(second.toPath()));
+		assertTrue(first.delete());
+		assertTrue(second.delete());
+	}
+
+	/**
+	 * A short transfer fails, keeps the partial file when an ETag is known and is completed by the rest of the content
+	 */
+	@Test
+	public void testResume() throws IOException {
+		TemporaryFileResponseParser p = new TemporaryFileResponseParser(TMP);
+		p.setFilename("download");
+		byte[] data = new byte[3 * 1024 * 1024 + 7];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+		int cut = 1024 * 1024 + 3;
+
+		try {
+			p.download(new ByteArrayInputStream(Arrays.copyOf(data, cut)), 0, data.length, "\"v1\"");
+			fail("Incomplete download expected");
+		} catch (IOException e) {
+			// expected
+		}
+		assertNull(p.getResponse());
+		assertTrue(p.isResumable());
+		File partial = p.getPartialFile();
+
+		p.download(new ByteArrayInputStream(Arrays.copyOfRange(data, cut, data.length)), partial.length(), data.length - cut, "\"v1\"");
+		assertFalse(p.isResumable());
+		assertArrayEquals(data, Files.readAllBytes(p.getResponse().toPath()));
+		assertTrue(p.getResponse().delete());
+	}
+
+	/**
+	 * Without an ETag a failed download cannot be resumed and its file is deleted
+	 */
+	@Test
+	public void testNotResumable() throws IOException {
+		TemporaryFileResponseParser p = new TemporaryFileResponseParser(TMP);
+		p.setFilename("download");
+		try {
+			p.download(new ByteArrayInputStream(new byte[10]), 0, 20, null);
+			fail("Incomplete download expected");
+		} catch (IOException e) {
+			// expected
+		}
+		assertFalse(p.isResumable());
+		assertNull(p.getPartialFile());
+	}
+
+}